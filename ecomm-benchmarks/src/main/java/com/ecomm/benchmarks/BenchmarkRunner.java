@@ -0,0 +1,51 @@
+package com.ecomm.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Runs the JMH benchmarks and keeps the results as JSON.
+ *
+ * Takes the usual JMH command line. Unless -rf/-rff say otherwise, results are
+ * written to target/jmh-results/{version}-{timestamp}.json, so runs of
+ * different releases can be compared file by file.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp()) {
+            options.showHelp();
+            return;
+        }
+        Runner listingRunner = new Runner(options);
+        if (options.shouldList()) {
+            listingRunner.list();
+            return;
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        if (!options.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!options.getResult().hasValue()) {
+            builder.result(defaultResultFile());
+        }
+        new Runner(builder.build()).run();
+    }
+
+    private static String defaultResultFile() {
+        String version = System.getProperty("benchmarks.version", "dev");
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        File directory = new File("target/jmh-results");
+        directory.mkdirs();
+        return new File(directory, version + "-" + timestamp + ".json").getPath();
+    }
+}
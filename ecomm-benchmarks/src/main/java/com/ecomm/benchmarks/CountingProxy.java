@@ -0,0 +1,98 @@
+package com.ecomm.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TCP relay that counts the bytes going each way, for comparing what the
+ * transports put on the wire including HTTP headers and framing.
+ */
+class CountingProxy implements AutoCloseable {
+
+    private final int targetPort;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    CountingProxy(int targetPort) throws IOException {
+        this.targetPort = targetPort;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptConnections, "counting-proxy");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return Bytes from clients to the target so far
+     */
+    long bytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * @return Bytes from the target to clients so far
+     */
+    long bytesReceived() {
+        return bytesReceived.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                Socket target = new Socket();
+                target.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), targetPort));
+                client.setTcpNoDelay(true);
+                target.setTcpNoDelay(true);
+                sockets.add(client);
+                sockets.add(target);
+                relay(client, target, bytesSent);
+                relay(target, client, bytesReceived);
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+    }
+
+    private void relay(Socket from, Socket to, AtomicLong counter) {
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[16 * 1024];
+            try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    // Counted before forwarding, so a caller that has its response sees it counted
+                    counter.addAndGet(read);
+                    out.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                // Either side closed
+            } finally {
+                sockets.remove(from);
+                sockets.remove(to);
+            }
+        }, "counting-proxy-relay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,60 @@
+package com.ecomm.benchmarks;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Lets ecommadmin run on H2 in MySQL mode.
+ *
+ * The streaming product queries pass Integer.MIN_VALUE as fetch size, which
+ * tells MySQL Connector/J to stream rows and which H2 rejects, and shared row
+ * locks are written "for share", which H2 does not know. This drops that one
+ * fetch size and turns shared locks into exclusive ones on the way to the
+ * driver; everything else passes through. Exclusive locks make the holder
+ * lock of HotInventory serialize reservations that MySQL runs concurrently.
+ */
+@Configuration(proxyBeanMethods = false)
+class H2Compatibility {
+
+    @Bean
+    static BeanPostProcessor streamingFetchSizeFilter() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? wrap(DataSource.class, dataSource) : bean;
+            }
+        };
+    }
+
+    // Proxies the JDBC interface the target was returned as, and the connections and statements it hands out
+    private static Object wrap(Class<?> type, Object target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("setFetchSize") && args[0].equals(Integer.MIN_VALUE)) {
+                return null;
+            }
+            if (method.getName().equals("prepareStatement") && args[0] instanceof String sql && sql.endsWith(" for share")) {
+                args[0] = sql.substring(0, sql.length() - "share".length()) + "update";
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            Class<?> returnType = method.getReturnType();
+            if (result != null && (Connection.class.isAssignableFrom(returnType) || Statement.class.isAssignableFrom(returnType))) {
+                return wrap(returnType, result);
+            }
+            return result;
+        };
+        return Proxy.newProxyInstance(H2Compatibility.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+}
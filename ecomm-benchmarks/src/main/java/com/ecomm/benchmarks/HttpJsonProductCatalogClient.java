@@ -0,0 +1,103 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommbuyer.client.ProductCatalogClient;
+import com.ecomm.ecommbuyer.dto.ProductBatchResponse;
+import com.ecomm.ecommbuyer.dto.ProductCatalog;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * The JSON side of ProductCatalogClient on the same transport the Feign
+ * clients use: a pooled keep-alive Apache HttpClient 5 that asks for gzip,
+ * with Jackson for the bodies. Feign's own dispatch is left out so the
+ * comparison with the binary channel is about the wire format.
+ */
+class HttpJsonProductCatalogClient implements ProductCatalogClient, AutoCloseable {
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final CloseableHttpClient httpClient;
+
+    HttpJsonProductCatalogClient(String baseUrl, int maxConnections, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .build();
+        this.httpClient = HttpClients.custom().setConnectionManager(connectionManager).build();
+    }
+
+    @Override
+    public ProductResponse getProductById(Long id) {
+        return execute(new HttpGet(baseUrl + "/api/admin/products/" + id), new TypeReference<ProductResponse>() { });
+    }
+
+    @Override
+    public ProductBatchResponse getProductsByIds(List<Long> ids) {
+        HttpPost request = new HttpPost(baseUrl + "/api/admin/products/batch");
+        try {
+            request.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(ids), ContentType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return execute(request, new TypeReference<ProductBatchResponse>() { });
+    }
+
+    @Override
+    public ProductCatalog getAvailableCatalog(String knownVersion) {
+        HttpGet request = new HttpGet(baseUrl + "/api/admin/products/available");
+        if (knownVersion != null) {
+            request.setHeader(HttpHeaders.IF_NONE_MATCH, knownVersion);
+        }
+        try {
+            return httpClient.execute(request, response -> {
+                if (response.getCode() == 304) {
+                    EntityUtils.consume(response.getEntity());
+                    return null;
+                }
+                Header eTag = response.getFirstHeader(HttpHeaders.ETAG);
+                List<ProductResponse> products = objectMapper.readValue(response.getEntity().getContent(),
+                        new TypeReference<List<ProductResponse>>() { });
+                return new ProductCatalog(eTag.getValue(), products);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private <T> T execute(ClassicHttpRequest request, TypeReference<T> type) {
+        try {
+            return httpClient.execute(request, response -> {
+                if (response.getCode() != 200) {
+                    throw new RuntimeException(EntityUtils.toString(response.getEntity()));
+                }
+                return objectMapper.readValue(response.getEntity().getContent(), type);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommadmin.dto.ProductBatchResponse;
+import com.ecomm.ecommadmin.dto.ProductCatalog;
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.service.ProductService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ProductService serving a fixed catalog from memory, so the transport
+ * benchmarks measure encoding and the network path rather than the database.
+ */
+class InMemoryProductService extends ProductService {
+
+    private final Map<Long, Product> products = new LinkedHashMap<>();
+    private final ProductCatalog catalog;
+
+    InMemoryProductService(List<Product> products) {
+        super(null, null, null, null, null, null, null, null, 20, 100);
+        for (Product product : products) {
+            this.products.put(product.getId(), product);
+        }
+        this.catalog = new ProductCatalog("v" + products.size(), List.copyOf(products));
+    }
+
+    @Override
+    public Product getProductById(Long id) {
+        Product product = products.get(id);
+        if (product == null) {
+            throw new RuntimeException("Product not found");
+        }
+        return product;
+    }
+
+    @Override
+    public ProductBatchResponse getProductsByIds(List<Long> ids) {
+        List<Product> found = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            Product product = products.get(id);
+            if (product != null) {
+                found.add(product);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new ProductBatchResponse(found, missingIds);
+    }
+
+    @Override
+    public ProductCatalog getAvailableCatalog() {
+        return catalog;
+    }
+}
@@ -0,0 +1,126 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommadmin.EcommadminApplication;
+import com.ecomm.ecommadmin.dto.ReservationItem;
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.repository.ProductRepository;
+import com.ecomm.ecommadmin.service.HotInventory;
+import com.ecomm.ecommadmin.service.InventoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Many threads reserving the same product through InventoryService, on the
+ * real ecommadmin application context with H2 in MySQL mode.
+ *
+ * Each iteration starts with {@code stock} units, which run out partway
+ * through, so the later calls measure refusals. After every iteration the
+ * leases are returned and the benchmark fails unless the reserved units plus
+ * the table quantity add up to the starting stock exactly: more would be an
+ * oversell, fewer lost units. hotSkuThreshold=2147483647 keeps the product on
+ * the table path; 50 is the configured threshold that moves it to hot leases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InventoryContentionBenchmark {
+
+    @Param({"2147483647", "50"})
+    private int hotSkuThreshold;
+
+    @Param({"500"})
+    private int stock;
+
+    private ConfigurableApplicationContext context;
+    private InventoryService inventoryService;
+    private HotInventory hotInventory;
+    private ProductRepository productRepository;
+    private JdbcTemplate jdbcTemplate;
+    private Long productId;
+    private final LongAdder refused = new LongAdder();
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(EcommadminApplication.class, H2Compatibility.class)
+                .web(WebApplicationType.NONE)
+                // As command line arguments, so they override application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:inventory;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.hikari.maximum-pool-size=32",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--product.rpc.enabled=false",
+                        "--inventory.service-secret=benchmark-secret",
+                        "--inventory.hot-sku.threshold=" + hotSkuThreshold,
+                        "--logging.level.root=ERROR");
+        inventoryService = context.getBean(InventoryService.class);
+        hotInventory = context.getBean(HotInventory.class);
+        productRepository = context.getBean(ProductRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        Product product = SampleData.products(1).get(0);
+        product.setId(null);
+        productId = productRepository.save(product).getId();
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        hotInventory.evict(productId);
+        jdbcTemplate.update("delete from inventory_reservations where product_id = ?", productId);
+        productRepository.setQuantity(productId, stock);
+        refused.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkNoOversell() {
+        hotInventory.evict(productId);
+        Integer left = jdbcTemplate.queryForObject("select quantity from products where id = ?", Integer.class, productId);
+        Long reserved = jdbcTemplate.queryForObject(
+                "select coalesce(sum(quantity), 0) from inventory_reservations where product_id = ?", Long.class, productId);
+        if (left < 0 || reserved + left != stock) {
+            throw new IllegalStateException("Stock of " + stock + " ended as " + reserved + " reserved and "
+                    + left + " left, " + refused.sum() + " reservations refused");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean reserveOne() {
+        try {
+            inventoryService.reserve(List.of(new ReservationItem(productId, 1)));
+            return true;
+        } catch (RuntimeException e) {
+            refused.increment();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommadmin.controller.ProductController;
+import com.ecomm.ecommadmin.service.ProductService;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.servlet.context.AnnotationConfigServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+/**
+ * ecommadmin's ProductController on embedded Tomcat and Spring MVC, without
+ * the rest of the application.
+ *
+ * Compression is set up as server.compression in ecommadmin, so the JSON side
+ * of the transport benchmarks pays for the same HTTP, MVC and gzip work as in
+ * production. Only the product lookups are served; the controller's other
+ * collaborators are left out.
+ */
+class JsonProductEndpoint implements AutoCloseable {
+
+    private final AnnotationConfigServletWebServerApplicationContext context;
+
+    JsonProductEndpoint(ProductService productService) {
+        context = new AnnotationConfigServletWebServerApplicationContext();
+        context.registerBean(ProductService.class, () -> productService);
+        context.register(WebConfig.class);
+        context.refresh();
+    }
+
+    int port() {
+        return context.getWebServer().getPort();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableWebMvc
+    static class WebConfig {
+
+        @Bean
+        TomcatServletWebServerFactory webServerFactory() {
+            Compression compression = new Compression();
+            compression.setEnabled(true);
+            compression.setMimeTypes(new String[] {"application/json"});
+            compression.setMinResponseSize(DataSize.ofKilobytes(2));
+
+            TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+            factory.setCompression(compression);
+            return factory;
+        }
+
+        @Bean
+        DispatcherServlet dispatcherServlet() {
+            return new DispatcherServlet();
+        }
+
+        @Bean
+        ProductController productController(ProductService productService) {
+            return new ProductController(productService, null, null, null, null);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.common.security.AuthenticatedUser;
+import com.ecomm.common.security.JwtVerifier;
+import com.ecomm.common.security.TokenRevocations;
+import com.ecomm.ecommauth.security.JwtKeyManager;
+import com.ecomm.ecommauth.security.JwtKeyStore;
+import com.ecomm.ecommauth.security.JwtUtil;
+import com.ecomm.ecommauth.security.TokenPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token signing and parsing in ecommauth, and the local token verification
+ * ecommadmin and ecommbuyer do on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtBenchmark {
+
+    private static final long EXPIRATION = 86_400_000L;
+    private static final long ROTATION_INTERVAL = 21_600_000L;
+
+    private JwtUtil jwtUtil;
+    private JwtVerifier verifier;
+    private String token;
+    private String authHeader;
+
+    @Setup
+    public void setUp() {
+        JwtKeyManager keyManager = new JwtKeyManager(new InMemoryKeyStore(), EXPIRATION, ROTATION_INTERVAL, 0, 0);
+        jwtUtil = new JwtUtil(keyManager, EXPIRATION, new SimpleMeterRegistry());
+        token = jwtUtil.generateToken(42L, "buyer42", "BUYER", 0);
+        authHeader = "Bearer " + token;
+
+        // Serves the JWK set the way ecommauth's endpoint would, so verification runs fully locally
+        String jwkSet = keyManager.getJwkSet();
+        verifier = new JwtVerifier(() -> jwkSet, new TokenRevocations(changedWithinSeconds -> List.of()), 0,
+                new SimpleMeterRegistry());
+        verifier.verify(authHeader);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(42L, "buyer42", "BUYER", 0);
+    }
+
+    @Benchmark
+    public TokenPrincipal parseToken() {
+        return jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(token, "buyer42");
+    }
+
+    @Benchmark
+    public AuthenticatedUser verifyLocally() {
+        return verifier.verify(authHeader);
+    }
+
+    // Signing and parsing only read the keys the manager already holds, so the database is left out
+    private static class InMemoryKeyStore implements JwtKeyStore {
+
+        private final List<StoredKey> keys = new ArrayList<>();
+
+        @Override
+        public List<StoredKey> findPublished(LocalDateTime now) {
+            return List.copyOf(keys);
+        }
+
+        @Override
+        public boolean rotate(StoredKey next, LocalDateTime rotateBefore, LocalDateTime retireAt) {
+            keys.add(0, next);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommauth.config.PasswordHashingConfig;
+import com.ecomm.ecommauth.security.JwtKeyManager;
+import com.ecomm.ecommauth.security.JwtKeyStore;
+import com.ecomm.ecommauth.security.JwtUtil;
+import com.ecomm.ecommauth.security.TokenPrincipal;
+import com.ecomm.ecommauth.service.PasswordHashingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logins and token validations sharing ecommauth's request threads.
+ *
+ * Twelve threads log in while four validate tokens, all through one pool
+ * standing in for Tomcat's. With hashing=request-threads BCrypt runs on that
+ * pool, as before the dedicated hashing pool existed, so every login in flight
+ * competes with validations for the CPU. With hashing=pool it runs on the
+ * passwordHashingExecutor, sized as security.password-hashing.threads, and the
+ * request thread is handed back at once.
+ *
+ * Throughput mode gives login and validate rates, sample mode their p99. The
+ * hashing queue holds more than the login threads can fill, so no login is
+ * rejected and both settings do the same work.
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class LoginLoadBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final int STRENGTH = 10;
+    private static final int REQUEST_THREADS = 200;
+    private static final int HASHING_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int HASHING_QUEUE_CAPACITY = 64;
+
+    @Param({"request-threads", "pool"})
+    private String hashing;
+
+    private ExecutorService requestThreads;
+    private ThreadPoolTaskExecutor hashingExecutor;
+    private BCryptPasswordEncoder encoder;
+    private PasswordHashingService hashingService;
+    private String encoded;
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+        // Built the same way as ecommauth's SecurityConfig and PasswordHashingConfig
+        encoder = new BCryptPasswordEncoder(STRENGTH);
+        encoded = encoder.encode(PASSWORD);
+        hashingExecutor = new PasswordHashingConfig().passwordHashingExecutor(HASHING_THREADS, HASHING_QUEUE_CAPACITY);
+        hashingService = new PasswordHashingService(encoder, hashingExecutor, new SimpleMeterRegistry());
+
+        jwtUtil = new JwtUtil(new JwtKeyManager(new InMemoryKeyStore(), 86_400_000L, 21_600_000L, 0, 0),
+                86_400_000L, new SimpleMeterRegistry());
+        token = jwtUtil.generateToken(42L, "buyer42", "BUYER", 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        requestThreads.shutdownNow();
+        hashingExecutor.shutdown();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(12)
+    public Boolean login() throws ExecutionException, InterruptedException {
+        // UserController returns the future as an async result, so the request thread only starts the hashing
+        CompletableFuture<Boolean> matched = requestThreads.submit(() -> hashing.equals("pool")
+                ? hashingService.matches(PASSWORD, encoded)
+                : CompletableFuture.completedFuture(encoder.matches(PASSWORD, encoded))).get();
+        return matched.get();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public TokenPrincipal validate() throws ExecutionException, InterruptedException {
+        return requestThreads.submit(() -> jwtUtil.parseToken(token)).get();
+    }
+
+    // Parsing only reads the keys the manager already holds, so the database is left out
+    private static class InMemoryKeyStore implements JwtKeyStore {
+
+        private final List<StoredKey> keys = new ArrayList<>();
+
+        @Override
+        public List<StoredKey> findPublished(LocalDateTime now) {
+            return List.copyOf(keys);
+        }
+
+        @Override
+        public boolean rotate(StoredKey next, LocalDateTime rotateBefore, LocalDateTime retireAt) {
+            keys.add(0, next);
+            return true;
+        }
+    }
+}
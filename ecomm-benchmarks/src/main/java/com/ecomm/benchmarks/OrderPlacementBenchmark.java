@@ -0,0 +1,105 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommbuyer.EcommbuyerApplication;
+import com.ecomm.ecommbuyer.entity.Order;
+import com.ecomm.ecommbuyer.entity.OrderLine;
+import com.ecomm.ecommbuyer.repository.OrderRepository;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders per second written through ecommbuyer's OrderRepository, on H2 in
+ * MySQL mode behind its TCP server so every statement is a round trip.
+ *
+ * jdbcBatchSize=1 writes one statement per row, which is what the inserts did
+ * while ids were IDENTITY columns; 50 is the configured batch size that pooled
+ * sequence ids make possible.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderPlacementBenchmark {
+
+    @Param({"1", "50"})
+    private int jdbcBatchSize;
+
+    @Param({"5"})
+    private int linesPerOrder;
+
+    private Server database;
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private TransactionTemplate transaction;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        context = new SpringApplicationBuilder(EcommbuyerApplication.class)
+                .web(WebApplicationType.NONE)
+                // As command line arguments, so they override application.properties
+                .run("--spring.config.location=" + buyerProperties(),
+                        "--spring.datasource.url=jdbc:h2:tcp://localhost:" + database.getPort()
+                                + "/mem:orders;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "--catalog.change-feed.enabled=false",
+                        "--admin.service.inventory-secret=benchmark-secret",
+                        "--logging.level.root=ERROR");
+        orderRepository = context.getBean(OrderRepository.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    // ecommadmin's application.properties comes first on the classpath, so name ecommbuyer's by its jar
+    private static String buyerProperties() throws Exception {
+        URL location = EcommbuyerApplication.class.getProtectionDomain().getCodeSource().getLocation();
+        return location.getPath().endsWith(".jar")
+                ? "jar:" + location + "!/application.properties"
+                : location + "application.properties";
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        database.stop();
+    }
+
+    @Benchmark
+    public Order placeOrder() {
+        return transaction.execute(status -> {
+            Order order = new Order();
+            order.setBuyerId(7L);
+            order.setStatus(Order.OrderStatus.PLACED);
+            for (int i = 0; i < linesPerOrder; i++) {
+                order.addLine(new OrderLine(100L + i, 1 + i, BigDecimal.valueOf(1999, 2)));
+            }
+            order.updateTotal();
+            return orderRepository.save(order);
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommbuyer.entity.Order;
+import com.ecomm.ecommbuyer.entity.OrderLine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order total calculation over the order lines, as done when an order is placed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderTotalBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int lines;
+
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        order = new Order();
+        for (int i = 0; i < lines; i++) {
+            order.addLine(new OrderLine((long) i, 1 + i % 5, new BigDecimal("19.99").add(BigDecimal.valueOf(i, 2))));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal updateTotal() {
+        order.updateTotal();
+        return order.getTotalPrice();
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.service.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductSearchIndex on its own, without Spring or a database, up to a
+ * catalog of one million products.
+ *
+ * buildIndex measures what the startup rebuild spends indexing, leaving out
+ * streaming the rows from the database. Every sample product contains "trail
+ * running", so searchAllMatch is the worst case for ranking; searchSelective
+ * and suggest are what a typing shopper mostly sends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductSearchIndexBenchmark {
+
+    private static final int LIMIT = 20;
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+
+        @Param({"10000", "1000000"})
+        int catalogSize;
+
+        List<Product> products;
+
+        @Setup
+        public void setUp() {
+            products = SampleData.products(catalogSize);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BuiltIndex {
+
+        @Param({"10000", "1000000"})
+        int catalogSize;
+
+        ProductSearchIndex index;
+
+        @Setup
+        public void setUp() {
+            index = build(SampleData.products(catalogSize));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public ProductSearchIndex buildIndex(Catalog catalog) {
+        return build(catalog.products);
+    }
+
+    @Benchmark
+    public List<Product> searchAllMatch(BuiltIndex built) {
+        return built.index.search("trail running", null, BigDecimal.valueOf(100), true, LIMIT);
+    }
+
+    @Benchmark
+    public List<Product> searchSelective(BuiltIndex built) {
+        return built.index.search("running shoe 4242", null, null, true, LIMIT);
+    }
+
+    @Benchmark
+    public List<String> suggest(BuiltIndex built) {
+        return built.index.suggest("424", LIMIT);
+    }
+
+    private static ProductSearchIndex build(List<Product> products) {
+        // Only the startup rebuild uses the repository and transaction manager
+        ProductSearchIndex index = new ProductSearchIndex(null, null, null, null);
+        products.forEach(index::index);
+        return index;
+    }
+}
@@ -0,0 +1,117 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommadmin.EcommadminApplication;
+import com.ecomm.ecommadmin.dto.CursorPage;
+import com.ecomm.ecommadmin.dto.ProductBatchResponse;
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.repository.ProductRepository;
+import com.ecomm.ecommadmin.service.ProductSearchIndex;
+import com.ecomm.ecommadmin.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductService read paths on the real ecommadmin application context,
+ * with an in-memory H2 database in MySQL mode instead of MySQL.
+ *
+ * The absolute numbers leave out the network hop to the database; use them
+ * to compare changes to the service, cache and query code, not as a
+ * prediction of production latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductServiceBenchmark {
+
+    private static final int BATCH_SIZE = 20;
+
+    @Param({"10000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private CacheManager cacheManager;
+    private List<Long> productIds;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(EcommadminApplication.class, H2Compatibility.class)
+                .web(WebApplicationType.NONE)
+                // As command line arguments, so they override application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:ecomm;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--product.rpc.enabled=false",
+                        "--inventory.service-secret=benchmark-secret",
+                        "--logging.level.root=WARN");
+        productService = context.getBean(ProductService.class);
+        cacheManager = context.getBean(CacheManager.class);
+
+        List<Product> products = SampleData.products(catalogSize);
+        products.forEach(product -> product.setId(null));
+        productIds = context.getBean(ProductRepository.class).saveAll(products).stream()
+                .map(Product::getId)
+                .toList();
+        context.getBean(ProductSearchIndex.class).rebuild();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductBatchResponse getProductsByIdsCached() {
+        return productService.getProductsByIds(randomIds());
+    }
+
+    @Benchmark
+    public ProductBatchResponse getProductsByIdsUncached() {
+        cacheManager.getCache("products").clear();
+        return productService.getProductsByIds(randomIds());
+    }
+
+    @Benchmark
+    public CursorPage<Product> getAvailableProductsPage() {
+        return productService.getAvailableProductsPage(null, BATCH_SIZE);
+    }
+
+    // Every sample product matches, the worst case for ranking
+    @Benchmark
+    public List<Product> searchProducts() {
+        return productService.searchProducts("trail running", null, BigDecimal.valueOf(100), true, BATCH_SIZE);
+    }
+
+    private List<Long> randomIds() {
+        Long[] ids = new Long[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            ids[i] = productIds.get(random.nextInt(productIds.size()));
+        }
+        return List.of(ids);
+    }
+}
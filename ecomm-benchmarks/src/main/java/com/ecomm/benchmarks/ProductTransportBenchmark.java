@@ -0,0 +1,84 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommbuyer.dto.ProductBatchResponse;
+import com.ecomm.ecommbuyer.dto.ProductCatalog;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Round-trip latency of the ecommbuyer to ecommadmin product lookups over
+ * JSON/HTTP and over the binary product channel, on loopback.
+ *
+ * Runs in sample mode so the results carry p50, p99 and p99.9 per
+ * operation. Run with -t to see how each side behaves with concurrent
+ * callers sharing the connection pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ProductTransportBenchmark {
+
+    // Cart-sized batch for the multi-get
+    private static final int BATCH_SIZE = 20;
+
+    @Param({"json", "binary"})
+    private String transport;
+
+    @Param({"1000"})
+    private int catalogSize;
+
+    private ProductTransportFixture fixture;
+    private List<Long> batchIds;
+    private String catalogVersion;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = new ProductTransportFixture(transport, catalogSize, false);
+        batchIds = LongStream.rangeClosed(1, BATCH_SIZE).boxed().toList();
+        catalogVersion = fixture.client().getAvailableCatalog(null).getVersion();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public ProductResponse getProduct() {
+        return fixture.client().getProductById(42L);
+    }
+
+    @Benchmark
+    public ProductBatchResponse getProducts() {
+        return fixture.client().getProductsByIds(batchIds);
+    }
+
+    @Benchmark
+    public ProductCatalog getAvailableCatalog() {
+        return fixture.client().getAvailableCatalog(null);
+    }
+
+    // The steady-state catalog refresh: ecommadmin answers "not modified"
+    @Benchmark
+    public ProductCatalog revalidateCatalog() {
+        return fixture.client().getAvailableCatalog(catalogVersion);
+    }
+}
@@ -0,0 +1,99 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.rpc.ProductRpcServer;
+import com.ecomm.ecommbuyer.client.BinaryProductCatalogClient;
+import com.ecomm.ecommbuyer.client.ProductCatalogClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An ecommadmin product endpoint and the matching ecommbuyer client for one
+ * transport, optionally with a CountingProxy between them.
+ */
+class ProductTransportFixture implements AutoCloseable {
+
+    private static final int MAX_CONNECTIONS = 64;
+    private static final String RPC_SECRET = "benchmark-secret";
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private final ProductCatalogClient client;
+    private final CountingProxy proxy;
+
+    ProductTransportFixture(String transport, int catalogSize, boolean counting) throws Exception {
+        List<Product> products = SampleData.products(catalogSize);
+        InMemoryProductService productService = new InMemoryProductService(products);
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        int serverPort;
+        switch (transport) {
+            case "json" -> {
+                JsonProductEndpoint endpoint = new JsonProductEndpoint(productService);
+                resources.add(endpoint);
+                serverPort = endpoint.port();
+            }
+            case "binary" -> {
+                serverPort = freePort();
+                ProductRpcServer server = new ProductRpcServer(productService, "127.0.0.1", serverPort, RPC_SECRET, MAX_CONNECTIONS,
+                        new StandardEnvironment(), new SimpleMeterRegistry());
+                server.start();
+                resources.add(server::stop);
+            }
+            default -> throw new IllegalArgumentException("Unknown transport " + transport);
+        }
+
+        int clientPort = serverPort;
+        if (counting) {
+            proxy = new CountingProxy(serverPort);
+            resources.add(proxy);
+            clientPort = proxy.port();
+        } else {
+            proxy = null;
+        }
+
+        if (transport.equals("json")) {
+            HttpJsonProductCatalogClient jsonClient = new HttpJsonProductCatalogClient(
+                    "http://localhost:" + clientPort, MAX_CONNECTIONS, objectMapper);
+            resources.add(jsonClient);
+            client = jsonClient;
+        } else {
+            BinaryProductCatalogClient binaryClient = new BinaryProductCatalogClient(
+                    "localhost", clientPort, RPC_SECRET, MAX_CONNECTIONS, 1000, 5000, new SimpleMeterRegistry());
+            resources.add(binaryClient::close);
+            client = binaryClient;
+        }
+    }
+
+    ProductCatalogClient client() {
+        return client;
+    }
+
+    /**
+     * @return The byte-counting relay, or null when the client talks to the server directly
+     */
+    CountingProxy proxy() {
+        return proxy;
+    }
+
+    @Override
+    public void close() throws Exception {
+        // Client first, so the server does not log connections dropped under it
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            resources.get(i).close();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommbuyer.dto.ProductBatchResponse;
+import com.ecomm.ecommbuyer.dto.ProductCatalog;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Bytes on the wire per product lookup, JSON/HTTP against the binary
+ * product channel.
+ *
+ * Calls go through a CountingProxy, so the counts include HTTP headers,
+ * gzip and framing. The per-call averages are reported as the secondary
+ * results requestBytes and responseBytes; the timings of this benchmark
+ * include the relay and are not comparable with ProductTransportBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class ProductWireSizeBenchmark {
+
+    private static final int BATCH_SIZE = 20;
+
+    @Param({"json", "binary"})
+    private String transport;
+
+    @Param({"1000"})
+    private int catalogSize;
+
+    private ProductTransportFixture fixture;
+    private List<Long> batchIds;
+    private String catalogVersion;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = new ProductTransportFixture(transport, catalogSize, true);
+        batchIds = LongStream.rangeClosed(1, BATCH_SIZE).boxed().toList();
+        catalogVersion = fixture.client().getAvailableCatalog(null).getVersion();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireBytes {
+
+        public double requestBytes;
+        public double responseBytes;
+
+        private long calls;
+        private long sentAtStart;
+        private long receivedAtStart;
+
+        @Setup(Level.Iteration)
+        public void reset(ProductWireSizeBenchmark benchmark) {
+            calls = 0;
+            sentAtStart = benchmark.fixture.proxy().bytesSent();
+            receivedAtStart = benchmark.fixture.proxy().bytesReceived();
+        }
+
+        void record(ProductWireSizeBenchmark benchmark) {
+            calls++;
+            CountingProxy proxy = benchmark.fixture.proxy();
+            requestBytes = (double) (proxy.bytesSent() - sentAtStart) / calls;
+            responseBytes = (double) (proxy.bytesReceived() - receivedAtStart) / calls;
+        }
+    }
+
+    @Benchmark
+    public ProductResponse getProduct(WireBytes wireBytes) {
+        ProductResponse product = fixture.client().getProductById(42L);
+        wireBytes.record(this);
+        return product;
+    }
+
+    @Benchmark
+    public ProductBatchResponse getProducts(WireBytes wireBytes) {
+        ProductBatchResponse batch = fixture.client().getProductsByIds(batchIds);
+        wireBytes.record(this);
+        return batch;
+    }
+
+    @Benchmark
+    public ProductCatalog getAvailableCatalog(WireBytes wireBytes) {
+        ProductCatalog catalog = fixture.client().getAvailableCatalog(null);
+        wireBytes.record(this);
+        return catalog;
+    }
+
+    @Benchmark
+    public ProductCatalog revalidateCatalog(WireBytes wireBytes) {
+        ProductCatalog catalog = fixture.client().getAvailableCatalog(catalogVersion);
+        wireBytes.record(this);
+        return catalog;
+    }
+}
@@ -0,0 +1,62 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommbuyer.entity.Order;
+import com.ecomm.ecommbuyer.entity.OrderLine;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic products and orders shaped like the real catalog.
+ */
+final class SampleData {
+
+    private static final String DESCRIPTION = "Lightweight, water-resistant and built for everyday use. "
+            + "Ships in recyclable packaging with a two-year warranty.";
+
+    private SampleData() {
+    }
+
+    static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            products.add(product(i));
+        }
+        return products;
+    }
+
+    static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setSellerId(1 + id % 50);
+        product.setName("Product " + id + " trail running shoe");
+        product.setDescription(DESCRIPTION);
+        product.setPrice(BigDecimal.valueOf(499 + id * 37 % 20_000, 2));
+        product.setQuantity((int) (id % 200));
+        product.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusMinutes(id));
+        return product;
+    }
+
+    static List<Order> orders(int count, int linesPerOrder) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Order order = new Order();
+            order.setId((long) i);
+            order.setBuyerId(7L);
+            order.setStatus(Order.OrderStatus.PLACED);
+            order.setOrderDate(LocalDateTime.of(2024, 1, 1, 12, 0).plusHours(i));
+            for (int j = 0; j < linesPerOrder; j++) {
+                Product product = product(i * 10L + j);
+                OrderLine line = new OrderLine(product.getId(), 1 + j, product.getPrice());
+                line.setId(i * 10L + j);
+                order.addLine(line);
+            }
+            order.updateTotal();
+            orders.add(order);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,89 @@
+package com.ecomm.benchmarks;
+
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import com.ecomm.ecommbuyer.entity.Order;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encoding and decoding of the payloads that cross the service
+ * boundaries: Product lists from ecommadmin, read back as ProductResponse by
+ * ecommbuyer, and Order with its lines in the buyer order history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializationBenchmark {
+
+    // A single product lookup, a cart-sized batch and a catalog page
+    @Param({"1", "20", "500"})
+    private int size;
+
+    private ObjectWriter productWriter;
+    private ObjectReader productResponseReader;
+    private ObjectWriter orderWriter;
+    private ObjectReader orderReader;
+
+    private List<Product> products;
+    private byte[] productsJson;
+    private List<Order> orders;
+    private byte[] ordersJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Configured like the ObjectMapper Spring Boot gives the MVC message converters and Feign
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        productWriter = objectMapper.writerFor(new TypeReference<List<Product>>() { });
+        productResponseReader = objectMapper.readerFor(new TypeReference<List<ProductResponse>>() { });
+        orderWriter = objectMapper.writerFor(new TypeReference<List<Order>>() { });
+        orderReader = objectMapper.readerFor(new TypeReference<List<Order>>() { });
+
+        products = SampleData.products(size);
+        productsJson = productWriter.writeValueAsBytes(products);
+
+        orders = SampleData.orders(size, 3);
+        ordersJson = orderWriter.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] serializeProducts() throws IOException {
+        return productWriter.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public List<ProductResponse> deserializeProductResponses() throws IOException {
+        return productResponseReader.readValue(productsJson);
+    }
+
+    @Benchmark
+    public byte[] serializeOrders() throws IOException {
+        return orderWriter.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public List<Order> deserializeOrders() throws IOException {
+        return orderReader.readValue(ordersJson);
+    }
+}
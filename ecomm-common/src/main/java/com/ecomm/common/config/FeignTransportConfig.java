@@ -0,0 +1,109 @@
+package com.ecomm.common.config;
+
+import feign.Request;
+import feign.micrometer.DefaultFeignObservationConvention;
+import feign.micrometer.FeignContext;
+import feign.micrometer.MicrometerObservationCapability;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Transport for the Feign clients.
+ *
+ * Spring Cloud OpenFeign sends every call through one pooled, keep-alive
+ * Apache HttpClient 5 configured by spring.cloud.openfeign.httpclient.*; the
+ * client asks for gzip and decompresses responses. This caps the pool for each
+ * target service listed under feign.pool.routes.<client name>, tags request
+ * timers with the client name and publishes pool usage per client.
+ *
+ * Services with Feign clients pull it in with @Import.
+ */
+@Configuration(proxyBeanMethods = false)
+public class FeignTransportConfig {
+
+    private static final String CLIENT_NAME_TAG = "client.name";
+
+    @Bean
+    public MicrometerObservationCapability micrometerObservationCapability(ObservationRegistry observationRegistry) {
+        return new MicrometerObservationCapability(observationRegistry, new ClientNameObservationConvention());
+    }
+
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics(HttpClientConnectionManager connectionManager, Environment environment) {
+        PoolingHttpClientConnectionManager pool = (PoolingHttpClientConnectionManager) connectionManager;
+        Map<String, PoolRoute> configured = Binder.get(environment)
+                .bind("feign.pool.routes", Bindable.mapOf(String.class, PoolRoute.class))
+                .orElse(Map.of());
+        Map<String, HttpRoute> routes = new LinkedHashMap<>();
+        configured.forEach((client, route) -> routes.put(client, limitRoute(pool, route.url(), route.maxConnections())));
+
+        return registry -> routes.forEach((client, route) -> {
+            registerPoolGauge(registry, "feign.client.pool.leased", "Connections in use", pool, route, client, PoolStats::getLeased);
+            registerPoolGauge(registry, "feign.client.pool.available", "Idle keep-alive connections", pool, route, client, PoolStats::getAvailable);
+            registerPoolGauge(registry, "feign.client.pool.pending", "Calls waiting for a connection", pool, route, client, PoolStats::getPending);
+            registerPoolGauge(registry, "feign.client.pool.max", "Connection limit", pool, route, client, PoolStats::getMax);
+        });
+    }
+
+    private static HttpRoute limitRoute(PoolingHttpClientConnectionManager pool, String url, int maxConnections) {
+        try {
+            // Normalized the way the client's route planner does it, so the limit applies to the route it leases from
+            HttpHost target = RoutingSupport.normalize(HttpHost.create(url), DefaultSchemePortResolver.INSTANCE);
+            HttpRoute route = new HttpRoute(target, null, "https".equalsIgnoreCase(target.getSchemeName()));
+            pool.setMaxPerRoute(route, maxConnections);
+            return route;
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Invalid service url " + url, e);
+        }
+    }
+
+    private static void registerPoolGauge(MeterRegistry registry, String name, String description,
+            PoolingHttpClientConnectionManager pool, HttpRoute route, String client, ToIntFunction<PoolStats> stat) {
+        Gauge.builder(name, pool, p -> stat.applyAsInt(p.getStats(route)))
+                .description(description)
+                .tag(CLIENT_NAME_TAG, client)
+                .register(registry);
+    }
+
+    /**
+     * Connection limit for one target service
+     *
+     * @param url            Base url of the service, as the Feign client calls it
+     * @param maxConnections Most connections open to it at once
+     */
+    public record PoolRoute(String url, int maxConnections) {
+    }
+
+    // Adds the Feign client name to the http.client.requests timers
+    private static class ClientNameObservationConvention extends DefaultFeignObservationConvention {
+
+        @Override
+        public KeyValues getLowCardinalityKeyValues(FeignContext context) {
+            Request request = context.getCarrier();
+            String client = request.requestTemplate().feignTarget() != null
+                    ? request.requestTemplate().feignTarget().name()
+                    : "unknown";
+            return super.getLowCardinalityKeyValues(context).and(CLIENT_NAME_TAG, client);
+        }
+    }
+}
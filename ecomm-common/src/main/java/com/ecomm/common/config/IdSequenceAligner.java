@@ -0,0 +1,50 @@
+package com.ecomm.common.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+/**
+ * Raises the id sequences above ids that already exist.
+ *
+ * Ids come from pooled sequences, emulated with a table on MySQL, so Hibernate
+ * can batch inserts. Rows written while ids were IDENTITY columns would collide
+ * with a freshly created sequence, so each sequence is moved past the highest
+ * existing id on startup. Sequences only ever move forward, so this is safe to
+ * run on every start.
+ *
+ * Each service declares it as a bean with its own sequences, depending on the
+ * entity manager factory so the schema, including the sequence tables, exists first.
+ */
+@Slf4j
+public class IdSequenceAligner {
+
+    // Must match allocationSize on the @SequenceGenerator mappings
+    public static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Sequence table -> table whose ids it generates
+    private final Map<String, String> sequences;
+
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate, Map<String, String> sequences) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequences = Map.copyOf(sequences);
+    }
+
+    @PostConstruct
+    public void align() {
+        sequences.forEach((sequence, table) -> {
+            Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+
+            // A pooled block ends at the stored value, so keep it a full block above the highest id
+            long nextValue = maxId + ALLOCATION_SIZE + 1;
+            if (jdbcTemplate.update("update " + sequence + " set next_val = greatest(next_val, ?)", nextValue) == 0) {
+                jdbcTemplate.update("insert into " + sequence + " (next_val) values (?)", nextValue);
+            }
+            log.debug("Sequence {} aligned above id {} of {}", sequence, maxId, table);
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecomm.common.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The validation.failures counter: requests rejected by a business rule, tagged
+ * with the reason.
+ *
+ * Every service publishes it under the same name with its own reasons, so
+ * rejections can be compared across services by the application tag.
+ */
+public class ValidationFailures {
+
+    private final MeterRegistry meterRegistry;
+
+    public ValidationFailures(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String reason) {
+        Counter.builder("validation.failures")
+                .description("Requests rejected by a business rule")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+}
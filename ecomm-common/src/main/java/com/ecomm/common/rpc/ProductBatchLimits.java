@@ -0,0 +1,13 @@
+package com.ecomm.common.rpc;
+
+/**
+ * Size limit of a product batch lookup, over JSON and the binary channel alike.
+ * ecommadmin rejects larger batches; ecommbuyer splits its lookups to fit.
+ */
+public final class ProductBatchLimits {
+
+    public static final int MAX_IDS = 1000;
+
+    private ProductBatchLimits() {
+    }
+}
@@ -0,0 +1,229 @@
+package com.ecomm.common.rpc;
+
+import com.ecomm.common.security.ServiceCredentials;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format of the binary product channel between ecommbuyer and ecommadmin.
+ *
+ * Every message is a frame: a 4-byte big-endian length followed by that many
+ * bytes. A request starts with an operation code, a response with a status
+ * code. Calls on one connection are strictly request, then response, and the
+ * first call on a connection must be HELLO with the shared secret; the server
+ * answers anything else, or a wrong secret, with UNAUTHORIZED and hangs up.
+ *
+ * <pre>
+ * HELLO          secret:string              -> (empty)
+ * GET_PRODUCT    id:long                    -> product
+ * GET_PRODUCTS   count:int, id:long...      -> count:int, product..., missing:int, id:long...
+ * GET_AVAILABLE  knownVersion:string?       -> version:string, count:int, product...  (or NOT_MODIFIED)
+ *
+ * product = id:long, sellerId:long?, name:string?, description:string?, price:decimal?, quantity:int?
+ * string  = length:int, UTF-8 bytes
+ * decimal = scale:int, length:byte, unscaled two's-complement bytes
+ * x?      = present:byte, x when present is 1
+ * </pre>
+ *
+ * Lengths and counts read from a frame are checked against the bytes left in
+ * it, so a bad peer cannot make the reader allocate more than the frame size.
+ */
+public final class ProductRpcProtocol {
+
+    public static final byte HELLO = 0;
+    public static final byte GET_PRODUCT = 1;
+    public static final byte GET_PRODUCTS = 2;
+    public static final byte GET_AVAILABLE = 3;
+
+    public static final byte OK = 0;
+    public static final byte NOT_FOUND = 1;
+    public static final byte NOT_MODIFIED = 2;
+    public static final byte ERROR = 3;
+    public static final byte UNAUTHORIZED = 4;
+
+    // Responses carry the whole available catalog; requests are at most an id list
+    public static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+    public static final int MAX_REQUEST_SIZE = 1024 * 1024;
+
+    // Smallest encoding of a product: id and five absent optional fields
+    public static final int MIN_PRODUCT_SIZE = Long.BYTES + 5;
+
+    private ProductRpcProtocol() {
+    }
+
+    /**
+     * Name of an operation code, as used in metric tags
+     *
+     * @param operation Operation code
+     * @return Operation name, or "unknown"
+     */
+    public static String operationName(byte operation) {
+        return switch (operation) {
+            case HELLO -> "hello";
+            case GET_PRODUCT -> "get_product";
+            case GET_PRODUCTS -> "get_products";
+            case GET_AVAILABLE -> "get_available";
+            default -> "unknown";
+        };
+    }
+
+    /**
+     * Name of a response status code, as used in metric tags
+     *
+     * @param status Status code
+     * @return Status name, or "unknown"
+     */
+    public static String statusName(byte status) {
+        return switch (status) {
+            case OK -> "ok";
+            case NOT_FOUND -> "not_found";
+            case NOT_MODIFIED -> "not_modified";
+            case ERROR -> "error";
+            case UNAUTHORIZED -> "unauthorized";
+            default -> "unknown";
+        };
+    }
+
+    /**
+     * Compare a presented secret with the expected one in constant time
+     *
+     * @param expected Configured secret
+     * @param presented Secret sent by the peer
+     * @return Whether they are equal
+     */
+    public static boolean secretMatches(String expected, String presented) {
+        return ServiceCredentials.matches(expected, presented);
+    }
+
+    /**
+     * Read one frame of at most MAX_FRAME_SIZE bytes
+     *
+     * @param in Connection input
+     * @return Frame body, or null if the peer closed the connection between frames
+     */
+    public static byte[] readFrame(DataInputStream in) throws IOException {
+        return readFrame(in, MAX_FRAME_SIZE);
+    }
+
+    /**
+     * Read one frame
+     *
+     * @param in Connection input
+     * @param maxLength Largest frame accepted
+     * @return Frame body, or null if the peer closed the connection between frames
+     */
+    public static byte[] readFrame(DataInputStream in, int maxLength) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0 || length > maxLength) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return body;
+    }
+
+    public static void writeFrame(OutputStream out, byte[] body) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(body.length);
+        data.write(body);
+        data.flush();
+    }
+
+    /**
+     * Read an element count and check that the frame can hold that many elements
+     *
+     * @param in Frame body
+     * @param elementSize Smallest encoded size of one element
+     * @return Count
+     */
+    public static int readCount(DataInputStream in, int elementSize) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || (long) count * elementSize > in.available()) {
+            throw new IOException("Invalid count " + count);
+        }
+        return count;
+    }
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readCount(in, 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    public static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    public static void writeNullableLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    public static Long readNullableLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    public static void writeNullableInt(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    public static Integer readNullableInt(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    public static void writeNullableDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            if (unscaled.length > 255) {
+                throw new IOException("Decimal too large for the wire format: " + value);
+            }
+            out.writeInt(value.scale());
+            out.writeByte(unscaled.length);
+            out.write(unscaled);
+        }
+    }
+
+    public static BigDecimal readNullableDecimal(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readUnsignedByte()];
+        in.readFully(unscaled);
+        if (unscaled.length == 0) {
+            throw new IOException("Empty decimal");
+        }
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecomm.common.security;
+
+/**
+ * The auth service could not be reached to load verification keys, so a token
+ * could neither be accepted nor rejected. Callers answer 503 rather than
+ * telling the user their token is invalid.
+ */
+public class AuthServiceUnavailableException extends RuntimeException {
+
+    public AuthServiceUnavailableException(Throwable cause) {
+        super("Authentication service is unavailable, please try again", cause);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecomm.common.security;
+
+/**
+ * Caller identity taken from a verified JWT token.
+ */
+public record AuthenticatedUser(Long userId, String username, String role) {
+}
@@ -0,0 +1,14 @@
+package com.ecomm.common.security;
+
+/**
+ * Where {@link JwtVerifier} fetches the auth service JWK set from. Each
+ * service adapts its auth Feign client to it.
+ */
+@FunctionalInterface
+public interface JwksSource {
+
+    /**
+     * @return JWK set JSON of the keys currently valid for verification
+     */
+    String getJwks();
+}
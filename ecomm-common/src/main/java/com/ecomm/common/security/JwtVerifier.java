@@ -0,0 +1,180 @@
+package com.ecomm.common.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verifies JWT tokens issued by the auth service without calling it per request.
+ *
+ * Verification keys are fetched from the auth service JWK set endpoint and cached
+ * locally. The cache is refreshed periodically and whenever a token carries a key
+ * id that is not known yet, so key rotation needs no restart.
+ *
+ * Tokens issued before the user's last logout are rejected as well, using the
+ * token versions kept by {@link TokenRevocations}.
+ *
+ * If the keys cannot be loaded while a token needs one, verification fails
+ * with {@link AuthServiceUnavailableException} instead of rejecting the token.
+ *
+ * Verifications are timed as jwt.operations with operation "verify", the same
+ * timer ecommauth publishes for signing and parsing. Services register it
+ * with @Import.
+ */
+@Slf4j
+@Component
+public class JwtVerifier {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwksSource jwksSource;
+    private final TokenRevocations revocations;
+    private final long minRefreshInterval;
+    private final Map<String, PublicKey> keys = new ConcurrentHashMap<>();
+    // Serializes on-demand JWKS reloads without pinning a virtual thread to its carrier
+    private final ReentrantLock keyLoadLock = new ReentrantLock();
+    private final JwtParser parser;
+    private final Timer verifiedTimer;
+    private final Timer rejectedTimer;
+
+    private volatile long lastRefresh;
+    // Set while the last JWKS load failed, so unknown key ids are not mistaken for forged ones
+    private volatile boolean keysUnavailable;
+
+    public JwtVerifier(JwksSource jwksSource,
+            TokenRevocations revocations,
+            @Value("${auth.jwks.min-refresh-interval}") long minRefreshInterval,
+            MeterRegistry meterRegistry) {
+        this.jwksSource = jwksSource;
+        this.revocations = revocations;
+        this.minRefreshInterval = minRefreshInterval;
+        this.verifiedTimer = verifyTimer(meterRegistry, "success");
+        this.rejectedTimer = verifyTimer(meterRegistry, "failure");
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return findKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Verify signature, expiry and revocation of a bearer token
+     *
+     * @param authHeader Authorization header in "Bearer {token}" format
+     * @return Identity carried by the token
+     * @throws AuthServiceUnavailableException if the verification keys could not be loaded
+     */
+    public AuthenticatedUser verify(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
+            throw new RuntimeException("Invalid or expired token");
+        }
+
+        Timer.Sample sample = Timer.start();
+        try {
+            Claims claims = parser.parseSignedClaims(authHeader.substring(BEARER_PREFIX.length())).getPayload();
+            Integer tokenVersion = claims.get("tokenVersion", Integer.class);
+            if (revocations.isRevoked(claims.get("userId", Long.class), tokenVersion != null ? tokenVersion : 0)) {
+                throw new RuntimeException("Token revoked");
+            }
+            AuthenticatedUser user = new AuthenticatedUser(
+                    claims.get("userId", Long.class),
+                    claims.getSubject(),
+                    claims.get("role", String.class));
+            sample.stop(verifiedTimer);
+            return user;
+        } catch (Exception e) {
+            sample.stop(rejectedTimer);
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof AuthServiceUnavailableException unavailable) {
+                    throw unavailable;
+                }
+            }
+            throw new RuntimeException("Invalid or expired token");
+        }
+    }
+
+    /**
+     * Reload the verification keys so retired keys are dropped and new ones are
+     * known before the first token signed with them arrives
+     */
+    @Scheduled(fixedDelayString = "${auth.jwks.refresh-interval}")
+    public void refreshKeys() {
+        try {
+            loadKeys();
+        } catch (Exception e) {
+            log.warn("Could not refresh JWT verification keys: {}", e.getMessage());
+        }
+    }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("jwt.operations")
+                .description("JWT signing and parsing")
+                .tag("operation", "verify")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private PublicKey findKey(String keyId) {
+        if (keyId == null) {
+            return null;
+        }
+        PublicKey key = keys.get(keyId);
+        if (key == null && System.currentTimeMillis() - lastRefresh >= minRefreshInterval) {
+            keyLoadLock.lock();
+            try {
+                key = keys.get(keyId);
+                if (key == null && System.currentTimeMillis() - lastRefresh >= minRefreshInterval) {
+                    try {
+                        loadKeys();
+                    } catch (Exception e) {
+                        throw new AuthServiceUnavailableException(e);
+                    }
+                    key = keys.get(keyId);
+                }
+            } finally {
+                keyLoadLock.unlock();
+            }
+        }
+        if (key == null && keysUnavailable) {
+            throw new AuthServiceUnavailableException(null);
+        }
+        return key;
+    }
+
+    private void loadKeys() {
+        lastRefresh = System.currentTimeMillis();
+        keysUnavailable = true;
+        JwkSet jwkSet = Jwks.setParser().build().parse(jwksSource.getJwks());
+
+        Map<String, PublicKey> loaded = new ConcurrentHashMap<>();
+        for (Jwk<?> jwk : jwkSet) {
+            if (jwk instanceof PublicJwk<?> publicJwk && jwk.getId() != null) {
+                loaded.put(jwk.getId(), publicJwk.toKey());
+            }
+        }
+        keys.putAll(loaded);
+        keys.keySet().retainAll(loaded.keySet());
+        keysUnavailable = false;
+    }
+}
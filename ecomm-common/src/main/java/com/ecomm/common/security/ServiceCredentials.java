@@ -0,0 +1,29 @@
+package com.ecomm.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Shared secret one service presents to another on calls made on its own
+ * behalf rather than for a signed-in user, such as stock reservations placed
+ * by the order pipeline after the buyer's request has finished.
+ */
+public final class ServiceCredentials {
+
+    public static final String HEADER = "X-Service-Secret";
+
+    private ServiceCredentials() {
+    }
+
+    /**
+     * Compare a presented secret in constant time
+     *
+     * @param expected  Configured secret
+     * @param presented Secret sent by the caller, may be null
+     * @return true if both are equal
+     */
+    public static boolean matches(String expected, String presented) {
+        return presented != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+    }
+}
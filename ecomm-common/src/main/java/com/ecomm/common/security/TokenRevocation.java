@@ -0,0 +1,11 @@
+package com.ecomm.common.security;
+
+/**
+ * A user's current token version. Tokens carrying a lower version were issued
+ * before the user's last logout and are revoked.
+ *
+ * @param userId       User id
+ * @param tokenVersion Lowest token version still accepted
+ */
+public record TokenRevocation(Long userId, int tokenVersion) {
+}
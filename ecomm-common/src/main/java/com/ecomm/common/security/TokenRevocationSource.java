@@ -0,0 +1,17 @@
+package com.ecomm.common.security;
+
+import java.util.List;
+
+/**
+ * Where {@link TokenRevocations} fetches revocations from. Each service's auth
+ * Feign client is adapted to it.
+ */
+@FunctionalInterface
+public interface TokenRevocationSource {
+
+    /**
+     * @param changedWithinSeconds Only users changed this recently, or null for all
+     * @return Current token version of every matching user who has logged out
+     */
+    List<TokenRevocation> getRevocations(Long changedWithinSeconds);
+}
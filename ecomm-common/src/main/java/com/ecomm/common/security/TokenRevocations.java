@@ -0,0 +1,60 @@
+package com.ecomm.common.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lowest token version still accepted per user, polled from the auth service so
+ * a logout revokes tokens in services that verify them locally.
+ *
+ * The first poll loads every user who has logged out; later polls only ask for
+ * users changed since the previous one, the way the auth service keeps its own
+ * validation cache in sync. A logout takes effect here within one poll interval.
+ * Until the first poll succeeds no token is treated as revoked.
+ */
+@Slf4j
+@Component
+public class TokenRevocations {
+
+    // Extra look-back for each poll, covering clock skew and commits that land late
+    private static final long POLL_GRACE_MILLIS = 5_000;
+
+    private final TokenRevocationSource revocationSource;
+    private final Map<Long, Integer> minVersions = new ConcurrentHashMap<>();
+
+    // 0 until the first full load succeeded
+    private volatile long lastPoll;
+
+    public TokenRevocations(TokenRevocationSource revocationSource) {
+        this.revocationSource = revocationSource;
+    }
+
+    /**
+     * @param userId       User id carried by the token
+     * @param tokenVersion Token version carried by the token
+     * @return true if the user logged out after the token was issued
+     */
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        Integer minVersion = minVersions.get(userId);
+        return minVersion != null && tokenVersion < minVersion;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocations.refresh-interval}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        Long lookBackSeconds = lastPoll == 0 ? null : (now - lastPoll + POLL_GRACE_MILLIS + 999) / 1000;
+        try {
+            for (TokenRevocation revocation : revocationSource.getRevocations(lookBackSeconds)) {
+                // Versions only grow, so a late or repeated answer never un-revokes a token
+                minVersions.merge(revocation.userId(), revocation.tokenVersion(), Math::max);
+            }
+            lastPoll = now;
+        } catch (Exception e) {
+            log.warn("Could not refresh token revocations: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ecomm.common.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.HttpHost;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeignTransportConfigTests {
+
+    @Test
+    void capsEachConfiguredRouteAndPublishesItsPool() {
+        PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("feign.pool.routes.admin-service.url", "http://localhost:8082")
+                .withProperty("feign.pool.routes.admin-service.max-connections", "200")
+                .withProperty("feign.pool.routes.auth-service.url", "localhost:8081")
+                .withProperty("feign.pool.routes.auth-service.max-connections", "50");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new FeignTransportConfig().feignConnectionPoolMetrics(pool, environment).bindTo(registry);
+
+        assertThat(pool.getMaxPerRoute(new HttpRoute(new HttpHost("http", "localhost", 8082)))).isEqualTo(200);
+        assertThat(pool.getMaxPerRoute(new HttpRoute(new HttpHost("http", "localhost", 8081)))).isEqualTo(50);
+        assertThat(registry.get("feign.client.pool.max").tag("client.name", "admin-service").gauge().value())
+                .isEqualTo(200);
+        assertThat(registry.get("feign.client.pool.max").tag("client.name", "auth-service").gauge().value())
+                .isEqualTo(50);
+    }
+
+    @Test
+    void withoutRoutesOnlyTheSharedPoolLimitApplies() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new FeignTransportConfig().feignConnectionPoolMetrics(new PoolingHttpClientConnectionManager(), new MockEnvironment())
+                .bindTo(registry);
+
+        assertThat(registry.find("feign.client.pool.max").gauges()).isEmpty();
+    }
+}
@@ -0,0 +1,54 @@
+package com.ecomm.common.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdSequenceAlignerTests {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    void sequenceIsRaisedAFullBlockAboveTheHighestIdButNeverLowered() {
+        when(jdbcTemplate.queryForObject("select coalesce(max(id), 0) from orders", Long.class)).thenReturn(120L);
+        when(jdbcTemplate.update("update orders_seq set next_val = greatest(next_val, ?)", 171L)).thenReturn(1);
+
+        new IdSequenceAligner(jdbcTemplate, Map.of("orders_seq", "orders")).align();
+
+        // greatest() keeps a sequence that is already further ahead where it is
+        verify(jdbcTemplate).update("update orders_seq set next_val = greatest(next_val, ?)", 171L);
+        verify(jdbcTemplate, never()).update("insert into orders_seq (next_val) values (?)", 171L);
+    }
+
+    @Test
+    void emptySequenceTableGetsItsRow() {
+        when(jdbcTemplate.queryForObject("select coalesce(max(id), 0) from cart", Long.class)).thenReturn(0L);
+        when(jdbcTemplate.update(anyString(), eq(51L))).thenReturn(0, 1);
+
+        new IdSequenceAligner(jdbcTemplate, Map.of("cart_seq", "cart")).align();
+
+        verify(jdbcTemplate).update("update cart_seq set next_val = greatest(next_val, ?)", 51L);
+        verify(jdbcTemplate).update("insert into cart_seq (next_val) values (?)", 51L);
+    }
+
+    @Test
+    void everySequenceIsAlignedWithItsOwnTable() {
+        when(jdbcTemplate.queryForObject("select coalesce(max(id), 0) from orders", Long.class)).thenReturn(10L);
+        when(jdbcTemplate.queryForObject("select coalesce(max(id), 0) from order_lines", Long.class)).thenReturn(700L);
+        when(jdbcTemplate.update(anyString(), eq(61L))).thenReturn(1);
+        when(jdbcTemplate.update(anyString(), eq(751L))).thenReturn(1);
+
+        new IdSequenceAligner(jdbcTemplate, Map.of("orders_seq", "orders", "order_lines_seq", "order_lines")).align();
+
+        verify(jdbcTemplate).update("update orders_seq set next_val = greatest(next_val, ?)", 61L);
+        verify(jdbcTemplate).update("update order_lines_seq set next_val = greatest(next_val, ?)", 751L);
+    }
+}
@@ -0,0 +1,110 @@
+package com.ecomm.common.rpc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductRpcProtocolTests {
+
+    @Test
+    void framesRoundTrip() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ProductRpcProtocol.writeFrame(buffer, new byte[] {1, 2, 3});
+        ProductRpcProtocol.writeFrame(buffer, new byte[0]);
+
+        DataInputStream in = input(buffer.toByteArray());
+
+        assertThat(ProductRpcProtocol.readFrame(in)).containsExactly(1, 2, 3);
+        assertThat(ProductRpcProtocol.readFrame(in)).isEmpty();
+        assertThat(ProductRpcProtocol.readFrame(in)).isNull();
+    }
+
+    @Test
+    void rejectsFramesOverTheLimitBeforeAllocating() throws IOException {
+        DataInputStream tooLong = input(bytes(out -> out.writeInt(ProductRpcProtocol.MAX_REQUEST_SIZE + 1)));
+        DataInputStream negative = input(bytes(out -> out.writeInt(-1)));
+
+        assertThatThrownBy(() -> ProductRpcProtocol.readFrame(tooLong, ProductRpcProtocol.MAX_REQUEST_SIZE))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Invalid frame length");
+        assertThatThrownBy(() -> ProductRpcProtocol.readFrame(negative))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsCountsTheFrameCannotHold() throws IOException {
+        DataInputStream twoIds = input(bytes(out -> {
+            out.writeInt(2);
+            out.writeLong(1);
+            out.writeLong(2);
+        }));
+        DataInputStream claimsMore = input(bytes(out -> {
+            out.writeInt(Integer.MAX_VALUE);
+            out.writeLong(1);
+        }));
+
+        assertThat(ProductRpcProtocol.readCount(twoIds, Long.BYTES)).isEqualTo(2);
+        assertThatThrownBy(() -> ProductRpcProtocol.readCount(claimsMore, Long.BYTES))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Invalid count");
+    }
+
+    @Test
+    void rejectsStringLengthsPastTheEndOfTheFrame() throws IOException {
+        DataInputStream in = input(bytes(out -> {
+            out.writeInt(1000);
+            out.write(new byte[10]);
+        }));
+
+        assertThatThrownBy(() -> ProductRpcProtocol.readString(in)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void nullableValuesRoundTrip() throws IOException {
+        DataInputStream in = input(bytes(out -> {
+            ProductRpcProtocol.writeNullableString(out, "Kettle");
+            ProductRpcProtocol.writeNullableString(out, null);
+            ProductRpcProtocol.writeNullableLong(out, 42L);
+            ProductRpcProtocol.writeNullableInt(out, null);
+            ProductRpcProtocol.writeNullableDecimal(out, new BigDecimal("-19.99"));
+        }));
+
+        assertThat(ProductRpcProtocol.readNullableString(in)).isEqualTo("Kettle");
+        assertThat(ProductRpcProtocol.readNullableString(in)).isNull();
+        assertThat(ProductRpcProtocol.readNullableLong(in)).isEqualTo(42L);
+        assertThat(ProductRpcProtocol.readNullableInt(in)).isNull();
+        assertThat(ProductRpcProtocol.readNullableDecimal(in)).isEqualByComparingTo("-19.99");
+    }
+
+    @Test
+    void secretMustMatchExactly() {
+        assertThat(ProductRpcProtocol.secretMatches("s3cret", "s3cret")).isTrue();
+        assertThat(ProductRpcProtocol.secretMatches("s3cret", "s3cre")).isFalse();
+        assertThat(ProductRpcProtocol.secretMatches("s3cret", null)).isFalse();
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] bytes(Writer writer) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        writer.write(out);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,138 @@
+package com.ecomm.common.security;
+
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtVerifierTests {
+
+    private static final long MIN_REFRESH_INTERVAL = 60_000L;
+
+    private final KeyPair keyPair = rsaKeyPair();
+
+    @Test
+    void verifiesTokensSignedWithAPublishedKey() {
+        JwtVerifier verifier = new JwtVerifier(() -> jwks("k1"), noRevocations(), MIN_REFRESH_INTERVAL,
+                new SimpleMeterRegistry());
+
+        AuthenticatedUser user = verifier.verify("Bearer " + token("k1"));
+
+        assertThat(user).isEqualTo(new AuthenticatedUser(42L, "buyer42", "BUYER"));
+    }
+
+    @Test
+    void authServiceOutageIsNotReportedAsAnInvalidToken() {
+        AtomicInteger loads = new AtomicInteger();
+        JwtVerifier verifier = new JwtVerifier(() -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("Connection refused");
+        }, noRevocations(), MIN_REFRESH_INTERVAL, new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> verifier.verify("Bearer " + token("k1")))
+                .isInstanceOf(AuthServiceUnavailableException.class);
+        // Within the refresh interval the outage is remembered instead of fetching again
+        assertThatThrownBy(() -> verifier.verify("Bearer " + token("k1")))
+                .isInstanceOf(AuthServiceUnavailableException.class);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void cachedKeysKeepVerifyingWhenARefreshFails() {
+        AtomicBoolean down = new AtomicBoolean();
+        JwtVerifier verifier = new JwtVerifier(() -> {
+            if (down.get()) {
+                throw new IllegalStateException("Connection refused");
+            }
+            return jwks("k1");
+        }, noRevocations(), MIN_REFRESH_INTERVAL, new SimpleMeterRegistry());
+        verifier.verify("Bearer " + token("k1"));
+
+        down.set(true);
+        verifier.refreshKeys();
+
+        assertThat(verifier.verify("Bearer " + token("k1")).userId()).isEqualTo(42L);
+        assertThatThrownBy(() -> verifier.verify("Bearer " + token("k2")))
+                .isInstanceOf(AuthServiceUnavailableException.class);
+    }
+
+    @Test
+    void unknownKeyIsRejectedWhileTheAuthServiceIsUp() {
+        JwtVerifier verifier = new JwtVerifier(() -> jwks("k1"), noRevocations(), 0, new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> verifier.verify("Bearer " + token("k2")))
+                .isNotInstanceOf(AuthServiceUnavailableException.class)
+                .hasMessage("Invalid or expired token");
+    }
+
+    @Test
+    void tokensIssuedBeforeTheLastLogoutAreRejected() {
+        TokenRevocations revocations = new TokenRevocations(changedWithinSeconds -> List.of(new TokenRevocation(42L, 2)));
+        revocations.refresh();
+        JwtVerifier verifier = new JwtVerifier(() -> jwks("k1"), revocations, MIN_REFRESH_INTERVAL,
+                new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> verifier.verify("Bearer " + token("k1", 1)))
+                .hasMessage("Invalid or expired token");
+        assertThat(verifier.verify("Bearer " + token("k1", 2)).userId()).isEqualTo(42L);
+    }
+
+    private static TokenRevocations noRevocations() {
+        return new TokenRevocations(changedWithinSeconds -> List.of());
+    }
+
+    private String token(String keyId) {
+        return token(keyId, 0);
+    }
+
+    private String token(String keyId, int tokenVersion) {
+        return Jwts.builder()
+                .header().keyId(keyId).and()
+                .subject("buyer42")
+                .claim("userId", 42L)
+                .claim("role", "BUYER")
+                .claim("tokenVersion", tokenVersion)
+                .expiration(new Date(System.currentTimeMillis() + 60_000L))
+                .signWith(keyPair.getPrivate())
+                .compact();
+    }
+
+    private String jwks(String keyId) {
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        return "{\"keys\":[{\"kty\":\"RSA\",\"kid\":\"" + keyId + "\",\"n\":\"" + base64Url(publicKey.getModulus())
+                + "\",\"e\":\"" + base64Url(publicKey.getPublicExponent()) + "\"}]}";
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // Unsigned big-endian, as JWK requires
+        if (bytes[0] == 0 && bytes.length > 1) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static KeyPair rsaKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecomm.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationsTests {
+
+    @Test
+    void firstPollLoadsEveryRevocationAndLaterPollsOnlyRecentChanges() {
+        List<Long> lookBacks = new ArrayList<>();
+        TokenRevocations revocations = new TokenRevocations(changedWithinSeconds -> {
+            lookBacks.add(changedWithinSeconds);
+            return List.of(new TokenRevocation(7L, 3));
+        });
+
+        revocations.refresh();
+        revocations.refresh();
+
+        assertThat(lookBacks.get(0)).isNull();
+        assertThat(lookBacks.get(1)).isPositive();
+        assertThat(revocations.isRevoked(7L, 2)).isTrue();
+        assertThat(revocations.isRevoked(7L, 3)).isFalse();
+        assertThat(revocations.isRevoked(8L, 0)).isFalse();
+    }
+
+    @Test
+    void failedFirstPollIsRetriedAsAFullLoad() {
+        List<Long> lookBacks = new ArrayList<>();
+        TokenRevocations revocations = new TokenRevocations(changedWithinSeconds -> {
+            lookBacks.add(changedWithinSeconds);
+            throw new IllegalStateException("Connection refused");
+        });
+
+        revocations.refresh();
+        revocations.refresh();
+
+        assertThat(lookBacks).containsExactly(null, null);
+    }
+
+    @Test
+    void staleAnswerNeverLowersAVersion() {
+        List<List<TokenRevocation>> answers = new ArrayList<>(List.of(
+                List.of(new TokenRevocation(7L, 5)), List.of(new TokenRevocation(7L, 4))));
+        TokenRevocations revocations = new TokenRevocations(changedWithinSeconds -> answers.remove(0));
+
+        revocations.refresh();
+        revocations.refresh();
+
+        assertThat(revocations.isRevoked(7L, 4)).isTrue();
+    }
+}
@@ -0,0 +1,79 @@
+package com.ecomm.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Creates a seller and the catalog through the public APIs before the run,
+ * then waits until ecommbuyer sees the whole catalog.
+ */
+@Slf4j
+public class CatalogSeeder {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    public CatalogSeeder(HttpClient httpClient, ObjectMapper objectMapper) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+    }
+
+    public void seed(String authUrl, String adminUrl, String buyerUrl, int products, int stock, Duration timeout)
+            throws IOException, InterruptedException {
+        String credentials = objectMapper.createObjectNode()
+                .put("username", "loadtest-seller")
+                .put("password", "loadtest-password")
+                .put("role", "ADMIN")
+                .toString();
+        JsonNode registered = send(HttpRequest.newBuilder(URI.create(authUrl + "/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials)), 201);
+        String authHeader = "Bearer " + registered.path("token").asText();
+
+        StringBuilder csv = new StringBuilder("name,description,price,quantity\n");
+        for (int i = 1; i <= products; i++) {
+            csv.append("Load test product ").append(i).append(',')
+                    .append("Seeded for the load test run ").append(i % 17).append(',')
+                    .append(String.format("%d.%02d", 1 + i % 200, i % 100)).append(',')
+                    .append(stock).append('\n');
+        }
+        JsonNode report = send(HttpRequest.newBuilder(URI.create(adminUrl + "/api/admin/products/import"))
+                .header("Content-Type", "text/csv")
+                .header("Authorization", authHeader)
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString())), 200);
+        log.info("Imported {} products", report.path("rowsImported").asLong());
+
+        // ecommbuyer picks new products up from the change feed
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            JsonNode catalog = send(HttpRequest.newBuilder(URI.create(buyerUrl + "/api/buyer/products")).GET(), 200);
+            if (catalog.size() >= products) {
+                log.info("ecommbuyer sees {} products", catalog.size());
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("ecommbuyer sees only " + catalog.size() + " of " + products
+                        + " products after " + timeout);
+            }
+            Thread.sleep(500);
+        }
+    }
+
+    private JsonNode send(HttpRequest.Builder request, int expectedStatus) throws IOException, InterruptedException {
+        HttpRequest built = request.timeout(Duration.ofMinutes(2)).build();
+        HttpResponse<String> response = httpClient.send(built, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(built.method() + " " + built.uri() + " returned "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+}
@@ -0,0 +1,59 @@
+package com.ecomm.loadtest;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+
+/**
+ * MariaDB server for the services, started from the binaries MariaDB4j
+ * ships, on an empty data directory.
+ *
+ * It runs without grant tables, so any user name and password is accepted;
+ * the services keep the credentials from their application.properties.
+ */
+@Slf4j
+public class EmbeddedDatabase implements AutoCloseable {
+
+    private final DB db;
+    private final int port;
+
+    public EmbeddedDatabase(int port, File workDirectory) throws ManagedProcessException {
+        this.port = port;
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(port);
+        config.setBaseDir(new File(workDirectory, "base").getAbsolutePath());
+        config.setDataDir(new File(workDirectory, "data").getAbsolutePath());
+        config.setTmpDir(new File(workDirectory, "tmp").getAbsolutePath());
+        config.setDeletingTemporaryBaseAndDataDirsOnShutdown(true);
+        if ("root".equals(System.getProperty("user.name"))) {
+            // mariadbd refuses to run as root unless told to
+            config.addArg("--user=root");
+        }
+        config.addArg("--max-connections=500");
+        this.db = DB.newEmbeddedDB(config.build());
+    }
+
+    public void start() throws ManagedProcessException {
+        db.start();
+        log.info("MariaDB listening on port {}", port);
+    }
+
+    /**
+     * JDBC URL for one of the services; the database is created on first connect
+     *
+     * @param database Database name
+     * @return MySQL Connector/J URL
+     */
+    public String jdbcUrl(String database) {
+        return "jdbc:mysql://localhost:" + port + "/" + database
+                + "?createDatabaseIfNotExist=true&rewriteBatchedStatements=true";
+    }
+
+    @Override
+    public void close() throws ManagedProcessException {
+        db.stop();
+    }
+}
@@ -0,0 +1,101 @@
+package com.ecomm.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Response times and outcomes per endpoint, recorded from many threads.
+ *
+ * Latencies go into HDR histograms with three significant digits, so the
+ * high percentiles are exact to within 0.1% rather than bucket estimates.
+ */
+public class EndpointStats {
+
+    // Up to an hour, in microseconds
+    private static final long HIGHEST_TRACKABLE_MICROS = 3_600_000_000L;
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Record one call
+     *
+     * @param endpoint Endpoint name, e.g. buyer.cart.add
+     * @param nanos    Response time
+     * @param status   HTTP status, or 0 when no response arrived
+     * @param success  Whether the call did what the scenario needed
+     */
+    public void record(String endpoint, long nanos, int status, boolean success) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        stats.latency.recordValue(Math.min(Math.max(1, nanos / 1000), HIGHEST_TRACKABLE_MICROS));
+        if (!success) {
+            stats.errors.increment();
+        }
+        stats.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    // Drops everything recorded so far, e.g. at the end of the warmup
+    public void reset() {
+        endpoints.values().forEach(Endpoint::reset);
+    }
+
+    /**
+     * Everything recorded since the last reset
+     *
+     * @param seconds Length of the measurement, for throughput
+     * @return Results in endpoint name order
+     */
+    public List<EndpointResult> results(double seconds) {
+        Map<String, Endpoint> sorted = new TreeMap<>(endpoints);
+        return sorted.entrySet().stream()
+                .map(entry -> entry.getValue().result(entry.getKey(), seconds))
+                .filter(result -> result.count() > 0)
+                .toList();
+    }
+
+    private static final class Endpoint {
+
+        private final Recorder latency = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+
+        synchronized void reset() {
+            latency.reset();
+            total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+            errors.reset();
+            statuses.clear();
+        }
+
+        synchronized EndpointResult result(String name, double seconds) {
+            total.add(latency.getIntervalHistogram());
+            Map<Integer, Long> statusCounts = new TreeMap<>();
+            statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+            long count = total.getTotalCount();
+            return new EndpointResult(
+                    name,
+                    count,
+                    errors.sum(),
+                    count / seconds,
+                    total.getMean() / 1000.0,
+                    total.getValueAtPercentile(50) / 1000.0,
+                    total.getValueAtPercentile(95) / 1000.0,
+                    total.getValueAtPercentile(99) / 1000.0,
+                    total.getMaxValue() / 1000.0,
+                    statusCounts);
+        }
+    }
+
+    /**
+     * Summary of one endpoint; latencies in milliseconds
+     */
+    public record EndpointResult(String endpoint, long count, long errors, double throughput,
+            double mean, double p50, double p95, double p99, double max, Map<Integer, Long> statuses) {
+    }
+}
@@ -0,0 +1,173 @@
+package com.ecomm.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the network between two services.
+ *
+ * Relays TCP connections to the target port. Each request, that is the first
+ * bytes a client sends after the previous response, is held back by the
+ * configured latency plus a random share of the jitter. With probability
+ * faultRate the connection is reset instead, which the caller sees as a
+ * failed call. Working on TCP rather than HTTP keeps keep-alive and gzip
+ * untouched and covers the binary product channel as well.
+ */
+@Slf4j
+public class FaultInjectingProxy implements AutoCloseable {
+
+    private final String name;
+    private final int targetPort;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double faultRate;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong faults = new AtomicLong();
+
+    public FaultInjectingProxy(String name, int targetPort, Duration latency, Duration jitter, double faultRate)
+            throws IOException {
+        this.name = name;
+        this.targetPort = targetPort;
+        this.latencyMillis = latency.toMillis();
+        this.jitterMillis = jitter.toMillis();
+        this.faultRate = faultRate;
+        this.serverSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+
+        Thread acceptor = new Thread(this::acceptConnections, "hop-" + name);
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Hop {} on port {} -> {} (latency {} ms, jitter {} ms, fault rate {})",
+                name, port(), targetPort, latencyMillis, jitterMillis, faultRate);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long faults() {
+        return faults.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            Socket client;
+            try {
+                client = serverSocket.accept();
+            } catch (IOException e) {
+                // Closed
+                return;
+            }
+            try {
+                Socket target = new Socket();
+                target.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), targetPort));
+                client.setTcpNoDelay(true);
+                target.setTcpNoDelay(true);
+                sockets.add(client);
+                sockets.add(target);
+
+                // Set when a response has passed, so the next bytes from the client start a new request
+                AtomicBoolean awaitingRequest = new AtomicBoolean(true);
+                relay(client, target, awaitingRequest, true);
+                relay(target, client, awaitingRequest, false);
+            } catch (IOException e) {
+                log.warn("Hop {} could not reach port {}: {}", name, targetPort, e.getMessage());
+                closeQuietly(client);
+            }
+        }
+    }
+
+    private void relay(Socket from, Socket to, AtomicBoolean awaitingRequest, boolean requests) {
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[16 * 1024];
+            try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (requests) {
+                        if (awaitingRequest.getAndSet(false) && !beforeRequest()) {
+                            reset(from, to);
+                            return;
+                        }
+                    } else {
+                        awaitingRequest.set(true);
+                    }
+                    out.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                // Either side closed
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                closeQuietly(from);
+                closeQuietly(to);
+            }
+        }, "hop-" + name + (requests ? "-request" : "-response"));
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Delays the request, or returns false if it is to fail
+    private boolean beforeRequest() throws InterruptedException {
+        requests.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (faultRate > 0 && random.nextDouble() < faultRate) {
+            faults.incrementAndGet();
+            return false;
+        }
+        long delay = latencyMillis + (jitterMillis > 0 ? random.nextLong(jitterMillis + 1) : 0);
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+        return true;
+    }
+
+    private void reset(Socket client, Socket target) {
+        try {
+            // Linger 0 sends a RST instead of an orderly close
+            client.setSoLinger(true, 0);
+        } catch (IOException ignored) {
+            // Closing anyway
+        }
+        closeQuietly(client);
+        closeQuietly(target);
+    }
+
+    private void closeQuietly(Socket socket) {
+        sockets.remove(socket);
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.ecomm.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives ShopperScenario for the warmup and the measured period.
+ *
+ * In the closed model a fixed number of shoppers each start the next visit
+ * when the previous one ends, so throughput drops as the services slow down.
+ * In the open model visits start at a fixed rate regardless of how the
+ * services keep up, which is how real traffic behaves; a visit's time then
+ * counts from when it was due to start, so queueing in the harness is not
+ * hidden. Visits beyond max-in-flight are dropped and counted.
+ */
+@Slf4j
+public class LoadGenerator {
+
+    public static final String SCENARIO = "scenario";
+
+    private final ShopperScenario scenario;
+    private final EndpointStats stats;
+    private final LoadTestConfig config;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public LoadGenerator(ShopperScenario scenario, EndpointStats stats, LoadTestConfig config) {
+        this.scenario = scenario;
+        this.stats = stats;
+        this.config = config;
+    }
+
+    /**
+     * Run the warmup and the measurement
+     *
+     * @return Outcome of the measured period
+     */
+    public Result run() throws InterruptedException {
+        Duration warmup = config.duration("load.warmup");
+        Duration duration = config.duration("load.duration");
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        String model = config.string("load.model");
+        Thread resetter = new Thread(() -> {
+            try {
+                sleepUntil(measureFrom);
+                stats.reset();
+                completed.reset();
+                failed.reset();
+                dropped.reset();
+                log.info("Warmup done, measuring for {}", duration);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "loadtest-warmup");
+        resetter.setDaemon(true);
+        resetter.start();
+
+        log.info("Running {} model, warmup {}", model, warmup);
+        switch (model) {
+            case "closed" -> runClosed(end);
+            case "open" -> runOpen(end);
+            default -> throw new IllegalArgumentException("load.model must be closed or open, not " + model);
+        }
+        resetter.join();
+
+        return new Result(model, duration.toMillis() / 1000.0, completed.sum(), failed.sum(), dropped.sum());
+    }
+
+    private void runClosed(long end) throws InterruptedException {
+        int users = config.integer("load.users");
+        List<Thread> shoppers = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            Thread shopper = new Thread(() -> {
+                while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                    visit(System.nanoTime());
+                }
+            }, "shopper-" + i);
+            shoppers.add(shopper);
+            shopper.start();
+        }
+        for (Thread shopper : shoppers) {
+            shopper.join();
+        }
+    }
+
+    private void runOpen(long end) throws InterruptedException {
+        double arrivalRate = config.decimal("load.arrival-rate");
+        int maxInFlight = config.integer("load.max-in-flight");
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / arrivalRate);
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            for (long due = System.nanoTime(); due < end; due += interval) {
+                sleepUntil(due);
+                if (!inFlight.tryAcquire()) {
+                    dropped.increment();
+                    continue;
+                }
+                long scheduled = due;
+                executor.execute(() -> {
+                    try {
+                        visit(scheduled);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            // Let the visits in flight finish, they still count
+            executor.awaitTermination(config.duration("load.request-timeout").toSeconds() * 10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void visit(long startedAt) {
+        boolean success;
+        try {
+            success = scenario.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Scenario failed: {}", e.toString());
+            success = false;
+        }
+        stats.record(SCENARIO, System.nanoTime() - startedAt, success ? 200 : 0, success);
+        (success ? completed : failed).increment();
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining = nanoTime - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    /**
+     * Visits in the measured period
+     */
+    public record Result(String model, double seconds, long completed, long failed, long dropped) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecomm.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Settings of a load test run: loadtest.properties from the classpath,
+ * overridden by key=value command line arguments.
+ */
+public class LoadTestConfig {
+
+    private final Properties properties;
+
+    private LoadTestConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static LoadTestConfig load(String[] args) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = LoadTestConfig.class.getResourceAsStream("/loadtest.properties")) {
+            properties.load(in);
+        }
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            properties.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestConfig(properties);
+    }
+
+    public String string(String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing setting " + key);
+        }
+        return value.trim();
+    }
+
+    public int integer(String key) {
+        return Integer.parseInt(string(key));
+    }
+
+    public double decimal(String key) {
+        return Double.parseDouble(string(key));
+    }
+
+    public boolean bool(String key) {
+        return Boolean.parseBoolean(string(key));
+    }
+
+    /**
+     * Read a duration written as 250ms, 30s or 2m
+     *
+     * @param key Setting name
+     * @return Parsed duration
+     */
+    public Duration duration(String key) {
+        String value = string(key);
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Invalid duration " + value + " for " + key);
+        };
+    }
+
+    // All settings in key order, for the report
+    public Map<String, String> asMap() {
+        Map<String, String> settings = new TreeMap<>();
+        properties.stringPropertyNames().forEach(key -> settings.put(key, properties.getProperty(key)));
+        return settings;
+    }
+}
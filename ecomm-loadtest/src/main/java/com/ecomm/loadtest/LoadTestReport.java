@@ -0,0 +1,63 @@
+package com.ecomm.loadtest;
+
+import com.ecomm.loadtest.EndpointStats.EndpointResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of a run, written as report.json for tooling and report.txt for
+ * people.
+ */
+public record LoadTestReport(
+        String startedAt,
+        Map<String, String> settings,
+        LoadGenerator.Result scenarios,
+        List<EndpointResult> endpoints,
+        List<HopResult> hops) {
+
+    /**
+     * Requests through a service-to-service hop and how many were failed on purpose
+     */
+    public record HopResult(String hop, long requests, long faults) {
+    }
+
+    public void write(File directory, ObjectMapper objectMapper) throws IOException {
+        objectMapper.copy()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(new File(directory, "report.json"), this);
+        Files.writeString(new File(directory, "report.txt").toPath(), toText());
+    }
+
+    public String toText() {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        out.printf("Load test started %s, %s model, %.0f s measured%n",
+                startedAt, scenarios.model(), scenarios.seconds());
+        out.printf("Scenarios: %d completed, %d failed, %d dropped, %.2f completed/s%n%n",
+                scenarios.completed(), scenarios.failed(), scenarios.dropped(),
+                scenarios.completed() / scenarios.seconds());
+
+        out.printf("%-22s %9s %7s %9s %9s %9s %9s %9s  %s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "statuses");
+        for (EndpointResult endpoint : endpoints) {
+            out.printf("%-22s %9d %7d %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    endpoint.endpoint(), endpoint.count(), endpoint.errors(), endpoint.throughput(),
+                    endpoint.p50(), endpoint.p95(), endpoint.p99(), endpoint.max(), endpoint.statuses());
+        }
+
+        out.printf("%n%-22s %9s %9s%n", "hop", "requests", "faults");
+        for (HopResult hop : hops) {
+            out.printf("%-22s %9d %9d%n", hop.hop(), hop.requests(), hop.faults());
+        }
+        out.flush();
+        return text.toString();
+    }
+}
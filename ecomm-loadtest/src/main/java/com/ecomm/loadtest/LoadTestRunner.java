@@ -0,0 +1,185 @@
+package com.ecomm.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts MariaDB, the three services and the hop stand-ins between them,
+ * seeds a catalog, runs the shopper load and writes the report.
+ *
+ * Settings come from loadtest.properties and key=value arguments. Each run
+ * gets its own directory under report.dir with report.json, report.txt and
+ * the service logs.
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    private static final Pattern JAVA_VERSION = Pattern.compile("version \"(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.load(args);
+        String startedAt = OffsetDateTime.now().toString();
+        File runDirectory = new File(config.string("report.dir"),
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        File logDirectory = new File(runDirectory, "logs");
+        if (!logDirectory.mkdirs()) {
+            throw new IOException("Could not create " + logDirectory);
+        }
+        checkVirtualThreads(config);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // Closed in reverse order of start
+        Deque<AutoCloseable> resources = new ConcurrentLinkedDeque<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> closeAll(resources), "loadtest-shutdown"));
+        try {
+            EmbeddedDatabase database = new EmbeddedDatabase(config.integer("database.port"),
+                    new File(runDirectory, "mariadb"));
+            resources.push(database);
+            database.start();
+            String jdbcUrl = database.jdbcUrl(config.string("database.name"));
+
+            int authPort = config.integer("services.auth.port");
+            int adminPort = config.integer("services.admin.port");
+            int rpcPort = config.integer("services.admin.rpc-port");
+            int buyerPort = config.integer("services.buyer.port");
+
+            List<FaultInjectingProxy> hops = new ArrayList<>();
+            FaultInjectingProxy buyerToAdmin = hop(config, "buyer-admin", adminPort, hops, resources);
+            FaultInjectingProxy buyerToAdminRpc = hop(config, "buyer-admin", "buyer-admin-rpc", rpcPort, hops, resources);
+            FaultInjectingProxy buyerToAuth = hop(config, "buyer-auth", authPort, hops, resources);
+            FaultInjectingProxy adminToAuth = hop(config, "admin-auth", authPort, hops, resources);
+
+            List<String> common = List.of(
+                    "--spring.datasource.url=" + jdbcUrl,
+                    "--spring.jpa.show-sql=false",
+                    "--spring.threads.virtual.enabled=" + config.bool("services.virtual-threads"));
+            Duration startupTimeout = config.duration("services.startup-timeout");
+
+            // The binary product channel is only opened when the buyer uses it, with a secret for this run
+            String productTransport = config.string("services.product-transport");
+            String rpcSecret = UUID.randomUUID().toString();
+            String inventorySecret = UUID.randomUUID().toString();
+
+            ServiceProcess auth = startService(config, "ecommauth", "services.auth.jar", authPort, common, List.of(
+                    "--jwt.key-encryption-secret=" + UUID.randomUUID()), logDirectory, resources);
+            auth.awaitReady(httpClient, startupTimeout);
+
+            ServiceProcess admin = startService(config, "ecommadmin", "services.admin.jar", adminPort, common, List.of(
+                    "--auth.service.url=http://localhost:" + adminToAuth.port(),
+                    "--product.rpc.enabled=" + productTransport.equals("binary"),
+                    "--product.rpc.port=" + rpcPort,
+                    "--product.rpc.secret=" + rpcSecret,
+                    "--inventory.service-secret=" + inventorySecret), logDirectory, resources);
+            admin.awaitReady(httpClient, startupTimeout);
+
+            ServiceProcess buyer = startService(config, "ecommbuyer", "services.buyer.jar", buyerPort, common, List.of(
+                    "--auth.service.url=http://localhost:" + buyerToAuth.port(),
+                    "--admin.service.url=http://localhost:" + buyerToAdmin.port(),
+                    "--admin.service.rpc.port=" + buyerToAdminRpc.port(),
+                    "--admin.service.rpc.secret=" + rpcSecret,
+                    "--admin.service.inventory-secret=" + inventorySecret,
+                    "--admin.service.product-transport=" + productTransport),
+                    logDirectory, resources);
+            buyer.awaitReady(httpClient, startupTimeout);
+
+            new CatalogSeeder(httpClient, objectMapper).seed(auth.baseUrl(), admin.baseUrl(), buyer.baseUrl(),
+                    config.integer("seed.products"), config.integer("seed.stock"), Duration.ofMinutes(2));
+
+            EndpointStats stats = new EndpointStats();
+            ShopperScenario scenario = new ShopperScenario(httpClient, objectMapper, stats,
+                    auth.baseUrl(), buyer.baseUrl(), config);
+            LoadGenerator.Result result = new LoadGenerator(scenario, stats, config).run();
+
+            LoadTestReport report = new LoadTestReport(
+                    startedAt,
+                    config.asMap(),
+                    result,
+                    stats.results(result.seconds()),
+                    hops.stream()
+                            .map(hop -> new LoadTestReport.HopResult(hop.name(), hop.requests(), hop.faults()))
+                            .toList());
+            report.write(runDirectory, objectMapper);
+            System.out.println(report.toText());
+            log.info("Report written to {}", runDirectory.getAbsolutePath());
+        } finally {
+            closeAll(resources);
+        }
+    }
+
+    private static FaultInjectingProxy hop(LoadTestConfig config, String hop, int targetPort,
+            List<FaultInjectingProxy> hops, Deque<AutoCloseable> resources) throws IOException {
+        return hop(config, hop, hop, targetPort, hops, resources);
+    }
+
+    // A relay named name with the settings of hops.<hop>.*
+    private static FaultInjectingProxy hop(LoadTestConfig config, String hop, String name, int targetPort,
+            List<FaultInjectingProxy> hops, Deque<AutoCloseable> resources) throws IOException {
+        FaultInjectingProxy proxy = new FaultInjectingProxy(name, targetPort,
+                config.duration("hops." + hop + ".latency"),
+                config.duration("hops." + hop + ".jitter"),
+                config.decimal("hops." + hop + ".fault-rate"));
+        resources.push(proxy);
+        hops.add(proxy);
+        return proxy;
+    }
+
+    private static ServiceProcess startService(LoadTestConfig config, String name, String jarKey, int port,
+            List<String> common, List<String> specific, File logDirectory, Deque<AutoCloseable> resources)
+            throws IOException {
+        List<String> arguments = new ArrayList<>(common);
+        arguments.addAll(specific);
+        ServiceProcess service = ServiceProcess.start(name, config.string("services.java"),
+                config.string("services.jvm-args"), config.string(jarKey), port, arguments, logDirectory);
+        resources.push(service);
+        return service;
+    }
+
+    // Spring Boot quietly stays on platform threads below Java 21, which would make a comparison meaningless
+    private static void checkVirtualThreads(LoadTestConfig config) throws IOException, InterruptedException {
+        if (!config.bool("services.virtual-threads")) {
+            return;
+        }
+        Process process = new ProcessBuilder(config.string("services.java"), "-version")
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes());
+        process.waitFor();
+        Matcher version = JAVA_VERSION.matcher(output);
+        if (!version.find() || Integer.parseInt(version.group(1)) < 21) {
+            throw new IllegalStateException("services.virtual-threads=true needs services.java to be Java 21 or newer, got: "
+                    + output.lines().findFirst().orElse(output));
+        }
+    }
+
+    private static void closeAll(Deque<AutoCloseable> resources) {
+        // Main thread and shutdown hook may both get here, each resource is taken once
+        AutoCloseable resource;
+        while ((resource = resources.pollFirst()) != null) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.warn("Shutdown of {} failed: {}", resource, e.toString());
+            }
+        }
+    }
+}
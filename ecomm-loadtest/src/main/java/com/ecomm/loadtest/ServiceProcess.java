@@ -0,0 +1,129 @@
+package com.ecomm.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One of the services running from its executable jar in a separate JVM.
+ *
+ * The services are separate processes, as in production, which also keeps
+ * ecommauth on its own Spring Boot version. Output goes to a log file per
+ * service in the report directory.
+ */
+@Slf4j
+public class ServiceProcess implements AutoCloseable {
+
+    private final String name;
+    private final int port;
+    private final File logFile;
+    private final Process process;
+
+    private ServiceProcess(String name, int port, File logFile, Process process) {
+        this.name = name;
+        this.port = port;
+        this.logFile = logFile;
+        this.process = process;
+    }
+
+    /**
+     * Launch a service
+     *
+     * @param name      Service name, used for the log file
+     * @param java      Java launcher
+     * @param jvmArgs   Space-separated JVM options
+     * @param jar       Executable jar of the service
+     * @param port      HTTP port
+     * @param arguments Spring Boot command line arguments, overriding application.properties
+     * @param logDir    Directory for the log file
+     */
+    public static ServiceProcess start(String name, String java, String jvmArgs, String jar, int port,
+            List<String> arguments, File logDir) throws IOException {
+        if (!new File(jar).isFile()) {
+            throw new IllegalStateException("Executable jar of " + name + " not found at " + jar
+                    + "; build it with mvn -am package");
+        }
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        if (!jvmArgs.isBlank()) {
+            command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        }
+        command.add("-jar");
+        command.add(jar);
+        command.add("--server.port=" + port);
+        command.addAll(arguments);
+
+        File logFile = new File(logDir, name + ".log");
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile)
+                .start();
+        log.info("Started {} (pid {}) on port {}, log in {}", name, process.pid(), port, logFile);
+        return new ServiceProcess(name, port, logFile, process);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    /**
+     * Wait until the actuator health endpoint reports UP
+     *
+     * @param timeout How long to wait
+     */
+    public void awaitReady(HttpClient httpClient, Duration timeout) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl() + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with code " + process.exitValue() + ":\n" + logTail());
+            }
+            try {
+                HttpResponse<String> response = httpClient.send(health, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200 && response.body().contains("\"UP\"")) {
+                    log.info("{} is up", name);
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(name + " did not become healthy within " + timeout + ":\n" + logTail());
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            log.warn("{} did not stop, killing it", name);
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private String logTail() {
+        try {
+            List<String> lines = Files.readAllLines(logFile.toPath());
+            return String.join("\n", lines.subList(Math.max(0, lines.size() - 40), lines.size()));
+        } catch (IOException e) {
+            return "(no log: " + e.getMessage() + ")";
+        }
+    }
+}
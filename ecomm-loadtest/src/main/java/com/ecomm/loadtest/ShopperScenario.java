@@ -0,0 +1,194 @@
+package com.ecomm.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One shopper's visit: register, log in, check the token, browse the catalog,
+ * add products to the cart, look at the cart and place the order.
+ *
+ * Each step is recorded under its endpoint name. A step that fails ends the
+ * visit, as it would for a real shopper.
+ */
+public class ShopperScenario {
+
+    private static final String PASSWORD = "loadtest-password";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final EndpointStats stats;
+    private final String authUrl;
+    private final String buyerUrl;
+    private final String runId;
+    private final int tokenValidations;
+    private final int browsePages;
+    private final int cartItems;
+    private final boolean asyncOrders;
+    private final Duration thinkTime;
+    private final Duration requestTimeout;
+    private final AtomicLong shoppers = new AtomicLong();
+
+    public ShopperScenario(HttpClient httpClient, ObjectMapper objectMapper, EndpointStats stats,
+            String authUrl, String buyerUrl, LoadTestConfig config) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.stats = stats;
+        this.authUrl = authUrl;
+        this.buyerUrl = buyerUrl;
+        this.runId = Long.toString(System.currentTimeMillis(), 36);
+        this.tokenValidations = config.integer("load.token-validations");
+        this.browsePages = config.integer("load.browse-pages");
+        this.cartItems = config.integer("load.cart-items");
+        this.asyncOrders = config.bool("load.async-orders");
+        this.thinkTime = config.duration("load.think-time");
+        this.requestTimeout = config.duration("load.request-timeout");
+    }
+
+    /**
+     * Run one visit with a new shopper
+     *
+     * @return Whether the order was placed
+     */
+    public boolean run() throws InterruptedException {
+        long shopper = shoppers.incrementAndGet();
+        String username = "shopper-" + runId + "-" + shopper;
+        // Shoppers come from different addresses, so ecommauth's per-IP login limit applies per shopper
+        String clientIp = "198.18." + (shopper >> 8 & 0xff) + "." + (shopper & 0xff);
+
+        ObjectNode credentials = objectMapper.createObjectNode()
+                .put("username", username)
+                .put("password", PASSWORD);
+        Response register = call("auth.register", clientIp, null,
+                post(authUrl + "/api/auth/register", credentials.deepCopy().put("role", "BUYER")), 201);
+        if (register == null) {
+            return false;
+        }
+        think();
+
+        Response login = call("auth.login", clientIp, null, post(authUrl + "/api/auth/login", credentials), 200);
+        if (login == null) {
+            return false;
+        }
+        String authHeader = "Bearer " + login.body().path("token").asText();
+        think();
+
+        // Token checks run alongside the logins' password hashing, the mix ecommauth's pools are sized for
+        for (int i = 0; i < tokenValidations; i++) {
+            if (call("auth.validate-token", clientIp, authHeader,
+                    HttpRequest.newBuilder(URI.create(authUrl + "/api/auth/validate-token")).GET(), 200) == null) {
+                return false;
+            }
+            think();
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        for (int page = 0; page < browsePages; page++) {
+            String url = buyerUrl + "/api/buyer/products/page?size=20"
+                    + (cursor != null ? "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8) : "");
+            Response browse = call("buyer.products.page", clientIp, authHeader, HttpRequest.newBuilder(URI.create(url)).GET(), 200);
+            if (browse == null) {
+                return false;
+            }
+            for (JsonNode product : browse.body().path("items")) {
+                if (product.path("quantity").asInt() > 0) {
+                    seen.add(product.path("id").asLong());
+                }
+            }
+            cursor = browse.body().path("nextCursor").isTextual() ? browse.body().path("nextCursor").asText() : null;
+            think();
+            if (cursor == null) {
+                break;
+            }
+        }
+        if (seen.isEmpty()) {
+            return false;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < cartItems; i++) {
+            long productId = seen.get(random.nextInt(seen.size()));
+            String url = buyerUrl + "/api/buyer/cart?productId=" + productId + "&quantity=" + (1 + random.nextInt(3));
+            if (call("buyer.cart.add", clientIp, authHeader, HttpRequest.newBuilder(URI.create(url))
+                    .POST(HttpRequest.BodyPublishers.noBody()), 201) == null) {
+                return false;
+            }
+            think();
+        }
+
+        if (call("buyer.cart.view", clientIp, authHeader,
+                HttpRequest.newBuilder(URI.create(buyerUrl + "/api/buyer/cart/view")).GET(), 200) == null) {
+            return false;
+        }
+        think();
+
+        String orderUrl = buyerUrl + "/api/buyer/orders" + (asyncOrders ? "?async=true" : "?async=false");
+        return call("buyer.orders.place", clientIp, authHeader, HttpRequest.newBuilder(URI.create(orderUrl))
+                .POST(HttpRequest.BodyPublishers.noBody()), asyncOrders ? 202 : 201) != null;
+    }
+
+    private HttpRequest.Builder post(String url, JsonNode body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(url))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Sends the request and records it; returns null unless the expected status came back
+    private Response call(String endpoint, String clientIp, String authHeader, HttpRequest.Builder request,
+            int expectedStatus) throws InterruptedException {
+        request.timeout(requestTimeout).header("X-Forwarded-For", clientIp);
+        if (authHeader != null) {
+            request.header("Authorization", authHeader);
+        }
+
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            stats.record(endpoint, System.nanoTime() - start, 0, false);
+            return null;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        boolean success = response.statusCode() == expectedStatus;
+        stats.record(endpoint, elapsed, response.statusCode(), success);
+        if (!success) {
+            return null;
+        }
+        try {
+            byte[] body = response.body();
+            return new Response(body.length > 0 ? objectMapper.readTree(body) : objectMapper.missingNode());
+        } catch (IOException e) {
+            // Not JSON, the steps that need a body will find it missing
+            return new Response(objectMapper.missingNode());
+        }
+    }
+
+    private void think() throws InterruptedException {
+        if (!thinkTime.isZero()) {
+            Thread.sleep(thinkTime.toMillis());
+        }
+    }
+
+    private record Response(JsonNode body) {
+    }
+}
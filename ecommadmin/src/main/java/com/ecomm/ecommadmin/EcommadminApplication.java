@@ -1,11 +1,20 @@
 package com.ecomm.ecommadmin;
 
+import com.ecomm.common.config.FeignTransportConfig;
+import com.ecomm.common.security.JwtVerifier;
+import com.ecomm.common.security.TokenRevocations;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableCaching
 @EnableFeignClients
+@EnableScheduling
+@Import({FeignTransportConfig.class, JwtVerifier.class, TokenRevocations.class})
 public class EcommadminApplication {
 
     public static void main(String[] args) {
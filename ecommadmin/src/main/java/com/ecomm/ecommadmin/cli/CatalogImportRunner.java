@@ -0,0 +1,61 @@
+package com.ecomm.ecommadmin.cli;
+
+import com.ecomm.ecommadmin.dto.ImportReport;
+import com.ecomm.ecommadmin.service.CatalogImportService;
+import com.ecomm.ecommadmin.service.CatalogImportService.Format;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+
+/**
+ * Command-line import, e.g.
+ * {@code java -jar ecommadmin.jar --spring.main.web-application-type=none
+ * --catalog.import.file=products.csv --catalog.import.seller-id=1}
+ *
+ * The file may also be a classpath resource such as {@code classpath:seed/products.csv}.
+ * The application exits after the import with status 1 if any row was rejected.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("catalog.import.file")
+@RequiredArgsConstructor
+public class CatalogImportRunner implements ApplicationRunner {
+
+    private final CatalogImportService catalogImportService;
+    private final ResourceLoader resourceLoader;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${catalog.import.file}")
+    private String file;
+
+    @Value("${catalog.import.seller-id}")
+    private Long sellerId;
+
+    @Value("${catalog.import.format:}")
+    private String format;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Resource resource = resourceLoader.getResource(file.contains(":") ? file : "file:" + file);
+        Format inputFormat = format.isBlank() ? Format.fromFileName(file) : Format.valueOf(format.toUpperCase());
+
+        ImportReport report;
+        try (InputStream in = resource.getInputStream()) {
+            report = catalogImportService.importProducts(in, inputFormat, sellerId);
+        }
+        report.getErrors().forEach(error -> log.warn("Line {}: {}", error.getLine(), error.getMessage()));
+
+        int exitCode = report.getRowsRejected() > 0 ? 1 : 0;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
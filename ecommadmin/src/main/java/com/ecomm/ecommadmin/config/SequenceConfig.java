@@ -0,0 +1,22 @@
+package com.ecomm.ecommadmin.config;
+
+import com.ecomm.common.config.IdSequenceAligner;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+@Configuration
+public class SequenceConfig {
+
+    // The entity manager factory is injected so the schema, including the sequence tables, exists first
+    @Bean
+    public IdSequenceAligner idSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        return new IdSequenceAligner(jdbcTemplate, Map.of(
+                "products_seq", "products",
+                "inventory_reservations_seq", "inventory_reservations",
+                "product_outbox_seq", "product_outbox"));
+    }
+}
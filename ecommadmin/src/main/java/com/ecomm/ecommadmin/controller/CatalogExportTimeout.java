@@ -0,0 +1,31 @@
+package com.ecomm.ecommadmin.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Gives a catalog export its own async timeout. The export registers it on its
+ * own request only, so every other async request keeps the default timeout.
+ */
+@Component
+class CatalogExportTimeout implements CallableProcessingInterceptor {
+
+    private final long timeout;
+
+    CatalogExportTimeout(@Value("${catalog.export.timeout}") long timeout) {
+        this.timeout = timeout;
+    }
+
+    // Runs before the request goes async, while its timeout can still be changed
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (request instanceof AsyncWebRequest asyncRequest) {
+            asyncRequest.setTimeout(timeout);
+        }
+    }
+}
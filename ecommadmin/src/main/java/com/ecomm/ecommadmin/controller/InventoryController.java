@@ -0,0 +1,113 @@
+package com.ecomm.ecommadmin.controller;
+
+import com.ecomm.common.security.ServiceCredentials;
+import com.ecomm.ecommadmin.dto.ReservationItem;
+import com.ecomm.ecommadmin.dto.ReservationOutcome;
+import com.ecomm.ecommadmin.dto.ReservationResponse;
+import com.ecomm.ecommadmin.security.ServiceCredentialVerifier;
+import com.ecomm.ecommadmin.service.InsufficientStockException;
+import com.ecomm.ecommadmin.service.InventoryService;
+import com.ecomm.ecommadmin.service.ReservationStateException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Endpoints for other services; callers present the shared service secret
+@RestController
+@RequestMapping("/api/admin/inventory")
+@RequiredArgsConstructor
+public class InventoryController {
+
+    private final InventoryService inventoryService;
+    private final ServiceCredentialVerifier serviceCredentialVerifier;
+
+    @PostMapping("/reservations")
+    public ResponseEntity<?> reserve(
+            @RequestBody List<ReservationItem> items,
+            @RequestHeader(value = ServiceCredentials.HEADER, required = false) String serviceSecret) {
+        if (!authorized(serviceSecret)) {
+            return unauthorized();
+        }
+        // Only a shortage is a conflict; anything else, e.g. a database failure, surfaces as a server error
+        try {
+            ReservationResponse reservation = inventoryService.reserve(items);
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Reservations are granted or refused one by one; a refusal is part of the answer, not an error
+    @PostMapping("/reservations/batch")
+    public ResponseEntity<?> reserveEach(
+            @RequestBody List<List<ReservationItem>> requests,
+            @RequestHeader(value = ServiceCredentials.HEADER, required = false) String serviceSecret) {
+        if (!authorized(serviceSecret)) {
+            return unauthorized();
+        }
+        List<ReservationOutcome> outcomes = inventoryService.reserveEach(requests);
+        return ResponseEntity.ok(outcomes);
+    }
+
+    @PostMapping("/reservations/{reservationId}/commit")
+    public ResponseEntity<?> commit(
+            @PathVariable String reservationId,
+            @RequestHeader(value = ServiceCredentials.HEADER, required = false) String serviceSecret) {
+        if (!authorized(serviceSecret)) {
+            return unauthorized();
+        }
+        try {
+            return ResponseEntity.ok(inventoryService.commit(reservationId));
+        } catch (ReservationStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // Commits every listed reservation or, if one of them is gone, none
+    @PostMapping("/reservations/commit")
+    public ResponseEntity<?> commitAll(
+            @RequestBody List<String> reservationIds,
+            @RequestHeader(value = ServiceCredentials.HEADER, required = false) String serviceSecret) {
+        if (!authorized(serviceSecret)) {
+            return unauthorized();
+        }
+        try {
+            inventoryService.commitAll(reservationIds);
+            return ResponseEntity.noContent().build();
+        } catch (ReservationStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/reservations/{reservationId}/release")
+    public ResponseEntity<?> release(
+            @PathVariable String reservationId,
+            @RequestHeader(value = ServiceCredentials.HEADER, required = false) String serviceSecret) {
+        if (!authorized(serviceSecret)) {
+            return unauthorized();
+        }
+        try {
+            return ResponseEntity.ok(inventoryService.release(reservationId));
+        } catch (ReservationStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    private boolean authorized(String serviceSecret) {
+        try {
+            serviceCredentialVerifier.verify(serviceSecret);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static ResponseEntity<String> unauthorized() {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid service credential");
+    }
+}
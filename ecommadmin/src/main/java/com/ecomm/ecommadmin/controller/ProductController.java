@@ -1,14 +1,35 @@
 package com.ecomm.ecommadmin.controller;
 
+import com.ecomm.common.security.AuthServiceUnavailableException;
+import com.ecomm.ecommadmin.dto.CursorPage;
+import com.ecomm.ecommadmin.dto.ImportReport;
+import com.ecomm.ecommadmin.dto.ProductBatchResponse;
+import com.ecomm.ecommadmin.dto.ProductCatalog;
+import com.ecomm.ecommadmin.dto.ProductChangeFeed;
+import com.ecomm.ecommadmin.dto.ProductChangeSnapshot;
 import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.service.CatalogExportService;
+import com.ecomm.ecommadmin.service.CatalogImportService;
+import com.ecomm.ecommadmin.service.CatalogImportService.Format;
+import com.ecomm.ecommadmin.service.ProductOutbox;
 import com.ecomm.ecommadmin.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -16,6 +37,10 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogExportService catalogExportService;
+    private final CatalogImportService catalogImportService;
+    private final ProductOutbox productOutbox;
+    private final CatalogExportTimeout exportTimeout;
 
     @PostMapping("/products")
     public ResponseEntity<?> addProduct(
@@ -24,6 +49,8 @@ public class ProductController {
         try {
             Product created = productService.addProduct(product, authHeader);
             return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
         }
@@ -37,6 +64,8 @@ public class ProductController {
         try {
             Product updated = productService.updateProduct(id, product, authHeader);
             return ResponseEntity.ok(updated);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -47,6 +76,23 @@ public class ProductController {
         try {
             List<Product> products = productService.getSellerProducts(authHeader);
             return ResponseEntity.ok(products);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/products/page")
+    public ResponseEntity<?> getSellerProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            CursorPage<Product> page = productService.getSellerProductsPage(cursor, size, authHeader);
+            return ResponseEntity.ok(page);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
         }
@@ -60,6 +106,8 @@ public class ProductController {
         try {
             Product updated = productService.updateQuantity(id, quantity, authHeader);
             return ResponseEntity.ok(updated);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -76,9 +124,119 @@ public class ProductController {
         }
     }
 
+    @PostMapping("/products/batch")
+    public ResponseEntity<?> getProductsByIds(@RequestBody List<Long> ids) {
+        try {
+            ProductBatchResponse response = productService.getProductsByIds(ids);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/products/available")
-    public ResponseEntity<List<Product>> getAllAvailableProducts() {
-        List<Product> products = productService.getAllAvailableProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<Product>> getAllAvailableProducts(WebRequest request) {
+        ProductCatalog catalog = productService.getAvailableCatalog();
+
+        // Weak, since the body may be gzipped; Tomcat does not compress responses carrying a strong ETag
+        String eTag = "W/\"" + catalog.getVersion() + "\"";
+
+        // Callers holding the current version get a 304 without the catalog body
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(catalog.getProducts());
+    }
+
+    // Full catalog as newline-delimited JSON, streamed row by row
+    @GetMapping(value = "/products/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportAvailableProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        // Exports run as long as the catalog takes; only this request gets the longer timeout
+        WebAsyncUtils.getAsyncManager(request)
+                .registerCallableInterceptor(CatalogExportTimeout.class.getName(), exportTimeout);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, 8192)) {
+                    catalogExportService.exportAvailableProducts(compressed);
+                }
+            } else {
+                catalogExportService.exportAvailableProducts(out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson"));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // Bulk load from a CSV (with header) or NDJSON body, optionally gzip-compressed
+    @PostMapping(value = "/products/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importProducts(
+            InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            @RequestHeader("Authorization") String authHeader) throws IOException {
+        try (InputStream in = "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(body, 8192) : body) {
+            ImportReport report = catalogImportService.importProducts(in, Format.fromContentType(contentType), authHeader);
+            return ResponseEntity.ok(report);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+
+    // Product changes after a feed position, for services that keep a local copy of the catalog
+    @GetMapping("/products/changes")
+    public ResponseEntity<ProductChangeFeed> getProductChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productOutbox.getChanges(after, size));
+    }
+
+    // Full catalog with the feed position to follow the changes from
+    @GetMapping("/products/changes/snapshot")
+    public ResponseEntity<ProductChangeSnapshot> getProductChangeSnapshot() {
+        return ResponseEntity.ok(productService.getChangeSnapshot());
+    }
+
+    @GetMapping("/products/available/page")
+    public ResponseEntity<?> getAvailableProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            CursorPage<Product> page = productService.getAvailableProductsPage(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/products/search")
+    public ResponseEntity<?> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) Integer size) {
+        try {
+            List<Product> products = productService.searchProducts(query, minPrice, maxPrice, inStock, size);
+            return ResponseEntity.ok(products);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/products/search/suggest")
+    public ResponseEntity<List<String>> suggestSearchTerms(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.suggestSearchTerms(prefix, size));
     }
 }
@@ -0,0 +1,16 @@
+package com.ecomm.ecommadmin.dto;
+
+import com.ecomm.ecommadmin.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchResponse {
+    private List<Product> products;
+    private List<Long> missingIds;
+}
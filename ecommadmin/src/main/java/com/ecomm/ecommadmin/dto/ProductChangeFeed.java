@@ -0,0 +1,21 @@
+package com.ecomm.ecommadmin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Changes after a feed position. {@code resyncRequired} is set when some of
+ * the requested changes were already cleaned up, so the caller must reload
+ * the full catalog and continue from {@code headSequence}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeFeed {
+    private List<ProductChangeEvent> events;
+    private long headSequence;
+    private boolean resyncRequired;
+}
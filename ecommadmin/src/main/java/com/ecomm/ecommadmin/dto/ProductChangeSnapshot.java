@@ -0,0 +1,24 @@
+package com.ecomm.ecommadmin.dto;
+
+import com.ecomm.ecommadmin.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Available products together with the feed position they reflect, read in
+ * one transaction. The snapshot contains every change up to
+ * {@code headSequence} and also the changes in {@code includedChangeIds},
+ * which were committed but not relayed yet and get a later sequence, so a
+ * caller continuing from {@code headSequence} skips those.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeSnapshot {
+    private long headSequence;
+    private List<Long> includedChangeIds;
+    private List<Product> products;
+}
@@ -0,0 +1,14 @@
+package com.ecomm.ecommadmin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Raw import row; values stay text until validated so one bad cell rejects only its row
+@Data
+@NoArgsConstructor
+public class ProductImportRow {
+    private String name;
+    private String description;
+    private String price;
+    private String quantity;
+}
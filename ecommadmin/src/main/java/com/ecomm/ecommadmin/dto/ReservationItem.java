@@ -0,0 +1,13 @@
+package com.ecomm.ecommadmin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationItem {
+    private Long productId;
+    private Integer quantity;
+}
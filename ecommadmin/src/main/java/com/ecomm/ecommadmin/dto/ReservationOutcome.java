@@ -0,0 +1,14 @@
+package com.ecomm.ecommadmin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One reservation of a batch: either the granted reservation or why it was refused
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationOutcome {
+    private ReservationResponse reservation;
+    private String refusal;
+}
@@ -0,0 +1,47 @@
+package com.ecomm.ecommadmin.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One movement of units between a product row and the in-memory lease of an
+ * ecommadmin instance: positive when leased, negative when returned. The sum
+ * for a holder and product, less the reservation lines the holder served,
+ * is what the holder still has in memory.
+ */
+@Entity
+@Table(name = "inventory_leases", indexes = {
+        @Index(name = "idx_inventory_leases_holder_product", columnList = "holder, product_id")
+})
+@Data
+@NoArgsConstructor
+public class InventoryLease {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_leases_seq")
+    @SequenceGenerator(name = "inventory_leases_seq", sequenceName = "inventory_leases_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String holder;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public InventoryLease(String holder, Long productId, Integer quantity) {
+        this.holder = holder;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+}
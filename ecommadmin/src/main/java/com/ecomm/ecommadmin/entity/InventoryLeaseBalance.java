@@ -0,0 +1,41 @@
+package com.ecomm.ecommadmin.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Units of a product an ecommadmin instance holds in its in-memory lease and
+ * has not reserved yet, as last published by that instance. They are still
+ * for sale, so read paths add them to the quantity of the product row.
+ */
+@Entity
+@Table(name = "inventory_lease_balances")
+@IdClass(InventoryLeaseBalance.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryLeaseBalance {
+
+    @Id
+    @Column(length = 36)
+    private String holder;
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long units;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String holder;
+        private Long productId;
+    }
+}
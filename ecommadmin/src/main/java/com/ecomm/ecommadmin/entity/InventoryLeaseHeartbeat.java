@@ -0,0 +1,24 @@
+package com.ecomm.ecommadmin.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Kept apart from InventoryLeaseHolder so updating it never waits for the reservations that lock that row
+@Entity
+@Table(name = "inventory_lease_heartbeats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryLeaseHeartbeat {
+
+    @Id
+    @Column(length = 36)
+    private String holder;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,30 @@
+package com.ecomm.ecommadmin.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * An ecommadmin instance that may hold leases. Reservations served from its
+ * leases lock the row shared and reconciliation locks it exclusively, so a
+ * holder is never reconciled while one of them is still in flight.
+ */
+@Entity
+@Table(name = "inventory_lease_holders")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryLeaseHolder {
+
+    @Id
+    @Column(length = 36)
+    private String holder;
+
+    @CreationTimestamp
+    @Column(name = "registered_at", updatable = false)
+    private LocalDateTime registeredAt;
+}
@@ -0,0 +1,56 @@
+package com.ecomm.ecommadmin.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "inventory_reservations", indexes = {
+        @Index(name = "idx_reservation_id", columnList = "reservation_id"),
+        @Index(name = "idx_reservation_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_reservation_lease_holder", columnList = "lease_holder, product_id")
+})
+@Data
+@NoArgsConstructor
+public class InventoryReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_reservations_seq")
+    @SequenceGenerator(name = "inventory_reservations_seq", sequenceName = "inventory_reservations_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "reservation_id", nullable = false, length = 36)
+    private String reservationId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReservationStatus status;
+
+    // Instance whose in-memory lease supplied the units, null when they came from the product row
+    @Column(name = "lease_holder", length = 36)
+    private String leaseHolder;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public InventoryReservation(String reservationId, Long productId, Integer quantity) {
+        this.reservationId = reservationId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.status = ReservationStatus.RESERVED;
+    }
+
+    public enum ReservationStatus {
+        RESERVED, COMMITTED, RELEASED
+    }
+}
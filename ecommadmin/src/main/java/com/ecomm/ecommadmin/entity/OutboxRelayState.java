@@ -0,0 +1,23 @@
+package com.ecomm.ecommadmin.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Single row locked by the relay, so feed sequences are assigned by one relay at a time
+@Entity
+@Table(name = "product_outbox_relay")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxRelayState {
+
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+}
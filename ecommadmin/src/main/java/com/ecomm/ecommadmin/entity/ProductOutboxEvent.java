@@ -0,0 +1,60 @@
+package com.ecomm.ecommadmin.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "product_outbox", indexes = {
+        @Index(name = "uk_product_outbox_sequence", columnList = "sequence", unique = true),
+        @Index(name = "idx_product_outbox_published", columnList = "published_at"),
+        @Index(name = "idx_product_outbox_unrelayed", columnList = "sequence, recorded_at, id")
+})
+@Data
+@NoArgsConstructor
+public class ProductOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_outbox_seq")
+    @SequenceGenerator(name = "product_outbox_seq", sequenceName = "product_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 20)
+    private ChangeType changeType;
+
+    // Product as JSON after the change, for changes that replace it
+    @Lob
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    // Stock taken (negative) or returned (positive), for stock adjustments
+    @Column(name = "quantity_delta")
+    private Integer quantityDelta;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    // Set by the database when the row is inserted. A change that conflicts with another one locks the
+    // product row first, so it is inserted after that change committed; ids come from per-instance pools
+    @Column(name = "recorded_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "datetime(6) default current_timestamp(6)")
+    private LocalDateTime recordedAt;
+
+    // Position in the change feed, assigned in publish order by the relay
+    private Long sequence;
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    public enum ChangeType {
+        CREATED, UPDATED, STOCK_ADJUSTED
+    }
+}
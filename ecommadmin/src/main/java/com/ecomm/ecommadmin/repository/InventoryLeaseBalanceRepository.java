@@ -0,0 +1,27 @@
+package com.ecomm.ecommadmin.repository;
+
+import com.ecomm.ecommadmin.entity.InventoryLeaseBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryLeaseBalanceRepository extends JpaRepository<InventoryLeaseBalance, InventoryLeaseBalance.Key> {
+
+    @Modifying
+    @Query(value = "insert into inventory_lease_balances (holder, product_id, units) values (:holder, :productId, :units) "
+            + "on duplicate key update units = :units", nativeQuery = true)
+    int publish(@Param("holder") String holder, @Param("productId") Long productId, @Param("units") long units);
+
+    // Rows of [productId, units] leased out and not reserved yet, across all holders
+    @Query("select b.productId, sum(b.units) from InventoryLeaseBalance b group by b.productId having sum(b.units) > 0")
+    List<Object[]> sumByProduct();
+
+    @Modifying
+    @Query("delete from InventoryLeaseBalance b where b.holder = :holder")
+    int deleteByHolder(@Param("holder") String holder);
+}
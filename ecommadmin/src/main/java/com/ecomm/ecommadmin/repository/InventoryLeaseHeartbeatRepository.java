@@ -0,0 +1,22 @@
+package com.ecomm.ecommadmin.repository;
+
+import com.ecomm.ecommadmin.entity.InventoryLeaseHeartbeat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InventoryLeaseHeartbeatRepository extends JpaRepository<InventoryLeaseHeartbeat, String> {
+
+    @Modifying
+    @Query("update InventoryLeaseHeartbeat h set h.heartbeatAt = :now where h.holder = :holder")
+    int beat(@Param("holder") String holder, @Param("now") LocalDateTime now);
+
+    @Query("select h.holder from InventoryLeaseHeartbeat h where h.heartbeatAt < :before")
+    List<String> findHoldersSilentSince(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,26 @@
+package com.ecomm.ecommadmin.repository;
+
+import com.ecomm.ecommadmin.entity.InventoryLeaseHolder;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InventoryLeaseHolderRepository extends JpaRepository<InventoryLeaseHolder, String> {
+
+    // Held until the caller commits, so the holder cannot be reconciled while it uses its leases
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select h from InventoryLeaseHolder h where h.holder = :holder")
+    Optional<InventoryLeaseHolder> findForShare(@Param("holder") String holder);
+
+    // Empty if the holder is gone or still in use, so reconciliation never waits
+    @Query(value = "select holder from inventory_lease_holders where holder = :holder for update skip locked",
+            nativeQuery = true)
+    List<String> lockIfIdle(@Param("holder") String holder);
+}
@@ -0,0 +1,22 @@
+package com.ecomm.ecommadmin.repository;
+
+import com.ecomm.ecommadmin.entity.InventoryLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryLeaseRepository extends JpaRepository<InventoryLease, Long> {
+
+    // Rows of [productId, units] moved into the holder's leases, net of returns
+    @Query("select l.productId, sum(l.quantity) from InventoryLease l where l.holder = :holder group by l.productId")
+    List<Object[]> sumByProduct(@Param("holder") String holder);
+
+    @Modifying
+    @Query("delete from InventoryLease l where l.holder = :holder")
+    int deleteByHolder(@Param("holder") String holder);
+}
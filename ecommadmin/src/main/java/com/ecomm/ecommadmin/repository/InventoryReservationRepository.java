@@ -0,0 +1,40 @@
+package com.ecomm.ecommadmin.repository;
+
+import com.ecomm.ecommadmin.entity.InventoryReservation;
+import com.ecomm.ecommadmin.entity.InventoryReservation.ReservationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
+
+    List<InventoryReservation> findByReservationId(String reservationId);
+
+    @Query("select distinct r.reservationId from InventoryReservation r where r.status = :status and r.createdAt < :before")
+    List<String> findReservationIdsByStatusCreatedBefore(@Param("status") ReservationStatus status,
+            @Param("before") LocalDateTime before);
+
+    // Rows of [productId, units] of the lines served from the holder's leases
+    @Query("select r.productId, sum(r.quantity) from InventoryReservation r where r.leaseHolder = :holder group by r.productId")
+    List<Object[]> sumLeasedByProduct(@Param("holder") String holder);
+
+    // Moves every line of a reservation from one status to another in one statement
+    @Modifying
+    @Query("update InventoryReservation r set r.status = :to where r.reservationId = :reservationId and r.status = :from")
+    int updateStatus(@Param("reservationId") String reservationId,
+            @Param("from") ReservationStatus from,
+            @Param("to") ReservationStatus to);
+
+    @Modifying
+    @Query("update InventoryReservation r set r.status = :to where r.reservationId = :reservationId and r.status in :from")
+    int updateStatus(@Param("reservationId") String reservationId,
+            @Param("from") Collection<ReservationStatus> from,
+            @Param("to") ReservationStatus to);
+}
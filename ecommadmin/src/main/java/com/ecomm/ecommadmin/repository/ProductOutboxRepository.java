@@ -0,0 +1,30 @@
+package com.ecomm.ecommadmin.repository;
+
+import com.ecomm.ecommadmin.entity.ProductOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductOutboxRepository extends JpaRepository<ProductOutboxEvent, Long> {
+
+    List<ProductOutboxEvent> findBySequenceIsNullOrderByRecordedAtAscIdAsc(Pageable pageable);
+
+    List<ProductOutboxEvent> findBySequenceGreaterThanOrderBySequenceAsc(Long sequence, Pageable pageable);
+
+    @Query("select e.id from ProductOutboxEvent e where e.sequence is null")
+    List<Long> findUnrelayedIds();
+
+    @Query("select min(e.sequence) from ProductOutboxEvent e")
+    Long findOldestSequence();
+
+    @Modifying
+    @Query("delete from ProductOutboxEvent e where e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
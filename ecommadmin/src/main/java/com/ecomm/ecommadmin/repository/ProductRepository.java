@@ -1,15 +1,66 @@
 package com.ecomm.ecommadmin.repository;
 
 import com.ecomm.ecommadmin.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
     List<Product> findBySellerId(Long sellerId);
 
-    List<Product> findByQuantityGreaterThan(Integer quantity);
+    // Available: stock left in the row or in a lease that is not reserved yet
+    @Query("select p from Product p where p.quantity > 0 or p.id in "
+            + "(select b.productId from InventoryLeaseBalance b where b.units > 0)")
+    List<Product> findAvailable();
+
+    // Keyset pages ordered by id: only rows after the cursor are read
+    @Query("select p from Product p where p.id > :afterId and (p.quantity > 0 or p.id in "
+            + "(select b.productId from InventoryLeaseBalance b where b.units > 0)) order by p.id")
+    List<Product> findAvailableAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    List<Product> findBySellerIdAndIdGreaterThanOrderByIdAsc(Long sellerId, Long afterId, Pageable pageable);
+
+    // Forward-only read for exports; Integer.MIN_VALUE makes MySQL Connector/J stream rows one by one
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Product p where p.quantity > 0 or p.id in "
+            + "(select b.productId from InventoryLeaseBalance b where b.units > 0) order by p.id")
+    Stream<Product> streamAvailableProducts();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAllProducts();
+
+    // Takes stock only if enough is left, so concurrent callers can never oversell
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.quantity = p.quantity - :amount where p.id = :id and p.quantity >= :amount")
+    int decrementQuantity(@Param("id") Long id, @Param("amount") int amount);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.quantity = p.quantity + :amount where p.id = :id")
+    int incrementQuantity(@Param("id") Long id, @Param("amount") int amount);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.quantity = :quantity where p.id = :id")
+    int setQuantity(@Param("id") Long id, @Param("quantity") int quantity);
 }
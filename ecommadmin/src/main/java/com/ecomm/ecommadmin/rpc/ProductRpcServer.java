@@ -0,0 +1,252 @@
+package com.ecomm.ecommadmin.rpc;
+
+import com.ecomm.common.rpc.ProductRpcProtocol;
+import com.ecomm.ecommadmin.dto.ProductBatchResponse;
+import com.ecomm.ecommadmin.dto.ProductCatalog;
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.service.ProductService;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves product lookups over persistent TCP connections in the compact
+ * framing of {@link ProductRpcProtocol}.
+ *
+ * This is an internal channel for ecommbuyer; the JSON endpoints in
+ * ProductController stay the public API. Both go through ProductService, so
+ * they share its caches and return the same data. The server listens on
+ * product.rpc.bind-address only and serves a connection once it has sent the
+ * shared product.rpc.secret; it refuses to start without a secret.
+ *
+ * Every call is timed as product.rpc.server.requests, tagged with the operation
+ * and the response status.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "product.rpc.enabled", havingValue = "true")
+public class ProductRpcServer {
+
+    // Time a new connection has to authenticate
+    private static final int HANDSHAKE_TIMEOUT = 5000;
+
+    private final ProductService productService;
+    private final String bindAddress;
+    private final int port;
+    private final String secret;
+    private final SimpleAsyncTaskExecutor connectionExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+
+    public ProductRpcServer(ProductService productService,
+            @Value("${product.rpc.bind-address}") String bindAddress,
+            @Value("${product.rpc.port}") int port,
+            @Value("${product.rpc.secret}") String secret,
+            @Value("${product.rpc.max-connections}") int maxConnections,
+            Environment environment,
+            MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.secret = secret;
+        this.meterRegistry = meterRegistry;
+
+        // One thread per connection, virtual when the request threads are
+        this.connectionExecutor = new SimpleAsyncTaskExecutor("product-rpc-");
+        this.connectionExecutor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+        this.connectionExecutor.setConcurrencyLimit(maxConnections);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("product.rpc.secret must be set when product.rpc.enabled is true");
+        }
+        serverSocket = new ServerSocket(port, 0, InetAddress.getByName(bindAddress));
+        running = true;
+        acceptor = new Thread(this::acceptConnections, "product-rpc-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Product RPC listening on {}:{}", bindAddress, port);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Socket connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void acceptConnections() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                // Blocks here while max-connections are open
+                connectionExecutor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Product RPC accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            if (!authenticate(socket, in, out)) {
+                return;
+            }
+            byte[] request;
+            while ((request = ProductRpcProtocol.readFrame(in, ProductRpcProtocol.MAX_REQUEST_SIZE)) != null) {
+                ProductRpcProtocol.writeFrame(out, handle(request));
+            }
+        } catch (SocketException | SocketTimeoutException e) {
+            // Connection closed by the client or on shutdown, or no handshake in time
+        } catch (IOException e) {
+            log.warn("Product RPC connection from {} failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    // The first frame must be HELLO with the shared secret
+    private boolean authenticate(Socket socket, DataInputStream in, OutputStream out) throws IOException {
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+        byte[] hello = ProductRpcProtocol.readFrame(in, ProductRpcProtocol.MAX_REQUEST_SIZE);
+        if (hello == null) {
+            return false;
+        }
+        DataInputStream frame = new DataInputStream(new ByteArrayInputStream(hello));
+        boolean authenticated = hello.length > 0 && frame.readByte() == ProductRpcProtocol.HELLO
+                && ProductRpcProtocol.secretMatches(secret, ProductRpcProtocol.readString(frame));
+        ProductRpcProtocol.writeFrame(out, new byte[] {
+                authenticated ? ProductRpcProtocol.OK : ProductRpcProtocol.UNAUTHORIZED });
+        if (!authenticated) {
+            log.warn("Product RPC connection from {} failed to authenticate", socket.getRemoteSocketAddress());
+            return false;
+        }
+        socket.setSoTimeout(0);
+        return true;
+    }
+
+    private byte[] handle(byte[] request) throws IOException {
+        Timer.Sample sample = Timer.start();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(buffer);
+
+        byte operation = in.readByte();
+        try {
+            switch (operation) {
+                case ProductRpcProtocol.GET_PRODUCT -> getProduct(in.readLong(), out);
+                case ProductRpcProtocol.GET_PRODUCTS -> getProducts(in, out);
+                case ProductRpcProtocol.GET_AVAILABLE -> getAvailable(ProductRpcProtocol.readNullableString(in), out);
+                default -> throw new IOException("Unknown operation " + operation);
+            }
+        } catch (RuntimeException e) {
+            buffer.reset();
+            out.writeByte(ProductRpcProtocol.ERROR);
+            ProductRpcProtocol.writeString(out, Objects.toString(e.getMessage(), e.getClass().getSimpleName()));
+        }
+        out.flush();
+        byte[] response = buffer.toByteArray();
+        sample.stop(Timer.builder("product.rpc.server.requests")
+                .description("Product lookups served over the binary channel")
+                .tag("operation", ProductRpcProtocol.operationName(operation))
+                .tag("status", ProductRpcProtocol.statusName(response[0]))
+                .register(meterRegistry));
+        return response;
+    }
+
+    private void getProduct(long id, DataOutputStream out) throws IOException {
+        Product product;
+        try {
+            product = productService.getProductById(id);
+        } catch (RuntimeException e) {
+            out.writeByte(ProductRpcProtocol.NOT_FOUND);
+            ProductRpcProtocol.writeString(out, e.getMessage());
+            return;
+        }
+        out.writeByte(ProductRpcProtocol.OK);
+        writeProduct(out, product);
+    }
+
+    private void getProducts(DataInputStream in, DataOutputStream out) throws IOException {
+        int count = ProductRpcProtocol.readCount(in, Long.BYTES);
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(in.readLong());
+        }
+
+        ProductBatchResponse batch = productService.getProductsByIds(ids);
+        out.writeByte(ProductRpcProtocol.OK);
+        out.writeInt(batch.getProducts().size());
+        for (Product product : batch.getProducts()) {
+            writeProduct(out, product);
+        }
+        out.writeInt(batch.getMissingIds().size());
+        for (Long id : batch.getMissingIds()) {
+            out.writeLong(id);
+        }
+    }
+
+    private void getAvailable(String knownVersion, DataOutputStream out) throws IOException {
+        ProductCatalog catalog = productService.getAvailableCatalog();
+        if (catalog.getVersion().equals(knownVersion)) {
+            out.writeByte(ProductRpcProtocol.NOT_MODIFIED);
+            return;
+        }
+        out.writeByte(ProductRpcProtocol.OK);
+        ProductRpcProtocol.writeString(out, catalog.getVersion());
+        out.writeInt(catalog.getProducts().size());
+        for (Product product : catalog.getProducts()) {
+            writeProduct(out, product);
+        }
+    }
+
+    private static void writeProduct(DataOutputStream out, Product product) throws IOException {
+        out.writeLong(product.getId());
+        ProductRpcProtocol.writeNullableLong(out, product.getSellerId());
+        ProductRpcProtocol.writeNullableString(out, product.getName());
+        ProductRpcProtocol.writeNullableString(out, product.getDescription());
+        ProductRpcProtocol.writeNullableDecimal(out, product.getPrice());
+        ProductRpcProtocol.writeNullableInt(out, product.getQuantity());
+    }
+}
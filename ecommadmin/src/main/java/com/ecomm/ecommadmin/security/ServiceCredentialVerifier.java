@@ -0,0 +1,33 @@
+package com.ecomm.ecommadmin.security;
+
+import com.ecomm.common.security.ServiceCredentials;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks the shared inventory.service-secret other services present on the
+ * inventory endpoints; refuses to start without a secret.
+ */
+@Component
+public class ServiceCredentialVerifier {
+
+    private final String secret;
+
+    public ServiceCredentialVerifier(@Value("${inventory.service-secret}") String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("inventory.service-secret must be set");
+        }
+        this.secret = secret;
+    }
+
+    /**
+     * Verify the secret presented by a calling service
+     *
+     * @param presented Value of the service secret header, may be null
+     */
+    public void verify(String presented) {
+        if (!ServiceCredentials.matches(secret, presented)) {
+            throw new RuntimeException("Invalid service credential");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes the available catalog as newline-delimited JSON without holding it in memory.
+ *
+ * Rows are streamed from the database, written as soon as they are read and
+ * detached right after, so heap use does not depend on the catalog size.
+ */
+@Service
+public class CatalogExportService {
+
+    private final ProductRepository productRepository;
+    private final HotInventory hotInventory;
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+    private final int flushEvery;
+
+    public CatalogExportService(ProductRepository productRepository,
+            HotInventory hotInventory,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            @Value("${catalog.export.flush-every}") int flushEvery) {
+        this.productRepository = productRepository;
+        this.hotInventory = hotInventory;
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.flushEvery = flushEvery;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportAvailableProducts(OutputStream out) throws IOException {
+        long written = 0;
+        Map<Long, Long> leased = hotInventory.leasedUnits();
+        try (Stream<Product> products = productRepository.streamAvailableProducts();
+             SequenceWriter sequence = writer.writeValues(out)) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                sequence.write(hotInventory.withLeasedUnits(product, leased));
+                entityManager.detach(product);
+
+                if (++written % flushEvery == 0) {
+                    sequence.flush();
+                }
+            }
+        }
+        // Terminate the last record so every line is a complete JSON document
+        if (written > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return written;
+    }
+}
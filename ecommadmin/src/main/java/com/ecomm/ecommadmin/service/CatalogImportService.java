@@ -0,0 +1,327 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.common.security.AuthenticatedUser;
+import com.ecomm.common.security.JwtVerifier;
+import com.ecomm.ecommadmin.dto.ImportReport.ImportError;
+import com.ecomm.ecommadmin.dto.ImportReport;
+import com.ecomm.ecommadmin.dto.ProductImportRow;
+import com.ecomm.ecommadmin.entity.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Loads products in bulk from CSV or newline-delimited JSON.
+ *
+ * Input is read as a stream and validated row by row. Valid rows are inserted
+ * as JDBC batches, one transaction per chunk, so a failing chunk never undoes
+ * the chunks before it. Rejected rows are reported with their line number.
+ */
+@Slf4j
+@Service
+public class CatalogImportService {
+
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int PRICE_SCALE = 2;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final JwtVerifier jwtVerifier;
+    private final ProductSearchIndex searchIndex;
+    private final ProductOutbox productOutbox;
+    private final ProductCaches productCaches;
+    private final CatalogMetrics catalogMetrics;
+    private final ObjectReader ndjsonReader;
+    private final ObjectReader csvReader;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public CatalogImportService(EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            JwtVerifier jwtVerifier,
+            ProductSearchIndex searchIndex,
+            ProductOutbox productOutbox,
+            ProductCaches productCaches,
+            CatalogMetrics catalogMetrics,
+            ObjectMapper objectMapper,
+            @Value("${catalog.import.chunk-size}") int chunkSize,
+            @Value("${catalog.import.max-reported-errors}") int maxReportedErrors) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jwtVerifier = jwtVerifier;
+        this.searchIndex = searchIndex;
+        this.productOutbox = productOutbox;
+        this.productCaches = productCaches;
+        this.catalogMetrics = catalogMetrics;
+        this.ndjsonReader = objectMapper.readerFor(ProductImportRow.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.csvReader = new CsvMapper()
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+                .readerFor(ProductImportRow.class)
+                .with(CsvSchema.emptySchema().withHeader().withColumnReordering(true))
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ImportReport importProducts(InputStream in, Format format, String authHeader) throws IOException {
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
+
+        if (!"ADMIN".equals(user.role())) {
+            catalogMetrics.validationFailed(CatalogMetrics.ACCESS_DENIED);
+            throw new RuntimeException("Access denied. Admin role required.");
+        }
+
+        return importProducts(in, format, user.userId());
+    }
+
+    /**
+     * Import products for a seller
+     *
+     * @param in       CSV (with header) or NDJSON input
+     * @param format   Input format
+     * @param sellerId Seller the products belong to
+     * @return Counts, throughput and rejected rows
+     */
+    public ImportReport importProducts(InputStream in, Format format, Long sellerId) throws IOException {
+        ImportRun run = new ImportRun(sellerId);
+        try {
+            if (format == Format.CSV) {
+                readCsv(in, run);
+            } else {
+                readNdjson(in, run);
+            }
+        } finally {
+            run.flush();
+            if (run.imported > 0) {
+                productCaches.evict(List.of());
+            }
+        }
+
+        ImportReport report = run.report();
+        log.info("Imported {} of {} products ({} rejected) in {} ms, {} rows/s",
+                report.getRowsImported(), report.getRowsRead(), report.getRowsRejected(),
+                report.getElapsedMillis(), Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+
+    private void readCsv(InputStream in, ImportRun run) throws IOException {
+        try (MappingIterator<ProductImportRow> rows = csvReader.readValues(in)) {
+            while (true) {
+                long line = rows.getCurrentLocation().getLineNr();
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    line = rows.getCurrentLocation().getLineNr();
+                    run.accept(line, rows.nextValue());
+                } catch (RuntimeException | IOException e) {
+                    // The tokenizer cannot resynchronise after malformed quoting, so stop here
+                    run.reject(line, "Malformed CSV, import stopped: " + e.getMessage());
+                    break;
+                }
+            }
+        }
+    }
+
+    private void readNdjson(InputStream in, ImportRun run) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            long line = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    run.accept(line, ndjsonReader.readValue(text));
+                } catch (JsonProcessingException e) {
+                    run.reject(line, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    private Product toProduct(ProductImportRow row, Long sellerId) {
+        String name = trimToNull(row.getName());
+        if (name == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (name.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("name is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+        String description = trimToNull(row.getDescription());
+        if (description != null && description.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("description is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+
+        BigDecimal price;
+        try {
+            price = new BigDecimal(required(row.getPrice(), "price"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price is not a number: " + row.getPrice());
+        }
+        if (price.signum() < 0 || price.stripTrailingZeros().scale() > PRICE_SCALE) {
+            throw new IllegalArgumentException("price must be non-negative with at most " + PRICE_SCALE + " decimals");
+        }
+
+        int quantity;
+        try {
+            quantity = Integer.parseInt(required(row.getQuantity(), "quantity"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quantity is not a whole number: " + row.getQuantity());
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("quantity must not be negative");
+        }
+
+        Product product = new Product();
+        product.setSellerId(sellerId);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(price);
+        product.setQuantity(quantity);
+        return product;
+    }
+
+    private static String required(String value, String field) {
+        String trimmed = trimToNull(value);
+        if (trimmed == null) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        return trimmed;
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // Inserts one chunk in its own transaction; sequence ids let Hibernate send it as JDBC batches
+    private void insertChunk(List<Product> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Product product : chunk) {
+                product.setCreatedAt(now);
+                entityManager.persist(product);
+                productOutbox.recordCreated(product);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        chunk.forEach(searchIndex::index);
+    }
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format fromContentType(String contentType) {
+            if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv")) {
+                return CSV;
+            }
+            return NDJSON;
+        }
+
+        public static Format fromFileName(String fileName) {
+            return fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : NDJSON;
+        }
+    }
+
+    // State of one import: the pending chunk, counters and the rejected rows kept for the report
+    private class ImportRun {
+
+        private final Long sellerId;
+        private final long startedAt = System.nanoTime();
+        private final List<Product> chunk = new ArrayList<>(chunkSize);
+        private final List<ImportError> errors = new ArrayList<>();
+        private boolean errorsTruncated;
+        private long chunkFirstLine;
+        private long read;
+        private long imported;
+        private long rejected;
+
+        ImportRun(Long sellerId) {
+            this.sellerId = sellerId;
+        }
+
+        void accept(long line, ProductImportRow row) {
+            read++;
+            try {
+                Product product = toProduct(row, sellerId);
+                if (chunk.isEmpty()) {
+                    chunkFirstLine = line;
+                }
+                chunk.add(product);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+                addError(line, e.getMessage());
+                return;
+            }
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            read++;
+            rejected++;
+            addError(line, message);
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                insertChunk(chunk);
+                imported += chunk.size();
+            } catch (RuntimeException e) {
+                rejected += chunk.size();
+                addError(chunkFirstLine, "Chunk of " + chunk.size() + " rows rolled back: " + e.getMessage());
+            }
+            chunk.clear();
+        }
+
+        private void addError(long line, String message) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportError(line, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        ImportReport report() {
+            long elapsedNanos = System.nanoTime() - startedAt;
+            double rowsPerSecond = elapsedNanos > 0 ? imported * 1_000_000_000.0 / elapsedNanos : 0;
+            return new ImportReport(read, imported, rejected, elapsedNanos / 1_000_000, rowsPerSecond,
+                    errors, errorsTruncated);
+        }
+    }
+}
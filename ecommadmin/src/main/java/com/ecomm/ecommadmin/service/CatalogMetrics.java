@@ -0,0 +1,68 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.common.metrics.ValidationFailures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stock counters of ecommadmin.
+ *
+ * inventory.reservations counts reservations by what happened to them, so
+ * reservations that expire instead of being committed stand out.
+ * inventory.reservation.lines counts reserved lines by where the units came
+ * from, which shows how many reservations the hot-product leases serve
+ * without a row update.
+ */
+@Component
+public class CatalogMetrics {
+
+    public static final String ACCESS_DENIED = "access_denied";
+    public static final String INVALID_CURSOR = "invalid_cursor";
+    public static final String INVALID_PRICE_RANGE = "invalid_price_range";
+    public static final String INVALID_RESERVATION = "invalid_reservation";
+    public static final String INSUFFICIENT_STOCK = "insufficient_stock";
+    public static final String BATCH_TOO_LARGE = "batch_too_large";
+
+    public static final String RESERVED = "reserved";
+    public static final String COMMITTED = "committed";
+    public static final String RELEASED = "released";
+    public static final String EXPIRED = "expired";
+
+    public static final String HOT_LEASE = "hot_lease";
+    public static final String PRODUCT_ROW = "product_row";
+
+    private final MeterRegistry meterRegistry;
+    private final ValidationFailures validationFailures;
+
+    public CatalogMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.validationFailures = new ValidationFailures(meterRegistry);
+    }
+
+    /**
+     * @param outcome RESERVED, INSUFFICIENT_STOCK, COMMITTED, RELEASED or EXPIRED
+     */
+    public void reservation(String outcome) {
+        Counter.builder("inventory.reservations")
+                .description("Stock reservations by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * @param source HOT_LEASE or PRODUCT_ROW
+     */
+    public void reservationLine(String source) {
+        Counter.builder("inventory.reservation.lines")
+                .description("Reserved lines by where the stock was taken from")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void validationFailed(String reason) {
+        validationFailures.record(reason);
+    }
+}
@@ -0,0 +1,641 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.entity.InventoryLease;
+import com.ecomm.ecommadmin.entity.InventoryLeaseHeartbeat;
+import com.ecomm.ecommadmin.entity.InventoryLeaseHolder;
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.repository.InventoryLeaseBalanceRepository;
+import com.ecomm.ecommadmin.repository.InventoryLeaseHeartbeatRepository;
+import com.ecomm.ecommadmin.repository.InventoryLeaseHolderRepository;
+import com.ecomm.ecommadmin.repository.InventoryLeaseRepository;
+import com.ecomm.ecommadmin.repository.InventoryReservationRepository;
+import com.ecomm.ecommadmin.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock for products that are reserved so often that the conditional
+ * update on their row becomes a lock hot spot.
+ *
+ * A hot product leases a chunk of units from the products table with one
+ * conditional decrement and hands them out from striped counters, so only one
+ * statement per chunk touches the row. Units are either in the table or in a
+ * lease, never both, which keeps reservations from overselling. Leases are
+ * topped up on each rebalance, sized by the demand since the last one, so a
+ * reservation never opens a second transaction while it holds a connection.
+ * They are returned to the table when a product cools down, before its
+ * quantity is overwritten, and on shutdown.
+ *
+ * While leases are out the table quantity is short by the leased units, so
+ * the authoritative stock of a product is its table quantity plus its open
+ * leases. Each instance publishes what it holds of every hot product in
+ * inventory_lease_balances on every rebalance and reads the sum over all
+ * instances back into memory, where read paths add those units to the table
+ * quantity through {@link #withLeasedUnits}, so leased stock stays for sale
+ * in the catalog.
+ *
+ * Each instance registers as a lease holder, and every lease and return is
+ * written to the inventory_leases ledger in the transaction that moves the
+ * units, while reservation lines served from a lease name their holder. What
+ * a holder still has in memory is therefore its ledger total less its
+ * reservation lines. An instance that stops sending heartbeats, e.g. because
+ * it crashed, is reconciled by the others or by the next one to start: that
+ * difference goes back to the table and the holder is removed. An instance
+ * only hands out leased units while its last heartbeat is younger
+ * than half the lease timeout, so a reservation served from a lease has the
+ * other half to commit before its holder can be reconciled. An instance that
+ * finds itself removed drops its in-memory stock, which is back in the table
+ * already, and registers again.
+ */
+@Slf4j
+@Component
+public class HotInventory {
+
+    private final ProductRepository productRepository;
+    private final InventoryReservationRepository reservationRepository;
+    private final InventoryLeaseRepository leaseRepository;
+    private final InventoryLeaseHolderRepository holderRepository;
+    private final InventoryLeaseHeartbeatRepository heartbeatRepository;
+    private final InventoryLeaseBalanceRepository balanceRepository;
+    private final TransactionTemplate leaseTransaction;
+    private final int threshold;
+    private final int leaseSize;
+    private final int stripes;
+    private final long leaseTimeout;
+
+    private final Map<Long, StripedStock> hotStock = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> reservationCounts = new ConcurrentHashMap<>();
+    // Units given back where they could not be returned to the table, returned on the next rebalance
+    private final Map<LeasedProduct, Long> unreturned = new ConcurrentHashMap<>();
+
+    // Locks rather than synchronized, so a virtual thread waiting on the database does not pin its carrier
+    private final ReentrantLock holderLock = new ReentrantLock();
+    // Balance writes compute their value under this lock, so a later write never carries an older count
+    private final ReentrantLock balanceLock = new ReentrantLock();
+    // Units last published per product, guarded by balanceLock
+    private final Map<Long, Long> published = new HashMap<>();
+
+    // Units leased and not reserved yet across all holders, by product, as read on the last rebalance
+    private volatile Map<Long, Long> leasedUnits = Map.of();
+
+    // Null while no holder is registered, which sends every reservation to the table
+    private volatile String holder;
+    // System.nanoTime() when the last heartbeat that reached the database was sent
+    private volatile long lastHeartbeat;
+
+    public HotInventory(ProductRepository productRepository,
+            InventoryReservationRepository reservationRepository,
+            InventoryLeaseRepository leaseRepository,
+            InventoryLeaseHolderRepository holderRepository,
+            InventoryLeaseHeartbeatRepository heartbeatRepository,
+            InventoryLeaseBalanceRepository balanceRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${inventory.hot-sku.threshold}") int threshold,
+            @Value("${inventory.hot-sku.lease-size}") int leaseSize,
+            @Value("${inventory.hot-sku.stripes}") int stripes,
+            @Value("${inventory.hot-sku.lease-timeout}") long leaseTimeout) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.leaseRepository = leaseRepository;
+        this.holderRepository = holderRepository;
+        this.heartbeatRepository = heartbeatRepository;
+        this.balanceRepository = balanceRepository;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.threshold = threshold;
+        this.leaseSize = leaseSize;
+        this.stripes = stripes;
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    @PostConstruct
+    public void start() {
+        reconcileAbandonedLeases();
+        register();
+        refreshLeasedUnits();
+    }
+
+    /**
+     * Take units from the in-memory lease of a hot product. Must run in the
+     * transaction that stores the reservation line, which then names the
+     * returned holder.
+     *
+     * @param productId Product id
+     * @param quantity  Units to take
+     * @return Holder of the lease the units came from, or null if the caller must reserve from the table
+     */
+    public String tryTake(Long productId, int quantity) {
+        reservationCounts.computeIfAbsent(productId, id -> new LongAdder()).increment();
+
+        String current = holder;
+        StripedStock stock = hotStock.get(productId);
+        if (current == null || stock == null || !heartbeatFresh()) {
+            return null;
+        }
+        // An empty lease is topped up by the next rebalance; until then the table serves the product
+        return stock.tryTake(quantity) ? current : null;
+    }
+
+    /**
+     * Put back units taken by {@link #tryTake} whose reservation did not go
+     * through. Called after that transaction completed, while its connection
+     * may still be bound, so units that cannot go back to the lease are
+     * returned to the table by the next rebalance.
+     *
+     * @param productId Product id
+     * @param quantity  Units to put back
+     * @param takenFrom Holder returned by {@link #tryTake}
+     */
+    public void giveBack(Long productId, int quantity, String takenFrom) {
+        if (!takenFrom.equals(holder)) {
+            // That holder was reconciled, which returned these units to the table already
+            return;
+        }
+        StripedStock stock = hotStock.get(productId);
+        if (stock == null) {
+            returnLater(takenFrom, productId, quantity);
+            return;
+        }
+        stock.give(quantity);
+        if (stock.isClosed()) {
+            returnLater(takenFrom, productId, stock.drain());
+        }
+    }
+
+    /**
+     * Return the lease of a product to the table, e.g. before its quantity is
+     * overwritten. Inside a transaction the units go back in that transaction,
+     * on the connection it already holds, and return to the lease queue for the
+     * next rebalance if it rolls back.
+     *
+     * @param productId Product id
+     */
+    public void evict(Long productId) {
+        String current = holder;
+        StripedStock stock = hotStock.remove(productId);
+        if (stock == null || current == null) {
+            return;
+        }
+        long units = stock.drain();
+        if (units <= 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            returnLease(current, productId, units);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    returnLater(current, productId, units);
+                }
+            }
+        });
+        returnToTable(current, productId, units);
+    }
+
+    /**
+     * Send the heartbeat, promote products reserved at least {@code threshold}
+     * times since the last run and return the leases of products that were not
+     * reserved at all
+     */
+    @Scheduled(fixedRateString = "${inventory.hot-sku.rebalance-interval}")
+    public void rebalance() {
+        heartbeat();
+        Map<Long, Long> demand = new HashMap<>();
+        reservationCounts.forEach((productId, counter) -> {
+            long count = counter.sumThenReset();
+            demand.put(productId, count);
+            if (count >= threshold) {
+                hotStock.computeIfAbsent(productId, id -> new StripedStock(stripes));
+            } else if (count == 0) {
+                reservationCounts.remove(productId, counter);
+                evict(productId);
+            }
+        });
+        unreturned.keySet().forEach(leased -> {
+            Long units = unreturned.remove(leased);
+            if (units != null) {
+                returnLease(leased.holder(), leased.productId(), units);
+            }
+        });
+        String current = holder;
+        if (current != null) {
+            hotStock.forEach((productId, stock) -> refill(current, productId, stock, demand.getOrDefault(productId, 0L)));
+        }
+        Set<Long> productIds = new HashSet<>(hotStock.keySet());
+        balanceLock.lock();
+        try {
+            productIds.addAll(published.keySet());
+        } finally {
+            balanceLock.unlock();
+        }
+        publishBalances(productIds);
+        refreshLeasedUnits();
+    }
+
+    /**
+     * Units leased to instances and not reserved yet, by product, as of the
+     * last rebalance
+     *
+     * @return Units per product id, only products that have any
+     */
+    public Map<Long, Long> leasedUnits() {
+        return leasedUnits;
+    }
+
+    /**
+     * The product as buyers see it: table quantity plus the units leased and not reserved yet
+     *
+     * @param product Product as read from the table
+     * @return The product itself, or a copy if units of it are leased
+     */
+    public Product withLeasedUnits(Product product) {
+        return withLeasedUnits(product, leasedUnits());
+    }
+
+    /**
+     * Products as buyers see them, see {@link #withLeasedUnits(Product)}
+     *
+     * @param products Products as read from the table
+     * @return Products in the same order; those with leased units are copies
+     */
+    public List<Product> withLeasedUnits(List<Product> products) {
+        if (products.isEmpty()) {
+            return products;
+        }
+        Map<Long, Long> leased = leasedUnits();
+        return leased.isEmpty() ? products : products.stream().map(product -> withLeasedUnits(product, leased)).toList();
+    }
+
+    /**
+     * Add leased units from a map read once, e.g. for a whole export
+     *
+     * @param product Product as read from the table
+     * @param leased  Result of {@link #leasedUnits()}
+     * @return The product itself, or a copy if units of it are leased
+     */
+    public Product withLeasedUnits(Product product, Map<Long, Long> leased) {
+        long units = leased.getOrDefault(product.getId(), 0L);
+        if (units == 0) {
+            return product;
+        }
+        // A copy, so neither the managed entity nor a cached instance changes
+        Product copy = new Product();
+        copy.setId(product.getId());
+        copy.setSellerId(product.getSellerId());
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setPrice(product.getPrice());
+        copy.setCreatedAt(product.getCreatedAt());
+        long quantity = (product.getQuantity() == null ? 0 : product.getQuantity()) + units;
+        copy.setQuantity((int) Math.min(quantity, Integer.MAX_VALUE));
+        return copy;
+    }
+
+    /**
+     * Return what holders that stopped sending heartbeats still had leased
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot-sku.lease-timeout}")
+    public void reconcileAbandonedLeases() {
+        LocalDateTime before = LocalDateTime.now().minus(Duration.ofMillis(leaseTimeout));
+        for (String abandoned : heartbeatRepository.findHoldersSilentSince(before)) {
+            try {
+                leaseTransaction.executeWithoutResult(status -> {
+                    boolean silent = heartbeatRepository.findById(abandoned)
+                            .map(heartbeat -> heartbeat.getHeartbeatAt().isBefore(before))
+                            .orElse(true);
+                    if (silent) {
+                        reconcile(abandoned);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Could not reconcile the leases of holder {}: {}", abandoned, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void returnAllLeases() {
+        String current = holder;
+        holder = null;
+        if (current == null) {
+            return;
+        }
+        // The ledger knows what the dropped counters held; reservations still in flight leave it to the others
+        hotStock.values().forEach(StripedStock::drain);
+        hotStock.clear();
+        unreturned.clear();
+        clearPublished();
+        try {
+            leaseTransaction.executeWithoutResult(status -> reconcile(current));
+        } catch (RuntimeException e) {
+            log.warn("Could not return the leases of holder {}, another instance will: {}", current, e.getMessage());
+        }
+    }
+
+    private void register() {
+        String registered = UUID.randomUUID().toString();
+        long sentAt = System.nanoTime();
+        leaseTransaction.executeWithoutResult(status -> {
+            holderRepository.save(new InventoryLeaseHolder(registered, null));
+            heartbeatRepository.save(new InventoryLeaseHeartbeat(registered, LocalDateTime.now()));
+        });
+        lastHeartbeat = sentAt;
+        holder = registered;
+        log.info("Registered as inventory lease holder {}", registered);
+    }
+
+    private void heartbeat() {
+        String current = holder;
+        if (current == null) {
+            return;
+        }
+        long sentAt = System.nanoTime();
+        Integer updated;
+        try {
+            updated = leaseTransaction.execute(status -> heartbeatRepository.beat(current, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.warn("Could not send the lease heartbeat of holder {}: {}", current, e.getMessage());
+            return;
+        }
+        if (updated == null || updated == 0) {
+            leaseLost(current);
+        } else {
+            lastHeartbeat = sentAt;
+        }
+    }
+
+    // Others wait for a full lease timeout of silence, this instance stops taking after half of it
+    private boolean heartbeatFresh() {
+        return System.nanoTime() - lastHeartbeat < TimeUnit.MILLISECONDS.toNanos(leaseTimeout) / 2;
+    }
+
+    // Another instance reconciled this holder, so what the counters hold is in the table again
+    private void leaseLost(String lost) {
+        holderLock.lock();
+        try {
+            if (!lost.equals(holder)) {
+                return;
+            }
+            log.warn("Inventory lease holder {} was reconciled by another instance", lost);
+            holder = null;
+            hotStock.values().forEach(StripedStock::drain);
+            hotStock.clear();
+            unreturned.clear();
+            // The reconciling instance deleted this holder's balances
+            clearPublished();
+            try {
+                register();
+            } catch (RuntimeException e) {
+                log.warn("Could not register a new inventory lease holder: {}", e.getMessage());
+            }
+        } finally {
+            holderLock.unlock();
+        }
+    }
+
+    private void clearPublished() {
+        balanceLock.lock();
+        try {
+            published.clear();
+        } finally {
+            balanceLock.unlock();
+        }
+    }
+
+    // One query per rebalance instead of one per product read
+    private void refreshLeasedUnits() {
+        try {
+            Map<Long, Long> units = new HashMap<>();
+            balanceRepository.sumByProduct().forEach(row -> units.put((Long) row[0], ((Number) row[1]).longValue()));
+            leasedUnits = Map.copyOf(units);
+        } catch (RuntimeException e) {
+            log.warn("Could not read the lease balances, keeping the last ones: {}", e.getMessage());
+        }
+    }
+
+    // Write what this holder has of each product in memory, where that differs from what was written last
+    private void publishBalances(Collection<Long> productIds) {
+        String current = holder;
+        if (current == null || productIds.isEmpty()) {
+            return;
+        }
+        balanceLock.lock();
+        try {
+            Map<Long, Long> changed = new HashMap<>();
+            for (Long productId : productIds) {
+                StripedStock stock = hotStock.get(productId);
+                long units = stock == null || stock.isClosed() ? 0 : stock.available();
+                if (units != published.getOrDefault(productId, 0L)) {
+                    changed.put(productId, units);
+                }
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+            leaseTransaction.executeWithoutResult(status ->
+                    changed.forEach((productId, units) -> balanceRepository.publish(current, productId, units)));
+            changed.forEach((productId, units) -> {
+                if (units == 0) {
+                    published.remove(productId);
+                } else {
+                    published.put(productId, units);
+                }
+            });
+        } catch (RuntimeException e) {
+            // The next rebalance tries again
+            log.warn("Could not publish the lease balances of holder {}: {}", current, e.getMessage());
+        } finally {
+            balanceLock.unlock();
+        }
+    }
+
+    // Runs in its own transaction; skips a holder whose row another transaction holds, e.g. to return a lease
+    private void reconcile(String reconciled) {
+        if (holderRepository.lockIfIdle(reconciled).isEmpty()) {
+            return;
+        }
+        Map<Long, Long> outstanding = new HashMap<>();
+        leaseRepository.sumByProduct(reconciled).forEach(row ->
+                outstanding.merge((Long) row[0], ((Number) row[1]).longValue(), Long::sum));
+        reservationRepository.sumLeasedByProduct(reconciled).forEach(row ->
+                outstanding.merge((Long) row[0], -((Number) row[1]).longValue(), Long::sum));
+        outstanding.forEach((productId, units) -> {
+            if (units > 0) {
+                productRepository.incrementQuantity(productId, units.intValue());
+                log.info("Returned {} units of product {} leased by holder {}", units, productId, reconciled);
+            }
+        });
+        leaseRepository.deleteByHolder(reconciled);
+        balanceRepository.deleteByHolder(reconciled);
+        heartbeatRepository.deleteById(reconciled);
+        holderRepository.deleteById(reconciled);
+    }
+
+    // Lease enough for about two rebalance intervals once less than one is left
+    private void refill(String current, Long productId, StripedStock stock, long demand) {
+        long available = stock.available();
+        if (stock.isClosed() || available >= Math.max(1, demand)) {
+            return;
+        }
+        int lease = (int) Math.min(Math.max(leaseSize, 2 * demand) - available, Integer.MAX_VALUE);
+        Boolean leased;
+        try {
+            leased = leaseTransaction.execute(status -> {
+                if (productRepository.decrementQuantity(productId, lease) == 0) {
+                    return false;
+                }
+                leaseRepository.save(new InventoryLease(current, productId, lease));
+                return true;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not lease units of product {}, retrying on the next rebalance: {}", productId, e.getMessage());
+            return;
+        }
+        if (Boolean.TRUE.equals(leased)) {
+            stock.give(lease);
+            if (stock.isClosed()) {
+                returnLater(current, productId, stock.drain());
+            }
+        }
+    }
+
+    // Runs in a transaction of its own, so never from a caller that holds a connection
+    private void returnLease(String takenFrom, Long productId, long quantity) {
+        try {
+            leaseTransaction.executeWithoutResult(status -> returnToTable(takenFrom, productId, quantity));
+        } catch (RuntimeException e) {
+            log.warn("Could not return {} leased units of product {}, retrying on the next rebalance: {}",
+                    quantity, productId, e.getMessage());
+            returnLater(takenFrom, productId, quantity);
+        }
+    }
+
+    private void returnToTable(String takenFrom, Long productId, long quantity) {
+        // Once the holder is reconciled its units are counted in the table already
+        if (holderRepository.findForShare(takenFrom).isPresent()) {
+            productRepository.incrementQuantity(productId, (int) quantity);
+            leaseRepository.save(new InventoryLease(takenFrom, productId, (int) -quantity));
+        }
+    }
+
+    private void returnLater(String takenFrom, Long productId, long quantity) {
+        if (quantity > 0) {
+            unreturned.merge(new LeasedProduct(takenFrom, productId), quantity, Long::sum);
+        }
+    }
+
+    private record LeasedProduct(String holder, Long productId) {
+    }
+
+    /**
+     * Stock split across padded counters so concurrent takers rarely hit the same cache line.
+     */
+    static final class StripedStock {
+
+        // Eight longs per stripe keep each counter on its own 64-byte cache line
+        private static final int PADDING = 8;
+
+        private final AtomicLongArray counters;
+        private final int stripes;
+        private volatile boolean closed;
+
+        StripedStock(int stripes) {
+            this.stripes = stripes;
+            this.counters = new AtomicLongArray(stripes * PADDING);
+        }
+
+        boolean tryTake(int quantity) {
+            if (closed) {
+                return false;
+            }
+            int start = ThreadLocalRandom.current().nextInt(stripes);
+
+            // Fast path: a single stripe covers the request
+            for (int i = 0; i < stripes; i++) {
+                int index = ((start + i) % stripes) * PADDING;
+                long available = counters.get(index);
+                while (available >= quantity) {
+                    if (counters.compareAndSet(index, available, available - quantity)) {
+                        return true;
+                    }
+                    available = counters.get(index);
+                }
+            }
+
+            // Slow path: gather from several stripes, put everything back if still short
+            long remaining = quantity;
+            for (int i = 0; i < stripes && remaining > 0; i++) {
+                int index = ((start + i) % stripes) * PADDING;
+                long available = counters.get(index);
+                while (available > 0) {
+                    long taken = Math.min(available, remaining);
+                    if (counters.compareAndSet(index, available, available - taken)) {
+                        remaining -= taken;
+                        break;
+                    }
+                    available = counters.get(index);
+                }
+            }
+            if (remaining > 0) {
+                give(quantity - remaining);
+                return false;
+            }
+            return true;
+        }
+
+        void give(long quantity) {
+            if (quantity > 0) {
+                counters.addAndGet(ThreadLocalRandom.current().nextInt(stripes) * PADDING, quantity);
+            }
+        }
+
+        long drain() {
+            closed = true;
+            long total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += counters.getAndSet(i * PADDING, 0);
+            }
+            return total;
+        }
+
+        long available() {
+            long total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += counters.get(i * PADDING);
+            }
+            return total;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+    }
+}
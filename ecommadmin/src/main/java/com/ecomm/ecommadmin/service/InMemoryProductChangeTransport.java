@@ -0,0 +1,29 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.dto.ProductChangeEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes relayed changes as application events for subscribers in the same
+ * process, e.g. for local runs. The polling feed keeps serving them as well.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.transport", havingValue = "in-memory")
+@RequiredArgsConstructor
+public class InMemoryProductChangeTransport implements ProductChangeTransport {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(List<ProductChangeEvent> events) {
+        eventPublisher.publishEvent(new ProductChangesPublished(events));
+    }
+
+    public record ProductChangesPublished(List<ProductChangeEvent> events) {
+    }
+}
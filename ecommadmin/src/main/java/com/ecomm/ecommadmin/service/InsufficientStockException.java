@@ -0,0 +1,11 @@
+package com.ecomm.ecommadmin.service;
+
+/**
+ * Thrown when a reservation asks for more units of a product than are in stock.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    public InsufficientStockException(Long productId) {
+        super("Insufficient stock for product: " + productId);
+    }
+}
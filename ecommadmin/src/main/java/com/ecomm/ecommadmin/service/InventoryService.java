@@ -0,0 +1,238 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.dto.ReservationItem;
+import com.ecomm.ecommadmin.dto.ReservationOutcome;
+import com.ecomm.ecommadmin.dto.ReservationResponse;
+import com.ecomm.ecommadmin.entity.InventoryReservation;
+import com.ecomm.ecommadmin.entity.InventoryReservation.ReservationStatus;
+import com.ecomm.ecommadmin.repository.InventoryReservationRepository;
+import com.ecomm.ecommadmin.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Reserve, commit and release stock for several products at once.
+ *
+ * Reserving takes the stock immediately with conditional decrements, so two
+ * buyers can never hold the same unit. Committing makes the reservation final,
+ * releasing puts the stock back. Reservations that are neither committed nor
+ * released are released automatically once they expire; committed ones never
+ * are.
+ *
+ * ecommbuyer commits a reservation before the order that owns it is stored, so
+ * a stored order always has a committed reservation. If storing the order then
+ * fails, ecommbuyer releases the committed reservation to get the stock back.
+ */
+@Slf4j
+@Service
+public class InventoryService {
+
+    private final ProductRepository productRepository;
+    private final InventoryReservationRepository reservationRepository;
+    private final HotInventory hotInventory;
+    private final ProductSearchIndex searchIndex;
+    private final ProductCaches productCaches;
+    private final ProductOutbox productOutbox;
+    private final CatalogMetrics catalogMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final long reservationTtl;
+
+    public InventoryService(ProductRepository productRepository,
+            InventoryReservationRepository reservationRepository,
+            HotInventory hotInventory,
+            ProductSearchIndex searchIndex,
+            ProductCaches productCaches,
+            ProductOutbox productOutbox,
+            CatalogMetrics catalogMetrics,
+            PlatformTransactionManager transactionManager,
+            @Value("${inventory.reservation-ttl}") long reservationTtl) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.hotInventory = hotInventory;
+        this.searchIndex = searchIndex;
+        this.productCaches = productCaches;
+        this.productOutbox = productOutbox;
+        this.catalogMetrics = catalogMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reservationTtl = reservationTtl;
+    }
+
+    @Transactional
+    public ReservationResponse reserve(List<ReservationItem> items) {
+        if (items == null || items.isEmpty()) {
+            catalogMetrics.validationFailed(CatalogMetrics.INVALID_RESERVATION);
+            throw new IllegalArgumentException("Reservation must contain at least one item");
+        }
+
+        // Merge duplicate lines and lock rows in id order so concurrent reservations cannot deadlock
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (ReservationItem item : items) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                catalogMetrics.validationFailed(CatalogMetrics.INVALID_RESERVATION);
+                throw new IllegalArgumentException("Invalid reservation item: " + item);
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        // Units taken from hot leases are not covered by the database rollback
+        List<InventoryReservation> takenFromLeases = new ArrayList<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    takenFromLeases.forEach(line ->
+                            hotInventory.giveBack(line.getProductId(), line.getQuantity(), line.getLeaseHolder()));
+                } else {
+                    quantities.forEach((productId, quantity) -> searchIndex.adjustQuantity(productId, -quantity));
+                    productCaches.evict(quantities.keySet());
+                    catalogMetrics.reservation(CatalogMetrics.RESERVED);
+                }
+            }
+        });
+
+        String reservationId = UUID.randomUUID().toString();
+        List<InventoryReservation> lines = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            InventoryReservation line = new InventoryReservation(reservationId, productId, quantity);
+            line.setLeaseHolder(hotInventory.tryTake(productId, quantity));
+            if (line.getLeaseHolder() != null) {
+                takenFromLeases.add(line);
+                catalogMetrics.reservationLine(CatalogMetrics.HOT_LEASE);
+            } else if (productRepository.decrementQuantity(productId, quantity) == 0) {
+                catalogMetrics.validationFailed(CatalogMetrics.INSUFFICIENT_STOCK);
+                catalogMetrics.reservation(CatalogMetrics.INSUFFICIENT_STOCK);
+                throw new InsufficientStockException(productId);
+            } else {
+                catalogMetrics.reservationLine(CatalogMetrics.PRODUCT_ROW);
+            }
+            lines.add(line);
+            productOutbox.recordStockAdjustment(productId, -quantity);
+        });
+        reservationRepository.saveAll(lines);
+
+        return toResponse(reservationId, ReservationStatus.RESERVED, lines);
+    }
+
+    /**
+     * Make several independent reservations, each in its own transaction, so
+     * one that cannot be granted does not affect the others. Any other
+     * failure, e.g. of the database, ends the call instead; the reservations
+     * granted before it are released when they expire.
+     *
+     * @param requests Items of each reservation
+     * @return Outcome of each reservation, in request order
+     */
+    public List<ReservationOutcome> reserveEach(List<List<ReservationItem>> requests) {
+        List<ReservationOutcome> outcomes = new ArrayList<>(requests.size());
+        for (List<ReservationItem> items : requests) {
+            try {
+                outcomes.add(new ReservationOutcome(transactionTemplate.execute(status -> reserve(items)), null));
+            } catch (InsufficientStockException | IllegalArgumentException e) {
+                outcomes.add(new ReservationOutcome(null, e.getMessage()));
+            }
+        }
+        return outcomes;
+    }
+
+    @Transactional
+    public ReservationResponse commit(String reservationId) {
+        List<InventoryReservation> lines = findLines(reservationId);
+        if (reservationRepository.updateStatus(reservationId, ReservationStatus.RESERVED, ReservationStatus.COMMITTED) > 0) {
+            catalogMetrics.reservation(CatalogMetrics.COMMITTED);
+        } else if (lines.get(0).getStatus() != ReservationStatus.COMMITTED) {
+            throw new ReservationStateException("Reservation already released: " + reservationId);
+        }
+        return toResponse(reservationId, ReservationStatus.COMMITTED, lines);
+    }
+
+    /**
+     * Commit several reservations, all or none
+     *
+     * @param reservationIds Reservation ids
+     */
+    @Transactional
+    public void commitAll(List<String> reservationIds) {
+        reservationIds.forEach(this::commit);
+    }
+
+    /**
+     * Release a reservation, committed or not, and put its stock back.
+     * Releasing a released reservation changes nothing.
+     *
+     * @param reservationId Reservation id
+     * @return Released reservation
+     */
+    @Transactional
+    public ReservationResponse release(String reservationId) {
+        return release(reservationId, List.of(ReservationStatus.RESERVED, ReservationStatus.COMMITTED),
+                CatalogMetrics.RELEASED);
+    }
+
+    private ReservationResponse release(String reservationId, List<ReservationStatus> releasable, String outcome) {
+        List<InventoryReservation> lines = findLines(reservationId);
+
+        // Only the caller that flips the status returns the stock, so a release is never applied twice
+        if (reservationRepository.updateStatus(reservationId, releasable, ReservationStatus.RELEASED) > 0) {
+            lines.forEach(line -> {
+                productRepository.incrementQuantity(line.getProductId(), line.getQuantity());
+                productOutbox.recordStockAdjustment(line.getProductId(), line.getQuantity());
+            });
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lines.forEach(line -> searchIndex.adjustQuantity(line.getProductId(), line.getQuantity()));
+                    productCaches.evict(lines.stream().map(InventoryReservation::getProductId).toList());
+                    catalogMetrics.reservation(outcome);
+                }
+            });
+        }
+        return toResponse(reservationId, ReservationStatus.RELEASED, lines);
+    }
+
+    /**
+     * Release reservations that were never committed or released. Committed
+     * reservations belong to stored orders and are left alone.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservation-sweep-interval}")
+    public void releaseExpiredReservations() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(reservationTtl));
+        for (String reservationId : reservationRepository.findReservationIdsByStatusCreatedBefore(ReservationStatus.RESERVED, cutoff)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> release(reservationId,
+                        List.of(ReservationStatus.RESERVED), CatalogMetrics.EXPIRED));
+            } catch (RuntimeException e) {
+                log.warn("Could not release expired reservation {}: {}", reservationId, e.getMessage());
+            }
+        }
+    }
+
+    private List<InventoryReservation> findLines(String reservationId) {
+        List<InventoryReservation> lines = reservationRepository.findByReservationId(reservationId);
+        if (lines.isEmpty()) {
+            throw new ReservationStateException("Reservation not found");
+        }
+        return lines;
+    }
+
+    private ReservationResponse toResponse(String reservationId, ReservationStatus status, List<InventoryReservation> lines) {
+        List<ReservationItem> items = lines.stream()
+                .map(line -> new ReservationItem(line.getProductId(), line.getQuantity()))
+                .toList();
+        return new ReservationResponse(reservationId, status.name(), items);
+    }
+}
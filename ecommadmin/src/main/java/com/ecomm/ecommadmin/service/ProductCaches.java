@@ -0,0 +1,58 @@
+package com.ecomm.ecommadmin.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts the "products" and "availableProducts" caches when products change.
+ *
+ * Inside a transaction the eviction waits for the commit. Evicting earlier, as
+ * @CacheEvict does on a @Transactional method, lets a read in between load the
+ * old row again and keep it cached after the change is committed.
+ */
+@Component
+public class ProductCaches {
+
+    private final CacheManager cacheManager;
+
+    public ProductCaches(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Evict once the current transaction commits, or now if there is none.
+     * Nothing is evicted if the transaction rolls back.
+     *
+     * @param productIds Changed products; empty if only new products were added
+     */
+    public void evictAfterCommit(Collection<Long> productIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(productIds);
+            return;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(ids);
+            }
+        });
+    }
+
+    /**
+     * Evict now, for changes that are already committed
+     *
+     * @param productIds Changed products; empty if only new products were added
+     */
+    public void evict(Collection<Long> productIds) {
+        Cache products = cacheManager.getCache("products");
+        productIds.forEach(products::evict);
+        cacheManager.getCache("availableProducts").clear();
+    }
+}
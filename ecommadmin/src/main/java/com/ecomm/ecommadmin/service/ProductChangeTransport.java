@@ -0,0 +1,16 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.dto.ProductChangeEvent;
+
+import java.util.List;
+
+/**
+ * Delivers product changes relayed from the outbox.
+ *
+ * Called inside the relay transaction, in feed order. Throwing rolls the batch
+ * back so it is relayed again, which makes delivery at-least-once.
+ */
+public interface ProductChangeTransport {
+
+    void publish(List<ProductChangeEvent> events);
+}
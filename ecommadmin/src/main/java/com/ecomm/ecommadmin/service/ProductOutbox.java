@@ -0,0 +1,145 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.dto.ProductChangeEvent;
+import com.ecomm.ecommadmin.dto.ProductChangeFeed;
+import com.ecomm.ecommadmin.entity.OutboxRelayState;
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.entity.ProductOutboxEvent;
+import com.ecomm.ecommadmin.entity.ProductOutboxEvent.ChangeType;
+import com.ecomm.ecommadmin.repository.OutboxRelayStateRepository;
+import com.ecomm.ecommadmin.repository.ProductOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Records product changes in the outbox table and serves them as a change feed.
+ *
+ * Changes are written in the same transaction as the product change itself, so
+ * the feed never shows a change that was rolled back and never misses one that
+ * was committed. The relay gives each change its feed position.
+ */
+@Service
+public class ProductOutbox {
+
+    private final ProductOutboxRepository outboxRepository;
+    private final OutboxRelayStateRepository relayStateRepository;
+    private final ObjectMapper objectMapper;
+    private final int defaultFeedSize;
+    private final int maxFeedSize;
+    private final long retention;
+
+    public ProductOutbox(ProductOutboxRepository outboxRepository,
+            OutboxRelayStateRepository relayStateRepository,
+            ObjectMapper objectMapper,
+            @Value("${outbox.feed.default-size}") int defaultFeedSize,
+            @Value("${outbox.feed.max-size}") int maxFeedSize,
+            @Value("${outbox.retention}") long retention) {
+        this.outboxRepository = outboxRepository;
+        this.relayStateRepository = relayStateRepository;
+        this.objectMapper = objectMapper;
+        this.defaultFeedSize = defaultFeedSize;
+        this.maxFeedSize = maxFeedSize;
+        this.retention = retention;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Product product) {
+        record(product.getId(), ChangeType.CREATED, toJson(product), null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Product product) {
+        record(product.getId(), ChangeType.UPDATED, toJson(product), null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStockAdjustment(Long productId, int quantityDelta) {
+        record(productId, ChangeType.STOCK_ADJUSTED, null, quantityDelta);
+    }
+
+    /**
+     * Read relayed changes after a feed position
+     *
+     * @param after Last sequence the caller has applied
+     * @param size  Maximum number of changes
+     * @return Changes in feed order
+     */
+    @Transactional(readOnly = true)
+    public ProductChangeFeed getChanges(long after, Integer size) {
+        long head = getHeadSequence();
+        Long oldest = outboxRepository.findOldestSequence();
+        if (after > head || (after < head && (oldest == null || after < oldest - 1))) {
+            return new ProductChangeFeed(List.of(), head, true);
+        }
+
+        int limit = size == null || size <= 0 ? defaultFeedSize : Math.min(size, maxFeedSize);
+        List<ProductChangeEvent> events = outboxRepository
+                .findBySequenceGreaterThanOrderBySequenceAsc(after, PageRequest.ofSize(limit)).stream()
+                .map(this::toEvent)
+                .toList();
+        return new ProductChangeFeed(events, head, false);
+    }
+
+    public long getHeadSequence() {
+        return relayStateRepository.findById(OutboxRelayState.ID)
+                .map(OutboxRelayState::getLastSequence)
+                .orElse(0L);
+    }
+
+    /**
+     * Changes committed but not given a feed position yet. Read together with
+     * the products, these are the changes a snapshot contains beyond its head.
+     *
+     * @return Outbox ids
+     */
+    public List<Long> getUnrelayedChangeIds() {
+        return outboxRepository.findUnrelayedIds();
+    }
+
+    /**
+     * Drop relayed changes older than the retention period
+     */
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval}")
+    @Transactional
+    public void deleteExpired() {
+        outboxRepository.deletePublishedBefore(LocalDateTime.now().minus(Duration.ofMillis(retention)));
+    }
+
+    ProductChangeEvent toEvent(ProductOutboxEvent event) {
+        try {
+            Product product = event.getPayload() != null ? objectMapper.readValue(event.getPayload(), Product.class) : null;
+            return new ProductChangeEvent(event.getSequence(), event.getId(), event.getChangeType().name(),
+                    event.getProductId(), product, event.getQuantityDelta(), event.getCreatedAt());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox payload for event " + event.getId(), e);
+        }
+    }
+
+    private void record(Long productId, ChangeType changeType, String payload, Integer quantityDelta) {
+        ProductOutboxEvent event = new ProductOutboxEvent();
+        event.setProductId(productId);
+        event.setChangeType(changeType);
+        event.setPayload(payload);
+        event.setQuantityDelta(quantityDelta);
+        // Flushed now: the stock updates that follow clear the persistence context, which would drop a queued insert
+        outboxRepository.saveAndFlush(event);
+    }
+
+    private String toJson(Product product) {
+        try {
+            return objectMapper.writeValueAsString(product);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Product " + product.getId() + " cannot be written to the outbox", e);
+        }
+    }
+}
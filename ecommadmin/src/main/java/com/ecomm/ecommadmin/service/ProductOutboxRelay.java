@@ -0,0 +1,101 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.dto.ProductChangeEvent;
+import com.ecomm.ecommadmin.entity.OutboxRelayState;
+import com.ecomm.ecommadmin.entity.ProductOutboxEvent;
+import com.ecomm.ecommadmin.repository.OutboxRelayStateRepository;
+import com.ecomm.ecommadmin.repository.ProductOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves outbox rows into the change feed in batches.
+ *
+ * Ids come from a pool per instance and are handed out before transactions
+ * commit, so they say nothing about the order of changes. The relay assigns
+ * feed sequences to committed rows in the order the database recorded them
+ * instead. Two changes to the same product are serialized by its row lock, so
+ * the later one is recorded after the earlier one committed and is sequenced
+ * after it. A row lock on the relay state keeps relays on several instances
+ * from handing out the same sequence.
+ */
+@Slf4j
+@Component
+public class ProductOutboxRelay {
+
+    private final ProductOutboxRepository outboxRepository;
+    private final OutboxRelayStateRepository relayStateRepository;
+    private final ProductOutbox productOutbox;
+    private final ProductChangeTransport transport;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ProductOutboxRelay(ProductOutboxRepository outboxRepository,
+            OutboxRelayStateRepository relayStateRepository,
+            ProductOutbox productOutbox,
+            ProductChangeTransport transport,
+            PlatformTransactionManager transactionManager,
+            @Value("${outbox.relay.batch-size}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.relayStateRepository = relayStateRepository;
+        this.productOutbox = productOutbox;
+        this.transport = transport;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval}")
+    public void relay() {
+        try {
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed != null && relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Product outbox relay failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        OutboxRelayState state = relayStateRepository.findForUpdate(OutboxRelayState.ID).orElse(null);
+        if (state == null) {
+            createState();
+            return 0;
+        }
+
+        List<ProductOutboxEvent> events = outboxRepository.findBySequenceIsNullOrderByRecordedAtAscIdAsc(
+                PageRequest.ofSize(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        long sequence = state.getLastSequence();
+        LocalDateTime now = LocalDateTime.now();
+        for (ProductOutboxEvent event : events) {
+            event.setSequence(++sequence);
+            event.setPublishedAt(now);
+        }
+        state.setLastSequence(sequence);
+
+        List<ProductChangeEvent> changes = events.stream().map(productOutbox::toEvent).toList();
+        transport.publish(changes);
+        return events.size();
+    }
+
+    private void createState() {
+        try {
+            relayStateRepository.saveAndFlush(new OutboxRelayState(OutboxRelayState.ID, 0L));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created it first
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over product names and descriptions.
+ *
+ * Terms are kept in a sorted map so the same structure answers exact lookups,
+ * prefix expansion for search-as-you-type and term suggestions. Reads never
+ * lock; writes are serialized since they are rare compared to searches.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // A shorter last term matches whole words only; "a" would otherwise expand to most of the catalog
+    static final int MIN_PREFIX_LENGTH = 3;
+
+    private final ProductRepository productRepository;
+    private final HotInventory hotInventory;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Map<Long, IndexedProduct> products = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+
+    public ProductSearchIndex(ProductRepository productRepository,
+            HotInventory hotInventory,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.hotInventory = hotInventory;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            // Units leased to instances are still in stock
+            Map<Long, Long> leased = hotInventory.leasedUnits();
+            try (var stream = productRepository.streamAllProducts()) {
+                stream.forEach(product -> {
+                    index(hotInventory.withLeasedUnits(product, leased));
+                    entityManager.detach(product);
+                });
+            }
+        });
+        log.info("Indexed {} products and {} terms in {} ms",
+                products.size(), postings.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Add a product or replace its previous version
+     *
+     * @param product Product to index
+     */
+    public synchronized void index(Product product) {
+        Set<String> nameTerms = tokenize(product.getName());
+        Set<String> terms = new HashSet<>(nameTerms);
+        terms.addAll(tokenize(product.getDescription()));
+
+        IndexedProduct indexed = new IndexedProduct(product.getId(), product.getSellerId(), product.getName(),
+                product.getDescription(), product.getPrice(), product.getQuantity(),
+                canonical(nameTerms), canonical(terms));
+        IndexedProduct previous = products.put(product.getId(), indexed);
+
+        if (previous != null) {
+            for (String term : previous.terms()) {
+                if (!terms.contains(term)) {
+                    removePosting(term, product.getId());
+                }
+            }
+        }
+        for (String term : terms) {
+            postings.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(product.getId());
+        }
+    }
+
+    /**
+     * Change the indexed stock of a product without re-tokenizing it
+     *
+     * @param productId Product id
+     * @param quantity  New stock level
+     */
+    public synchronized void updateQuantity(Long productId, int quantity) {
+        products.computeIfPresent(productId, (id, indexed) -> indexed.withQuantity(quantity));
+    }
+
+    /**
+     * {@link #index} once the current transaction commits, or now if there is
+     * none. Nothing is indexed if the transaction rolls back, so searches never
+     * show a change that did not happen.
+     *
+     * @param product Product to index
+     */
+    public void indexAfterCommit(Product product) {
+        afterCommit(() -> index(product));
+    }
+
+    /**
+     * {@link #updateQuantity} once the current transaction commits, or now if there is none
+     *
+     * @param productId Product id
+     * @param quantity  New stock level
+     */
+    public void updateQuantityAfterCommit(Long productId, int quantity) {
+        afterCommit(() -> updateQuantity(productId, quantity));
+    }
+
+    /**
+     * Apply a stock delta, e.g. from a reservation or its release
+     *
+     * @param productId Product id
+     * @param delta     Units added (positive) or taken (negative)
+     */
+    public synchronized void adjustQuantity(Long productId, int delta) {
+        products.computeIfPresent(productId, (id, indexed) -> indexed.withQuantity(indexed.quantity() + delta));
+    }
+
+    /**
+     * Find products whose name or description contains every query term. The last
+     * term also matches as a prefix, once it has {@value #MIN_PREFIX_LENGTH}
+     * characters, so partially typed words find results.
+     *
+     * @param query    Free-text query
+     * @param minPrice Lowest price, or null
+     * @param maxPrice Highest price, or null
+     * @param inStock  Only products with stock left
+     * @param limit    Maximum number of results
+     * @return Matching products, name matches first
+     */
+    public List<Product> search(String query, BigDecimal minPrice, BigDecimal maxPrice, boolean inStock, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(query, true));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        String lastTerm = terms.get(terms.size() - 1);
+        List<String> exactTerms = terms.subList(0, terms.size() - 1);
+        boolean prefix = lastTerm.length() >= MIN_PREFIX_LENGTH;
+        // With other terms to narrow it down the prefix is checked per candidate, never expanded into a union
+        boolean checkPrefix = prefix && !exactTerms.isEmpty();
+
+        // Intersect the smallest posting lists first
+        List<Set<Long>> matches = new ArrayList<>();
+        for (String term : exactTerms) {
+            matches.add(postings.getOrDefault(term, Set.of()));
+        }
+        if (!prefix) {
+            matches.add(postings.getOrDefault(lastTerm, Set.of()));
+        } else if (!checkPrefix) {
+            matches.add(prefixPostings(lastTerm));
+        }
+        matches.sort(Comparator.comparingInt(Set::size));
+        if (matches.get(0).isEmpty()) {
+            return List.of();
+        }
+
+        List<IndexedProduct> hits = new ArrayList<>();
+        for (Long id : matches.get(0)) {
+            if (!containedInAll(id, matches)) {
+                continue;
+            }
+            IndexedProduct product = products.get(id);
+            if (product != null && (!checkPrefix || product.hasTermStartingWith(lastTerm))
+                    && product.matches(minPrice, maxPrice, inStock)) {
+                hits.add(product);
+            }
+        }
+
+        return hits.stream()
+                .sorted(Comparator.comparingInt((IndexedProduct product) -> -product.nameScore(exactTerms, lastTerm))
+                        .thenComparing(IndexedProduct::id))
+                .limit(limit)
+                .map(IndexedProduct::toProduct)
+                .toList();
+    }
+
+    /**
+     * Suggest indexed terms starting with a prefix, most common first
+     *
+     * @param prefix Typed prefix
+     * @param limit  Maximum number of suggestions
+     * @return Matching terms
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String normalized = prefix == null ? "" : prefix.toLowerCase(Locale.ROOT).trim();
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return prefixRange(normalized).entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, Set<Long>> entry) -> -entry.getValue().size())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private Set<Long> prefixPostings(String prefix) {
+        NavigableMap<String, Set<Long>> range = prefixRange(prefix);
+        if (range.size() == 1) {
+            return range.firstEntry().getValue();
+        }
+        Set<Long> ids = new HashSet<>();
+        range.values().forEach(ids::addAll);
+        return ids;
+    }
+
+    private NavigableMap<String, Set<Long>> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // Share one String per term with the postings keys; at a million products the
+    // per-product copies of common words would otherwise take most of the heap
+    private String[] canonical(Set<String> terms) {
+        String[] shared = new String[terms.size()];
+        int i = 0;
+        for (String term : terms) {
+            String key = postings.ceilingKey(term);
+            shared[i++] = term.equals(key) ? key : term;
+        }
+        return shared;
+    }
+
+    private boolean containedInAll(Long id, List<Set<Long>> matches) {
+        for (int i = 1; i < matches.size(); i++) {
+            if (!matches.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private void removePosting(String term, Long productId) {
+        postings.computeIfPresent(term, (key, ids) -> {
+            ids.remove(productId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    static Set<String> tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    private static Set<String> tokenize(String text, boolean keepOrder) {
+        Set<String> tokens = keepOrder ? new LinkedHashSet<>() : new HashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private record IndexedProduct(Long id, Long sellerId, String name, String description, BigDecimal price,
+                                  Integer quantity, String[] nameTerms, String[] terms) {
+
+        IndexedProduct withQuantity(int newQuantity) {
+            return new IndexedProduct(id, sellerId, name, description, price, newQuantity, nameTerms, terms);
+        }
+
+        boolean matches(BigDecimal minPrice, BigDecimal maxPrice, boolean inStock) {
+            if (inStock && (quantity == null || quantity <= 0)) {
+                return false;
+            }
+            if (minPrice != null && (price == null || price.compareTo(minPrice) < 0)) {
+                return false;
+            }
+            return maxPrice == null || (price != null && price.compareTo(maxPrice) <= 0);
+        }
+
+        boolean hasTermStartingWith(String prefix) {
+            for (String term : terms) {
+                if (term.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int nameScore(Collection<String> exactTerms, String lastTerm) {
+            int score = 0;
+            for (String term : exactTerms) {
+                for (String nameTerm : nameTerms) {
+                    if (nameTerm.equals(term)) {
+                        score++;
+                        break;
+                    }
+                }
+            }
+            for (String term : nameTerms) {
+                if (term.startsWith(lastTerm)) {
+                    score++;
+                    break;
+                }
+            }
+            return score;
+        }
+
+        Product toProduct() {
+            Product product = new Product();
+            product.setId(id);
+            product.setSellerId(sellerId);
+            product.setName(name);
+            product.setDescription(description);
+            product.setPrice(price);
+            product.setQuantity(quantity);
+            return product;
+        }
+    }
+}
@@ -1,46 +1,97 @@
 package com.ecomm.ecommadmin.service;
 
-import com.ecomm.ecommadmin.client.AuthClient;
-import com.ecomm.ecommadmin.dto.AuthResponse;
+import com.ecomm.common.rpc.ProductBatchLimits;
+import com.ecomm.common.security.AuthenticatedUser;
+import com.ecomm.common.security.JwtVerifier;
+import com.ecomm.ecommadmin.dto.CursorPage;
+import com.ecomm.ecommadmin.dto.ProductBatchResponse;
+import com.ecomm.ecommadmin.dto.ProductCatalog;
+import com.ecomm.ecommadmin.dto.ProductChangeSnapshot;
 import com.ecomm.ecommadmin.entity.Product;
 import com.ecomm.ecommadmin.repository.ProductRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
-@RequiredArgsConstructor
 public class ProductService {
 
     private final ProductRepository productRepository;
-    private final AuthClient authClient;
+    private final JwtVerifier jwtVerifier;
+    private final HotInventory hotInventory;
+    private final CacheManager cacheManager;
+    private final ProductCaches productCaches;
+    private final ProductSearchIndex searchIndex;
+    private final ProductOutbox productOutbox;
+    private final CatalogMetrics catalogMetrics;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public Product addProduct(Product product, String authHeader) {
-        // Validate JWT token
-        AuthResponse authResponse = authClient.validateToken(authHeader);
+    public ProductService(ProductRepository productRepository,
+            JwtVerifier jwtVerifier,
+            HotInventory hotInventory,
+            CacheManager cacheManager,
+            ProductCaches productCaches,
+            ProductSearchIndex searchIndex,
+            ProductOutbox productOutbox,
+            CatalogMetrics catalogMetrics,
+            @Value("${pagination.default-page-size}") int defaultPageSize,
+            @Value("${pagination.max-page-size}") int maxPageSize) {
+        this.productRepository = productRepository;
+        this.jwtVerifier = jwtVerifier;
+        this.hotInventory = hotInventory;
+        this.cacheManager = cacheManager;
+        this.productCaches = productCaches;
+        this.searchIndex = searchIndex;
+        this.productOutbox = productOutbox;
+        this.catalogMetrics = catalogMetrics;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
 
-        if (!"Token is valid".equals(authResponse.getMessage())) {
-            throw new RuntimeException("Invalid or expired token");
-        }
+    @Transactional
+    public Product addProduct(Product product, String authHeader) {
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
 
-        if (!"ADMIN".equals(authResponse.getRole())) {
+        if (!"ADMIN".equals(user.role())) {
+            catalogMetrics.validationFailed(CatalogMetrics.ACCESS_DENIED);
             throw new RuntimeException("Access denied. Admin role required.");
         }
 
-        product.setSellerId(authResponse.getUserId());
-        return productRepository.save(product);
+        product.setSellerId(user.userId());
+        Product saved = productRepository.save(product);
+        productOutbox.recordCreated(saved);
+        searchIndex.indexAfterCommit(saved);
+        productCaches.evictAfterCommit(List.of());
+        return saved;
     }
 
+    @Transactional
     public Product updateProduct(Long id, Product productDetails, String authHeader) {
-        // Validate JWT token
-        AuthResponse authResponse = authClient.validateToken(authHeader);
-
-        if (!"Token is valid".equals(authResponse.getMessage())) {
-            throw new RuntimeException("Invalid or expired token");
-        }
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
 
-        if (!"ADMIN".equals(authResponse.getRole())) {
+        if (!"ADMIN".equals(user.role())) {
+            catalogMetrics.validationFailed(CatalogMetrics.ACCESS_DENIED);
             throw new RuntimeException("Access denied. Admin role required.");
         }
 
@@ -48,42 +99,61 @@ public class ProductService {
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
         // Ensure seller owns the product
-        if (!product.getSellerId().equals(authResponse.getUserId())) {
+        if (!product.getSellerId().equals(user.userId())) {
+            catalogMetrics.validationFailed(CatalogMetrics.ACCESS_DENIED);
             throw new RuntimeException("Access denied. You can only update your own products.");
         }
 
+        // Leased units must be back in the row before its quantity is overwritten
+        hotInventory.evict(id);
+
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
         product.setPrice(productDetails.getPrice());
         product.setQuantity(productDetails.getQuantity());
 
-        return productRepository.save(product);
+        // Flush first so the row lock orders concurrent updates and their outbox entries alike
+        Product saved = productRepository.saveAndFlush(product);
+        productOutbox.recordUpdated(saved);
+        searchIndex.indexAfterCommit(saved);
+        productCaches.evictAfterCommit(List.of(id));
+        return saved;
     }
 
     public List<Product> getSellerProducts(String authHeader) {
-        // Validate JWT token
-        AuthResponse authResponse = authClient.validateToken(authHeader);
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
 
-        if (!"Token is valid".equals(authResponse.getMessage())) {
-            throw new RuntimeException("Invalid or expired token");
+        if (!"ADMIN".equals(user.role())) {
+            catalogMetrics.validationFailed(CatalogMetrics.ACCESS_DENIED);
+            throw new RuntimeException("Access denied. Seller role required.");
         }
 
-        if (!"ADMIN".equals(authResponse.getRole())) {
+        return hotInventory.withLeasedUnits(productRepository.findBySellerId(user.userId()));
+    }
+
+    public CursorPage<Product> getSellerProductsPage(String cursor, Integer size, String authHeader) {
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
+
+        if (!"ADMIN".equals(user.role())) {
+            catalogMetrics.validationFailed(CatalogMetrics.ACCESS_DENIED);
             throw new RuntimeException("Access denied. Seller role required.");
         }
 
-        return productRepository.findBySellerId(authResponse.getUserId());
+        int pageSize = pageSize(size);
+        List<Product> products = productRepository.findBySellerIdAndIdGreaterThanOrderByIdAsc(
+                user.userId(), decodeCursor(cursor), PageRequest.ofSize(pageSize + 1));
+        return toPage(hotInventory.withLeasedUnits(products), pageSize);
     }
 
+    @Transactional
     public Product updateQuantity(Long id, Integer quantity, String authHeader) {
-        // Validate JWT token
-        AuthResponse authResponse = authClient.validateToken(authHeader);
-
-        if (!"Token is valid".equals(authResponse.getMessage())) {
-            throw new RuntimeException("Invalid or expired token");
-        }
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
 
-        if (!"ADMIN".equals(authResponse.getRole())) {
+        if (!"ADMIN".equals(user.role())) {
+            catalogMetrics.validationFailed(CatalogMetrics.ACCESS_DENIED);
             throw new RuntimeException("Access denied. Seller role required.");
         }
 
@@ -91,21 +161,154 @@ public class ProductService {
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
         // Ensure seller owns the product
-        if (!product.getSellerId().equals(authResponse.getUserId())) {
+        if (!product.getSellerId().equals(user.userId())) {
+            catalogMetrics.validationFailed(CatalogMetrics.ACCESS_DENIED);
             throw new RuntimeException("Access denied. You can only update your own products.");
         }
 
+        // Return any hot lease first, then overwrite the quantity in one statement
+        hotInventory.evict(id);
+        productRepository.setQuantity(id, quantity);
+        searchIndex.updateQuantityAfterCommit(id, quantity);
         product.setQuantity(quantity);
-        return productRepository.save(product);
+        productOutbox.recordUpdated(product);
+        productCaches.evictAfterCommit(List.of(id));
+        return product;
     }
 
-    // Public method for other services to fetch product details
+    // Public method for other services to fetch product details; leased units count as stock
+    @Cacheable(cacheNames = "products", key = "#id")
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+        return hotInventory.withLeasedUnits(productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found")));
+    }
+
+    // Public method for other services to fetch many products in one query
+    public ProductBatchResponse getProductsByIds(List<Long> ids) {
+        if (ids.size() > ProductBatchLimits.MAX_IDS) {
+            catalogMetrics.validationFailed(CatalogMetrics.BATCH_TOO_LARGE);
+            throw new RuntimeException("At most " + ProductBatchLimits.MAX_IDS + " product ids per batch");
+        }
+        Set<Long> requestedIds = new LinkedHashSet<>(ids);
+        Cache cache = cacheManager.getCache("products");
+
+        // Serve cached products, load only the misses with one query
+        Map<Long, Product> found = new HashMap<>();
+        List<Long> uncachedIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            Product cached = cache.get(id, Product.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                uncachedIds.add(id);
+            }
+        }
+        if (!uncachedIds.isEmpty()) {
+            for (Product product : hotInventory.withLeasedUnits(productRepository.findAllById(uncachedIds))) {
+                cache.put(product.getId(), product);
+                found.put(product.getId(), product);
+            }
+        }
+
+        // Products in the order they were asked for, however they were found
+        List<Product> products = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            Product product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        return new ProductBatchResponse(products, missingIds);
     }
 
-    public List<Product> getAllAvailableProducts() {
-        return productRepository.findByQuantityGreaterThan(0);
+    // Available products with a content version other services can revalidate against
+    @Cacheable(cacheNames = "availableProducts")
+    public ProductCatalog getAvailableCatalog() {
+        List<Product> products = hotInventory.withLeasedUnits(productRepository.findAvailable());
+        return new ProductCatalog(catalogVersion(products), products);
+    }
+
+    /**
+     * Available products with the change feed position they reflect, so a
+     * caller can follow the feed from there without applying a change twice.
+     * The relay sequences changes after they commit, so the head alone would
+     * leave out changes the products already contain.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public ProductChangeSnapshot getChangeSnapshot() {
+        // All three reads see the same consistent snapshot of the database
+        long head = productOutbox.getHeadSequence();
+        List<Long> included = productOutbox.getUnrelayedChangeIds();
+        List<Product> products = hotInventory.withLeasedUnits(productRepository.findAvailable());
+        return new ProductChangeSnapshot(head, included, products);
+    }
+
+    public List<Product> searchProducts(String query, BigDecimal minPrice, BigDecimal maxPrice,
+            boolean inStock, Integer size) {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            catalogMetrics.validationFailed(CatalogMetrics.INVALID_PRICE_RANGE);
+            throw new RuntimeException("minPrice must not be greater than maxPrice");
+        }
+        return searchIndex.search(query, minPrice, maxPrice, inStock, pageSize(size));
+    }
+
+    public List<String> suggestSearchTerms(String prefix, Integer size) {
+        return searchIndex.suggest(prefix, pageSize(size));
+    }
+
+    public CursorPage<Product> getAvailableProductsPage(String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        List<Product> products = productRepository.findAvailableAfter(decodeCursor(cursor), PageRequest.ofSize(pageSize + 1));
+        return toPage(hotInventory.withLeasedUnits(products), pageSize);
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    // One extra row is fetched to tell whether another page follows
+    private CursorPage<Product> toPage(List<Product> products, int pageSize) {
+        if (products.size() <= pageSize) {
+            return new CursorPage<>(products, null);
+        }
+        List<Product> page = products.subList(0, pageSize);
+        return new CursorPage<>(new ArrayList<>(page), encodeCursor(page.get(pageSize - 1).getId()));
+    }
+
+    private String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            catalogMetrics.validationFailed(CatalogMetrics.INVALID_CURSOR);
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    private String catalogVersion(List<Product> products) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Product product : products) {
+                String line = product.getId() + "|" + product.getName() + "|" + product.getDescription()
+                        + "|" + product.getPrice() + "|" + product.getQuantity() + "|" + product.getSellerId() + "\n";
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
@@ -0,0 +1,12 @@
+package com.ecomm.ecommadmin.service;
+
+/**
+ * Thrown when a reservation is unknown or already released, so it cannot be
+ * committed or released as asked.
+ */
+public class ReservationStateException extends RuntimeException {
+
+    public ReservationStateException(String message) {
+        super(message);
+    }
+}
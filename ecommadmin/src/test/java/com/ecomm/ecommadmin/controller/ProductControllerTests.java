@@ -0,0 +1,72 @@
+package com.ecomm.ecommadmin.controller;
+
+import com.ecomm.ecommadmin.dto.ProductCatalog;
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.service.CatalogExportService;
+import com.ecomm.ecommadmin.service.CatalogImportService;
+import com.ecomm.ecommadmin.service.ProductOutbox;
+import com.ecomm.ecommadmin.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductControllerTests {
+
+    private final ProductService productService = mock(ProductService.class);
+    private ProductController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new ProductController(productService, mock(CatalogExportService.class),
+                mock(CatalogImportService.class), mock(ProductOutbox.class), new CatalogExportTimeout(60_000));
+        Product product = new Product();
+        product.setId(1L);
+        when(productService.getAvailableCatalog()).thenReturn(new ProductCatalog("v7", List.of(product)));
+    }
+
+    @Test
+    void callerWithoutAVersionGetsTheCatalogAndItsVersionAsAWeakETag() {
+        ResponseEntity<List<Product>> response = controller.getAllAvailableProducts(request(null));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"v7\"");
+        assertThat(response.getBody()).extracting(Product::getId).containsExactly(1L);
+    }
+
+    @Test
+    void callerHoldingTheCurrentVersionGetsANotModifiedWithoutABody() {
+        ResponseEntity<List<Product>> response = controller.getAllAvailableProducts(request("W/\"v7\""));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"v7\"");
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    void callerHoldingAnOlderVersionGetsTheCurrentCatalog() {
+        ResponseEntity<List<Product>> response = controller.getAllAvailableProducts(request("W/\"v6\""));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"v7\"");
+        assertThat(response.getBody()).hasSize(1);
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/admin/products/available");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
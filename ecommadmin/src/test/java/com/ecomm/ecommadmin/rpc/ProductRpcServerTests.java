@@ -0,0 +1,147 @@
+package com.ecomm.ecommadmin.rpc;
+
+import com.ecomm.common.rpc.ProductRpcProtocol;
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductRpcServerTests {
+
+    private static final String SECRET = "test-secret";
+
+    private final ProductService productService = mock(ProductService.class);
+    private ProductRpcServer server;
+    private int port;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+        server = new ProductRpcServer(productService, "127.0.0.1", port, SECRET, 4,
+                new StandardEnvironment(), new SimpleMeterRegistry());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.stop();
+    }
+
+    @Test
+    void servesCallsAfterTheHandshake() throws IOException {
+        Product product = new Product();
+        product.setId(7L);
+        product.setName("Kettle");
+        product.setQuantity(3);
+        when(productService.getProductById(7L)).thenReturn(product);
+
+        try (Socket socket = connect()) {
+            assertThat(exchange(socket, frame(ProductRpcProtocol.HELLO, out -> ProductRpcProtocol.writeString(out, SECRET))))
+                    .containsExactly(ProductRpcProtocol.OK);
+
+            DataInputStream response = new DataInputStream(new ByteArrayInputStream(
+                    exchange(socket, frame(ProductRpcProtocol.GET_PRODUCT, out -> out.writeLong(7L)))));
+            assertThat(response.readByte()).isEqualTo(ProductRpcProtocol.OK);
+            assertThat(response.readLong()).isEqualTo(7L);
+        }
+    }
+
+    @Test
+    void rejectsAWrongSecretAndHangsUp() throws IOException {
+        try (Socket socket = connect()) {
+            assertThat(exchange(socket, frame(ProductRpcProtocol.HELLO, out -> ProductRpcProtocol.writeString(out, "guess"))))
+                    .containsExactly(ProductRpcProtocol.UNAUTHORIZED);
+            assertThat(ProductRpcProtocol.readFrame(input(socket))).isNull();
+        }
+    }
+
+    @Test
+    void rejectsCallsWithoutAHandshake() throws IOException {
+        try (Socket socket = connect()) {
+            assertThat(exchange(socket, frame(ProductRpcProtocol.GET_PRODUCT, out -> out.writeLong(7L))))
+                    .containsExactly(ProductRpcProtocol.UNAUTHORIZED);
+        }
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void dropsTheConnectionOnAnOversizedOrInconsistentRequest() throws IOException {
+        try (Socket socket = connect()) {
+            exchange(socket, frame(ProductRpcProtocol.HELLO, out -> ProductRpcProtocol.writeString(out, SECRET)));
+            // Claims two billion ids in a 13-byte frame
+            ProductRpcProtocol.writeFrame(socket.getOutputStream(), frame(ProductRpcProtocol.GET_PRODUCTS, out -> {
+                out.writeInt(Integer.MAX_VALUE);
+                out.writeLong(1L);
+            }));
+            assertClosedByServer(socket);
+        }
+
+        try (Socket socket = connect()) {
+            exchange(socket, frame(ProductRpcProtocol.HELLO, out -> ProductRpcProtocol.writeString(out, SECRET)));
+            new DataOutputStream(socket.getOutputStream()).writeInt(ProductRpcProtocol.MAX_REQUEST_SIZE + 1);
+            assertClosedByServer(socket);
+        }
+        verifyNoInteractions(productService);
+    }
+
+    // The server hangs up without answering; depending on timing the client sees EOF or a reset
+    private static void assertClosedByServer(Socket socket) {
+        try {
+            assertThat(ProductRpcProtocol.readFrame(input(socket))).isNull();
+        } catch (IOException e) {
+            assertThat(e).isInstanceOf(SocketException.class);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static DataInputStream input(Socket socket) throws IOException {
+        return new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+
+    private static byte[] exchange(Socket socket, byte[] request) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        ProductRpcProtocol.writeFrame(out, request);
+        return ProductRpcProtocol.readFrame(input(socket));
+    }
+
+    private static byte[] frame(byte operation, Body body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(operation);
+        body.write(out);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
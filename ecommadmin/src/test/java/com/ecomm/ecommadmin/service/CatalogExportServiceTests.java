@@ -0,0 +1,108 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogExportServiceTests {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final HotInventory hotInventory = mock(HotInventory.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private CatalogExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new CatalogExportService(productRepository, hotInventory, entityManager, objectMapper, 2);
+        // Product 2 has three units leased out, which buyers still see as stock
+        Map<Long, Long> leased = Map.of(2L, 3L);
+        when(hotInventory.leasedUnits()).thenReturn(leased);
+        when(hotInventory.withLeasedUnits(any(Product.class), any())).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            if (product.getId() != 2L) {
+                return product;
+            }
+            Product copy = product(product.getId(), product.getQuantity() + 3);
+            copy.setName(product.getName());
+            return copy;
+        });
+    }
+
+    @Test
+    void eachProductIsWrittenAsOneCompleteJsonLine() throws IOException {
+        List<Product> products = List.of(product(1L, 4), product(2L, 1), product(3L, 9));
+        when(productRepository.streamAvailableProducts()).thenReturn(products.stream());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.exportAvailableProducts(out);
+
+        String ndjson = out.toString(StandardCharsets.UTF_8);
+        assertThat(written).isEqualTo(3);
+        assertThat(ndjson).endsWith("}\n");
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        assertThat(lines).extracting(line -> line.get("id").asLong()).containsExactly(1L, 2L, 3L);
+        assertThat(lines).extracting(line -> line.get("quantity").asInt()).containsExactly(4, 4, 9);
+    }
+
+    @Test
+    void eachProductIsDetachedOnceItWasWritten() throws IOException {
+        List<Product> products = List.of(product(1L, 4), product(2L, 1), product(3L, 9));
+        when(productRepository.streamAvailableProducts()).thenReturn(products.stream());
+
+        exportService.exportAvailableProducts(new ByteArrayOutputStream());
+
+        // The managed entity is detached, not the copy carrying the leased units
+        InOrder inOrder = inOrder(hotInventory, entityManager);
+        for (Product product : products) {
+            inOrder.verify(hotInventory).withLeasedUnits(product, Map.of(2L, 3L));
+            inOrder.verify(entityManager).detach(product);
+        }
+        verify(hotInventory).leasedUnits();
+    }
+
+    @Test
+    void emptyCatalogWritesNothing() throws IOException {
+        when(productRepository.streamAvailableProducts()).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(exportService.exportAvailableProducts(out)).isZero();
+        assertThat(out.size()).isZero();
+        verify(entityManager, never()).detach(any());
+    }
+
+    private static Product product(Long id, int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setSellerId(1L);
+        product.setName("Product " + id);
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
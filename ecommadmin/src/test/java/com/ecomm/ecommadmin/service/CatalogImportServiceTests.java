@@ -0,0 +1,150 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.common.security.JwtVerifier;
+import com.ecomm.ecommadmin.dto.ImportReport;
+import com.ecomm.ecommadmin.dto.ImportReport.ImportError;
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.service.CatalogImportService.Format;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CatalogImportServiceTests {
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ProductSearchIndex searchIndex = mock(ProductSearchIndex.class);
+
+    // Names of the products whose chunk committed, in the order they reached the search index
+    private final List<String> committed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> committed.add(((Product) invocation.getArgument(0)).getName()))
+                .when(searchIndex).index(any(Product.class));
+    }
+
+    @Test
+    void rejectedRowsAreReportedWithTheirLineNumbers() throws IOException {
+        ImportReport report = importProducts(Format.CSV, 100, 10, """
+                name,price,quantity
+                Kettle,19.99,3
+                Grinder,cheap,3
+                ,5.00,1
+                Mug,4.50,-2
+                Teapot,12.00,7
+                """);
+
+        assertThat(report.getRowsRead()).isEqualTo(5);
+        assertThat(report.getRowsImported()).isEqualTo(2);
+        assertThat(report.getRowsRejected()).isEqualTo(3);
+        assertThat(report.getErrors()).extracting(ImportError::getLine).containsExactly(3L, 4L, 5L);
+        assertThat(report.getErrors()).extracting(ImportError::getMessage).containsExactly(
+                "price is not a number: cheap", "name is required", "quantity must not be negative");
+        assertThat(committed).containsExactly("Kettle", "Teapot");
+    }
+
+    @Test
+    void malformedCsvStopsTheImportAfterTheRowsBeforeIt() throws IOException {
+        ImportReport report = importProducts(Format.CSV, 100, 10, """
+                name,price,quantity
+                Kettle,19.99,3
+                "Grinder"x,25.00,3
+                Teapot,12.00,7
+                """);
+
+        assertThat(report.getRowsImported()).isEqualTo(1);
+        assertThat(report.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(3);
+            assertThat(error.getMessage()).startsWith("Malformed CSV, import stopped");
+        });
+        assertThat(committed).containsExactly("Kettle");
+    }
+
+    @Test
+    void blankNdjsonLinesAreSkippedButStillNumbered() throws IOException {
+        ImportReport report = importProducts(Format.NDJSON, 100, 10, """
+                {"name": "Kettle", "price": "19.99", "quantity": "3"}
+
+                {"name": "Grinder", "price":
+                   \s
+                {"name": "Teapot", "price": "12.00", "quantity": "many"}
+                {"name": "Mug", "price": "4.50", "quantity": "9", "color": "blue"}
+                """);
+
+        assertThat(report.getRowsRead()).isEqualTo(4);
+        assertThat(report.getRowsImported()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportError::getLine).containsExactly(3L, 5L);
+        assertThat(report.getErrors().get(0).getMessage()).startsWith("Malformed JSON");
+        assertThat(committed).containsExactly("Kettle", "Mug");
+    }
+
+    @Test
+    void failingChunkRollsBackAloneAndEarlierChunksStay() throws IOException {
+        doAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            if (product.getName().equals("Broken")) {
+                throw new IllegalStateException("Duplicate entry");
+            }
+            return null;
+        }).when(entityManager).persist(any(Product.class));
+
+        ImportReport report = importProducts(Format.CSV, 2, 10, """
+                name,price,quantity
+                Kettle,19.99,3
+                Grinder,25.00,3
+                Teapot,12.00,7
+                Broken,1.00,1
+                Mug,4.50,9
+                """);
+
+        assertThat(report.getRowsImported()).isEqualTo(3);
+        assertThat(report.getRowsRejected()).isEqualTo(2);
+        assertThat(report.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(4);
+            assertThat(error.getMessage()).isEqualTo("Chunk of 2 rows rolled back: Duplicate entry");
+        });
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+        assertThat(committed).containsExactly("Kettle", "Grinder", "Mug");
+    }
+
+    @Test
+    void reportKeepsOnlyTheFirstErrorsAndSaysItWasTruncated() throws IOException {
+        ImportReport report = importProducts(Format.CSV, 100, 2, """
+                name,price,quantity
+                A,x,1
+                B,x,1
+                C,x,1
+                D,1.00,1
+                """);
+
+        assertThat(report.getRowsRejected()).isEqualTo(3);
+        assertThat(report.getErrors()).extracting(ImportError::getLine).containsExactly(2L, 3L);
+        assertThat(report.isErrorsTruncated()).isTrue();
+    }
+
+    private ImportReport importProducts(Format format, int chunkSize, int maxReportedErrors, String input)
+            throws IOException {
+        CatalogImportService importService = new CatalogImportService(entityManager, transactionManager,
+                mock(JwtVerifier.class), searchIndex, mock(ProductOutbox.class), mock(ProductCaches.class),
+                mock(CatalogMetrics.class), new ObjectMapper(), chunkSize, maxReportedErrors);
+        return importService.importProducts(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), format, 1L);
+    }
+}
@@ -0,0 +1,307 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.entity.InventoryLeaseHeartbeat;
+import com.ecomm.ecommadmin.entity.InventoryLeaseHolder;
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.repository.InventoryLeaseBalanceRepository;
+import com.ecomm.ecommadmin.repository.InventoryLeaseHeartbeatRepository;
+import com.ecomm.ecommadmin.repository.InventoryLeaseHolderRepository;
+import com.ecomm.ecommadmin.repository.InventoryLeaseRepository;
+import com.ecomm.ecommadmin.repository.InventoryReservationRepository;
+import com.ecomm.ecommadmin.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HotInventoryTests {
+
+    private static final Long PRODUCT_ID = 7L;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final InventoryReservationRepository reservationRepository = mock(InventoryReservationRepository.class);
+    private final InventoryLeaseRepository leaseRepository = mock(InventoryLeaseRepository.class);
+    private final InventoryLeaseHolderRepository holderRepository = mock(InventoryLeaseHolderRepository.class);
+    private final InventoryLeaseHeartbeatRepository heartbeatRepository = mock(InventoryLeaseHeartbeatRepository.class);
+    private final InventoryLeaseBalanceRepository balanceRepository = mock(InventoryLeaseBalanceRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private HotInventory hotInventory;
+
+    @BeforeEach
+    void setUp() {
+        hotInventory = new HotInventory(productRepository, reservationRepository, leaseRepository, holderRepository,
+                heartbeatRepository, balanceRepository, transactionManager, 2, 10, 4, 30000);
+        hotInventory.start();
+        when(heartbeatRepository.beat(anyString(), any())).thenReturn(1);
+        when(holderRepository.findForShare(anyString()))
+                .thenAnswer(invocation -> Optional.of(new InventoryLeaseHolder(invocation.getArgument(0), null)));
+    }
+
+    @Test
+    void coldProductIsReservedFromTheTable() {
+        assertThat(hotInventory.tryTake(PRODUCT_ID, 1)).isNull();
+        verify(productRepository, never()).decrementQuantity(anyLong(), anyInt());
+    }
+
+    @Test
+    void leaseIsRecordedInTheLedgerInTheTransactionThatTakesIt() {
+        when(productRepository.decrementQuantity(PRODUCT_ID, 10)).thenReturn(1);
+        String holder = promote();
+
+        assertThat(hotInventory.tryTake(PRODUCT_ID, 3)).isEqualTo(holder);
+
+        verify(leaseRepository).save(argThat(lease -> lease.getHolder().equals(holder)
+                && lease.getProductId().equals(PRODUCT_ID) && lease.getQuantity() == 10));
+    }
+
+    @Test
+    void takingFromALeaseNeverOpensATransactionOrLocksTheHolder() {
+        when(productRepository.decrementQuantity(PRODUCT_ID, 10)).thenReturn(1);
+        String holder = promote();
+        clearInvocations(transactionManager, productRepository);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(hotInventory.tryTake(PRODUCT_ID, 2)).isEqualTo(holder);
+        }
+        // The lease is empty now; the table serves the product until the next rebalance tops it up
+        assertThat(hotInventory.tryTake(PRODUCT_ID, 2)).isNull();
+
+        verify(transactionManager, never()).getTransaction(any());
+        verify(holderRepository, never()).findForShare(anyString());
+        verify(productRepository, never()).decrementQuantity(anyLong(), anyInt());
+    }
+
+    @Test
+    void rebalanceTopsUpTheLeaseByTheDemandSinceTheLastOne() {
+        when(productRepository.decrementQuantity(eq(PRODUCT_ID), anyInt())).thenReturn(1);
+        promote();
+        for (int i = 0; i < 8; i++) {
+            hotInventory.tryTake(PRODUCT_ID, 1);
+        }
+
+        hotInventory.rebalance();
+
+        // Two units left against a demand of eight: leased up to twice the demand
+        verify(productRepository).decrementQuantity(PRODUCT_ID, 14);
+    }
+
+    @Test
+    void holderWithAStaleHeartbeatSendsReservationsToTheTable() {
+        hotInventory = new HotInventory(productRepository, reservationRepository, leaseRepository, holderRepository,
+                heartbeatRepository, balanceRepository, transactionManager, 2, 10, 4, 0);
+        hotInventory.start();
+        when(productRepository.decrementQuantity(PRODUCT_ID, 10)).thenReturn(1);
+        hotInventory.tryTake(PRODUCT_ID, 0);
+        hotInventory.tryTake(PRODUCT_ID, 0);
+        hotInventory.rebalance();
+
+        assertThat(hotInventory.tryTake(PRODUCT_ID, 1)).isNull();
+    }
+
+    @Test
+    void evictionInsideATransactionUsesItsConnectionAndRetriesAfterARollback() {
+        when(productRepository.decrementQuantity(PRODUCT_ID, 10)).thenReturn(1);
+        promote();
+        hotInventory.tryTake(PRODUCT_ID, 3);
+        clearInvocations(transactionManager);
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            hotInventory.evict(PRODUCT_ID);
+
+            verify(transactionManager, never()).getTransaction(any());
+            verify(productRepository).incrementQuantity(PRODUCT_ID, 7);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        hotInventory.rebalance();
+
+        verify(productRepository, times(2)).incrementQuantity(PRODUCT_ID, 7);
+    }
+
+    @Test
+    void returnedLeaseIsRecordedAsANegativeMovement() {
+        when(productRepository.decrementQuantity(PRODUCT_ID, 10)).thenReturn(1);
+        String holder = promote();
+        hotInventory.tryTake(PRODUCT_ID, 3);
+
+        hotInventory.evict(PRODUCT_ID);
+
+        verify(productRepository).incrementQuantity(PRODUCT_ID, 7);
+        verify(leaseRepository).save(argThat(lease -> lease.getHolder().equals(holder) && lease.getQuantity() == -7));
+    }
+
+    @Test
+    void unreservedLeaseUnitsArePublishedUntilTheLeaseIsReturned() {
+        when(productRepository.decrementQuantity(PRODUCT_ID, 10)).thenReturn(1);
+        String holder = promote();
+
+        verify(balanceRepository).publish(holder, PRODUCT_ID, 10);
+
+        hotInventory.tryTake(PRODUCT_ID, 3);
+        hotInventory.rebalance();
+        verify(balanceRepository).publish(holder, PRODUCT_ID, 7);
+
+        hotInventory.tryTake(PRODUCT_ID, 2);
+        hotInventory.rebalance();
+        verify(balanceRepository).publish(holder, PRODUCT_ID, 5);
+
+        hotInventory.evict(PRODUCT_ID);
+        hotInventory.rebalance();
+        verify(balanceRepository).publish(holder, PRODUCT_ID, 0);
+    }
+
+    @Test
+    void leasedUnitsAreAddedToACopyOfTheProduct() {
+        when(balanceRepository.sumByProduct()).thenReturn(rows(PRODUCT_ID, 5L));
+        hotInventory.rebalance();
+        Product leased = product(PRODUCT_ID, 0);
+        Product cold = product(8L, 4);
+
+        List<Product> visible = hotInventory.withLeasedUnits(List.of(leased, cold));
+
+        assertThat(visible.get(0).getQuantity()).isEqualTo(5);
+        assertThat(leased.getQuantity()).isZero();
+        assertThat(visible.get(1)).isSameAs(cold);
+    }
+
+    @Test
+    void productReadsUseTheBalancesReadOnTheLastRebalance() {
+        when(balanceRepository.sumByProduct()).thenReturn(rows(PRODUCT_ID, 5L));
+        hotInventory.rebalance();
+        clearInvocations(balanceRepository);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(hotInventory.withLeasedUnits(product(PRODUCT_ID, 1)).getQuantity()).isEqualTo(6);
+        }
+        verify(balanceRepository, never()).sumByProduct();
+
+        when(balanceRepository.sumByProduct()).thenReturn(rows(PRODUCT_ID, 2L));
+        hotInventory.rebalance();
+        assertThat(hotInventory.withLeasedUnits(product(PRODUCT_ID, 1)).getQuantity()).isEqualTo(3);
+    }
+
+    @Test
+    void silentHolderGetsBackWhatItLeasedButDidNotReserve() {
+        when(heartbeatRepository.findHoldersSilentSince(any())).thenReturn(List.of("crashed"));
+        when(heartbeatRepository.findById("crashed"))
+                .thenReturn(Optional.of(new InventoryLeaseHeartbeat("crashed", LocalDateTime.now().minusMinutes(5))));
+        when(holderRepository.lockIfIdle("crashed")).thenReturn(List.of("crashed"));
+        when(leaseRepository.sumByProduct("crashed")).thenReturn(rows(PRODUCT_ID, 40L, 8L, 10L));
+        when(reservationRepository.sumLeasedByProduct("crashed")).thenReturn(rows(PRODUCT_ID, 25L, 8L, 10L));
+
+        hotInventory.reconcileAbandonedLeases();
+
+        verify(productRepository).incrementQuantity(PRODUCT_ID, 15);
+        verify(productRepository, never()).incrementQuantity(eq(8L), anyInt());
+        verify(leaseRepository).deleteByHolder("crashed");
+        verify(balanceRepository).deleteByHolder("crashed");
+        verify(heartbeatRepository).deleteById("crashed");
+        verify(holderRepository).deleteById("crashed");
+    }
+
+    @Test
+    void holderWithReservationsInFlightIsNotReconciled() {
+        when(heartbeatRepository.findHoldersSilentSince(any())).thenReturn(List.of("busy"));
+        when(heartbeatRepository.findById("busy"))
+                .thenReturn(Optional.of(new InventoryLeaseHeartbeat("busy", LocalDateTime.now().minusMinutes(5))));
+        when(holderRepository.lockIfIdle("busy")).thenReturn(List.of());
+
+        hotInventory.reconcileAbandonedLeases();
+
+        verify(productRepository, never()).incrementQuantity(anyLong(), anyInt());
+        verify(holderRepository, never()).deleteById("busy");
+    }
+
+    @Test
+    void reconciledInstanceDropsItsStockAndRegistersAgain() {
+        when(productRepository.decrementQuantity(PRODUCT_ID, 10)).thenReturn(1);
+        String holder = promote();
+        hotInventory.tryTake(PRODUCT_ID, 3);
+        when(heartbeatRepository.beat(eq(holder), any())).thenReturn(0);
+        hotInventory.rebalance();
+
+        assertThat(hotInventory.tryTake(PRODUCT_ID, 3)).isNull();
+        hotInventory.giveBack(PRODUCT_ID, 3, holder);
+
+        // The reconciling instance returned those units already
+        verify(productRepository, never()).incrementQuantity(anyLong(), anyInt());
+        verify(holderRepository, times(2)).save(any());
+    }
+
+    @Test
+    void stripedStockHandsOutEveryUnitExactlyOnceUnderContention() throws Exception {
+        HotInventory.StripedStock stock = new HotInventory.StripedStock(8);
+        stock.give(10_000);
+        AtomicInteger taken = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 16; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 2_000; j++) {
+                    int quantity = 1 + j % 3;
+                    if (stock.tryTake(quantity)) {
+                        taken.addAndGet(quantity);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(taken.get() + stock.drain()).isEqualTo(10_000);
+    }
+
+    // Registers the holder and makes the product hot; returns the holder id
+    private String promote() {
+        hotInventory.tryTake(PRODUCT_ID, 0);
+        hotInventory.tryTake(PRODUCT_ID, 0);
+        hotInventory.rebalance();
+        ArgumentCaptor<InventoryLeaseHolder> registered = ArgumentCaptor.forClass(InventoryLeaseHolder.class);
+        verify(holderRepository).save(registered.capture());
+        return registered.getValue().getHolder();
+    }
+
+    private static Product product(Long id, int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setQuantity(quantity);
+        return product;
+    }
+
+    private static List<Object[]> rows(Object... values) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < values.length; i += 2) {
+            rows.add(new Object[] {values[i], values[i + 1]});
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,180 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.dto.ReservationItem;
+import com.ecomm.ecommadmin.dto.ReservationOutcome;
+import com.ecomm.ecommadmin.entity.InventoryReservation;
+import com.ecomm.ecommadmin.entity.InventoryReservation.ReservationStatus;
+import com.ecomm.ecommadmin.entity.ProductOutboxEvent;
+import com.ecomm.ecommadmin.repository.InventoryReservationRepository;
+import com.ecomm.ecommadmin.repository.OutboxRelayStateRepository;
+import com.ecomm.ecommadmin.repository.ProductOutboxRepository;
+import com.ecomm.ecommadmin.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryServiceTests {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final InventoryReservationRepository reservationRepository = mock(InventoryReservationRepository.class);
+    private final ProductOutboxRepository outboxRepository = mock(ProductOutboxRepository.class);
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager("products", "availableProducts");
+    private final InventoryService inventoryService = new InventoryService(productRepository, reservationRepository,
+            mock(HotInventory.class), mock(ProductSearchIndex.class), new ProductCaches(cacheManager),
+            new ProductOutbox(outboxRepository, mock(OutboxRelayStateRepository.class), new ObjectMapper(), 100, 1000, 60000),
+            new CatalogMetrics(new SimpleMeterRegistry()), mock(PlatformTransactionManager.class), 900000);
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void everyReservedLineIsInTheOutboxBeforeTheNextStockUpdate() {
+        when(productRepository.decrementQuantity(anyLong(), anyInt())).thenReturn(1);
+
+        inventoryService.reserve(List.of(new ReservationItem(1L, 2), new ReservationItem(2L, 3),
+                new ReservationItem(3L, 1)));
+
+        // The stock updates clear the persistence context, so an event still queued there would be lost
+        InOrder order = inOrder(productRepository, outboxRepository);
+        order.verify(productRepository).decrementQuantity(1L, 2);
+        order.verify(outboxRepository).saveAndFlush(argThat(adjustment(1L, -2)));
+        order.verify(productRepository).decrementQuantity(2L, 3);
+        order.verify(outboxRepository).saveAndFlush(argThat(adjustment(2L, -3)));
+        order.verify(productRepository).decrementQuantity(3L, 1);
+        order.verify(outboxRepository).saveAndFlush(argThat(adjustment(3L, -1)));
+        verify(outboxRepository, times(3)).saveAndFlush(any(ProductOutboxEvent.class));
+    }
+
+    @Test
+    void everyReleasedLineIsInTheOutboxBeforeTheNextStockUpdate() {
+        when(reservationRepository.findByReservationId("r1")).thenReturn(List.of(
+                new InventoryReservation("r1", 1L, 2), new InventoryReservation("r1", 2L, 3)));
+        when(reservationRepository.updateStatus(eq("r1"), anyList(), eq(ReservationStatus.RELEASED))).thenReturn(2);
+
+        inventoryService.release("r1");
+
+        InOrder order = inOrder(productRepository, outboxRepository);
+        order.verify(productRepository).incrementQuantity(1L, 2);
+        order.verify(outboxRepository).saveAndFlush(argThat(adjustment(1L, 2)));
+        order.verify(productRepository).incrementQuantity(2L, 3);
+        order.verify(outboxRepository).saveAndFlush(argThat(adjustment(2L, 3)));
+        verify(outboxRepository, times(2)).saveAndFlush(any(ProductOutboxEvent.class));
+    }
+
+    @Test
+    void refusedReservationRecordsNothingForTheRefusedLine() {
+        when(productRepository.decrementQuantity(1L, 2)).thenReturn(1);
+        when(productRepository.decrementQuantity(2L, 3)).thenReturn(0);
+
+        assertThatThrownBy(() -> inventoryService.reserve(
+                List.of(new ReservationItem(1L, 2), new ReservationItem(2L, 3))))
+                .hasMessageContaining("Insufficient stock");
+
+        verify(outboxRepository, never()).saveAndFlush(argThat(adjustment(2L, -3)));
+    }
+
+    @Test
+    void refusedReservationOfABatchLeavesTheOthersGranted() {
+        when(productRepository.decrementQuantity(1L, 2)).thenReturn(1);
+        when(productRepository.decrementQuantity(2L, 3)).thenReturn(0);
+        when(productRepository.decrementQuantity(3L, 1)).thenReturn(1);
+
+        List<ReservationOutcome> outcomes = inventoryService.reserveEach(List.of(
+                List.of(new ReservationItem(1L, 2)), List.of(new ReservationItem(2L, 3)),
+                List.of(new ReservationItem(3L, 1))));
+
+        assertThat(outcomes).hasSize(3);
+        assertThat(outcomes.get(0).getReservation().getStatus()).isEqualTo(ReservationStatus.RESERVED.name());
+        assertThat(outcomes.get(1).getReservation()).isNull();
+        assertThat(outcomes.get(1).getRefusal()).contains("Insufficient stock for product: 2");
+        assertThat(outcomes.get(2).getReservation().getItems()).containsExactly(new ReservationItem(3L, 1));
+    }
+
+    @Test
+    void failureOtherThanAShortageIsNotReportedAsARefusal() {
+        when(productRepository.decrementQuantity(1L, 2)).thenReturn(1);
+        when(productRepository.decrementQuantity(2L, 3)).thenThrow(new IllegalStateException("Connection is closed"));
+
+        assertThatThrownBy(() -> inventoryService.reserveEach(List.of(
+                List.of(new ReservationItem(1L, 2)), List.of(new ReservationItem(2L, 3)))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void reservedProductsLeaveTheCachesOnlyOnceCommitted() {
+        when(productRepository.decrementQuantity(anyLong(), anyInt())).thenReturn(1);
+        cacheManager.getCache("products").put(1L, "product 1");
+        cacheManager.getCache("products").put(2L, "product 2");
+        cacheManager.getCache("availableProducts").put(SimpleKey.EMPTY, "catalog");
+
+        inventoryService.reserve(List.of(new ReservationItem(1L, 2)));
+
+        // A read before the commit would cache the old stock again, so nothing is evicted yet
+        assertThat(cacheManager.getCache("products").get(1L)).isNotNull();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(cacheManager.getCache("products").get(1L)).isNull();
+        assertThat(cacheManager.getCache("products").get(2L)).isNotNull();
+        assertThat(cacheManager.getCache("availableProducts").get(SimpleKey.EMPTY)).isNull();
+    }
+
+    @Test
+    void releasedProductsLeaveTheCachesOnceCommitted() {
+        when(reservationRepository.findByReservationId("r1")).thenReturn(List.of(new InventoryReservation("r1", 1L, 2)));
+        when(reservationRepository.updateStatus(eq("r1"), anyList(), eq(ReservationStatus.RELEASED))).thenReturn(1);
+        cacheManager.getCache("products").put(1L, "product 1");
+
+        inventoryService.release("r1");
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(cacheManager.getCache("products").get(1L)).isNull();
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private static ArgumentMatcher<ProductOutboxEvent> adjustment(Long productId, int delta) {
+        return event -> event.getChangeType() == ProductOutboxEvent.ChangeType.STOCK_ADJUSTED
+                && event.getProductId().equals(productId) && event.getQuantityDelta() == delta;
+    }
+}
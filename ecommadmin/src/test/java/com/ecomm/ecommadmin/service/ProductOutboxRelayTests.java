@@ -0,0 +1,72 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.dto.ProductChangeEvent;
+import com.ecomm.ecommadmin.entity.OutboxRelayState;
+import com.ecomm.ecommadmin.entity.ProductOutboxEvent;
+import com.ecomm.ecommadmin.entity.ProductOutboxEvent.ChangeType;
+import com.ecomm.ecommadmin.repository.OutboxRelayStateRepository;
+import com.ecomm.ecommadmin.repository.ProductOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductOutboxRelayTests {
+
+    private final ProductOutboxRepository outboxRepository = mock(ProductOutboxRepository.class);
+    private final OutboxRelayStateRepository relayStateRepository = mock(OutboxRelayStateRepository.class);
+    private final List<ProductChangeEvent> published = new ArrayList<>();
+    private final ProductOutboxRelay relay = new ProductOutboxRelay(outboxRepository, relayStateRepository,
+            new ProductOutbox(outboxRepository, relayStateRepository, new ObjectMapper(), 100, 1000, 60000),
+            published::addAll, mock(PlatformTransactionManager.class), 10);
+
+    @Test
+    void changesAreSequencedInTheOrderTheyWereRecordedNotByPooledId() {
+        OutboxRelayState state = new OutboxRelayState(OutboxRelayState.ID, 41L);
+        when(relayStateRepository.findForUpdate(OutboxRelayState.ID)).thenReturn(Optional.of(state));
+        LocalDateTime now = LocalDateTime.now();
+        // Instance B drew ids from a lower pool but changed the product after instance A committed
+        ProductOutboxEvent first = event(151L, now.minusNanos(2_000));
+        ProductOutboxEvent second = event(102L, now.minusNanos(1_000));
+        when(outboxRepository.findBySequenceIsNullOrderByRecordedAtAscIdAsc(any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+
+        relay.relay();
+
+        assertThat(first.getSequence()).isEqualTo(42L);
+        assertThat(second.getSequence()).isEqualTo(43L);
+        assertThat(state.getLastSequence()).isEqualTo(43L);
+        assertThat(published).extracting(ProductChangeEvent::getSequence).containsExactly(42L, 43L);
+    }
+
+    @Test
+    void nothingIsPublishedWithoutUnrelayedChanges() {
+        when(relayStateRepository.findForUpdate(OutboxRelayState.ID))
+                .thenReturn(Optional.of(new OutboxRelayState(OutboxRelayState.ID, 7L)));
+        when(outboxRepository.findBySequenceIsNullOrderByRecordedAtAscIdAsc(any(Pageable.class))).thenReturn(List.of());
+
+        relay.relay();
+
+        assertThat(published).isEmpty();
+    }
+
+    private static ProductOutboxEvent event(Long id, LocalDateTime recordedAt) {
+        ProductOutboxEvent event = new ProductOutboxEvent();
+        event.setId(id);
+        event.setProductId(7L);
+        event.setChangeType(ChangeType.STOCK_ADJUSTED);
+        event.setQuantityDelta(-1);
+        event.setRecordedAt(recordedAt);
+        return event;
+    }
+}
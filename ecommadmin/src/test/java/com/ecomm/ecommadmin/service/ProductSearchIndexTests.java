@@ -0,0 +1,154 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ProductSearchIndexTests {
+
+    private ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ProductSearchIndex(mock(ProductRepository.class), mock(HotInventory.class),
+                mock(EntityManager.class), mock(PlatformTransactionManager.class));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void productIsSearchableOnlyOnceItsTransactionCommits() {
+        searchIndex.indexAfterCommit(product(1L, "Espresso machine", 5));
+        assertThat(search("espresso")).isEmpty();
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(search("espresso")).containsExactly(1L);
+    }
+
+    @Test
+    void rolledBackChangesNeverReachTheIndex() {
+        searchIndex.index(product(1L, "Espresso machine", 5));
+
+        searchIndex.indexAfterCommit(product(1L, "Grinder", 5));
+        searchIndex.updateQuantityAfterCommit(1L, 0);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(search("espresso")).containsExactly(1L);
+        assertThat(searchIndex.search("espresso", null, null, true, 10)).hasSize(1);
+    }
+
+    @Test
+    void textIsSplitOnAnythingButLettersAndDigitsAndLowercased() {
+        assertThat(ProductSearchIndex.tokenize("Café-Crème  4K/UHD, 2-pack!"))
+                .containsExactlyInAnyOrder("café", "crème", "4k", "uhd", "2", "pack");
+        assertThat(ProductSearchIndex.tokenize("  --  ")).isEmpty();
+        assertThat(ProductSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void lastTermMatchesAsAPrefixAndEarlierTermsOnlyAsWholeWords() {
+        searchIndex.index(product(1L, "Espresso machine", 5));
+        searchIndex.index(product(2L, "Espresso cups", 5));
+        searchIndex.index(product(3L, "Machine oil", 5));
+
+        assertThat(search("espr")).containsExactly(1L, 2L);
+        assertThat(search("espresso mach")).containsExactly(1L);
+        assertThat(search("esp machine")).isEmpty();
+        assertThat(search("Machine")).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void shortLastTermMatchesWholeWordsOnly() {
+        searchIndex.index(product(1L, "TV stand", 5));
+        searchIndex.index(product(2L, "TVs and more", 5));
+        searchIndex.index(product(3L, "Stand for a TV", 5));
+
+        assertThat(search("tv")).containsExactly(1L, 3L);
+        assertThat(search("stand tv")).containsExactly(1L, 3L);
+        assertThat(search("stand tvs")).isEmpty();
+    }
+
+    @Test
+    void nameMatchesRankBeforeDescriptionMatches() {
+        Product inDescription = product(1L, "Grinder", 5);
+        inDescription.setDescription("Pairs well with any espresso machine");
+        searchIndex.index(inDescription);
+        searchIndex.index(product(2L, "Espresso machine", 5));
+
+        assertThat(search("espresso")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void priceAndStockFiltersNarrowTheMatches() {
+        searchIndex.index(product(1L, "Kettle", new BigDecimal("19.99"), 3));
+        searchIndex.index(product(2L, "Kettle deluxe", new BigDecimal("49.00"), 0));
+        searchIndex.index(product(3L, "Kettle basic", new BigDecimal("9.50"), 8));
+
+        assertThat(ids(searchIndex.search("kettle", new BigDecimal("10"), null, false, 10))).containsExactly(1L, 2L);
+        assertThat(ids(searchIndex.search("kettle", null, new BigDecimal("19.99"), false, 10))).containsExactly(1L, 3L);
+        assertThat(ids(searchIndex.search("kettle", null, null, true, 10))).containsExactly(1L, 3L);
+
+        searchIndex.adjustQuantity(1L, -3);
+        assertThat(ids(searchIndex.search("kettle", null, null, true, 10))).containsExactly(3L);
+    }
+
+    @Test
+    void reindexingDropsTermsTheProductNoLongerHas() {
+        searchIndex.index(product(1L, "Espresso machine", 5));
+
+        searchIndex.index(product(1L, "Drip coffee maker", 5));
+
+        assertThat(search("espresso")).isEmpty();
+        assertThat(search("machine")).isEmpty();
+        assertThat(search("coffee")).containsExactly(1L);
+        assertThat(searchIndex.suggest("esp", 10)).isEmpty();
+        assertThat(searchIndex.suggest("dri", 10)).containsExactly("drip");
+    }
+
+    private List<Long> search(String query) {
+        return ids(searchIndex.search(query, null, null, false, 10));
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    private static Product product(Long id, String name, int quantity) {
+        return product(id, name, BigDecimal.TEN, quantity);
+    }
+
+    private static Product product(Long id, String name, BigDecimal price, int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setSellerId(1L);
+        product.setName(name);
+        product.setPrice(price);
+        product.setQuantity(quantity);
+        return product;
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecomm.ecommadmin.service;
+
+import com.ecomm.common.security.JwtVerifier;
+import com.ecomm.ecommadmin.dto.ProductBatchResponse;
+import com.ecomm.ecommadmin.entity.Product;
+import com.ecomm.ecommadmin.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductServiceBatchTests {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final HotInventory hotInventory = mock(HotInventory.class);
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("products");
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        productService = new ProductService(productRepository, mock(JwtVerifier.class), hotInventory, cacheManager,
+                mock(ProductCaches.class), mock(ProductSearchIndex.class), mock(ProductOutbox.class),
+                mock(CatalogMetrics.class), 20, 100);
+        when(hotInventory.withLeasedUnits(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void productsComeBackInTheOrderTheyWereAskedFor() {
+        cacheManager.getCache("products").put(3L, product(3L));
+        // The database returns the misses in its own order
+        when(productRepository.findAllById(List.of(1L, 4L, 2L))).thenReturn(List.of(product(1L), product(2L)));
+
+        ProductBatchResponse response = productService.getProductsByIds(List.of(1L, 3L, 4L, 2L, 3L));
+
+        assertThat(response.getProducts()).extracting(Product::getId).containsExactly(1L, 3L, 2L);
+        assertThat(response.getMissingIds()).containsExactly(4L);
+    }
+
+    @Test
+    void onlyProductsMissingFromTheCacheAreLoaded() {
+        cacheManager.getCache("products").put(1L, product(1L));
+        when(productRepository.findAllById(List.of(2L))).thenReturn(List.of(product(2L)));
+
+        productService.getProductsByIds(List.of(2L, 1L));
+
+        verify(productRepository).findAllById(List.of(2L));
+        assertThat(cacheManager.getCache("products").get(2L, Product.class)).isNotNull();
+    }
+
+    private static Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        return product;
+    }
+}
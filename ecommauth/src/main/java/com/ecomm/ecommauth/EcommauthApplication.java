@@ -2,8 +2,10 @@ package com.ecomm.ecommauth;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class EcommauthApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,20 @@
+package com.ecomm.ecommauth.config;
+
+import com.ecomm.common.config.IdSequenceAligner;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+@Configuration
+public class SequenceConfig {
+
+    // The entity manager factory is injected so the schema, including the sequence tables, exists first
+    @Bean
+    public IdSequenceAligner idSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        return new IdSequenceAligner(jdbcTemplate, Map.of(
+                "users_seq", "users"));
+    }
+}
@@ -1,18 +1,34 @@
 package com.ecomm.ecommauth.controller;
 
+import com.ecomm.common.security.TokenRevocation;
 import com.ecomm.ecommauth.dto.AuthResponse;
 import com.ecomm.ecommauth.dto.LoginRequest;
 import com.ecomm.ecommauth.dto.RegisterRequest;
 import com.ecomm.ecommauth.entity.User;
 import com.ecomm.ecommauth.repository.UserRepository;
+import com.ecomm.ecommauth.security.JwtKeyManager;
 import com.ecomm.ecommauth.security.JwtUtil;
+import com.ecomm.ecommauth.security.LoginRateLimiter;
+import com.ecomm.ecommauth.security.TokenPrincipal;
+import com.ecomm.ecommauth.security.ValidatedTokenCache;
+import com.ecomm.ecommauth.service.AuthMetrics;
+import com.ecomm.ecommauth.service.InvalidCredentialsException;
+import com.ecomm.ecommauth.service.PasswordHashingBusyException;
+import com.ecomm.ecommauth.service.RegistrationRejectedException;
 import com.ecomm.ecommauth.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -21,58 +37,113 @@ public class UserController {
     private final UserService userService;
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
+    private final JwtKeyManager jwtKeyManager;
+    private final ValidatedTokenCache validatedTokenCache;
+    private final LoginRateLimiter loginRateLimiter;
+    private final AuthMetrics authMetrics;
 
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
-        try {
-            AuthResponse response = userService.register(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest()
-                    .body(new AuthResponse(null, null, null, null, e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
+        return userService.register(request)
+                .thenApply(response -> ResponseEntity.status(HttpStatus.CREATED).body(response))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    // Only a rejected registration is the caller's problem
+                    HttpStatus status = cause instanceof RegistrationRejectedException ? HttpStatus.BAD_REQUEST
+                            : cause instanceof PasswordHashingBusyException ? HttpStatus.SERVICE_UNAVAILABLE
+                            : HttpStatus.INTERNAL_SERVER_ERROR;
+                    return ResponseEntity.status(status)
+                            .body(new AuthResponse(null, null, null, null, cause.getMessage()));
+                });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        try {
-            AuthResponse response = userService.login(request);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new AuthResponse(null, null, null, null, e.getMessage()));
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(
+            @Valid @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest) {
+        // Throttle per username and per client IP before any database or hashing work
+        if (!loginRateLimiter.tryAcquire(request.getUsername(), httpRequest.getRemoteAddr())) {
+            authMetrics.loginCompleted(AuthMetrics.LOGIN_RATE_LIMITED);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new AuthResponse(null, null, null, null, "Too many login attempts. Please try again later.")));
         }
+
+        return userService.login(request)
+                .thenApply(response -> {
+                    authMetrics.loginCompleted(AuthMetrics.LOGIN_SUCCESS);
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    authMetrics.loginCompleted(cause instanceof InvalidCredentialsException ? AuthMetrics.LOGIN_INVALID_CREDENTIALS
+                            : cause instanceof PasswordHashingBusyException ? AuthMetrics.LOGIN_BUSY
+                            : AuthMetrics.LOGIN_UNAVAILABLE);
+                    // Wrong credentials are the caller's problem; a busy hashing pool or an outage is ours
+                    HttpStatus status = cause instanceof InvalidCredentialsException
+                            ? HttpStatus.UNAUTHORIZED
+                            : HttpStatus.SERVICE_UNAVAILABLE;
+                    return ResponseEntity.status(status)
+                            .body(new AuthResponse(null, null, null, null, cause.getMessage()));
+                });
     }
 
     @GetMapping("/validate-token")
-    public ResponseEntity<AuthResponse> validateToken(@RequestHeader("Authorization") String authorizationHeader) {
+    public ResponseEntity<AuthResponse> validateToken(
+            @AuthenticationPrincipal TokenPrincipal principal,
+            @RequestHeader("Authorization") String authorizationHeader) {
         try {
             // Extract token from "Bearer {token}" format
             String token = authorizationHeader.substring(7);
 
-            // Extract username and role from token
-            String username = jwtUtil.extractUsername(token);
-            String role = jwtUtil.extractRole(token);
+            // Serve repeated validations of the same token from the cache
+            ValidatedTokenCache.ValidatedToken cached = validatedTokenCache.get(token);
+            if (cached != null) {
+                return ResponseEntity.ok(cached.response());
+            }
 
-            // Validate token
-            if (!jwtUtil.validateToken(token, username)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new AuthResponse(null, null, null, null, "Invalid or expired token"));
+            // Reuse the token already verified by the security filter, parse it only if missing
+            if (principal == null) {
+                principal = jwtUtil.parseToken(token);
             }
 
             // Get user details from database
-            User user = userRepository.findByUsername(username)
+            User user = userRepository.findByUsername(principal.username())
                     .orElseThrow(() -> new RuntimeException("User not found"));
+            // Tokens issued before the user's last logout are revoked
+            if (user.getTokenVersion() != principal.tokenVersion()) {
+                throw new RuntimeException("Token revoked");
+            }
 
-            return ResponseEntity.ok(new AuthResponse(
+            AuthResponse response = new AuthResponse(
                     user.getId(),
                     user.getUsername(),
                     user.getRole().name(),
                     null,
-                    "Token is valid"));
+                    "Token is valid");
+            validatedTokenCache.put(token, principal, response);
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new AuthResponse(null, null, null, null, "Invalid token"));
         }
     }
+
+    // Revokes every token of the caller, not only the one presented
+    @PostMapping("/logout")
+    public ResponseEntity<AuthResponse> logout(@AuthenticationPrincipal TokenPrincipal principal) {
+        userService.logout(principal.username());
+        return ResponseEntity.ok(new AuthResponse(null, principal.username(), null, null, "Logged out"));
+    }
+
+    // Token versions of users who logged out, for services that validate tokens locally
+    @GetMapping("/revocations")
+    public ResponseEntity<List<TokenRevocation>> getRevocations(@RequestParam(required = false) Long changedWithinSeconds) {
+        return ResponseEntity.ok(userService.getRevocations(changedWithinSeconds));
+    }
+
+    // Public verification keys for services that validate tokens locally
+    @GetMapping(value = "/jwks", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getJwks() {
+        return ResponseEntity.ok(jwtKeyManager.getJwkSet());
+    }
 }
@@ -0,0 +1,43 @@
+package com.ecomm.ecommauth.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An RSA key pair every ecommauth instance signs and verifies tokens with.
+ * The private key is stored encrypted with jwt.key-encryption-secret.
+ *
+ * A key is published from creation, signs new tokens from activateAt until the
+ * next key activates, and stays published until retireAt, when every token it
+ * signed has expired. Unretired keys have no retireAt.
+ */
+@Entity
+@Table(name = "jwt_signing_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JwtSigningKey {
+
+    @Id
+    @Column(name = "key_id", length = 36)
+    private String keyId;
+
+    @Column(name = "public_key", nullable = false, length = 2048)
+    private byte[] publicKey;
+
+    @Column(name = "private_key", nullable = false, length = 2048)
+    private byte[] privateKey;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "activate_at", nullable = false, updatable = false)
+    private LocalDateTime activateAt;
+
+    @Column(name = "retire_at")
+    private LocalDateTime retireAt;
+}
@@ -1,5 +1,6 @@
 package com.ecomm.ecommauth.entity;
 
+import com.ecomm.ecommauth.security.UserChangeListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,12 +11,14 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name="users")
+@EntityListeners(UserChangeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -28,10 +31,19 @@ public class User {
     @Column(nullable = false)
     private UserRole role;
 
+    // Bumped on logout to revoke every token issued so far
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    // Kept by the database, so changes made outside this service are seen as well
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "datetime(6) default current_timestamp(6) on update current_timestamp(6)")
+    private LocalDateTime updatedAt;
+
     public enum UserRole {
         ADMIN, BUYER
     }
@@ -0,0 +1,24 @@
+package com.ecomm.ecommauth.repository;
+
+import com.ecomm.ecommauth.entity.JwtSigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+
+    @Query("select k from JwtSigningKey k where k.retireAt is null or k.retireAt > :now order by k.createdAt desc")
+    List<JwtSigningKey> findPublished(@Param("now") LocalDateTime now);
+
+    // Taken by a rotation, so instances rotating at the same time replace the current key only once
+    @Query(value = "select * from jwt_signing_keys where retire_at is null for update", nativeQuery = true)
+    List<JwtSigningKey> findUnretiredForUpdate();
+
+    @Modifying
+    @Query("delete from JwtSigningKey k where k.retireAt <= :now")
+    int deleteRetired(@Param("now") LocalDateTime now);
+}
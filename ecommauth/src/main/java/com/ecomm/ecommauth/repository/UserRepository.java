@@ -2,7 +2,13 @@ package com.ecomm.ecommauth.repository;
 
 import com.ecomm.ecommauth.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +16,33 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
     boolean existsByUsername(String username);
+
+    // Measured against the database clock, which also stamps updated_at
+    @Query(value = "select username from users where updated_at > now(6) - interval :seconds second", nativeQuery = true)
+    List<String> findUsernamesChangedWithin(@Param("seconds") long seconds);
+
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // Users who have logged out at least once; everyone else has no revoked token
+    @Query(value = "select id as userId, token_version as tokenVersion from users where token_version > 0",
+            nativeQuery = true)
+    List<TokenVersion> findTokenVersions();
+
+    @Query(value = "select id as userId, token_version as tokenVersion from users "
+            + "where token_version > 0 and updated_at > now(6) - interval :seconds second", nativeQuery = true)
+    List<TokenVersion> findTokenVersionsChangedWithin(@Param("seconds") long seconds);
+
+    // Touches only the hash, so a logout committed meanwhile keeps its token version
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    interface TokenVersion {
+
+        Long getUserId();
+
+        int getTokenVersion();
+    }
 }
@@ -0,0 +1,124 @@
+package com.ecomm.ecommauth.security;
+
+import com.ecomm.ecommauth.entity.JwtSigningKey;
+import com.ecomm.ecommauth.repository.JwtSigningKeyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps the signing keys in the jwt_signing_keys table. Private keys are
+ * encrypted with AES-GCM under a key derived from jwt.key-encryption-secret,
+ * with the key id as associated data so rows cannot be swapped.
+ */
+@Component
+public class DatabaseJwtKeyStore implements JwtKeyStore {
+
+    private static final byte[] KDF_SALT = "ecommauth-jwt-signing-keys".getBytes(StandardCharsets.UTF_8);
+    private static final int KDF_ITERATIONS = 210_000;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final JwtSigningKeyRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final SecretKey encryptionKey;
+    private final SecureRandom random = new SecureRandom();
+
+    public DatabaseJwtKeyStore(JwtSigningKeyRepository repository,
+            PlatformTransactionManager transactionManager,
+            @Value("${jwt.key-encryption-secret}") String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("jwt.key-encryption-secret must be set");
+        }
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.encryptionKey = deriveKey(secret);
+    }
+
+    @Override
+    public List<StoredKey> findPublished(LocalDateTime now) {
+        return repository.findPublished(now).stream()
+                .map(this::toStoredKey)
+                .toList();
+    }
+
+    @Override
+    public boolean rotate(StoredKey next, LocalDateTime rotateBefore, LocalDateTime retireAt) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            List<JwtSigningKey> unretired = repository.findUnretiredForUpdate();
+            if (unretired.stream().anyMatch(key -> !key.getActivateAt().isBefore(rotateBefore))) {
+                return false;
+            }
+            unretired.forEach(key -> key.setRetireAt(retireAt));
+            repository.save(new JwtSigningKey(next.keyId(), next.keyPair().getPublic().getEncoded(),
+                    encrypt(next.keyId(), next.keyPair().getPrivate().getEncoded()),
+                    next.createdAt(), next.activateAt(), null));
+            repository.deleteRetired(next.createdAt());
+            return true;
+        }));
+    }
+
+    private StoredKey toStoredKey(JwtSigningKey key) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            KeyPair keyPair = new KeyPair(
+                    keyFactory.generatePublic(new X509EncodedKeySpec(key.getPublicKey())),
+                    keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decrypt(key.getKeyId(), key.getPrivateKey()))));
+            return new StoredKey(key.getKeyId(), keyPair, key.getCreatedAt(), key.getActivateAt());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not load JWT signing key " + key.getKeyId()
+                    + "; check jwt.key-encryption-secret", e);
+        }
+    }
+
+    private byte[] encrypt(String keyId, byte[] plain) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            byte[] encrypted = cipher.doFinal(plain);
+            return ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt JWT signing key " + keyId, e);
+        }
+    }
+
+    private byte[] decrypt(String keyId, byte[] stored) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_BITS, stored, 0, IV_LENGTH));
+        cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(stored, IV_LENGTH, stored.length - IV_LENGTH);
+    }
+
+    private static SecretKey deriveKey(String secret) {
+        try {
+            PBEKeySpec spec = new PBEKeySpec(secret.toCharArray(), KDF_SALT, KDF_ITERATIONS, 256);
+            byte[] key = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            return new SecretKeySpec(key, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 is not available", e);
+        }
+    }
+}
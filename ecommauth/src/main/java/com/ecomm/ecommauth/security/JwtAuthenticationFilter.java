@@ -20,6 +20,7 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final ValidatedTokenCache validatedTokenCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -28,33 +29,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        TokenPrincipal principal = null;
 
-        // Extract JWT token from Authorization header
+        // Extract JWT token from Authorization header and verify it once
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
+                ValidatedTokenCache.ValidatedToken cached = validatedTokenCache.get(jwt);
+                principal = cached != null ? cached.principal() : jwtUtil.parseToken(jwt);
             } catch (Exception e) {
                 // Invalid token, continue without authentication
                 logger.warn("Invalid JWT token: " + e.getMessage());
             }
         }
 
-        // Validate token and set authentication in security context
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwt, username)) {
-                String role = jwtUtil.extractRole(jwt);
+        // Set authentication in security context
+        if (principal != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                    principal,
+                    null,
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.role())));
 
-                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        username,
-                        null,
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
-
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-            }
+            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
         }
 
         filterChain.doFilter(request, response);
@@ -0,0 +1,194 @@
+package com.ecomm.ecommauth.security;
+
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.RsaPublicJwk;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the RSA key pairs used to sign JWT tokens and publishes their public
+ * halves so the other services can verify tokens locally.
+ *
+ * The keys live in the shared {@link JwtKeyStore}, so all instances sign with
+ * the same key and tokens survive restarts. Every refresh reloads them and,
+ * once the newest key has signed for the rotation interval, adds a new one.
+ * A new key is published for the overlap window before it signs anything, so
+ * verifiers know it before the first token arrives, and the key it replaces
+ * stays published until every token it signed has expired. A token carrying
+ * an unknown key id triggers an early reload.
+ */
+@Slf4j
+@Component
+public class JwtKeyManager {
+
+    private final JwtKeyStore keyStore;
+    private final Duration expiration;
+    private final Duration rotationInterval;
+    private final Duration overlap;
+    private final long minReloadInterval;
+    // Serializes on-demand reloads without pinning a virtual thread to its carrier
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile Map<String, PublicKey> publishedKeys = Map.of();
+    private volatile SigningKey currentKey;
+    private volatile PendingKey nextKey;
+    private volatile long lastReload;
+
+    public JwtKeyManager(JwtKeyStore keyStore,
+            @Value("${jwt.expiration}") Long expiration,
+            @Value("${jwt.key-rotation-interval}") long rotationInterval,
+            @Value("${jwt.key-overlap}") long overlap,
+            @Value("${jwt.key-min-reload-interval}") long minReloadInterval) {
+        this.keyStore = keyStore;
+        this.expiration = Duration.ofMillis(expiration);
+        this.rotationInterval = Duration.ofMillis(rotationInterval);
+        this.overlap = Duration.ofMillis(overlap);
+        this.minReloadInterval = minReloadInterval;
+        refresh();
+        if (currentKey == null) {
+            throw new IllegalStateException("No JWT signing key is available");
+        }
+    }
+
+    /**
+     * Get the key new tokens are signed with
+     *
+     * @return Current signing key
+     */
+    public SigningKey getCurrentKey() {
+        PendingKey next = nextKey;
+        if (next != null && !LocalDateTime.now().isBefore(next.activateAt())) {
+            currentKey = next.key();
+            nextKey = null;
+        }
+        return currentKey;
+    }
+
+    /**
+     * Look up a published verification key by its key id
+     *
+     * @param keyId Key id from the token header
+     * @return Public key, or null if the key id is unknown
+     */
+    public PublicKey getPublicKey(String keyId) {
+        if (keyId == null) {
+            return null;
+        }
+        PublicKey key = publishedKeys.get(keyId);
+        if (key == null && System.currentTimeMillis() - lastReload >= minReloadInterval) {
+            reloadLock.lock();
+            try {
+                key = publishedKeys.get(keyId);
+                if (key == null && System.currentTimeMillis() - lastReload >= minReloadInterval) {
+                    load(keyStore.findPublished(LocalDateTime.now()));
+                    key = publishedKeys.get(keyId);
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Render all published verification keys as a JWK set
+     *
+     * @return JWK set JSON document
+     */
+    public String getJwkSet() {
+        return publishedKeys.entrySet().stream()
+                .map(entry -> {
+                    RsaPublicJwk jwk = Jwks.builder()
+                            .key((RSAPublicKey) entry.getValue())
+                            .id(entry.getKey())
+                            .algorithm("RS256")
+                            .publicKeyUse("sig")
+                            .build();
+                    return Jwks.json(jwk);
+                })
+                .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+    }
+
+    /**
+     * Reload the keys from the store and add a new one when the newest key is due for rotation
+     */
+    @Scheduled(initialDelayString = "${jwt.key-refresh-interval}", fixedDelayString = "${jwt.key-refresh-interval}")
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        List<JwtKeyStore.StoredKey> published = keyStore.findPublished(now);
+        LocalDateTime rotateBefore = now.minus(rotationInterval);
+        // A key still waiting out its overlap is not due, so it always signs before being replaced
+        if (published.isEmpty() || published.get(0).activateAt().isBefore(rotateBefore)) {
+            // The very first key signs at once; there is nothing for verifiers to overlap with
+            LocalDateTime activateAt = published.isEmpty() ? now : now.plus(overlap);
+            JwtKeyStore.StoredKey next = new JwtKeyStore.StoredKey(
+                    UUID.randomUUID().toString(), generateKeyPair(), now, activateAt);
+            try {
+                keyStore.rotate(next, rotateBefore, activateAt.plus(expiration));
+            } catch (RuntimeException e) {
+                // Most likely another instance rotating at the same moment; its key is picked up below
+                log.warn("Could not rotate the JWT signing key: {}", e.getMessage());
+            }
+            published = keyStore.findPublished(now);
+        }
+        load(published);
+    }
+
+    private void load(List<JwtKeyStore.StoredKey> published) {
+        lastReload = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        SigningKey current = null;
+        PendingKey next = null;
+        for (JwtKeyStore.StoredKey key : published) {
+            keys.put(key.keyId(), key.keyPair().getPublic());
+            if (current != null) {
+                continue;
+            }
+            SigningKey signingKey = new SigningKey(key.keyId(), key.keyPair());
+            if (now.isBefore(key.activateAt())) {
+                next = next != null ? next : new PendingKey(signingKey, key.activateAt());
+            } else {
+                current = signingKey;
+            }
+        }
+        publishedKeys = keys;
+        if (current != null) {
+            currentKey = current;
+        }
+        nextKey = next;
+    }
+
+    private KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("RSA key generation is not available", e);
+        }
+    }
+
+    public record SigningKey(String keyId, KeyPair keyPair) {
+    }
+
+    private record PendingKey(SigningKey key, LocalDateTime activateAt) {
+    }
+}
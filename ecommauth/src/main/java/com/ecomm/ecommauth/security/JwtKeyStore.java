@@ -0,0 +1,34 @@
+package com.ecomm.ecommauth.security;
+
+import java.security.KeyPair;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Shared storage for the JWT signing keys, so every ecommauth instance signs
+ * and verifies with the same keys and a restart keeps issued tokens valid.
+ */
+public interface JwtKeyStore {
+
+    /**
+     * Load the keys that are still published
+     *
+     * @param now Current time
+     * @return Published keys, newest first
+     */
+    List<StoredKey> findPublished(LocalDateTime now);
+
+    /**
+     * Add a key and retire the keys it replaces, unless another instance has
+     * already added one since the rotation became due
+     *
+     * @param next         Key to add
+     * @param rotateBefore Keys that started signing before this time are due for replacement
+     * @param retireAt     When the replaced keys stop being published
+     * @return true if the key was added
+     */
+    boolean rotate(StoredKey next, LocalDateTime rotateBefore, LocalDateTime retireAt);
+
+    record StoredKey(String keyId, KeyPair keyPair, LocalDateTime createdAt, LocalDateTime activateAt) {
+    }
+}
@@ -1,42 +1,80 @@
 package com.ecomm.ecommauth.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Utility class for JWT token operations including generation, validation, and
  * extraction of claims.
+ *
+ * Signing and parsing are timed as jwt.operations, tagged with the operation and
+ * whether it succeeded.
  */
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final JwtKeyManager keyManager;
 
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    private final Long expiration;
 
     /**
-     * Generate JWT token with username and role claims
+     * Parser is immutable and thread-safe, so it is built once and shared by all
+     * requests instead of being rebuilt for every claim read.
+     */
+    private final JwtParser parser;
+
+    // Registered once, so a token operation costs no meter lookup
+    private final Timer signedTimer;
+    private final Timer signFailedTimer;
+    private final Timer parsedTimer;
+    private final Timer parseFailedTimer;
+
+    public JwtUtil(JwtKeyManager keyManager, @Value("${jwt.expiration}") Long expiration, MeterRegistry meterRegistry) {
+        this.keyManager = keyManager;
+        this.expiration = expiration;
+        this.signedTimer = operationTimer(meterRegistry, "sign", "success");
+        this.signFailedTimer = operationTimer(meterRegistry, "sign", "failure");
+        this.parsedTimer = operationTimer(meterRegistry, "parse", "success");
+        this.parseFailedTimer = operationTimer(meterRegistry, "parse", "failure");
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return keyManager.getPublicKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Generate JWT token with user id, username, role and token version claims
      *
-     * @param username User's username
-     * @param role     User's role
+     * @param userId       User's id
+     * @param username     User's username
+     * @param role         User's role
+     * @param tokenVersion User's current token version
      * @return Generated JWT token
      */
-    public String generateToken(String username, String role) {
+    public String generateToken(Long userId, String username, String role, int tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", userId);
         claims.put("role", role);
+        claims.put("tokenVersion", tokenVersion);
         return createToken(claims, username);
     }
 
@@ -48,56 +86,72 @@ public class JwtUtil {
      * @return JWT token string
      */
     private String createToken(Map<String, Object> claims, String subject) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expiration);
-
-        return Jwts.builder()
-                .claims(claims)
-                .subject(subject)
-                .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+        return timed(signedTimer, signFailedTimer, () -> {
+            Date now = new Date();
+            Date expiryDate = new Date(now.getTime() + expiration);
+            JwtKeyManager.SigningKey signingKey = keyManager.getCurrentKey();
+
+            return Jwts.builder()
+                    .header().keyId(signingKey.keyId()).and()
+                    .claims(claims)
+                    .subject(subject)
+                    .issuedAt(now)
+                    .expiration(expiryDate)
+                    .signWith(signingKey.keyPair().getPrivate())
+                    .compact();
+        });
     }
 
     /**
-     * Get the signing key from the secret
+     * Verify the token signature and expiry once and return its claims
      *
-     * @return SecretKey for signing tokens
+     * @param token JWT token
+     * @return Verified token principal
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public TokenPrincipal parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        // Tokens issued before versions were introduced count as the first version
+        Integer tokenVersion = claims.get("tokenVersion", Integer.class);
+        return new TokenPrincipal(
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                claims.get("role", String.class),
+                tokenVersion != null ? tokenVersion : 0,
+                claims.getExpiration());
     }
 
     /**
-     * Extract username from JWT token
+     * Extract username from JWT token. Each call verifies the token again; use
+     * {@link #parseToken} when more than one claim is needed.
      *
      * @param token JWT token
      * @return Username from token
      */
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseToken(token).username();
     }
 
     /**
-     * Extract role from JWT token
+     * Extract role from JWT token. Each call verifies the token again; use
+     * {@link #parseToken} when more than one claim is needed.
      *
      * @param token JWT token
      * @return Role from token
      */
     public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+        return parseToken(token).role();
     }
 
     /**
-     * Extract expiration date from JWT token
+     * Extract expiration date from JWT token. Each call verifies the token again;
+     * use {@link #parseToken} when more than one claim is needed.
      *
      * @param token JWT token
      * @return Expiration date
      */
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return parseToken(token).expiration();
     }
 
     /**
@@ -120,21 +174,29 @@ public class JwtUtil {
      * @return All claims
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return timed(parsedTimer, parseFailedTimer, () -> parser
                 .parseSignedClaims(token)
-                .getPayload();
+                .getPayload());
     }
 
-    /**
-     * Check if token is expired
-     *
-     * @param token JWT token
-     * @return true if expired, false otherwise
-     */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static <T> T timed(Timer succeeded, Timer failed, Supplier<T> call) {
+        Timer.Sample sample = Timer.start();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            sample.stop(success ? succeeded : failed);
+        }
+    }
+
+    private static Timer operationTimer(MeterRegistry meterRegistry, String operation, String outcome) {
+        return Timer.builder("jwt.operations")
+                .description("JWT signing and parsing")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     /**
@@ -145,7 +207,7 @@ public class JwtUtil {
      * @return true if valid, false otherwise
      */
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        final TokenPrincipal principal = parseToken(token);
+        return (principal.username().equals(username) && principal.expiration().after(new Date()));
     }
 }
@@ -0,0 +1,105 @@
+package com.ecomm.ecommauth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Login throttling keyed per username and per client IP, under a global ceiling.
+ *
+ * Each key owns a lock-free token bucket. Buckets live in bounded maps and are
+ * evicted once a key has been idle, so memory stays flat no matter how many
+ * distinct usernames or addresses are seen.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final Cache<String, TokenBucket> usernameBuckets;
+    private final Cache<String, TokenBucket> ipBuckets;
+    private final TokenBucket globalBucket;
+
+    private final double usernameRate;
+    private final int usernameBurst;
+    private final double ipRate;
+    private final int ipBurst;
+
+    public LoginRateLimiter(
+            @Value("${security.login-rate-limit.username.per-minute}") int usernamePerMinute,
+            @Value("${security.login-rate-limit.username.burst}") int usernameBurst,
+            @Value("${security.login-rate-limit.ip.per-minute}") int ipPerMinute,
+            @Value("${security.login-rate-limit.ip.burst}") int ipBurst,
+            @Value("${security.login-rate-limit.global.per-second}") int globalPerSecond,
+            @Value("${security.login-rate-limit.max-keys}") long maxKeys,
+            @Value("${security.login-rate-limit.idle-timeout}") long idleTimeout) {
+        this.usernameRate = usernamePerMinute / 60.0;
+        this.usernameBurst = usernameBurst;
+        this.ipRate = ipPerMinute / 60.0;
+        this.ipBurst = ipBurst;
+        this.globalBucket = new TokenBucket(globalPerSecond, globalPerSecond);
+        this.usernameBuckets = newBucketMap(maxKeys, idleTimeout);
+        this.ipBuckets = newBucketMap(maxKeys, idleTimeout);
+    }
+
+    /**
+     * Take one login attempt from the client IP, the username and the global budget
+     *
+     * @param username Username being logged in
+     * @param clientIp Address of the caller
+     * @return true if the attempt may proceed
+     */
+    public boolean tryAcquire(String username, String clientIp) {
+        TokenBucket ipBucket = ipBuckets.get(String.valueOf(clientIp), key -> new TokenBucket(ipRate, ipBurst));
+        if (!ipBucket.tryAcquire()) {
+            return false;
+        }
+        TokenBucket usernameBucket = usernameBuckets.get(String.valueOf(username).toLowerCase(),
+                key -> new TokenBucket(usernameRate, usernameBurst));
+        if (!usernameBucket.tryAcquire()) {
+            return false;
+        }
+        return globalBucket.tryAcquire();
+    }
+
+    private static Cache<String, TokenBucket> newBucketMap(long maxKeys, long idleTimeout) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMillis(idleTimeout))
+                .build();
+    }
+
+    /**
+     * Token bucket kept as a single theoretical arrival time (GCRA), so taking a
+     * token is one compare-and-set with no lock.
+     */
+    static final class TokenBucket {
+
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+        TokenBucket(double permitsPerSecond, int burst) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+            this.burstNanos = intervalNanos * Math.max(1, burst);
+        }
+
+        boolean tryAcquire() {
+            long now = System.nanoTime();
+            while (true) {
+                long current = theoreticalArrival.get();
+                long start = current == Long.MIN_VALUE ? now : Math.max(current, now);
+                long next = start + intervalNanos;
+                if (next - now > burstNanos) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
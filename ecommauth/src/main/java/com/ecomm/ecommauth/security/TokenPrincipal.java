@@ -0,0 +1,22 @@
+package com.ecomm.ecommauth.security;
+
+import java.security.Principal;
+import java.util.Date;
+
+/**
+ * Immutable view of a JWT token whose signature and expiry have been verified.
+ *
+ * @param username     Token subject
+ * @param userId       User's id
+ * @param role         User's role
+ * @param tokenVersion User's token version when the token was issued
+ * @param expiration   Token expiry
+ */
+public record TokenPrincipal(String username, Long userId, String role, int tokenVersion, Date expiration)
+        implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
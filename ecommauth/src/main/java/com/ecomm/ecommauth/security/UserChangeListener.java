@@ -0,0 +1,41 @@
+package com.ecomm.ecommauth.security;
+
+import com.ecomm.ecommauth.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops the cached token validations of a user whenever the user is created,
+ * changed or deleted through JPA, whatever code path made the change.
+ *
+ * The entries are dropped right away and again once the transaction has
+ * finished, so a validation that read the user before the commit cannot put
+ * the old state back into the cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeListener {
+
+    private final ValidatedTokenCache validatedTokenCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void userChanged(User user) {
+        String username = user.getUsername();
+        validatedTokenCache.invalidateUser(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    validatedTokenCache.invalidateUser(username);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.ecomm.ecommauth.security;
+
+import com.ecomm.ecommauth.dto.AuthResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of tokens that already passed validation, keyed by the SHA-256
+ * digest of the token so raw tokens are never kept in memory.
+ *
+ * An entry lives for the configured TTL but never past the token expiry, and is
+ * dropped as soon as the user it belongs to changes: {@link UserChangeListener}
+ * covers writes made by this instance, and UserService polls for changes made
+ * elsewhere. Hit, miss and eviction counts are published through actuator as
+ * the "validatedTokens" cache.
+ */
+@Component
+public class ValidatedTokenCache {
+
+    private final Cache<String, ValidatedToken> cache;
+
+    public ValidatedTokenCache(MeterRegistry meterRegistry,
+            @Value("${jwt.validation-cache.max-size}") long maxSize,
+            @Value("${jwt.validation-cache.ttl}") long ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(TimeUnit.MILLISECONDS.toNanos(ttl)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "validatedTokens");
+    }
+
+    /**
+     * Look up a previously validated token
+     *
+     * @param token JWT token
+     * @return Cached validation, or null if the token has not been validated recently
+     */
+    public ValidatedToken get(String token) {
+        return cache.getIfPresent(digest(token));
+    }
+
+    /**
+     * Remember a successful validation
+     *
+     * @param token     JWT token
+     * @param principal Verified token principal
+     * @param response  Response returned for the token
+     */
+    public void put(String token, TokenPrincipal principal, AuthResponse response) {
+        cache.put(digest(token), new ValidatedToken(principal, response));
+    }
+
+    /**
+     * Drop every cached validation belonging to a user
+     *
+     * @param username User's username
+     */
+    public void invalidateUser(String username) {
+        cache.asMap().values().removeIf(entry -> entry.principal().username().equals(username));
+    }
+
+    /**
+     * List the users that have cached validations
+     *
+     * @return Usernames with at least one cached token
+     */
+    public Set<String> cachedUsernames() {
+        return cache.asMap().values().stream()
+                .map(entry -> entry.principal().username())
+                .collect(Collectors.toSet());
+    }
+
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public record ValidatedToken(TokenPrincipal principal, AuthResponse response) {
+    }
+
+    private record TokenExpiry(long ttlNanos) implements Expiry<String, ValidatedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, ValidatedToken value, long currentTime) {
+            long untilExpiry = value.principal().expiration().getTime() - System.currentTimeMillis();
+            return Math.max(0, Math.min(ttlNanos, TimeUnit.MILLISECONDS.toNanos(untilExpiry)));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, ValidatedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, ValidatedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecomm.ecommauth.service;
+
+import com.ecomm.common.metrics.ValidationFailures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Login counters of ecommauth.
+ *
+ * auth.logins counts login attempts by how they ended. A rise in busy or
+ * rate_limited means the hashing pool or the limiter is turning shoppers
+ * away, which the latency of the requests that got through does not show.
+ */
+@Component
+public class AuthMetrics {
+
+    public static final String USERNAME_TAKEN = "username_taken";
+    public static final String INVALID_REGISTRATION = "invalid_registration";
+    public static final String INVALID_CREDENTIALS = "invalid_credentials";
+
+    public static final String LOGIN_SUCCESS = "success";
+    public static final String LOGIN_RATE_LIMITED = "rate_limited";
+    public static final String LOGIN_INVALID_CREDENTIALS = "invalid_credentials";
+    public static final String LOGIN_BUSY = "busy";
+    public static final String LOGIN_UNAVAILABLE = "unavailable";
+
+    private final ValidationFailures validationFailures;
+
+    // Registered up front, so a login only increments and every outcome is published from the start
+    private final Map<String, Counter> logins;
+
+    public AuthMetrics(MeterRegistry meterRegistry) {
+        this.validationFailures = new ValidationFailures(meterRegistry);
+        this.logins = Stream.of(LOGIN_SUCCESS, LOGIN_RATE_LIMITED, LOGIN_INVALID_CREDENTIALS, LOGIN_BUSY, LOGIN_UNAVAILABLE)
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), outcome -> Counter.builder("auth.logins")
+                        .description("Login attempts by outcome")
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)));
+    }
+
+    /**
+     * @param outcome LOGIN_SUCCESS, LOGIN_RATE_LIMITED, LOGIN_INVALID_CREDENTIALS, LOGIN_BUSY or LOGIN_UNAVAILABLE
+     */
+    public void loginCompleted(String outcome) {
+        Counter counter = logins.get(outcome);
+        if (counter == null) {
+            throw new IllegalArgumentException("Unknown login outcome: " + outcome);
+        }
+        counter.increment();
+    }
+
+    public void validationFailed(String reason) {
+        validationFailures.record(reason);
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecomm.ecommauth.service;
+
+/**
+ * Thrown when a login names an unknown user or the wrong password.
+ */
+public class InvalidCredentialsException extends RuntimeException {
+
+    public InvalidCredentialsException() {
+        super("Invalid username or password");
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecomm.ecommauth.service;
+
+/**
+ * Thrown when a login cannot be checked right now, for example because the
+ * database is down or the circuit breaker is open.
+ */
+public class LoginUnavailableException extends RuntimeException {
+
+    public LoginUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecomm.ecommauth.service;
+
+/**
+ * Thrown when the password hashing pool is saturated and a request is shed
+ * instead of queued.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException() {
+        super("Too many authentication requests in progress. Please try again.");
+    }
+}
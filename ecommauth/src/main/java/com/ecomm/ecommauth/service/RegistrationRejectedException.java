@@ -0,0 +1,12 @@
+package com.ecomm.ecommauth.service;
+
+/**
+ * Thrown when a registration is incomplete, names an unknown role or a
+ * username that is already taken.
+ */
+public class RegistrationRejectedException extends RuntimeException {
+
+    public RegistrationRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,71 +1,199 @@
 package com.ecomm.ecommauth.service;
 
+import com.ecomm.common.security.TokenRevocation;
 import com.ecomm.ecommauth.dto.AuthResponse;
 import com.ecomm.ecommauth.dto.LoginRequest;
 import com.ecomm.ecommauth.dto.RegisterRequest;
 import com.ecomm.ecommauth.entity.User;
 import com.ecomm.ecommauth.repository.UserRepository;
 import com.ecomm.ecommauth.security.JwtUtil;
+import com.ecomm.ecommauth.security.ValidatedTokenCache;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
-import io.github.resilience4j.retry.annotation.Retry;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtil jwtUtil;
+    private final ValidatedTokenCache validatedTokenCache;
+    private final AuthMetrics authMetrics;
+
+    // Extra look-back for each change poll, covering clock skew and commits that land late
+    private static final long CHANGE_POLL_GRACE_MILLIS = 5_000;
+    private static final int EXISTENCE_CHECK_BATCH = 1_000;
+
+    private volatile long lastChangePoll = System.currentTimeMillis();
+
+    public CompletableFuture<AuthResponse> register(RegisterRequest request) {
+        String invalid = invalidRegistration(request);
+        if (invalid != null) {
+            authMetrics.validationFailed(AuthMetrics.INVALID_REGISTRATION);
+            return CompletableFuture.failedFuture(new RegistrationRejectedException(invalid));
+        }
 
-    public AuthResponse register(RegisterRequest request) {
         // Check if username already exists
         if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Username already exists");
+            authMetrics.validationFailed(AuthMetrics.USERNAME_TAKEN);
+            return CompletableFuture.failedFuture(new RegistrationRejectedException("Username already exists"));
         }
 
-        // Create new user with encoded password
-        User user = new User();
-        user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setRole(User.UserRole.valueOf(request.getRole().toUpperCase()));
+        // Create new user with password encoded on the hashing pool
+        return passwordHashingService.encode(request.getPassword()).thenApply(encodedPassword -> {
+            User user = new User();
+            user.setUsername(request.getUsername());
+            user.setPassword(encodedPassword);
+            user.setRole(User.UserRole.valueOf(request.getRole().toUpperCase()));
 
-        User savedUser = userRepository.save(user);
+            User savedUser;
+            try {
+                savedUser = userRepository.save(user);
+            } catch (DataIntegrityViolationException e) {
+                // Another registration took the username after the check above
+                authMetrics.validationFailed(AuthMetrics.USERNAME_TAKEN);
+                throw new RegistrationRejectedException("Username already exists");
+            }
 
-        // Generate JWT token
-        String token = jwtUtil.generateToken(savedUser.getUsername(), savedUser.getRole().name());
+            // Generate JWT token
+            String token = jwtUtil.generateToken(savedUser.getId(), savedUser.getUsername(), savedUser.getRole().name(),
+                    savedUser.getTokenVersion());
 
-        return new AuthResponse(
-                savedUser.getId(),
-                savedUser.getUsername(),
-                savedUser.getRole().name(),
-                token,
-                "User registered successfully");
+            return new AuthResponse(
+                    savedUser.getId(),
+                    savedUser.getUsername(),
+                    savedUser.getRole().name(),
+                    token,
+                    "User registered successfully");
+        });
+    }
+
+    // Why a registration cannot be accepted, or null if it can
+    private static String invalidRegistration(RegisterRequest request) {
+        if (isBlank(request.getUsername()) || isBlank(request.getPassword()) || isBlank(request.getRole())) {
+            return "Username, password and role are required";
+        }
+        if (Arrays.stream(User.UserRole.values()).noneMatch(role -> role.name().equalsIgnoreCase(request.getRole()))) {
+            return "Role must be one of " + Arrays.toString(User.UserRole.values());
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
+
     @CircuitBreaker(name = "default", fallbackMethod = "fallback")
-    @RateLimiter(name = "default")
-    @Retry(name = "default")
-    public AuthResponse login(LoginRequest request) {
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new RuntimeException("Invalid username or password"));
-
-        // Verify password using password encoder
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new RuntimeException("Invalid username or password");
+    public CompletableFuture<AuthResponse> login(LoginRequest request) {
+        User user = userRepository.findByUsername(request.getUsername()).orElse(null);
+        if (user == null) {
+            authMetrics.validationFailed(AuthMetrics.INVALID_CREDENTIALS);
+            return CompletableFuture.failedFuture(new InvalidCredentialsException());
         }
 
-        // Generate JWT token
-        String token = jwtUtil.generateToken(user.getUsername(), user.getRole().name());
+        // Verify password on the hashing pool
+        return passwordHashingService.matches(request.getPassword(), user.getPassword())
+                .thenCompose(matches -> {
+                    if (!matches) {
+                        authMetrics.validationFailed(AuthMetrics.INVALID_CREDENTIALS);
+                        throw new InvalidCredentialsException();
+                    }
+                    return rehashIfNeeded(user, request.getPassword());
+                })
+                .thenApply(authenticated -> {
+                    // Generate JWT token
+                    String token = jwtUtil.generateToken(authenticated.getId(), authenticated.getUsername(),
+                            authenticated.getRole().name(), authenticated.getTokenVersion());
 
-        return new AuthResponse(
-                user.getId(),
-                user.getUsername(),
-                user.getRole().name(),
-                token,
-                "Login successful");
+                    return new AuthResponse(
+                            authenticated.getId(),
+                            authenticated.getUsername(),
+                            authenticated.getRole().name(),
+                            token,
+                            "Login successful");
+                });
+    }
+
+    /**
+     * Replace a hash created with an older BCrypt cost once the user has proven the
+     * password. A saturated hashing pool skips the upgrade instead of failing the login.
+     */
+    private CompletableFuture<User> rehashIfNeeded(User user, String rawPassword) {
+        if (!passwordHashingService.needsRehash(user.getPassword())) {
+            return CompletableFuture.completedFuture(user);
+        }
+        return passwordHashingService.encode(rawPassword)
+                .thenApply(encodedPassword -> {
+                    userRepository.updatePassword(user.getId(), encodedPassword);
+                    user.setPassword(encodedPassword);
+                    return user;
+                })
+                .exceptionally(e -> user);
+    }
+
+    /**
+     * Revoke every token issued to a user so far, on all of their devices.
+     * Saving the user drops its cached validations here; services verifying
+     * tokens locally pick the new version up from {@link #getRevocations}.
+     *
+     * @param username User's username
+     */
+    public void logout(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+    }
+
+    /**
+     * Drop the cached validations of users changed or deleted by other instances
+     * or outside this service, which the entity listener does not see
+     */
+    @Scheduled(fixedDelayString = "${jwt.validation-cache.sync-interval}")
+    public void evictChangedUsers() {
+        long now = System.currentTimeMillis();
+        long lookBackSeconds = (now - lastChangePoll + CHANGE_POLL_GRACE_MILLIS + 999) / 1000;
+        userRepository.findUsernamesChangedWithin(lookBackSeconds).forEach(validatedTokenCache::invalidateUser);
+
+        // Deleted users leave no row to find, so cached users are checked for still existing
+        List<String> cached = new ArrayList<>(validatedTokenCache.cachedUsernames());
+        for (int from = 0; from < cached.size(); from += EXISTENCE_CHECK_BATCH) {
+            List<String> batch = cached.subList(from, Math.min(from + EXISTENCE_CHECK_BATCH, cached.size()));
+            Set<String> deleted = new HashSet<>(batch);
+            userRepository.findExistingUsernames(batch).forEach(deleted::remove);
+            deleted.forEach(validatedTokenCache::invalidateUser);
+        }
+        lastChangePoll = now;
+    }
+
+    /**
+     * Current token version of users who have logged out, for services that
+     * verify tokens locally
+     *
+     * @param changedWithinSeconds Only users changed this recently, or null for all
+     * @return Lowest token version still accepted per user
+     */
+    public List<TokenRevocation> getRevocations(Long changedWithinSeconds) {
+        List<UserRepository.TokenVersion> versions = changedWithinSeconds == null
+                ? userRepository.findTokenVersions()
+                : userRepository.findTokenVersionsChangedWithin(changedWithinSeconds);
+        return versions.stream()
+                .map(version -> new TokenRevocation(version.getUserId(), version.getTokenVersion()))
+                .toList();
     }
 
     public AuthResponse validateUser(String username) {
@@ -80,10 +208,17 @@ public class UserService {
                 "User validated");
     }
 
-    public AuthResponse fallback(LoginRequest request, Throwable t) {
-        System.out.println("Actual Error" + t);
-        return new AuthResponse(
-             null, null, null, null,"Login temporarily unavailable. Please try again."
-        );
+    /**
+     * Wrong credentials and a saturated hashing pool reach the caller as they are;
+     * only other failures, including an open circuit, become "temporarily unavailable".
+     */
+    public CompletableFuture<AuthResponse> fallback(LoginRequest request, Throwable t) {
+        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        if (cause instanceof InvalidCredentialsException || cause instanceof PasswordHashingBusyException) {
+            return CompletableFuture.failedFuture(cause);
+        }
+        log.warn("Login failed for {}", request.getUsername(), cause);
+        return CompletableFuture.failedFuture(
+                new LoginUnavailableException("Login temporarily unavailable. Please try again.", cause));
     }
 }
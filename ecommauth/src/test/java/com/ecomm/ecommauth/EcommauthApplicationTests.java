@@ -3,7 +3,7 @@ package com.ecomm.ecommauth;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "jwt.key-encryption-secret=test-secret")
 class EcommauthApplicationTests {
 
     @Test
@@ -0,0 +1,46 @@
+package com.ecomm.ecommauth.controller;
+
+import com.ecomm.ecommauth.dto.RegisterRequest;
+import com.ecomm.ecommauth.service.PasswordHashingBusyException;
+import com.ecomm.ecommauth.service.RegistrationRejectedException;
+import com.ecomm.ecommauth.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserControllerTests {
+
+    private final UserService userService = mock(UserService.class);
+    private final UserController userController = new UserController(userService, null, null, null, null, null, null);
+
+    @Test
+    void rejectedRegistrationIsABadRequest() {
+        assertThat(registerFailingWith(new RegistrationRejectedException("Username already exists")))
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void busyHashingPoolIsUnavailable() {
+        assertThat(registerFailingWith(new PasswordHashingBusyException())).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void otherFailuresAreServerErrors() {
+        assertThat(registerFailingWith(new CompletionException(new DataAccessResourceFailureException("database down"))))
+                .isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    private HttpStatusCode registerFailingWith(Throwable failure) {
+        RegisterRequest request = new RegisterRequest("alice", "secret", "BUYER");
+        when(userService.register(request)).thenReturn(CompletableFuture.failedFuture(failure));
+        return userController.register(request).join().getStatusCode();
+    }
+}
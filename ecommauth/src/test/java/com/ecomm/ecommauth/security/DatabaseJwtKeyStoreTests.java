@@ -0,0 +1,100 @@
+package com.ecomm.ecommauth.security;
+
+import com.ecomm.ecommauth.entity.JwtSigningKey;
+import com.ecomm.ecommauth.repository.JwtSigningKeyRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DatabaseJwtKeyStoreTests {
+
+    private final JwtSigningKeyRepository repository = mock(JwtSigningKeyRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final DatabaseJwtKeyStore keyStore = new DatabaseJwtKeyStore(repository, transactionManager, "secret");
+
+    @Test
+    void privateKeyIsStoredEncryptedAndLoadedBack() throws Exception {
+        KeyPair keyPair = keyPair();
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(keyStore.rotate(new JwtKeyStore.StoredKey("k1", keyPair, now, now), now, now.plusDays(1))).isTrue();
+
+        JwtSigningKey saved = saved();
+        assertThat(saved.getPrivateKey()).isNotEqualTo(keyPair.getPrivate().getEncoded());
+        when(repository.findPublished(now)).thenReturn(List.of(saved));
+        JwtKeyStore.StoredKey loaded = keyStore.findPublished(now).get(0);
+        assertThat(loaded.keyPair().getPrivate()).isEqualTo(keyPair.getPrivate());
+        assertThat(loaded.keyPair().getPublic()).isEqualTo(keyPair.getPublic());
+    }
+
+    @Test
+    void keyCannotBeLoadedWithAnotherSecret() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        keyStore.rotate(new JwtKeyStore.StoredKey("k1", keyPair(), now, now), now, now.plusDays(1));
+        JwtSigningKey saved = saved();
+        when(repository.findPublished(now)).thenReturn(List.of(saved));
+
+        DatabaseJwtKeyStore otherSecret = new DatabaseJwtKeyStore(repository, transactionManager, "other");
+
+        assertThatThrownBy(() -> otherSecret.findPublished(now)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rotationReplacesEveryUnretiredKey() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        JwtSigningKey previous = new JwtSigningKey("k0", new byte[0], new byte[0], now.minusHours(7), now.minusHours(7), null);
+        when(repository.findUnretiredForUpdate()).thenReturn(List.of(previous));
+
+        keyStore.rotate(new JwtKeyStore.StoredKey("k1", keyPair(), now, now.plusMinutes(10)), now.minusHours(6),
+                now.plusDays(1));
+
+        assertThat(previous.getRetireAt()).isEqualTo(now.plusDays(1));
+        assertThat(saved().getActivateAt()).isEqualTo(now.plusMinutes(10));
+        verify(repository).deleteRetired(now);
+    }
+
+    @Test
+    void keyRotatedByAnotherInstanceIsNotReplacedAgain() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        JwtSigningKey fresh = new JwtSigningKey("k0", new byte[0], new byte[0], now.minusMinutes(1),
+                now.minusMinutes(1), null);
+        when(repository.findUnretiredForUpdate()).thenReturn(List.of(fresh));
+
+        assertThat(keyStore.rotate(new JwtKeyStore.StoredKey("k1", keyPair(), now, now), now.minusHours(6),
+                now.plusDays(1))).isFalse();
+
+        verify(repository, never()).save(any());
+        assertThat(fresh.getRetireAt()).isNull();
+    }
+
+    @Test
+    void secretIsRequired() {
+        assertThatThrownBy(() -> new DatabaseJwtKeyStore(repository, transactionManager, " "))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private JwtSigningKey saved() {
+        ArgumentCaptor<JwtSigningKey> saved = ArgumentCaptor.forClass(JwtSigningKey.class);
+        verify(repository).save(saved.capture());
+        return saved.getValue();
+    }
+
+    private static KeyPair keyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+}
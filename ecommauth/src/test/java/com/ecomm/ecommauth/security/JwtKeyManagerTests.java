@@ -0,0 +1,92 @@
+package com.ecomm.ecommauth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtKeyManagerTests {
+
+    private static final long EXPIRATION = 86_400_000L;
+    private static final long HOUR = 3_600_000L;
+
+    private final SharedKeyStore keyStore = new SharedKeyStore();
+
+    @Test
+    void restartedInstanceSignsWithTheStoredKey() {
+        JwtKeyManager first = new JwtKeyManager(keyStore, EXPIRATION, HOUR, HOUR, 0);
+        JwtKeyManager restarted = new JwtKeyManager(keyStore, EXPIRATION, HOUR, HOUR, 0);
+
+        assertThat(restarted.getCurrentKey().keyId()).isEqualTo(first.getCurrentKey().keyId());
+        assertThat(keyStore.keys).hasSize(1);
+    }
+
+    @Test
+    void rotatedKeyIsPublishedBeforeItSigns() {
+        JwtKeyManager manager = new JwtKeyManager(keyStore, EXPIRATION, 0, HOUR, 0);
+        String previous = manager.getCurrentKey().keyId();
+
+        manager.refresh();
+
+        String next = keyStore.keys.get(0).keyId();
+        assertThat(next).isNotEqualTo(previous);
+        assertThat(manager.getCurrentKey().keyId()).isEqualTo(previous);
+        assertThat(manager.getPublicKey(next)).isNotNull();
+        assertThat(manager.getJwkSet()).contains(previous, next);
+    }
+
+    @Test
+    void keyWaitingOutItsOverlapIsNotReplaced() {
+        JwtKeyManager manager = new JwtKeyManager(keyStore, EXPIRATION, 0, HOUR, 0);
+        manager.refresh();
+
+        manager.refresh();
+
+        assertThat(keyStore.keys).hasSize(2);
+    }
+
+    @Test
+    void previousKeyStaysPublishedUntilItsTokensExpire() {
+        JwtKeyManager manager = new JwtKeyManager(keyStore, EXPIRATION, 0, 0, 0);
+        String previous = manager.getCurrentKey().keyId();
+        LocalDateTime rotatedAt = LocalDateTime.now();
+
+        manager.refresh();
+
+        assertThat(manager.getCurrentKey().keyId()).isNotEqualTo(previous);
+        assertThat(manager.getPublicKey(previous)).isNotNull();
+        assertThat(keyStore.retireAt).isAfterOrEqualTo(rotatedAt.plusDays(1));
+    }
+
+    @Test
+    void keyAddedByAnotherInstanceIsLoadedWhenATokenUsesIt() {
+        JwtKeyManager manager = new JwtKeyManager(keyStore, EXPIRATION, HOUR, HOUR, 0);
+        JwtKeyManager other = new JwtKeyManager(keyStore, EXPIRATION, 0, 0, 0);
+        other.refresh();
+
+        assertThat(manager.getPublicKey(other.getCurrentKey().keyId()))
+                .isEqualTo(other.getCurrentKey().keyPair().getPublic());
+    }
+
+    // Keeps keys newest first, the way the database store returns them
+    private static class SharedKeyStore implements JwtKeyStore {
+
+        private final List<StoredKey> keys = new ArrayList<>();
+        private LocalDateTime retireAt;
+
+        @Override
+        public List<StoredKey> findPublished(LocalDateTime now) {
+            return List.copyOf(keys);
+        }
+
+        @Override
+        public boolean rotate(StoredKey next, LocalDateTime rotateBefore, LocalDateTime retireAt) {
+            this.retireAt = retireAt;
+            keys.add(0, next);
+            return true;
+        }
+    }
+}
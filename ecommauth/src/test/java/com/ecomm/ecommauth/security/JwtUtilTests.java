@@ -0,0 +1,67 @@
+package com.ecomm.ecommauth.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTests {
+
+    private static final long EXPIRATION = 86_400_000L;
+    private static final long HOUR = 3_600_000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtUtil jwtUtil = new JwtUtil(new JwtKeyManager(new InMemoryKeyStore(), EXPIRATION, HOUR, HOUR, 0),
+            EXPIRATION, meterRegistry);
+
+    @Test
+    void operationTimersAreRegisteredUpFront() {
+        assertThat(meterRegistry.get("jwt.operations").timers()).hasSize(4);
+
+        String token = jwtUtil.generateToken(42L, "buyer42", "BUYER", 0);
+        jwtUtil.parseToken(token);
+        assertThatThrownBy(() -> jwtUtil.parseToken(token + "x")).isInstanceOf(RuntimeException.class);
+
+        assertThat(count("sign", "success")).isEqualTo(1);
+        assertThat(count("parse", "success")).isEqualTo(1);
+        assertThat(count("parse", "failure")).isEqualTo(1);
+        assertThat(meterRegistry.get("jwt.operations").timers()).hasSize(4);
+    }
+
+    @Test
+    void legacyExtractorsReadTheParsedPrincipal() {
+        String token = jwtUtil.generateToken(42L, "buyer42", "BUYER", 0);
+        TokenPrincipal principal = jwtUtil.parseToken(token);
+
+        assertThat(jwtUtil.extractUsername(token)).isEqualTo("buyer42");
+        assertThat(jwtUtil.extractRole(token)).isEqualTo("BUYER");
+        assertThat(jwtUtil.extractExpiration(token)).isEqualTo(principal.expiration());
+        // One verification per call, never more
+        assertThat(count("parse", "success")).isEqualTo(4);
+    }
+
+    private long count(String operation, String outcome) {
+        return meterRegistry.get("jwt.operations").tag("operation", operation).tag("outcome", outcome).timer().count();
+    }
+
+    private static class InMemoryKeyStore implements JwtKeyStore {
+
+        private final List<StoredKey> keys = new ArrayList<>();
+
+        @Override
+        public List<StoredKey> findPublished(LocalDateTime now) {
+            return List.copyOf(keys);
+        }
+
+        @Override
+        public boolean rotate(StoredKey next, LocalDateTime rotateBefore, LocalDateTime retireAt) {
+            keys.add(0, next);
+            return true;
+        }
+    }
+}
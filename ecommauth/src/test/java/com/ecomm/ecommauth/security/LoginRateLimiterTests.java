@@ -0,0 +1,112 @@
+package com.ecomm.ecommauth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginRateLimiterTests {
+
+    @Test
+    void usernameIsRefusedOnceItsBurstIsSpent() {
+        LoginRateLimiter limiter = limiter(10, 5, 1_000, 100, 1_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("alice", "10.0.0." + i)).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire("alice", "10.0.0.9")).isFalse();
+        assertThat(limiter.tryAcquire("bob", "10.0.0.9")).isTrue();
+    }
+
+    @Test
+    void usernamesDifferingOnlyInCaseShareABucket() {
+        LoginRateLimiter limiter = limiter(10, 2, 1_000, 100, 1_000);
+
+        assertThat(limiter.tryAcquire("Alice", "10.0.0.1")).isTrue();
+        assertThat(limiter.tryAcquire("ALICE", "10.0.0.2")).isTrue();
+
+        assertThat(limiter.tryAcquire("alice", "10.0.0.3")).isFalse();
+    }
+
+    @Test
+    void addressIsRefusedOnceItsBurstIsSpentWhateverTheUsername() {
+        LoginRateLimiter limiter = limiter(10, 100, 60, 3, 1_000);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("user" + i, "10.0.0.1")).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire("user9", "10.0.0.1")).isFalse();
+        assertThat(limiter.tryAcquire("user9", "10.0.0.2")).isTrue();
+    }
+
+    @Test
+    void attemptRefusedForItsAddressDoesNotSpendTheUsernameBudget() {
+        LoginRateLimiter limiter = limiter(10, 1, 60, 1, 1_000);
+        assertThat(limiter.tryAcquire("alice", "10.0.0.1")).isTrue();
+
+        // Someone hammering bob from a throttled address must not lock bob out elsewhere
+        assertThat(limiter.tryAcquire("bob", "10.0.0.1")).isFalse();
+
+        assertThat(limiter.tryAcquire("bob", "10.0.0.2")).isTrue();
+    }
+
+    @Test
+    void globalCeilingAppliesAcrossUsernamesAndAddresses() {
+        LoginRateLimiter limiter = limiter(10, 5, 1_000, 100, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("user" + i, "10.0.0." + i)).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire("user9", "10.0.0.9")).isFalse();
+    }
+
+    @Test
+    void spentBudgetRefillsAtTheConfiguredRate() throws InterruptedException {
+        // 6000 a minute is one attempt every 10 ms
+        LoginRateLimiter limiter = limiter(6_000, 1, 60_000, 100, 1_000);
+        assertThat(limiter.tryAcquire("alice", "10.0.0.1")).isTrue();
+        assertThat(limiter.tryAcquire("alice", "10.0.0.1")).isFalse();
+
+        Thread.sleep(50);
+
+        assertThat(limiter.tryAcquire("alice", "10.0.0.1")).isTrue();
+    }
+
+    @Test
+    void concurrentAttemptsNeverGetMoreThanTheBurst() throws Exception {
+        LoginRateLimiter limiter = limiter(1, 20, 60_000, 1_000, 100_000);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 16; i++) {
+            executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 100; j++) {
+                    if (limiter.tryAcquire("alice", "10.0.0.1")) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(allowed.get()).isEqualTo(20);
+    }
+
+    private static LoginRateLimiter limiter(int usernamePerMinute, int usernameBurst, int ipPerMinute, int ipBurst,
+            int globalPerSecond) {
+        return new LoginRateLimiter(usernamePerMinute, usernameBurst, ipPerMinute, ipBurst, globalPerSecond,
+                1_000, 600_000);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecomm.ecommauth.security;
+
+import com.ecomm.ecommauth.dto.AuthResponse;
+import com.ecomm.ecommauth.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserChangeListenerTests {
+
+    private final ValidatedTokenCache cache = new ValidatedTokenCache(new SimpleMeterRegistry(), 100, 60_000);
+    private final UserChangeListener listener = new UserChangeListener(cache);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void changedUserLosesItsCachedValidations() {
+        cacheToken("alice-token", "alice");
+        cacheToken("bob-token", "bob");
+
+        listener.userChanged(user("alice"));
+
+        assertThat(cache.get("alice-token")).isNull();
+        assertThat(cache.get("bob-token")).isNotNull();
+    }
+
+    @Test
+    void validationCachedBeforeTheCommitIsDroppedOnceItCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        listener.userChanged(user("alice"));
+        // A concurrent validation that still read the old row
+        cacheToken("alice-token", "alice");
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(cache.get("alice-token")).isNull();
+    }
+
+    private void cacheToken(String token, String username) {
+        TokenPrincipal principal = new TokenPrincipal(username, 1L, "BUYER", 0, new Date(System.currentTimeMillis() + 60_000));
+        cache.put(token, principal, new AuthResponse(1L, username, "BUYER", null, "Token is valid"));
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        return user;
+    }
+}
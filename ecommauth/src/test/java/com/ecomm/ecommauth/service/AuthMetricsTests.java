@@ -0,0 +1,39 @@
+package com.ecomm.ecommauth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthMetricsTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthMetrics authMetrics = new AuthMetrics(registry);
+
+    @Test
+    void everyLoginOutcomeIsPublishedBeforeItFirstHappens() {
+        assertThat(registry.get("auth.logins").counters()).hasSize(5);
+        assertThat(logins(AuthMetrics.LOGIN_BUSY)).isZero();
+    }
+
+    @Test
+    void loginIncrementsTheCounterOfItsOutcome() {
+        authMetrics.loginCompleted(AuthMetrics.LOGIN_SUCCESS);
+        authMetrics.loginCompleted(AuthMetrics.LOGIN_SUCCESS);
+        authMetrics.loginCompleted(AuthMetrics.LOGIN_RATE_LIMITED);
+
+        assertThat(logins(AuthMetrics.LOGIN_SUCCESS)).isEqualTo(2);
+        assertThat(logins(AuthMetrics.LOGIN_RATE_LIMITED)).isEqualTo(1);
+        assertThat(registry.get("auth.logins").counters()).hasSize(5);
+    }
+
+    @Test
+    void unknownOutcomeIsRejected() {
+        assertThatThrownBy(() -> authMetrics.loginCompleted("other")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private double logins(String outcome) {
+        return registry.get("auth.logins").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecomm.ecommauth.service;
+
+import com.ecomm.ecommauth.dto.AuthResponse;
+import com.ecomm.ecommauth.entity.User;
+import com.ecomm.ecommauth.repository.UserRepository;
+import com.ecomm.ecommauth.security.TokenPrincipal;
+import com.ecomm.ecommauth.security.ValidatedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceCacheTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ValidatedTokenCache cache = new ValidatedTokenCache(new SimpleMeterRegistry(), 100, 60_000);
+    private final UserService userService = new UserService(userRepository, null, null, cache, null);
+
+    @Test
+    void logoutRevokesEveryTokenIssuedSoFar() {
+        User user = new User();
+        user.setUsername("alice");
+        user.setTokenVersion(3);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+
+        userService.logout("alice");
+
+        assertThat(user.getTokenVersion()).isEqualTo(4);
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void usersChangedElsewhereAreDroppedFromTheCache() {
+        cacheToken("alice-token", "alice");
+        cacheToken("bob-token", "bob");
+        when(userRepository.findUsernamesChangedWithin(anyLong())).thenReturn(List.of("alice"));
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("alice", "bob"));
+
+        userService.evictChangedUsers();
+
+        assertThat(cache.get("alice-token")).isNull();
+        assertThat(cache.get("bob-token")).isNotNull();
+    }
+
+    @Test
+    void usersDeletedElsewhereAreDroppedFromTheCache() {
+        cacheToken("alice-token", "alice");
+        cacheToken("bob-token", "bob");
+        when(userRepository.findUsernamesChangedWithin(anyLong())).thenReturn(List.of());
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("bob"));
+
+        userService.evictChangedUsers();
+
+        assertThat(cache.get("alice-token")).isNull();
+        assertThat(cache.get("bob-token")).isNotNull();
+    }
+
+    private void cacheToken(String token, String username) {
+        TokenPrincipal principal = new TokenPrincipal(username, 1L, "BUYER", 0, new Date(System.currentTimeMillis() + 60_000));
+        cache.put(token, principal, new AuthResponse(1L, username, "BUYER", null, "Token is valid"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.ecomm.ecommauth.service;
+
+import com.ecomm.ecommauth.dto.LoginRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserServiceFallbackTests {
+
+    private final UserService userService = new UserService(null, null, null, null, null);
+
+    @Test
+    void wrongCredentialsAreNotTurnedIntoASuccess() {
+        CompletableFuture<?> result = userService.fallback(request(),
+                new CompletionException(new InvalidCredentialsException()));
+
+        assertThatThrownBy(result::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(InvalidCredentialsException.class);
+    }
+
+    @Test
+    void busyHashingPoolIsPassedThrough() {
+        CompletableFuture<?> result = userService.fallback(request(), new PasswordHashingBusyException());
+
+        assertThatThrownBy(result::get).hasCauseInstanceOf(PasswordHashingBusyException.class);
+    }
+
+    @Test
+    void otherFailuresBecomeUnavailable() {
+        CompletableFuture<?> result = userService.fallback(request(), new IllegalStateException("database down"));
+
+        assertThat(result).isCompletedExceptionally();
+        assertThatThrownBy(result::get).hasCauseInstanceOf(LoginUnavailableException.class);
+    }
+
+    private static LoginRequest request() {
+        LoginRequest request = new LoginRequest();
+        request.setUsername("alice");
+        request.setPassword("secret");
+        return request;
+    }
+}
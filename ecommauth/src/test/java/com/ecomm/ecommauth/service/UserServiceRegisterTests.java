@@ -0,0 +1,80 @@
+package com.ecomm.ecommauth.service;
+
+import com.ecomm.ecommauth.dto.RegisterRequest;
+import com.ecomm.ecommauth.entity.User;
+import com.ecomm.ecommauth.repository.UserRepository;
+import com.ecomm.ecommauth.security.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceRegisterTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordHashingService passwordHashingService = mock(PasswordHashingService.class);
+    private final UserService userService = new UserService(userRepository, passwordHashingService,
+            mock(JwtUtil.class), null, new AuthMetrics(new SimpleMeterRegistry()));
+
+    @Test
+    void incompleteRegistrationIsRejectedBeforeHashing() {
+        assertRejected(request("alice", null, "BUYER"), "Username, password and role are required");
+        assertRejected(request(" ", "secret", "BUYER"), "Username, password and role are required");
+        verify(passwordHashingService, never()).encode(anyString());
+    }
+
+    @Test
+    void unknownRoleIsRejectedBeforeHashing() {
+        assertRejected(request("alice", "secret", "SUPERUSER"), "Role must be one of [ADMIN, BUYER]");
+        verify(passwordHashingService, never()).encode(anyString());
+    }
+
+    @Test
+    void takenUsernameIsRejected() {
+        when(userRepository.existsByUsername("alice")).thenReturn(true);
+
+        assertRejected(request("alice", "secret", "buyer"), "Username already exists");
+    }
+
+    @Test
+    void usernameTakenBetweenTheCheckAndTheInsertIsRejected() {
+        when(passwordHashingService.encode("secret")).thenReturn(CompletableFuture.completedFuture("hash"));
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        assertRejected(request("alice", "secret", "buyer"), "Username already exists");
+    }
+
+    @Test
+    void databaseFailureIsNotReportedAsARejection() {
+        when(passwordHashingService.encode("secret")).thenReturn(CompletableFuture.completedFuture("hash"));
+        when(userRepository.save(any(User.class))).thenThrow(new DataAccessResourceFailureException("database down"));
+
+        CompletableFuture<?> result = userService.register(request("alice", "secret", "buyer"));
+
+        assertThatThrownBy(result::join).hasCauseInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    private void assertRejected(RegisterRequest request, String message) {
+        CompletableFuture<?> result = userService.register(request);
+
+        assertThat(result).isCompletedExceptionally();
+        assertThatThrownBy(result::join).cause()
+                .isInstanceOf(RegistrationRejectedException.class)
+                .hasMessage(message);
+    }
+
+    private static RegisterRequest request(String username, String password, String role) {
+        return new RegisterRequest(username, password, role);
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecomm.ecommauth.service;
+
+import com.ecomm.common.security.TokenRevocation;
+import com.ecomm.ecommauth.dto.LoginRequest;
+import com.ecomm.ecommauth.entity.User;
+import com.ecomm.ecommauth.repository.UserRepository;
+import com.ecomm.ecommauth.security.JwtUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTokenVersionTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordHashingService passwordHashingService = mock(PasswordHashingService.class);
+    private final UserService userService = new UserService(userRepository, passwordHashingService,
+            mock(JwtUtil.class), null, null);
+
+    @Test
+    void rehashOnLoginWritesOnlyThePassword() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setPassword("old-hash");
+        user.setRole(User.UserRole.BUYER);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        when(passwordHashingService.matches("secret", "old-hash")).thenReturn(CompletableFuture.completedFuture(true));
+        when(passwordHashingService.needsRehash("old-hash")).thenReturn(true);
+        when(passwordHashingService.encode("secret")).thenReturn(CompletableFuture.completedFuture("new-hash"));
+
+        userService.login(request()).join();
+
+        // Saving the whole user read before the hashing would undo a logout committed meanwhile
+        verify(userRepository).updatePassword(7L, "new-hash");
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void revocationsCarryEachUsersCurrentTokenVersion() {
+        when(userRepository.findTokenVersions()).thenReturn(List.of(tokenVersion(7L, 2)));
+        when(userRepository.findTokenVersionsChangedWithin(10)).thenReturn(List.of(tokenVersion(8L, 1)));
+
+        assertThat(userService.getRevocations(null)).containsExactly(new TokenRevocation(7L, 2));
+        assertThat(userService.getRevocations(10L)).containsExactly(new TokenRevocation(8L, 1));
+    }
+
+    private static UserRepository.TokenVersion tokenVersion(Long userId, int version) {
+        return new UserRepository.TokenVersion() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public int getTokenVersion() {
+                return version;
+            }
+        };
+    }
+
+    private static LoginRequest request() {
+        LoginRequest request = new LoginRequest();
+        request.setUsername("alice");
+        request.setPassword("secret");
+        return request;
+    }
+}
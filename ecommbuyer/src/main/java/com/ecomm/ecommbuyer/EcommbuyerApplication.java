@@ -1,11 +1,18 @@
 package com.ecomm.ecommbuyer;
 
+import com.ecomm.common.config.FeignTransportConfig;
+import com.ecomm.common.security.JwtVerifier;
+import com.ecomm.common.security.TokenRevocations;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients
+@EnableScheduling
+@Import({FeignTransportConfig.class, JwtVerifier.class, TokenRevocations.class})
 public class EcommbuyerApplication {
 
     public static void main(String[] args) {
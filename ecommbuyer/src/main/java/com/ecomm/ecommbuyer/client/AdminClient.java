@@ -1,18 +1,66 @@
 package com.ecomm.ecommbuyer.client;
 
+import com.ecomm.ecommbuyer.dto.CursorPage;
+import com.ecomm.ecommbuyer.dto.ProductBatchResponse;
+import com.ecomm.ecommbuyer.dto.ProductChangeFeed;
+import com.ecomm.ecommbuyer.dto.ProductChangeSnapshot;
 import com.ecomm.ecommbuyer.dto.ProductResponse;
+import com.ecomm.ecommbuyer.dto.ReservationItem;
+import com.ecomm.ecommbuyer.dto.ReservationOutcome;
+import com.ecomm.ecommbuyer.dto.ReservationResponse;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 
-@FeignClient(name = "admin-service", url = "${admin.service.url}")
+@FeignClient(name = "admin-service", url = "${admin.service.url}", configuration = AdminClientConfig.class)
 public interface AdminClient {
 
     @GetMapping("/api/admin/products/{id}")
     ProductResponse getProductById(@PathVariable Long id);
 
+    @PostMapping("/api/admin/products/batch")
+    ProductBatchResponse getProductsByIds(@RequestBody List<Long> ids);
+
     @GetMapping("/api/admin/products/available")
     List<ProductResponse> getAllAvailableProducts();
+
+    // Conditional fetch: ecommadmin answers 304 when the catalog version is unchanged
+    @GetMapping("/api/admin/products/available")
+    ResponseEntity<List<ProductResponse>> getAllAvailableProducts(
+            @RequestHeader(HttpHeaders.IF_NONE_MATCH) String catalogVersion);
+
+    @GetMapping("/api/admin/products/available/page")
+    CursorPage<ProductResponse> getAvailableProductsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size);
+
+    @GetMapping("/api/admin/products/changes")
+    ProductChangeFeed getProductChanges(
+            @RequestParam("after") long after,
+            @RequestParam(value = "size", required = false) Integer size);
+
+    @GetMapping("/api/admin/products/changes/snapshot")
+    ProductChangeSnapshot getProductChangeSnapshot();
+
+    @PostMapping("/api/admin/inventory/reservations")
+    ReservationResponse reserve(@RequestBody List<ReservationItem> items);
+
+    // Each reservation is granted or refused on its own; refusals come back as outcomes, not as a conflict
+    @PostMapping("/api/admin/inventory/reservations/batch")
+    List<ReservationOutcome> reserveEach(@RequestBody List<List<ReservationItem>> requests);
+
+    // All or none: a conflict means none of the reservations was committed
+    @PostMapping("/api/admin/inventory/reservations/commit")
+    void commitReservations(@RequestBody List<String> reservationIds);
+
+    @PostMapping("/api/admin/inventory/reservations/{reservationId}/release")
+    ReservationResponse releaseReservation(@PathVariable String reservationId);
 }
@@ -0,0 +1,30 @@
+package com.ecomm.ecommbuyer.client;
+
+import com.ecomm.common.security.ServiceCredentials;
+import feign.RequestInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Feign configuration of AdminClient only, so it is deliberately not a
+ * component: stock reservations are made on the buyer service's own behalf,
+ * often after the buyer's request has finished, so inventory calls carry the
+ * shared admin.service.inventory-secret instead of a user token. Refuses to
+ * start without a secret.
+ */
+class AdminClientConfig {
+
+    private static final String INVENTORY_PATH = "/api/admin/inventory/";
+
+    @Bean
+    RequestInterceptor inventoryCredentialInterceptor(@Value("${admin.service.inventory-secret}") String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("admin.service.inventory-secret must be set");
+        }
+        return template -> {
+            if (template.path().startsWith(INVENTORY_PATH)) {
+                template.header(ServiceCredentials.HEADER, secret);
+            }
+        };
+    }
+}
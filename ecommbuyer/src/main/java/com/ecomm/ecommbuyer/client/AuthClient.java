@@ -1,14 +1,25 @@
 package com.ecomm.ecommbuyer.client;
 
+import com.ecomm.common.security.TokenRevocation;
 import com.ecomm.ecommbuyer.dto.AuthResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @FeignClient(name = "auth-service", url = "${auth.service.url}")
 public interface AuthClient {
 
     @GetMapping("/api/auth/validate-token")
     AuthResponse validateToken(@RequestHeader("Authorization") String authorizationHeader);
+
+    @GetMapping("/api/auth/jwks")
+    String getJwks();
+
+    @GetMapping("/api/auth/revocations")
+    List<TokenRevocation> getRevocations(
+            @RequestParam(value = "changedWithinSeconds", required = false) Long changedWithinSeconds);
 }
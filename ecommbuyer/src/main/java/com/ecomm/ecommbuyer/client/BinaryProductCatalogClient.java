@@ -0,0 +1,282 @@
+package com.ecomm.ecommbuyer.client;
+
+import com.ecomm.common.rpc.ProductRpcProtocol;
+import com.ecomm.ecommbuyer.dto.ProductBatchResponse;
+import com.ecomm.ecommbuyer.dto.ProductCatalog;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product lookups over the binary product channel of ecommadmin.
+ *
+ * Calls go over a small pool of persistent connections, one call at a time per
+ * connection. Every operation is a read, so a call that fails on a pooled
+ * connection, which ecommadmin may have closed in the meantime, is repeated
+ * once on a new one. Each new connection first authenticates with the shared
+ * admin.service.rpc.secret.
+ *
+ * Failing to reach ecommadmin surfaces as ProductCatalogUnavailableException,
+ * errors reported by ecommadmin as plain RuntimeException.
+ *
+ * Calls are timed as product.rpc.client.requests, including any wait for a
+ * connection, and pool usage is published as product.rpc.client.pool.*.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "admin.service.product-transport", havingValue = "binary")
+public class BinaryProductCatalogClient implements ProductCatalogClient {
+
+    private final String host;
+    private final int port;
+    private final String secret;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final BlockingQueue<Connection> idleConnections;
+    private final Semaphore permits;
+    private final MeterRegistry meterRegistry;
+
+    public BinaryProductCatalogClient(
+            @Value("${admin.service.rpc.host}") String host,
+            @Value("${admin.service.rpc.port}") int port,
+            @Value("${admin.service.rpc.secret}") String secret,
+            @Value("${admin.service.rpc.max-connections}") int maxConnections,
+            @Value("${admin.service.rpc.connect-timeout}") int connectTimeout,
+            @Value("${admin.service.rpc.read-timeout}") int readTimeout,
+            MeterRegistry meterRegistry) {
+        this.host = host;
+        this.port = port;
+        this.secret = secret;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.idleConnections = new ArrayBlockingQueue<>(maxConnections);
+        this.permits = new Semaphore(maxConnections);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("product.rpc.client.pool.leased", permits, p -> maxConnections - p.availablePermits())
+                .description("Connections in use")
+                .register(meterRegistry);
+        Gauge.builder("product.rpc.client.pool.available", idleConnections, BlockingQueue::size)
+                .description("Idle persistent connections")
+                .register(meterRegistry);
+        Gauge.builder("product.rpc.client.pool.pending", permits, Semaphore::getQueueLength)
+                .description("Calls waiting for a connection")
+                .register(meterRegistry);
+        Gauge.builder("product.rpc.client.pool.max", () -> maxConnections)
+                .description("Connection limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ProductResponse getProductById(Long id) {
+        return call(ProductRpcProtocol.GET_PRODUCT, out -> out.writeLong(id), BinaryProductCatalogClient::readProduct);
+    }
+
+    @Override
+    public ProductBatchResponse getProductsByIds(List<Long> ids) {
+        return ProductCatalogClient.inBatches(ids, this::getBatch);
+    }
+
+    private ProductBatchResponse getBatch(List<Long> ids) {
+        return call(ProductRpcProtocol.GET_PRODUCTS, out -> {
+            out.writeInt(ids.size());
+            for (Long id : ids) {
+                out.writeLong(id);
+            }
+        }, in -> {
+            List<ProductResponse> products = readProducts(in);
+            int missing = ProductRpcProtocol.readCount(in, Long.BYTES);
+            List<Long> missingIds = new ArrayList<>(missing);
+            for (int i = 0; i < missing; i++) {
+                missingIds.add(in.readLong());
+            }
+            return new ProductBatchResponse(products, missingIds);
+        });
+    }
+
+    @Override
+    public ProductCatalog getAvailableCatalog(String knownVersion) {
+        return call(ProductRpcProtocol.GET_AVAILABLE,
+                out -> ProductRpcProtocol.writeNullableString(out, knownVersion),
+                in -> new ProductCatalog(ProductRpcProtocol.readString(in), readProducts(in)));
+    }
+
+    @PreDestroy
+    public void close() {
+        Connection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private <T> T call(byte operation, RequestWriter request, ResponseReader<T> response) {
+        Timer.Sample sample = Timer.start();
+        String status = "unavailable";
+        try {
+            byte[] requestFrame = encode(operation, request);
+            if (!permits.tryAcquire(readTimeout, TimeUnit.MILLISECONDS)) {
+                throw new ProductCatalogUnavailableException("No product RPC connection available", null);
+            }
+            try {
+                status = "io_error";
+                byte[] responseFrame = exchange(requestFrame);
+                if (responseFrame.length > 0) {
+                    status = ProductRpcProtocol.statusName(responseFrame[0]);
+                }
+                return decode(responseFrame, response);
+            } finally {
+                permits.release();
+            }
+        } catch (IOException e) {
+            throw new ProductCatalogUnavailableException("Product RPC call failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProductCatalogUnavailableException("Interrupted waiting for a product RPC connection", e);
+        } finally {
+            sample.stop(Timer.builder("product.rpc.client.requests")
+                    .description("Product lookups from ecommadmin over the binary channel")
+                    .tag("operation", ProductRpcProtocol.operationName(operation))
+                    .tag("status", status)
+                    .register(meterRegistry));
+        }
+    }
+
+    private byte[] exchange(byte[] requestFrame) throws IOException {
+        Connection pooled = idleConnections.poll();
+        if (pooled != null) {
+            try {
+                byte[] responseFrame = pooled.exchange(requestFrame);
+                idleConnections.offer(pooled);
+                return responseFrame;
+            } catch (IOException e) {
+                pooled.close();
+                log.debug("Pooled product RPC connection failed, retrying on a new one: {}", e.getMessage());
+            }
+        }
+
+        Connection connection = open();
+        try {
+            byte[] responseFrame = connection.exchange(requestFrame);
+            idleConnections.offer(connection);
+            return responseFrame;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private Connection open() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(readTimeout);
+            socket.connect(new InetSocketAddress(host, port), connectTimeout);
+            Connection connection = new Connection(socket,
+                    new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+                    new BufferedOutputStream(socket.getOutputStream()));
+            byte[] response = connection.exchange(encode(ProductRpcProtocol.HELLO,
+                    out -> ProductRpcProtocol.writeString(out, secret)));
+            if (response.length != 1 || response[0] != ProductRpcProtocol.OK) {
+                throw new IOException("ecommadmin rejected the product RPC secret");
+            }
+            return connection;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private static byte[] encode(byte operation, RequestWriter request) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(operation);
+        request.write(out);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static <T> T decode(byte[] responseFrame, ResponseReader<T> response) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(responseFrame));
+        byte status = in.readByte();
+        return switch (status) {
+            case ProductRpcProtocol.OK -> response.read(in);
+            case ProductRpcProtocol.NOT_MODIFIED -> null;
+            case ProductRpcProtocol.NOT_FOUND -> throw new RuntimeException(ProductRpcProtocol.readString(in));
+            case ProductRpcProtocol.ERROR -> throw new RuntimeException("ecommadmin: " + ProductRpcProtocol.readString(in));
+            default -> throw new IOException("Unknown response status " + status);
+        };
+    }
+
+    private static List<ProductResponse> readProducts(DataInputStream in) throws IOException {
+        int count = ProductRpcProtocol.readCount(in, ProductRpcProtocol.MIN_PRODUCT_SIZE);
+        List<ProductResponse> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(readProduct(in));
+        }
+        return products;
+    }
+
+    private static ProductResponse readProduct(DataInputStream in) throws IOException {
+        return new ProductResponse(
+                in.readLong(),
+                ProductRpcProtocol.readNullableLong(in),
+                ProductRpcProtocol.readNullableString(in),
+                ProductRpcProtocol.readNullableString(in),
+                ProductRpcProtocol.readNullableDecimal(in),
+                ProductRpcProtocol.readNullableInt(in));
+    }
+
+    @FunctionalInterface
+    private interface RequestWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private record Connection(Socket socket, DataInputStream in, OutputStream out) {
+
+        byte[] exchange(byte[] requestFrame) throws IOException {
+            ProductRpcProtocol.writeFrame(out, requestFrame);
+            byte[] responseFrame = ProductRpcProtocol.readFrame(in);
+            if (responseFrame == null) {
+                throw new EOFException("Connection closed by ecommadmin");
+            }
+            return responseFrame;
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+}
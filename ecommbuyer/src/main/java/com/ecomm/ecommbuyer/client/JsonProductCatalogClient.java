@@ -0,0 +1,48 @@
+package com.ecomm.ecommbuyer.client;
+
+import com.ecomm.ecommbuyer.dto.ProductBatchResponse;
+import com.ecomm.ecommbuyer.dto.ProductCatalog;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "admin.service.product-transport", havingValue = "json", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JsonProductCatalogClient implements ProductCatalogClient {
+
+    private final AdminClient adminClient;
+
+    @Override
+    public ProductResponse getProductById(Long id) {
+        return adminClient.getProductById(id);
+    }
+
+    @Override
+    public ProductBatchResponse getProductsByIds(List<Long> ids) {
+        return ProductCatalogClient.inBatches(ids, adminClient::getProductsByIds);
+    }
+
+    @Override
+    public ProductCatalog getAvailableCatalog(String knownVersion) {
+        try {
+            // The catalog version travels as an ETag, an unchanged catalog is a 304 without a body
+            ResponseEntity<List<ProductResponse>> response = adminClient.getAllAvailableProducts(knownVersion);
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                return null;
+            }
+            return new ProductCatalog(response.getHeaders().getETag(), response.getBody());
+        } catch (FeignException e) {
+            if (e.status() == HttpStatus.NOT_MODIFIED.value() && knownVersion != null) {
+                return null;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecomm.ecommbuyer.client;
+
+import com.ecomm.common.rpc.ProductBatchLimits;
+import com.ecomm.ecommbuyer.dto.ProductBatchResponse;
+import com.ecomm.ecommbuyer.dto.ProductCatalog;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Product lookups against ecommadmin.
+ *
+ * admin.service.product-transport selects the implementation: "json" calls the
+ * REST API through AdminClient, "binary" uses the compact product channel.
+ */
+public interface ProductCatalogClient {
+
+    ProductResponse getProductById(Long id);
+
+    /**
+     * Get many products at once. Lists longer than ecommadmin accepts in one
+     * batch are looked up in several.
+     */
+    ProductBatchResponse getProductsByIds(List<Long> ids);
+
+    /**
+     * Get the available-products catalog unless it is still at a known version
+     *
+     * @param knownVersion Version of the catalog the caller holds, or null
+     * @return Current catalog, or null if it is still at knownVersion
+     */
+    ProductCatalog getAvailableCatalog(String knownVersion);
+
+    /**
+     * Split a lookup into batches of at most ProductBatchLimits.MAX_IDS distinct ids
+     *
+     * @param ids Products to look up, in any number
+     * @param lookup Lookup of a single batch
+     * @return Products and missing ids of all batches together
+     */
+    static ProductBatchResponse inBatches(List<Long> ids, Function<List<Long>, ProductBatchResponse> lookup) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        if (distinctIds.size() <= ProductBatchLimits.MAX_IDS) {
+            return lookup.apply(distinctIds);
+        }
+        List<ProductResponse> products = new ArrayList<>(distinctIds.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += ProductBatchLimits.MAX_IDS) {
+            int to = Math.min(from + ProductBatchLimits.MAX_IDS, distinctIds.size());
+            ProductBatchResponse batch = lookup.apply(distinctIds.subList(from, to));
+            products.addAll(batch.getProducts());
+            missingIds.addAll(batch.getMissingIds());
+        }
+        return new ProductBatchResponse(products, missingIds);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecomm.ecommbuyer.client;
+
+/**
+ * ecommadmin could not be reached over the binary product channel; the call
+ * may succeed when repeated later.
+ */
+public class ProductCatalogUnavailableException extends RuntimeException {
+
+    public ProductCatalogUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
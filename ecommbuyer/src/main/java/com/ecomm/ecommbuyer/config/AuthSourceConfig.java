@@ -0,0 +1,22 @@
+package com.ecomm.ecommbuyer.config;
+
+import com.ecomm.common.security.JwksSource;
+import com.ecomm.common.security.TokenRevocationSource;
+import com.ecomm.ecommbuyer.client.AuthClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Feign clients may extend at most one interface, so AuthClient is adapted to the verifier's sources here
+@Configuration
+public class AuthSourceConfig {
+
+    @Bean
+    public JwksSource jwksSource(AuthClient authClient) {
+        return authClient::getJwks;
+    }
+
+    @Bean
+    public TokenRevocationSource tokenRevocationSource(AuthClient authClient) {
+        return authClient::getRevocations;
+    }
+}
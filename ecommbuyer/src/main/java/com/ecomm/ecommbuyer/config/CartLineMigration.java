@@ -0,0 +1,88 @@
+package com.ecomm.ecommbuyer.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schema version 3: one cart row per buyer and product, enforced by the
+ * uk_cart_buyer_product unique key that the cart write-behind upserts on.
+ *
+ * Carts written before version 3 hold one row per add, so the key cannot be
+ * added to them as they are, and schema update only logs that failure. Without
+ * the key every upsert inserts another row. A database without duplicates gets
+ * the key straight away. Duplicates are only merged when
+ * migration.cart-lines.enabled is set: the cart is first copied to
+ * cart_v1_backup, then each buyer and product keeps its lowest id with the
+ * quantities summed. Until then, a database with duplicates stops the service
+ * at startup.
+ */
+@Slf4j
+@Component
+public class CartLineMigration {
+
+    static final int VERSION = 3;
+
+    private static final String DUPLICATES = "select buyer_id, product_id, min(id) as keep_id, sum(quantity) as total"
+            + " from %s group by buyer_id, product_id having count(*) > 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    // The entity manager factory is injected so schema update has created the cart table first
+    public CartLineMigration(JdbcTemplate jdbcTemplate,
+            EntityManagerFactory entityManagerFactory,
+            @Value("${migration.cart-lines.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        jdbcTemplate.execute("create table if not exists schema_version"
+                + " (version int not null primary key, description varchar(255) not null, applied_at datetime(6) not null)");
+        Integer applied = jdbcTemplate.queryForObject(
+                "select count(*) from schema_version where version = ?", Integer.class, VERSION);
+        if (applied != null && applied > 0) {
+            return;
+        }
+
+        Integer uniqueKey = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.statistics where table_schema = database()"
+                        + " and table_name = 'cart' and index_name = 'uk_cart_buyer_product'", Integer.class);
+        if (uniqueKey == null || uniqueKey == 0) {
+            Integer duplicates = jdbcTemplate.queryForObject(
+                    "select count(*) from (" + DUPLICATES.formatted("cart") + ") d", Integer.class);
+            if (duplicates != null && duplicates > 0) {
+                if (!enabled) {
+                    throw new IllegalStateException("The cart table holds " + duplicates + " products with more than one"
+                            + " row. Back up the database, then start once with migration.cart-lines.enabled=true"
+                            + " to merge them.");
+                }
+                mergeDuplicates();
+            }
+            jdbcTemplate.execute("alter table cart add constraint uk_cart_buyer_product unique (buyer_id, product_id)");
+        }
+        recordVersion();
+    }
+
+    private void mergeDuplicates() {
+        // MySQL commits each DDL statement, so keep the old rows until the migration is known to be good
+        jdbcTemplate.execute("create table if not exists cart_v1_backup as"
+                + " select id, buyer_id, product_id, quantity from cart");
+        // Totals come from the backup, so a rerun after a failure between these statements does not add them twice
+        jdbcTemplate.update("update cart c join (" + DUPLICATES.formatted("cart_v1_backup") + ") d"
+                + " on c.id = d.keep_id set c.quantity = d.total");
+        int removed = jdbcTemplate.update("delete c from cart c join (" + DUPLICATES.formatted("cart") + ") d"
+                + " on c.buyer_id = d.buyer_id and c.product_id = d.product_id and c.id <> d.keep_id");
+        log.info("Merged {} duplicate cart rows; the old rows are kept in cart_v1_backup", removed);
+    }
+
+    private void recordVersion() {
+        jdbcTemplate.update("insert into schema_version (version, description, applied_at) values (?, ?, now(6))",
+                VERSION, "unique cart lines");
+    }
+}
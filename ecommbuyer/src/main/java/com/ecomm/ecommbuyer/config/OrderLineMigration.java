@@ -0,0 +1,75 @@
+package com.ecomm.ecommbuyer.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schema version 2: moves orders written as one row per product into order
+ * headers with lines.
+ *
+ * The migration only runs when migration.order-lines.enabled is set. It first
+ * copies the old rows to orders_v1_backup, then turns each row into an order
+ * with a single line that reuses the row's id, drops the product columns from
+ * the orders table and records the version in schema_version. Until it has
+ * run, a database that still has the old columns stops the service at startup,
+ * since new orders could not be written to it.
+ */
+@Slf4j
+@Component
+public class OrderLineMigration {
+
+    static final int VERSION = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    // The entity manager factory is injected so the order_lines table exists first
+    public OrderLineMigration(JdbcTemplate jdbcTemplate,
+            EntityManagerFactory entityManagerFactory,
+            @Value("${migration.order-lines.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        jdbcTemplate.execute("create table if not exists schema_version"
+                + " (version int not null primary key, description varchar(255) not null, applied_at datetime(6) not null)");
+        Integer applied = jdbcTemplate.queryForObject(
+                "select count(*) from schema_version where version = ?", Integer.class, VERSION);
+        Integer legacyColumns = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.columns where table_schema = database()"
+                        + " and table_name = 'orders' and column_name = 'product_id'", Integer.class);
+        if (legacyColumns == null || legacyColumns == 0) {
+            if (applied == null || applied == 0) {
+                // A new database, created with order lines from the start
+                recordVersion();
+            }
+            return;
+        }
+        if (!enabled) {
+            throw new IllegalStateException("The orders table still has one row per product. Back up the database,"
+                    + " then start once with migration.order-lines.enabled=true to move them into order lines.");
+        }
+
+        // MySQL commits each DDL statement, so keep the old rows until the migration is known to be good
+        jdbcTemplate.execute("create table if not exists orders_v1_backup as"
+                + " select id, buyer_id, product_id, quantity, total_price, status, order_date from orders");
+        int migrated = jdbcTemplate.update(
+                "insert into order_lines (id, order_id, product_id, quantity, unit_price, line_total)"
+                        + " select o.id, o.id, o.product_id, o.quantity, round(o.total_price / o.quantity, 2), o.total_price"
+                        + " from orders o where not exists (select 1 from order_lines l where l.order_id = o.id)");
+        jdbcTemplate.execute("alter table orders drop column product_id, drop column quantity");
+        recordVersion();
+        log.info("Moved {} single-product orders into order lines; the old rows are kept in orders_v1_backup", migrated);
+    }
+
+    private void recordVersion() {
+        jdbcTemplate.update("insert into schema_version (version, description, applied_at) values (?, ?, now(6))",
+                VERSION, "order lines");
+    }
+}
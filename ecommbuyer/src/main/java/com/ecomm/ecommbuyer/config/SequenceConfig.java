@@ -0,0 +1,25 @@
+package com.ecomm.ecommbuyer.config;
+
+import com.ecomm.common.config.IdSequenceAligner;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+@Configuration
+public class SequenceConfig {
+
+    // The entity manager factory is injected so the schema, including the sequence tables, exists first
+    @Bean
+    @DependsOn("orderLineMigration")
+    public IdSequenceAligner idSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        return new IdSequenceAligner(jdbcTemplate, Map.of(
+                "cart_seq", "cart",
+                "orders_seq", "orders",
+                "order_lines_seq", "order_lines",
+                "order_intakes_seq", "order_intakes"));
+    }
+}
@@ -1,14 +1,22 @@
 package com.ecomm.ecommbuyer.controller;
 
+import com.ecomm.common.security.AuthServiceUnavailableException;
+import com.ecomm.ecommbuyer.client.ProductCatalogUnavailableException;
+import com.ecomm.ecommbuyer.dto.CartView;
+import com.ecomm.ecommbuyer.dto.CursorPage;
+import com.ecomm.ecommbuyer.dto.OrderIntakeResponse;
 import com.ecomm.ecommbuyer.dto.ProductResponse;
 import com.ecomm.ecommbuyer.entity.Cart;
 import com.ecomm.ecommbuyer.entity.Order;
 import com.ecomm.ecommbuyer.service.BuyerService;
+import com.ecomm.ecommbuyer.service.OrderIntakeService;
+import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -17,6 +25,7 @@ import java.util.List;
 public class BuyerController {
 
     private final BuyerService buyerService;
+    private final OrderIntakeService orderIntakeService;
 
     @GetMapping("/products")
     public ResponseEntity<List<ProductResponse>> browseProducts() {
@@ -24,6 +33,18 @@ public class BuyerController {
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/products/page")
+    public ResponseEntity<?> browseProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            CursorPage<ProductResponse> page = buyerService.browseProductsPage(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/cart")
     public ResponseEntity<?> addToCart(
             @RequestParam Long productId,
@@ -32,6 +53,8 @@ public class BuyerController {
         try {
             Cart cart = buyerService.addToCart(productId, quantity, authHeader);
             return ResponseEntity.status(HttpStatus.CREATED).body(cart);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -42,6 +65,21 @@ public class BuyerController {
         try {
             List<Cart> cart = buyerService.getCart(authHeader);
             return ResponseEntity.ok(cart);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+
+    // Cart lines with names, prices, line totals and availability in one response
+    @GetMapping("/cart/view")
+    public ResponseEntity<?> getCartView(@RequestHeader("Authorization") String authHeader) {
+        try {
+            CartView cart = buyerService.getCartView(authHeader);
+            return ResponseEntity.ok(cart);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
         }
@@ -54,26 +92,73 @@ public class BuyerController {
         try {
             buyerService.removeFromCart(id, authHeader);
             return ResponseEntity.ok("Item removed from cart");
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    // With async=true the order is queued and 202 returns an intake id to poll
     @PostMapping("/orders")
-    public ResponseEntity<?> placeOrder(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<?> placeOrder(
+            @RequestParam(required = false) Boolean async,
+            @RequestHeader("Authorization") String authHeader) {
         try {
-            List<Order> orders = buyerService.placeOrder(authHeader);
-            return ResponseEntity.status(HttpStatus.CREATED).body(orders);
+            if (async != null ? async : orderIntakeService.isAsyncByDefault()) {
+                OrderIntakeResponse intake = orderIntakeService.accept(authHeader);
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/buyer/orders/intake/" + intake.getIntakeId()))
+                        .body(intake);
+            }
+            Order order = buyerService.placeOrder(authHeader);
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (FeignException | ProductCatalogUnavailableException e) {
+            // ecommadmin failed, not the order; the buyer may simply try again
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Inventory is unavailable, please try again");
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    @GetMapping("/orders/intake/{id}")
+    public ResponseEntity<?> getOrderIntake(
+            @PathVariable Long id,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            OrderIntakeResponse intake = orderIntakeService.getStatus(id, authHeader);
+            return ResponseEntity.ok(intake);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
     @GetMapping("/orders")
     public ResponseEntity<?> getOrderHistory(@RequestHeader("Authorization") String authHeader) {
         try {
             List<Order> orders = buyerService.getOrderHistory(authHeader);
             return ResponseEntity.ok(orders);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/orders/page")
+    public ResponseEntity<?> getOrderHistoryPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            CursorPage<Order> page = buyerService.getOrderHistoryPage(cursor, size, authHeader);
+            return ResponseEntity.ok(page);
+        } catch (AuthServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
         }
@@ -0,0 +1,21 @@
+package com.ecomm.ecommbuyer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLineView {
+    private Long cartId;
+    private Long productId;
+    private String name;
+    private BigDecimal unitPrice;
+    private Integer quantity;
+    private BigDecimal lineTotal;
+    private Integer availableQuantity;
+    private boolean available;
+}
@@ -0,0 +1,22 @@
+package com.ecomm.ecommbuyer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Cart with current product details and prices. The total only counts lines
+ * that can be ordered as they stand.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartView {
+    private List<CartLineView> lines;
+    private int itemCount;
+    private BigDecimal total;
+    private boolean orderable;
+}
@@ -0,0 +1,19 @@
+package com.ecomm.ecommbuyer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * State of an order accepted for asynchronous processing. {@code orderId} is
+ * set once the order has been placed, {@code failureReason} if it could not be.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntakeResponse {
+    private Long intakeId;
+    private String status;
+    private Long orderId;
+    private String failureReason;
+}
@@ -0,0 +1,25 @@
+package com.ecomm.ecommbuyer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the ecommadmin product change feed. CREATED and UPDATED carry the
+ * product as it is after the change; STOCK_ADJUSTED carries only the quantity delta.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeEvent {
+    private Long sequence;
+    // Outbox id, known before the change has a sequence
+    private Long changeId;
+    private String type;
+    private Long productId;
+    private ProductResponse product;
+    private Integer quantityDelta;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,16 @@
+package com.ecomm.ecommbuyer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeFeed {
+    private List<ProductChangeEvent> events;
+    private long headSequence;
+    private boolean resyncRequired;
+}
@@ -0,0 +1,54 @@
+package com.ecomm.ecommbuyer.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "order_intakes", indexes = {
+        @Index(name = "idx_order_intakes_buyer_status", columnList = "buyer_id, status"),
+        @Index(name = "idx_order_intakes_status_updated", columnList = "status, updated_at")
+})
+@Data
+@NoArgsConstructor
+public class OrderIntake {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_intakes_seq")
+    @SequenceGenerator(name = "order_intakes_seq", sequenceName = "order_intakes_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "buyer_id", nullable = false)
+    private Long buyerId;
+
+    // Cart as it was when the order was accepted
+    @ElementCollection
+    @CollectionTable(name = "order_intake_items", joinColumns = @JoinColumn(name = "intake_id"))
+    private List<OrderIntakeItem> items = new ArrayList<>();
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IntakeStatus status;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum IntakeStatus {
+        QUEUED, PROCESSING, PLACED, FAILED
+    }
+}
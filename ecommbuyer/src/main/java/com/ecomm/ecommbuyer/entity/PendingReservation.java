@@ -0,0 +1,43 @@
+package com.ecomm.ecommbuyer.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stock reservation held at ecommadmin that no stored order owns yet.
+ *
+ * The order transaction that uses the reservation deletes the row; a row that
+ * is still here once next_attempt_at has passed belongs to an order that never
+ * made it, and its reservation is released.
+ */
+@Entity
+@Table(name = "pending_reservations", indexes = {
+        @Index(name = "idx_pending_reservations_next_attempt", columnList = "next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+public class PendingReservation {
+
+    @Id
+    @Column(name = "reservation_id", length = 36)
+    private String reservationId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // Set once a release has started; the order transaction can no longer claim the row after that
+    @Column(name = "releasing_at")
+    private LocalDateTime releasingAt;
+}
@@ -2,12 +2,23 @@ package com.ecomm.ecommbuyer.repository;
 
 import com.ecomm.ecommbuyer.entity.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     List<Cart> findByBuyerId(Long buyerId);
     Optional<Cart> findByBuyerIdAndProductId(Long buyerId, Long productId);
-    void deleteByBuyerId(Long buyerId);
+
+    @Modifying
+    @Query("delete from Cart c where c.buyerId = :buyerId")
+    int deleteByBuyerId(@Param("buyerId") Long buyerId);
+
+    @Modifying
+    @Query("delete from Cart c where c.buyerId = :buyerId and c.productId in :productIds")
+    int deleteByBuyerIdAndProductIdIn(@Param("buyerId") Long buyerId, @Param("productIds") Collection<Long> productIds);
 }
@@ -0,0 +1,44 @@
+package com.ecomm.ecommbuyer.repository;
+
+import com.ecomm.ecommbuyer.entity.OrderIntake;
+import com.ecomm.ecommbuyer.entity.OrderIntake.IntakeStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderIntakeRepository extends JpaRepository<OrderIntake, Long> {
+
+    boolean existsByBuyerIdAndStatusIn(Long buyerId, Collection<IntakeStatus> statuses);
+
+    @Query("select distinct i from OrderIntake i left join fetch i.items where i.id in :ids")
+    List<OrderIntake> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Skips intakes another worker is claiming right now, so each is claimed once
+    @Query(value = "select id from order_intakes where id in (:ids) and status = 'QUEUED' order by id "
+            + "for update skip locked", nativeQuery = true)
+    List<Long> lockQueued(@Param("ids") Collection<Long> ids);
+
+    @Query("select i.id from OrderIntake i where i.status = :status and i.updatedAt < :before order by i.id")
+    List<Long> findIdsByStatusUpdatedBefore(@Param("status") IntakeStatus status,
+            @Param("before") LocalDateTime before);
+
+    // Claims are told apart by the time they were made, so this fails once an intake was requeued or claimed again
+    @Modifying
+    @Query("update OrderIntake i set i.updatedAt = :now "
+            + "where i.id in :ids and i.status = 'PROCESSING' and i.updatedAt = :claimedAt")
+    int renewClaim(@Param("ids") Collection<Long> ids,
+            @Param("claimedAt") LocalDateTime claimedAt,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update OrderIntake i set i.status = :to, i.updatedAt = :now where i.id in :ids and i.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+            @Param("from") IntakeStatus from,
+            @Param("to") IntakeStatus to,
+            @Param("now") LocalDateTime now);
+}
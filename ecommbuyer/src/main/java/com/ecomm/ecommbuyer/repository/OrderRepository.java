@@ -1,13 +1,31 @@
 package com.ecomm.ecommbuyer.repository;
 
 import com.ecomm.ecommbuyer.entity.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
     List<Order> findByBuyerId(Long buyerId);
 
+    // The full history comes back in one query with its lines joined in
+    @EntityGraph(attributePaths = "lines")
     List<Order> findByBuyerIdOrderByOrderDateDesc(Long buyerId);
+
+    // Keyset pages ordered newest first, with id breaking ties between orders placed in the same instant
+    List<Order> findByBuyerIdOrderByOrderDateDescIdDesc(Long buyerId, Pageable pageable);
+
+    @Query("select o from Order o where o.buyerId = :buyerId"
+            + " and (o.orderDate < :orderDate or (o.orderDate = :orderDate and o.id < :id))"
+            + " order by o.orderDate desc, o.id desc")
+    List<Order> findByBuyerIdBefore(@Param("buyerId") Long buyerId,
+            @Param("orderDate") LocalDateTime orderDate,
+            @Param("id") Long id,
+            Pageable pageable);
 }
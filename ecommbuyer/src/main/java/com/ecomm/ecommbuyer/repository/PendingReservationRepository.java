@@ -0,0 +1,49 @@
+package com.ecomm.ecommbuyer.repository;
+
+import com.ecomm.ecommbuyer.entity.PendingReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface PendingReservationRepository extends JpaRepository<PendingReservation, String> {
+
+    @Modifying
+    @Query(value = "insert into pending_reservations (reservation_id, created_at, next_attempt_at, attempts) "
+            + "values (:reservationId, :now, :nextAttemptAt, 0)", nativeQuery = true)
+    void insert(@Param("reservationId") String reservationId,
+            @Param("now") LocalDateTime now,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    // Blocks while a release marks one of the rows and skips it once marked, so the caller sees how many it claimed
+    @Modifying
+    @Query("delete from PendingReservation p where p.reservationId in :reservationIds and p.releasingAt is null")
+    int deleteClaimable(@Param("reservationIds") Collection<String> reservationIds);
+
+    // Rows locked by an order transaction or another instance are skipped, not waited for
+    @Query(value = "select reservation_id from pending_reservations where reservation_id = :reservationId "
+            + "for update skip locked", nativeQuery = true)
+    List<String> lockById(@Param("reservationId") String reservationId);
+
+    @Query(value = "select reservation_id from pending_reservations where next_attempt_at <= :now "
+            + "order by next_attempt_at limit :limit for update skip locked", nativeQuery = true)
+    List<String> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update PendingReservation p set p.releasingAt = :now, p.nextAttemptAt = :nextAttemptAt "
+            + "where p.reservationId in :reservationIds")
+    int markReleasing(@Param("reservationIds") Collection<String> reservationIds,
+            @Param("now") LocalDateTime now,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Query("update PendingReservation p set p.attempts = p.attempts + 1, p.nextAttemptAt = :nextAttemptAt, "
+            + "p.lastError = :error where p.reservationId = :reservationId")
+    int recordFailure(@Param("reservationId") String reservationId,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("error") String error);
+}
@@ -1,159 +1,317 @@
 package com.ecomm.ecommbuyer.service;
 
-import com.ecomm.ecommbuyer.dto.AuthResponse;
+import com.ecomm.common.security.AuthenticatedUser;
+import com.ecomm.common.security.JwtVerifier;
 import com.ecomm.ecommbuyer.client.AdminClient;
-import com.ecomm.ecommbuyer.client.AuthClient;
+import com.ecomm.ecommbuyer.client.ProductCatalogClient;
+import com.ecomm.ecommbuyer.dto.CartLineView;
+import com.ecomm.ecommbuyer.dto.CartView;
+import com.ecomm.ecommbuyer.dto.CursorPage;
+import com.ecomm.ecommbuyer.dto.ProductBatchResponse;
 import com.ecomm.ecommbuyer.dto.ProductResponse;
+import com.ecomm.ecommbuyer.dto.ReservationItem;
 import com.ecomm.ecommbuyer.entity.Cart;
 import com.ecomm.ecommbuyer.entity.Order;
+import com.ecomm.ecommbuyer.entity.OrderLine;
 import com.ecomm.ecommbuyer.repository.CartRepository;
 import com.ecomm.ecommbuyer.repository.OrderRepository;
+import feign.FeignException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class BuyerService {
 
     private final CartRepository cartRepository;
     private final OrderRepository orderRepository;
-    private final AuthClient authClient;
+    private final JwtVerifier jwtVerifier;
     private final AdminClient adminClient;
+    private final ProductCatalogClient productCatalogClient;
+    private final CatalogCache catalogCache;
+    private final CartStore cartStore;
+    private final ReservationSettler reservationSettler;
+    private final OrderIntakeService orderIntakeService;
+    private final OrderMetrics orderMetrics;
 
-    public Cart addToCart(Long productId, Integer quantity, String authHeader) {
-        // Validate JWT token
-        AuthResponse authResponse = authClient.validateToken(authHeader);
+    @Value("${pagination.default-page-size}")
+    private int defaultPageSize;
 
-        if (!"Token is valid".equals(authResponse.getMessage())) {
-            throw new RuntimeException("Invalid or expired token");
-        }
+    @Value("${pagination.max-page-size}")
+    private int maxPageSize;
+
+    public Cart addToCart(Long productId, Integer quantity, String authHeader) {
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
 
-        if (!"BUYER".equals(authResponse.getRole())) {
+        if (!"BUYER".equals(user.role())) {
+            orderMetrics.validationFailed(OrderMetrics.ACCESS_DENIED);
             throw new RuntimeException("Access denied. Buyer role required.");
         }
 
         // Verify product exists and has sufficient quantity
-        ProductResponse product = adminClient.getProductById(productId);
+        ProductResponse product = fetchProducts(List.of(productId)).get(productId);
         if (product.getQuantity() < quantity) {
+            orderMetrics.validationFailed(OrderMetrics.INSUFFICIENT_QUANTITY);
             throw new RuntimeException("Insufficient product quantity available");
         }
 
-        // Check if product already in cart
-        var existingCart = cartRepository.findByBuyerIdAndProductId(authResponse.getUserId(), productId);
-
-        if (existingCart.isPresent()) {
-            Cart cart = existingCart.get();
-            cart.setQuantity(cart.getQuantity() + quantity);
-            return cartRepository.save(cart);
-        } else {
-            Cart cart = new Cart();
-            cart.setBuyerId(authResponse.getUserId());
-            cart.setProductId(productId);
-            cart.setQuantity(quantity);
-            return cartRepository.save(cart);
-        }
+        // Merge into the cart line atomically; the table is updated write-behind
+        Cart line = cartStore.add(user.userId(), productId, quantity);
+        orderMetrics.cartLineAdded();
+        return line;
     }
 
     public List<Cart> getCart(String authHeader) {
-        // Validate JWT token
-        AuthResponse authResponse = authClient.validateToken(authHeader);
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
 
-        if (!"Token is valid".equals(authResponse.getMessage())) {
-            throw new RuntimeException("Invalid or expired token");
+        if (!"BUYER".equals(user.role())) {
+            orderMetrics.validationFailed(OrderMetrics.ACCESS_DENIED);
+            throw new RuntimeException("Access denied. Buyer role required.");
         }
 
-        if (!"BUYER".equals(authResponse.getRole())) {
+        return cartStore.getCart(user.userId());
+    }
+
+    public CartView getCartView(String authHeader) {
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
+
+        if (!"BUYER".equals(user.role())) {
+            orderMetrics.validationFailed(OrderMetrics.ACCESS_DENIED);
             throw new RuntimeException("Access denied. Buyer role required.");
         }
 
-        return cartRepository.findByBuyerId(authResponse.getUserId());
-    }
+        List<Cart> cartItems = cartStore.getCart(user.userId());
+        if (cartItems.isEmpty()) {
+            return new CartView(List.of(), 0, BigDecimal.ZERO, false);
+        }
 
-    public void removeFromCart(Long cartId, String authHeader) {
-        // Validate JWT token
-        AuthResponse authResponse = authClient.validateToken(authHeader);
+        // Resolve every line with one batched lookup; products that no longer exist show as unavailable
+        ProductBatchResponse batch = productCatalogClient.getProductsByIds(cartItems.stream().map(Cart::getProductId).toList());
+        Map<Long, ProductResponse> products = batch.getProducts().stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+
+        List<CartLineView> lines = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        int itemCount = 0;
+        boolean orderable = true;
+        for (Cart cartItem : cartItems) {
+            ProductResponse product = products.get(cartItem.getProductId());
+            if (product == null) {
+                lines.add(new CartLineView(cartItem.getId(), cartItem.getProductId(), null, null,
+                        cartItem.getQuantity(), null, 0, false));
+                orderable = false;
+                continue;
+            }
 
-        if (!"Token is valid".equals(authResponse.getMessage())) {
-            throw new RuntimeException("Invalid or expired token");
+            BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity()));
+            boolean available = product.getQuantity() >= cartItem.getQuantity();
+            lines.add(new CartLineView(cartItem.getId(), product.getId(), product.getName(), product.getPrice(),
+                    cartItem.getQuantity(), lineTotal, product.getQuantity(), available));
+            if (available) {
+                total = total.add(lineTotal);
+                itemCount += cartItem.getQuantity();
+            } else {
+                orderable = false;
+            }
         }
+        return new CartView(lines, itemCount, total, orderable);
+    }
+
+    public void removeFromCart(Long cartId, String authHeader) {
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
 
-        if (!"BUYER".equals(authResponse.getRole())) {
+        if (!"BUYER".equals(user.role())) {
+            orderMetrics.validationFailed(OrderMetrics.ACCESS_DENIED);
             throw new RuntimeException("Access denied. Buyer role required.");
         }
 
-        Cart cart = cartRepository.findById(cartId)
+        // Only the buyer's own cart is searched, so other buyers' items are never found
+        Cart cart = cartStore.findLine(user.userId(), cartId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
-        // Ensure buyer owns the cart item
-        if (!cart.getBuyerId().equals(authResponse.getUserId())) {
-            throw new RuntimeException("Access denied. You can only remove your own cart items.");
-        }
-
-        cartRepository.delete(cart);
+        cartStore.remove(user.userId(), cart.getProductId());
     }
 
     @Transactional
-    public List<Order> placeOrder(String authHeader) {
-        // Validate JWT token
-        AuthResponse authResponse = authClient.validateToken(authHeader);
-
-        if (!"Token is valid".equals(authResponse.getMessage())) {
-            throw new RuntimeException("Invalid or expired token");
-        }
+    public Order placeOrder(String authHeader) {
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
 
-        if (!"BUYER".equals(authResponse.getRole())) {
+        if (!"BUYER".equals(user.role())) {
+            orderMetrics.validationFailed(OrderMetrics.ACCESS_DENIED);
             throw new RuntimeException("Access denied. Buyer role required.");
         }
 
-        List<Cart> cartItems = cartRepository.findByBuyerId(authResponse.getUserId());
+        // A queued order still holds this cart, and would be placed a second time
+        orderIntakeService.guardSynchronousCheckout(user.userId());
+
+        // Write pending cart changes first so the table matches the cart being ordered
+        cartStore.flush(user.userId());
+        List<Cart> cartItems = cartStore.getCart(user.userId());
         if (cartItems.isEmpty()) {
+            orderMetrics.validationFailed(OrderMetrics.CART_EMPTY);
             throw new RuntimeException("Cart is empty");
         }
 
-        // Create orders from cart items
-        List<Order> orders = cartItems.stream().map(cartItem -> {
-            ProductResponse product = adminClient.getProductById(cartItem.getProductId());
+        // Fetch every product in the cart with a single call
+        Map<Long, ProductResponse> products = fetchProducts(cartItems.stream().map(Cart::getProductId).toList());
+
+        // Reserve stock for every line; it is committed just before this transaction and released if it fails
+        String reservationId = reserveStock(cartItems);
 
-            if (product.getQuantity() < cartItem.getQuantity()) {
-                throw new RuntimeException("Insufficient quantity for product: " + product.getName());
+        // One order header with a line per cart item; header and lines are inserted in one batch
+        Order order = new Order();
+        order.setBuyerId(user.userId());
+        order.setStatus(Order.OrderStatus.PLACED);
+        for (Cart cartItem : cartItems) {
+            ProductResponse product = products.get(cartItem.getProductId());
+            order.addLine(new OrderLine(cartItem.getProductId(), cartItem.getQuantity(), product.getPrice()));
+        }
+        order.updateTotal();
+        order = orderRepository.save(order);
+
+        // Clear the ordered lines, in memory once the order is committed; lines added meanwhile stay
+        cartRepository.deleteByBuyerIdAndProductIdIn(user.userId(), cartItems.stream().map(Cart::getProductId).toList());
+        orderRepository.flush();
+        reservationSettler.claim(List.of(reservationId));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cartStore.discard(user.userId(), cartItems);
+                orderMetrics.orderPlaced(OrderMetrics.SYNC, cartItems.size());
             }
+        });
 
-            Order order = new Order();
-            order.setBuyerId(authResponse.getUserId());
-            order.setProductId(cartItem.getProductId());
-            order.setQuantity(cartItem.getQuantity());
-            order.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())));
-            order.setStatus(Order.OrderStatus.PLACED);
+        return order;
+    }
 
-            return orderRepository.save(order);
-        }).toList();
+    @Transactional
+    public List<Order> getOrderHistory(String authHeader) {
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
 
-        // Clear cart after placing order
-        cartRepository.deleteByBuyerId(authResponse.getUserId());
+        if (!"BUYER".equals(user.role())) {
+            orderMetrics.validationFailed(OrderMetrics.ACCESS_DENIED);
+            throw new RuntimeException("Access denied. Buyer role required.");
+        }
 
-        return orders;
+        return orderRepository.findByBuyerIdOrderByOrderDateDesc(user.userId());
     }
 
-    public List<Order> getOrderHistory(String authHeader) {
-        // Validate JWT token
-        AuthResponse authResponse = authClient.validateToken(authHeader);
+    @Transactional
+    public CursorPage<Order> getOrderHistoryPage(String cursor, Integer size, String authHeader) {
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
 
-        if (!"Token is valid".equals(authResponse.getMessage())) {
-            throw new RuntimeException("Invalid or expired token");
+        if (!"BUYER".equals(user.role())) {
+            orderMetrics.validationFailed(OrderMetrics.ACCESS_DENIED);
+            throw new RuntimeException("Access denied. Buyer role required.");
         }
 
-        if (!"BUYER".equals(authResponse.getRole())) {
-            throw new RuntimeException("Access denied. Buyer role required.");
+        int pageSize = pageSize(size);
+        Pageable pageable = PageRequest.ofSize(pageSize + 1);
+        List<Order> orders;
+        if (cursor == null || cursor.isBlank()) {
+            orders = orderRepository.findByBuyerIdOrderByOrderDateDescIdDesc(user.userId(), pageable);
+        } else {
+            OrderPosition position = decodeCursor(cursor);
+            orders = orderRepository.findByBuyerIdBefore(user.userId(), position.orderDate(), position.id(), pageable);
         }
 
-        return orderRepository.findByBuyerIdOrderByOrderDateDesc(authResponse.getUserId());
+        // One extra row is fetched to tell whether another page follows
+        if (orders.size() <= pageSize) {
+            return new CursorPage<>(withLines(orders), null);
+        }
+        Order last = orders.get(pageSize - 1);
+        return new CursorPage<>(withLines(new ArrayList<>(orders.subList(0, pageSize))),
+                encodeCursor(last.getOrderDate() + "|" + last.getId()));
+    }
+
+    public CursorPage<ProductResponse> browseProductsPage(String cursor, Integer size) {
+        return adminClient.getAvailableProductsPage(cursor, pageSize(size));
     }
 
     public List<ProductResponse> browseProducts() {
-        return adminClient.getAllAvailableProducts();
+        return catalogCache.getProducts();
+    }
+
+    private String reserveStock(List<Cart> cartItems) {
+        try {
+            return reservationSettler.reserve(cartItems.stream()
+                    .map(cartItem -> new ReservationItem(cartItem.getProductId(), cartItem.getQuantity()))
+                    .toList());
+        } catch (FeignException.Conflict e) {
+            // Only a conflict means the stock is short; other failures propagate as they are
+            orderMetrics.validationFailed(OrderMetrics.INSUFFICIENT_QUANTITY);
+            throw new RuntimeException("Insufficient quantity: " + e.contentUTF8());
+        }
+    }
+
+    // Headers come from one query; touching their lines loads them for up to 100 orders in a second one
+    private List<Order> withLines(List<Order> orders) {
+        orders.forEach(order -> Hibernate.initialize(order.getLines()));
+        return orders;
+    }
+
+    private Map<Long, ProductResponse> fetchProducts(List<Long> productIds) {
+        ProductBatchResponse batch = productCatalogClient.getProductsByIds(productIds);
+        if (!batch.getMissingIds().isEmpty()) {
+            orderMetrics.validationFailed(OrderMetrics.PRODUCT_NOT_FOUND);
+            throw new RuntimeException("Product not found: " + batch.getMissingIds());
+        }
+        return batch.getProducts().stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    private String encodeCursor(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Any cursor we did not write ourselves is rejected here, before it reaches the query
+    private OrderPosition decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            return new OrderPosition(LocalDateTime.parse(position[0]), Long.valueOf(position[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            orderMetrics.validationFailed(OrderMetrics.INVALID_CURSOR);
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    private record OrderPosition(LocalDateTime orderDate, Long id) {
     }
 }
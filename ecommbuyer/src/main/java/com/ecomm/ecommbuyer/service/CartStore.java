@@ -0,0 +1,294 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.ecommbuyer.entity.Cart;
+import com.ecomm.ecommbuyer.repository.CartRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps active carts in memory and writes their changes to the cart table behind the request.
+ *
+ * Every change to a cart runs atomically per buyer, so concurrent adds of the same
+ * product merge into one line. Changes are recorded as the latest quantity per
+ * (buyer, product), which lets repeated updates to a line coalesce into a single
+ * upsert. A background flush writes them in JDBC batches; placing an order flushes
+ * the buyer's cart synchronously first. Carts that are evicted or not loaded yet
+ * are read back from the table with their pending changes applied on top.
+ */
+@Slf4j
+@Component
+public class CartStore {
+
+    private static final String UPSERT_SQL =
+            "insert into cart (id, buyer_id, product_id, quantity) values (?, ?, ?, ?) "
+                    + "on duplicate key update quantity = values(quantity)";
+
+    private static final String DELETE_SQL = "delete from cart where buyer_id = ? and product_id = ?";
+
+    private final CartRepository cartRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+    private final SessionFactory sessionFactory;
+    private final BeforeExecutionGenerator idGenerator;
+    private final int batchSize;
+
+    // Buyer id -> cart lines by product id; the line maps are immutable and replaced on change
+    private final Cache<Long, Map<Long, Cart>> carts;
+
+    // Latest unflushed quantity per line; zero means the line was removed
+    private final Map<CartKey, PendingLine> pending = new ConcurrentHashMap<>();
+
+    // Flushes must not overlap, or an older snapshot could overwrite a newer one
+    private final Lock flushLock = new ReentrantLock();
+
+    public CartStore(CartRepository cartRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory,
+            @Value("${cart.store.max-buyers}") long maxBuyers,
+            @Value("${cart.store.idle-timeout}") long idleTimeout,
+            @Value("${cart.write-behind.batch-size}") int batchSize) {
+        this.cartRepository = cartRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        // Cart ids come from a pooled sequence, which Hibernate generates before the insert
+        this.idGenerator = (BeforeExecutionGenerator) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(Cart.class)
+                .getGenerator();
+        this.batchSize = batchSize;
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxBuyers)
+                .expireAfterAccess(Duration.ofMillis(idleTimeout))
+                .build();
+    }
+
+    public List<Cart> getCart(Long buyerId) {
+        return List.copyOf(lines(buyerId).values());
+    }
+
+    public Optional<Cart> findLine(Long buyerId, Long cartId) {
+        return lines(buyerId).values().stream()
+                .filter(line -> line.getId().equals(cartId))
+                .findFirst();
+    }
+
+    /**
+     * Add to the quantity of a product in the cart, creating the line if needed
+     *
+     * @param buyerId   Buyer id
+     * @param productId Product id
+     * @param quantity  Quantity to add
+     * @return The merged cart line
+     */
+    public Cart add(Long buyerId, Long productId, int quantity) {
+        while (true) {
+            Map<Long, Cart> lines = lines(buyerId);
+            Cart current = lines.get(productId);
+            Cart line = current != null
+                    ? new Cart(current.getId(), buyerId, productId, current.getQuantity() + quantity)
+                    : new Cart(lineId(buyerId, productId), buyerId, productId, quantity);
+            Map<Long, Cart> updated = new HashMap<>(lines);
+            updated.put(productId, line);
+            if (replace(buyerId, lines, updated, productId, new PendingLine(line.getId(), line.getQuantity()))) {
+                return line;
+            }
+        }
+    }
+
+    public void remove(Long buyerId, Long productId) {
+        while (true) {
+            Map<Long, Cart> lines = lines(buyerId);
+            Cart removed = lines.get(productId);
+            if (removed == null) {
+                return;
+            }
+            Map<Long, Cart> updated = new HashMap<>(lines);
+            updated.remove(productId);
+            if (replace(buyerId, lines, updated, productId, new PendingLine(removed.getId(), 0))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forget lines that were deleted from the table directly; lines changed since are written again
+     *
+     * @param buyerId Buyer id
+     * @param deleted Product and quantity of each line as it was when deleted
+     */
+    public void discard(Long buyerId, Collection<Cart> deleted) {
+        carts.asMap().computeIfPresent(buyerId, (id, lines) -> {
+            Map<Long, Cart> updated = new HashMap<>(lines);
+            for (Cart line : deleted) {
+                Cart current = updated.get(line.getProductId());
+                if (current != null && current.getQuantity().equals(line.getQuantity())) {
+                    updated.remove(line.getProductId());
+                } else if (current != null) {
+                    // Changed after the delete was issued, so its row has to be written again
+                    pending.put(new CartKey(buyerId, current.getProductId()),
+                            new PendingLine(current.getId(), current.getQuantity()));
+                }
+            }
+            return Map.copyOf(updated);
+        });
+    }
+
+    /**
+     * Write every pending change to the cart table
+     */
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval}")
+    public void flush() {
+        flush(null);
+    }
+
+    /**
+     * Write pending changes of one buyer to the cart table before returning
+     *
+     * @param buyerId Buyer id, or null for all buyers
+     */
+    public void flush(Long buyerId) {
+        flushLock.lock();
+        try {
+            List<Map.Entry<CartKey, PendingLine>> upserts = new ArrayList<>();
+            List<Map.Entry<CartKey, PendingLine>> deletes = new ArrayList<>();
+            for (Map.Entry<CartKey, PendingLine> entry : pending.entrySet()) {
+                if (buyerId == null || buyerId.equals(entry.getKey().buyerId())) {
+                    (entry.getValue().quantity() > 0 ? upserts : deletes).add(Map.entry(entry.getKey(), entry.getValue()));
+                }
+            }
+            if (upserts.isEmpty() && deletes.isEmpty()) {
+                return;
+            }
+
+            flushTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(DELETE_SQL, deletes, batchSize, (statement, entry) -> {
+                    statement.setLong(1, entry.getKey().buyerId());
+                    statement.setLong(2, entry.getKey().productId());
+                });
+                jdbcTemplate.batchUpdate(UPSERT_SQL, upserts, batchSize, (statement, entry) -> {
+                    statement.setLong(1, entry.getValue().id());
+                    statement.setLong(2, entry.getKey().buyerId());
+                    statement.setLong(3, entry.getKey().productId());
+                    statement.setInt(4, entry.getValue().quantity());
+                });
+            });
+
+            // Keep changes that arrived while this batch was being written for the next flush
+            upserts.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+            deletes.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+        } catch (RuntimeException e) {
+            log.error("Cart flush failed, {} changes stay pending: {}", pending.size(), e.getMessage());
+            if (buyerId != null) {
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush(null);
+    }
+
+    // Swaps in a buyer's changed lines unless another change or an eviction got there first, in
+    // which case the caller starts over. Loading and id generation happen before, outside the map's lock.
+    private boolean replace(Long buyerId, Map<Long, Cart> expected, Map<Long, Cart> updated,
+            Long productId, PendingLine change) {
+        boolean[] replaced = new boolean[1];
+        carts.asMap().computeIfPresent(buyerId, (id, lines) -> {
+            if (lines != expected) {
+                return lines;
+            }
+            pending.put(new CartKey(buyerId, productId), change);
+            replaced[0] = true;
+            return Map.copyOf(updated);
+        });
+        return replaced[0];
+    }
+
+    // Loads outside the map's lock; a cart that appeared meanwhile wins over the loaded copy
+    private Map<Long, Cart> lines(Long buyerId) {
+        Map<Long, Cart> lines = carts.getIfPresent(buyerId);
+        if (lines == null) {
+            Map<Long, Cart> loaded = load(buyerId);
+            lines = carts.asMap().putIfAbsent(buyerId, loaded);
+            if (lines == null) {
+                lines = loaded;
+            }
+        }
+        return lines;
+    }
+
+    private Map<Long, Cart> load(Long buyerId) {
+        // Take pending changes before reading the table, so a flush in between cannot hide one
+        Map<Long, PendingLine> changes = new HashMap<>();
+        pending.forEach((key, change) -> {
+            if (key.buyerId().equals(buyerId)) {
+                changes.put(key.productId(), change);
+            }
+        });
+
+        Map<Long, Cart> lines = new HashMap<>();
+        for (Cart line : cartRepository.findByBuyerId(buyerId)) {
+            lines.put(line.getProductId(), line);
+        }
+
+        // Changes not flushed yet are newer than what the table holds
+        changes.forEach((productId, change) -> {
+            if (change.quantity() > 0) {
+                lines.put(productId, new Cart(change.id(), buyerId, productId, change.quantity()));
+            } else {
+                lines.remove(productId);
+            }
+        });
+        return Map.copyOf(lines);
+    }
+
+    // A line removed and re-added before a flush keeps its id, so the table never holds two ids for it
+    private Long lineId(Long buyerId, Long productId) {
+        PendingLine change = pending.get(new CartKey(buyerId, productId));
+        if (change != null) {
+            return change.id();
+        }
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return (Long) idGenerator.generate((SharedSessionContractImplementor) session, null, null, EventType.INSERT);
+        }
+    }
+
+    private record CartKey(Long buyerId, Long productId) {
+    }
+
+    private record PendingLine(Long id, int quantity) {
+    }
+}
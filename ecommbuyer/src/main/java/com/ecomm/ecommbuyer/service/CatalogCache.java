@@ -0,0 +1,151 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.ecommbuyer.client.ProductCatalogClient;
+import com.ecomm.ecommbuyer.dto.ProductCatalog;
+import com.ecomm.ecommbuyer.dto.ProductChangeEvent;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Local snapshot of the available-products catalog.
+ *
+ * Browsing is served from the snapshot. A background task revalidates it
+ * against ecommadmin with the catalog version as an ETag, so an unchanged
+ * catalog costs a 304 instead of a full download. When ecommadmin is slow or
+ * down the last snapshot keeps being served.
+ *
+ * With the change feed enabled, {@link ProductChangeSubscriber} applies product
+ * changes to the snapshot instead, and owns the periodic full reloads.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogCache {
+
+    private final ProductCatalogClient productCatalogClient;
+
+    @Value("${catalog.change-feed.enabled}")
+    private boolean changeFeedEnabled;
+
+    // A lock rather than synchronized, so a virtual thread waiting on ecommadmin does not pin its carrier
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    public List<ProductResponse> getProducts() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Only the very first request waits for ecommadmin
+            current = load();
+        }
+        return current.products();
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.near-cache.refresh-interval}")
+    public void refresh() {
+        if (changeFeedEnabled) {
+            return;
+        }
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.warn("Catalog revalidation failed, serving last snapshot: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the snapshot with products read elsewhere, e.g. together with a change feed position
+     *
+     * @param products Available products
+     */
+    public void replace(List<ProductResponse> products) {
+        loadLock.lock();
+        try {
+            // Not a catalog version ecommadmin knows, like a snapshot the feed was applied to
+            snapshot = new Snapshot(null, List.copyOf(products));
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Apply product changes from the change feed to the snapshot
+     *
+     * @param events Changes in feed order
+     * @param loader Looks up products that come back in stock but are not in the snapshot
+     */
+    public void applyChanges(List<ProductChangeEvent> events, Function<List<Long>, List<ProductResponse>> loader) {
+        loadLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+
+            Map<Long, ProductResponse> products = new LinkedHashMap<>();
+            current.products().forEach(product -> products.put(product.getId(), product));
+            Set<Long> restocked = new LinkedHashSet<>();
+            for (ProductChangeEvent event : events) {
+                if (event.getProduct() != null) {
+                    restocked.remove(event.getProductId());
+                    putIfAvailable(products, event.getProduct());
+                    continue;
+                }
+                ProductResponse existing = products.get(event.getProductId());
+                if (existing != null) {
+                    putIfAvailable(products, new ProductResponse(existing.getId(), existing.getSellerId(), existing.getName(),
+                            existing.getDescription(), existing.getPrice(), existing.getQuantity() + event.getQuantityDelta()));
+                } else if (event.getQuantityDelta() > 0) {
+                    restocked.add(event.getProductId());
+                }
+            }
+            if (!restocked.isEmpty()) {
+                loader.apply(new ArrayList<>(restocked)).forEach(product -> putIfAvailable(products, product));
+            }
+
+            // The snapshot no longer matches a catalog version ecommadmin knows
+            snapshot = new Snapshot(null, List.copyOf(products.values()));
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private static void putIfAvailable(Map<Long, ProductResponse> products, ProductResponse product) {
+        if (product.getQuantity() != null && product.getQuantity() > 0) {
+            products.put(product.getId(), product);
+        } else {
+            products.remove(product.getId());
+        }
+    }
+
+    private Snapshot load() {
+        loadLock.lock();
+        try {
+            Snapshot current = snapshot;
+            ProductCatalog catalog = productCatalogClient.getAvailableCatalog(current != null ? current.version() : null);
+            if (catalog != null) {
+                current = new Snapshot(catalog.getVersion(), List.copyOf(catalog.getProducts()));
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private record Snapshot(String version, List<ProductResponse> products) {
+    }
+}
@@ -0,0 +1,449 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.ecommbuyer.client.ProductCatalogClient;
+import com.ecomm.ecommbuyer.client.ProductCatalogUnavailableException;
+import com.ecomm.ecommbuyer.dto.ProductBatchResponse;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import com.ecomm.ecommbuyer.dto.ReservationItem;
+import com.ecomm.ecommbuyer.dto.ReservationOutcome;
+import com.ecomm.ecommbuyer.entity.Cart;
+import com.ecomm.ecommbuyer.entity.Order;
+import com.ecomm.ecommbuyer.entity.OrderIntake;
+import com.ecomm.ecommbuyer.entity.OrderIntake.IntakeStatus;
+import com.ecomm.ecommbuyer.entity.OrderIntakeItem;
+import com.ecomm.ecommbuyer.entity.OrderLine;
+import com.ecomm.ecommbuyer.repository.OrderIntakeRepository;
+import com.ecomm.ecommbuyer.repository.OrderRepository;
+import feign.FeignException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Places queued orders in batches.
+ *
+ * A single worker drains the intake queue, waiting briefly for more intakes
+ * once one arrives. For each batch, products are looked up with one call and
+ * stock is reserved with another, in which ecommadmin grants or refuses the
+ * reservation of each intake on its own. The orders, intake results and cart
+ * deletes of the whole batch then go to the database in one transaction, which
+ * commits all reservations at ecommadmin as its last step (see
+ * ReservationSettler). If that group commit fails, the intakes are retried one
+ * by one so a single bad order cannot sink the rest. A single intake whose
+ * commit fails for a passing reason, such as a lost database connection or an
+ * unreachable ecommadmin, is requeued rather than failed.
+ *
+ * Intakes that never reach the queue, or whose processing was interrupted, are
+ * picked up again by a periodic recovery sweep.
+ *
+ * Workers claim intakes by locking the queued rows with SKIP LOCKED, so two of
+ * them never claim the same intake. A claim is stamped with the time it was
+ * made, and the group commit only goes through while every intake still holds
+ * that stamp. An intake that the recovery sweep requeued in the meantime,
+ * possibly claimed again by another worker, rolls the batch back instead of
+ * being placed twice.
+ */
+@Slf4j
+@Component
+public class OrderIntakePipeline {
+
+    private static final String DELETE_CART_LINE_SQL = "delete from cart where buyer_id = ? and product_id = ?";
+
+    private final OrderIntakeRepository intakeRepository;
+    private final OrderRepository orderRepository;
+    private final ReservationSettler reservationSettler;
+    private final ProductCatalogClient productCatalogClient;
+    private final CartStore cartStore;
+    private final OrderMetrics orderMetrics;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Long> queue;
+    private final int batchSize;
+    private final long linger;
+    private final long staleAfter;
+    private final boolean virtualThreads;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public OrderIntakePipeline(OrderIntakeRepository intakeRepository,
+            OrderRepository orderRepository,
+            ReservationSettler reservationSettler,
+            ProductCatalogClient productCatalogClient,
+            CartStore cartStore,
+            OrderMetrics orderMetrics,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${orders.intake.queue-capacity}") int queueCapacity,
+            @Value("${orders.intake.batch-size}") int batchSize,
+            @Value("${orders.intake.linger}") long linger,
+            @Value("${orders.intake.stale-after}") long staleAfter,
+            Environment environment) {
+        this.intakeRepository = intakeRepository;
+        this.orderRepository = orderRepository;
+        this.reservationSettler = reservationSettler;
+        this.productCatalogClient = productCatalogClient;
+        this.cartStore = cartStore;
+        this.orderMetrics = orderMetrics;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.linger = linger;
+        this.staleAfter = staleAfter;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        // Same thread mode as the request threads (spring.threads.virtual.enabled)
+        worker = virtualThreads
+                ? new VirtualThreadTaskExecutor("order-intake-").getVirtualThreadFactory().newThread(this::run)
+                : new Thread(this::run, "order-intake");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Queue an accepted intake for placement
+     *
+     * @param intakeId Intake id
+     */
+    public void submit(Long intakeId) {
+        if (!queue.offer(intakeId)) {
+            log.warn("Order intake queue is full, intake {} waits for the recovery sweep", intakeId);
+        }
+    }
+
+    /**
+     * Requeue intakes that were never queued or whose processing was interrupted
+     */
+    @Scheduled(fixedDelayString = "${orders.intake.recovery-interval}")
+    public void recover() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(staleAfter));
+        List<Long> interrupted = intakeRepository.findIdsByStatusUpdatedBefore(IntakeStatus.PROCESSING, cutoff);
+        if (!interrupted.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> intakeRepository.updateStatus(
+                    interrupted, IntakeStatus.PROCESSING, IntakeStatus.QUEUED, LocalDateTime.now()));
+        }
+        // An intake queued twice is harmless, only the first claim processes it
+        for (Long intakeId : intakeRepository.findIdsByStatusUpdatedBefore(IntakeStatus.QUEUED, LocalDateTime.now())) {
+            if (!queue.offer(intakeId)) {
+                break;
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // Give other buyers' orders a moment to join the batch
+                List<Long> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(linger);
+                while (batch.size() < batchSize) {
+                    Long next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Order intake batch failed, intakes are retried by the recovery sweep", e);
+            }
+        }
+    }
+
+    private void process(List<Long> intakeIds) {
+        // The column keeps microseconds, and the claim is later recognized by this exact value
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<OrderIntake> intakes = claim(intakeIds, claimedAt);
+        if (intakes.isEmpty()) {
+            return;
+        }
+
+        Map<Long, ProductResponse> products;
+        try {
+            products = fetchProducts(intakes);
+        } catch (FeignException | ProductCatalogUnavailableException e) {
+            requeue(intakes);
+            throw e;
+        }
+
+        Map<Long, String> failures = new HashMap<>();
+        List<OrderIntake> reservable = new ArrayList<>();
+        for (OrderIntake intake : intakes) {
+            try {
+                checkProducts(intake, products);
+                reservable.add(intake);
+            } catch (RuntimeException e) {
+                failures.put(intake.getId(), e.getMessage());
+            }
+        }
+
+        List<Placement> placements = new ArrayList<>();
+        List<OrderIntake> unplaced = new ArrayList<>();
+        if (!reservable.isEmpty()) {
+            try {
+                List<ReservationOutcome> outcomes = reservationSettler.reserveEach(reservable.stream()
+                        .map(intake -> intake.getItems().stream()
+                                .map(item -> new ReservationItem(item.getProductId(), item.getQuantity()))
+                                .toList())
+                        .toList());
+                for (int i = 0; i < reservable.size(); i++) {
+                    OrderIntake intake = reservable.get(i);
+                    ReservationOutcome outcome = outcomes.get(i);
+                    if (outcome.getReservation() != null) {
+                        placements.add(place(intake, products, outcome.getReservation().getReservationId()));
+                    } else {
+                        orderMetrics.validationFailed(OrderMetrics.INSUFFICIENT_QUANTITY);
+                        failures.put(intake.getId(), "Insufficient quantity: " + outcome.getRefusal());
+                    }
+                }
+            } catch (FeignException e) {
+                // ecommadmin failed rather than refused the stock; these intakes wait for the next attempt
+                log.warn("Could not reserve stock for {} order intakes, requeueing them: {}",
+                        reservable.size(), e.getMessage());
+                unplaced.addAll(reservable);
+                requeue(unplaced);
+            }
+        }
+        List<OrderIntake> attempted = intakes.stream().filter(intake -> !unplaced.contains(intake)).toList();
+        if (attempted.isEmpty()) {
+            return;
+        }
+
+        try {
+            groupCommit(placements, failures, claimedAt);
+        } catch (RuntimeException e) {
+            if (attempted.size() == 1) {
+                if (isTransient(e)) {
+                    // Reservations were released with the rollback; the recovery sweep picks the intake up again
+                    log.warn("Could not place order intake {}, requeueing it: {}",
+                            attempted.get(0).getId(), e.getMessage());
+                    requeue(attempted);
+                } else {
+                    markFailed(attempted.get(0).getId(), claimedAt, e.getMessage());
+                }
+                return;
+            }
+            // Reservations were released with the rollback; retry each intake on its own
+            log.warn("Group commit of {} orders failed, retrying individually: {}", attempted.size(), e.getMessage());
+            requeue(attempted);
+            attempted.forEach(intake -> process(List.of(intake.getId())));
+        }
+    }
+
+    // Lock the queued intakes of the batch, mark them as being processed and load them
+    private List<OrderIntake> claim(List<Long> intakeIds, LocalDateTime claimedAt) {
+        return transactionTemplate.execute(status -> {
+            List<Long> queued = intakeRepository.lockQueued(new LinkedHashSet<>(intakeIds));
+            if (queued.isEmpty()) {
+                return List.of();
+            }
+            int claimed = intakeRepository.updateStatus(queued, IntakeStatus.QUEUED, IntakeStatus.PROCESSING, claimedAt);
+            if (claimed != queued.size()) {
+                throw new IllegalStateException("Claimed " + claimed + " of " + queued.size() + " locked intakes");
+            }
+            return intakeRepository.findWithItemsByIdIn(queued);
+        });
+    }
+
+    private void requeue(List<OrderIntake> intakes) {
+        transactionTemplate.executeWithoutResult(status -> intakeRepository.updateStatus(
+                intakes.stream().map(OrderIntake::getId).toList(),
+                IntakeStatus.PROCESSING, IntakeStatus.QUEUED, LocalDateTime.now()));
+    }
+
+    private Map<Long, ProductResponse> fetchProducts(List<OrderIntake> intakes) {
+        Set<Long> productIds = intakes.stream()
+                .flatMap(intake -> intake.getItems().stream())
+                .map(OrderIntakeItem::getProductId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        ProductBatchResponse batch = productCatalogClient.getProductsByIds(new ArrayList<>(productIds));
+        return batch.getProducts().stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+    }
+
+    private void checkProducts(OrderIntake intake, Map<Long, ProductResponse> products) {
+        List<Long> missing = intake.getItems().stream()
+                .map(OrderIntakeItem::getProductId)
+                .filter(productId -> !products.containsKey(productId))
+                .toList();
+        if (!missing.isEmpty()) {
+            orderMetrics.validationFailed(OrderMetrics.PRODUCT_NOT_FOUND);
+            throw new RuntimeException("Product not found: " + missing);
+        }
+    }
+
+    // Build the order of an intake whose stock is reserved; nothing is written yet
+    private Placement place(OrderIntake intake, Map<Long, ProductResponse> products, String reservationId) {
+        Order order = new Order();
+        order.setBuyerId(intake.getBuyerId());
+        order.setStatus(Order.OrderStatus.PLACED);
+        for (OrderIntakeItem item : intake.getItems()) {
+            order.addLine(new OrderLine(item.getProductId(), item.getQuantity(),
+                    products.get(item.getProductId()).getPrice()));
+        }
+        order.updateTotal();
+        return new Placement(intake, order, reservationId);
+    }
+
+    private void groupCommit(List<Placement> placements, Map<Long, String> failures, LocalDateTime claimedAt) {
+        List<String> reservationIds = placements.stream().map(Placement::reservationId).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            reservationSettler.releaseUnlessCommitted(reservationIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    placements.forEach(placement -> placed(placement));
+                }
+            });
+
+            List<Long> intakeIds = new ArrayList<>(failures.keySet());
+            placements.forEach(placement -> intakeIds.add(placement.intake().getId()));
+            LocalDateTime now = LocalDateTime.now();
+
+            // The recovery sweep requeues intakes that take too long, and another worker may have claimed them since
+            if (intakeRepository.renewClaim(intakeIds, claimedAt, now) != intakeIds.size()) {
+                throw new IllegalStateException("Order intakes were requeued while being placed");
+            }
+
+            orderRepository.saveAll(placements.stream().map(Placement::order).toList());
+
+            Map<Long, Placement> placed = placements.stream()
+                    .collect(Collectors.toMap(placement -> placement.intake().getId(), Function.identity()));
+            for (OrderIntake intake : intakeRepository.findAllById(intakeIds)) {
+                Placement placement = placed.get(intake.getId());
+                if (placement != null) {
+                    intake.setStatus(IntakeStatus.PLACED);
+                    intake.setOrderId(placement.order().getId());
+                } else {
+                    intake.setStatus(IntakeStatus.FAILED);
+                    intake.setFailureReason(truncate(failures.get(intake.getId())));
+                }
+                intake.setUpdatedAt(now);
+            }
+
+            // Only the ordered lines are removed; anything added to the cart since stays
+            List<CartLine> orderedLines = placements.stream()
+                    .flatMap(placement -> placement.intake().getItems().stream()
+                            .map(item -> new CartLine(placement.intake().getBuyerId(), item.getProductId())))
+                    .toList();
+            if (!orderedLines.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_CART_LINE_SQL, orderedLines, orderedLines.size(), (statement, line) -> {
+                    statement.setLong(1, line.buyerId());
+                    statement.setLong(2, line.productId());
+                });
+            }
+
+            // Last, so a failure to commit the reservations rolls back the orders
+            orderRepository.flush();
+            reservationSettler.claim(reservationIds);
+        });
+    }
+
+    private void placed(Placement placement) {
+        orderMetrics.orderPlaced(OrderMetrics.ASYNC, placement.order().getLines().size());
+        OrderIntake intake = placement.intake();
+        cartStore.discard(intake.getBuyerId(), intake.getItems().stream()
+                .map(item -> new Cart(null, intake.getBuyerId(), item.getProductId(), item.getQuantity()))
+                .toList());
+    }
+
+    private void markFailed(Long intakeId, LocalDateTime claimedAt, String reason) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (intakeRepository.renewClaim(List.of(intakeId), claimedAt, LocalDateTime.now()) == 0) {
+                log.warn("Order intake {} was requeued while being placed, leaving it to its new claim", intakeId);
+                return;
+            }
+            intakeRepository.findById(intakeId).ifPresent(intake -> {
+                intake.setStatus(IntakeStatus.FAILED);
+                intake.setFailureReason(truncate(reason));
+                intake.setUpdatedAt(LocalDateTime.now());
+            });
+        });
+    }
+
+    // Failures that a later attempt of the same intake can get past
+    private static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException
+                    || cause instanceof ProductCatalogUnavailableException) {
+                return true;
+            }
+            // No status means ecommadmin was not reached; 5xx means it failed rather than refused
+            if (cause instanceof FeignException feign && (feign.status() < 0 || feign.status() >= 500)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String truncate(String reason) {
+        if (reason == null) {
+            return null;
+        }
+        return reason.length() > 500 ? reason.substring(0, 500) : reason;
+    }
+
+    private record Placement(OrderIntake intake, Order order, String reservationId) {
+    }
+
+    private record CartLine(Long buyerId, Long productId) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.common.security.AuthenticatedUser;
+import com.ecomm.common.security.JwtVerifier;
+import com.ecomm.ecommbuyer.dto.OrderIntakeResponse;
+import com.ecomm.ecommbuyer.entity.Cart;
+import com.ecomm.ecommbuyer.entity.OrderIntake.IntakeStatus;
+import com.ecomm.ecommbuyer.entity.OrderIntake;
+import com.ecomm.ecommbuyer.entity.OrderIntakeItem;
+import com.ecomm.ecommbuyer.repository.OrderIntakeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accepts orders for asynchronous placement and reports their progress.
+ *
+ * Accepting only snapshots the cart into an intake record and queues it; the
+ * stock checks and inserts happen in {@link OrderIntakePipeline}.
+ */
+@Service
+public class OrderIntakeService {
+
+    private static final List<IntakeStatus> IN_PROGRESS = List.of(IntakeStatus.QUEUED, IntakeStatus.PROCESSING);
+
+    private final OrderIntakeRepository intakeRepository;
+    private final JwtVerifier jwtVerifier;
+    private final CartStore cartStore;
+    private final OrderIntakePipeline pipeline;
+    private final OrderMetrics orderMetrics;
+    private final boolean asyncByDefault;
+
+    // Buyers with a checkout being accepted or placed synchronously, so a double submit cannot order the cart twice
+    private final Map<Long, Boolean> accepting = new ConcurrentHashMap<>();
+
+    public OrderIntakeService(OrderIntakeRepository intakeRepository,
+            JwtVerifier jwtVerifier,
+            CartStore cartStore,
+            OrderIntakePipeline pipeline,
+            OrderMetrics orderMetrics,
+            @Value("${orders.intake.async-by-default}") boolean asyncByDefault) {
+        this.intakeRepository = intakeRepository;
+        this.jwtVerifier = jwtVerifier;
+        this.cartStore = cartStore;
+        this.pipeline = pipeline;
+        this.orderMetrics = orderMetrics;
+        this.asyncByDefault = asyncByDefault;
+    }
+
+    public boolean isAsyncByDefault() {
+        return asyncByDefault;
+    }
+
+    public OrderIntakeResponse accept(String authHeader) {
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
+
+        if (!"BUYER".equals(user.role())) {
+            orderMetrics.validationFailed(OrderMetrics.ACCESS_DENIED);
+            throw new RuntimeException("Access denied. Buyer role required.");
+        }
+
+        if (accepting.putIfAbsent(user.userId(), Boolean.TRUE) != null) {
+            orderMetrics.validationFailed(OrderMetrics.ORDER_IN_PROGRESS);
+            throw new RuntimeException("An order for this cart is already being processed");
+        }
+        try {
+            if (intakeRepository.existsByBuyerIdAndStatusIn(user.userId(), IN_PROGRESS)) {
+                orderMetrics.validationFailed(OrderMetrics.ORDER_IN_PROGRESS);
+                throw new RuntimeException("An order for this cart is already being processed");
+            }
+
+            // Write pending cart changes first so the table matches the cart being ordered
+            cartStore.flush(user.userId());
+            List<Cart> cartItems = cartStore.getCart(user.userId());
+            if (cartItems.isEmpty()) {
+                orderMetrics.validationFailed(OrderMetrics.CART_EMPTY);
+                throw new RuntimeException("Cart is empty");
+            }
+
+            OrderIntake intake = new OrderIntake();
+            intake.setBuyerId(user.userId());
+            intake.setStatus(IntakeStatus.QUEUED);
+            intake.setUpdatedAt(LocalDateTime.now());
+            cartItems.forEach(cartItem ->
+                    intake.getItems().add(new OrderIntakeItem(cartItem.getProductId(), cartItem.getQuantity())));
+            OrderIntake saved = intakeRepository.save(intake);
+
+            pipeline.submit(saved.getId());
+            return toResponse(saved);
+        } finally {
+            accepting.remove(user.userId());
+        }
+    }
+
+    /**
+     * Keep a synchronous checkout from overlapping another order of the same
+     * buyer, whether it is being accepted, still queued or being placed. Holds
+     * until the current transaction completes.
+     *
+     * @param buyerId Buyer placing the order
+     */
+    public void guardSynchronousCheckout(Long buyerId) {
+        if (accepting.putIfAbsent(buyerId, Boolean.TRUE) != null) {
+            orderMetrics.validationFailed(OrderMetrics.ORDER_IN_PROGRESS);
+            throw new RuntimeException("An order for this cart is already being processed");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                accepting.remove(buyerId);
+            }
+        });
+        if (intakeRepository.existsByBuyerIdAndStatusIn(buyerId, IN_PROGRESS)) {
+            orderMetrics.validationFailed(OrderMetrics.ORDER_IN_PROGRESS);
+            throw new RuntimeException("An order for this cart is already being processed");
+        }
+    }
+
+    public OrderIntakeResponse getStatus(Long intakeId, String authHeader) {
+        // Verify JWT token locally
+        AuthenticatedUser user = jwtVerifier.verify(authHeader);
+
+        if (!"BUYER".equals(user.role())) {
+            orderMetrics.validationFailed(OrderMetrics.ACCESS_DENIED);
+            throw new RuntimeException("Access denied. Buyer role required.");
+        }
+
+        // Other buyers' intakes are reported as missing
+        OrderIntake intake = intakeRepository.findById(intakeId)
+                .filter(found -> found.getBuyerId().equals(user.userId()))
+                .orElseThrow(() -> new RuntimeException("Order intake not found"));
+        return toResponse(intake);
+    }
+
+    private OrderIntakeResponse toResponse(OrderIntake intake) {
+        return new OrderIntakeResponse(intake.getId(), intake.getStatus().name(), intake.getOrderId(),
+                intake.getFailureReason());
+    }
+}
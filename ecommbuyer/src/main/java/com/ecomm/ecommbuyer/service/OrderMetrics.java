@@ -0,0 +1,87 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.common.metrics.ValidationFailures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cart and checkout counters of ecommbuyer.
+ *
+ * orders.placed counts committed orders by how they were placed, with the
+ * number of lines per order in orders.lines, and cart.lines.added counts
+ * products put into carts. Together they give the cart-to-order conversion
+ * that request latencies alone do not show. orders.reservations counts how
+ * the stock reservations behind orders were settled with ecommadmin.
+ */
+@Component
+public class OrderMetrics {
+
+    public static final String SYNC = "sync";
+    public static final String ASYNC = "async";
+
+    public static final String COMMITTED = "committed";
+    public static final String RELEASED = "released";
+    public static final String RELEASE_FAILED = "release_failed";
+
+    public static final String ACCESS_DENIED = "access_denied";
+    public static final String CART_EMPTY = "cart_empty";
+    public static final String INSUFFICIENT_QUANTITY = "insufficient_quantity";
+    public static final String INVALID_CURSOR = "invalid_cursor";
+    public static final String ORDER_IN_PROGRESS = "order_in_progress";
+    public static final String PRODUCT_NOT_FOUND = "product_not_found";
+
+    private final MeterRegistry meterRegistry;
+    private final Counter cartLinesAdded;
+    private final DistributionSummary orderLines;
+    private final ValidationFailures validationFailures;
+
+    public OrderMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.validationFailures = new ValidationFailures(meterRegistry);
+        this.cartLinesAdded = Counter.builder("cart.lines.added")
+                .description("Products added to a cart")
+                .register(meterRegistry);
+        this.orderLines = DistributionSummary.builder("orders.lines")
+                .description("Lines per placed order")
+                .register(meterRegistry);
+    }
+
+    public void cartLineAdded() {
+        cartLinesAdded.increment();
+    }
+
+    /**
+     * Record a committed order
+     *
+     * @param mode  SYNC or ASYNC
+     * @param lines Number of order lines
+     */
+    public void orderPlaced(String mode, int lines) {
+        Counter.builder("orders.placed")
+                .description("Committed orders")
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .increment();
+        orderLines.record(lines);
+    }
+
+    /**
+     * Record the settlement of stock reservations
+     *
+     * @param outcome      COMMITTED, RELEASED or RELEASE_FAILED
+     * @param reservations Number of reservations
+     */
+    public void reservationsSettled(String outcome, int reservations) {
+        Counter.builder("orders.reservations")
+                .description("Stock reservations settled with ecommadmin")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(reservations);
+    }
+
+    public void validationFailed(String reason) {
+        validationFailures.record(reason);
+    }
+}
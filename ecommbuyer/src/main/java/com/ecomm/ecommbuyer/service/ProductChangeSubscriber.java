@@ -0,0 +1,93 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.ecommbuyer.client.AdminClient;
+import com.ecomm.ecommbuyer.client.ProductCatalogClient;
+import com.ecomm.ecommbuyer.dto.ProductChangeEvent;
+import com.ecomm.ecommbuyer.dto.ProductChangeFeed;
+import com.ecomm.ecommbuyer.dto.ProductChangeSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the local catalog snapshot current from the ecommadmin product change feed.
+ *
+ * Full reloads come with the feed position the products reflect, read in the
+ * same transaction on the ecommadmin side. Changes committed before the reload
+ * but sequenced after that position are listed with it and skipped, so no stock
+ * adjustment is applied twice. When the feed reports that changes were cleaned
+ * up before they were read, the catalog is reloaded in full.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "catalog.change-feed.enabled", havingValue = "true")
+public class ProductChangeSubscriber {
+
+    private final AdminClient adminClient;
+    private final ProductCatalogClient productCatalogClient;
+    private final CatalogCache catalogCache;
+    private final int batchSize;
+    private final long resyncInterval;
+
+    // Only touched by the scheduler thread
+    private long lastSequence = -1;
+    private long lastResync;
+    // Changes the last reload contains although they come after its feed position
+    private Set<Long> includedChangeIds = Set.of();
+
+    public ProductChangeSubscriber(AdminClient adminClient,
+            ProductCatalogClient productCatalogClient,
+            CatalogCache catalogCache,
+            @Value("${catalog.change-feed.batch-size}") int batchSize,
+            @Value("${catalog.change-feed.resync-interval}") long resyncInterval) {
+        this.adminClient = adminClient;
+        this.productCatalogClient = productCatalogClient;
+        this.catalogCache = catalogCache;
+        this.batchSize = batchSize;
+        this.resyncInterval = resyncInterval;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.change-feed.poll-interval}")
+    public void poll() {
+        try {
+            if (lastSequence < 0 || System.currentTimeMillis() - lastResync >= resyncInterval) {
+                resync();
+                return;
+            }
+
+            ProductChangeFeed feed;
+            do {
+                feed = adminClient.getProductChanges(lastSequence, batchSize);
+                if (feed.isResyncRequired()) {
+                    resync();
+                    return;
+                }
+                List<ProductChangeEvent> events = feed.getEvents();
+                if (!events.isEmpty()) {
+                    List<ProductChangeEvent> missed = events.stream()
+                            .filter(event -> !includedChangeIds.contains(event.getChangeId()))
+                            .toList();
+                    if (!missed.isEmpty()) {
+                        catalogCache.applyChanges(missed, ids -> productCatalogClient.getProductsByIds(ids).getProducts());
+                    }
+                    lastSequence = events.get(events.size() - 1).getSequence();
+                }
+            } while (feed.getEvents().size() >= batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Product change feed poll failed, serving last snapshot: {}", e.getMessage());
+        }
+    }
+
+    private void resync() {
+        ProductChangeSnapshot snapshot = adminClient.getProductChangeSnapshot();
+        catalogCache.replace(snapshot.getProducts());
+        lastSequence = snapshot.getHeadSequence();
+        includedChangeIds = Set.copyOf(snapshot.getIncludedChangeIds());
+        lastResync = System.currentTimeMillis();
+    }
+}
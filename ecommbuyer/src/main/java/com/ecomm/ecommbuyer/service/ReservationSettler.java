@@ -0,0 +1,259 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.ecommbuyer.client.AdminClient;
+import com.ecomm.ecommbuyer.dto.ReservationItem;
+import com.ecomm.ecommbuyer.dto.ReservationOutcome;
+import com.ecomm.ecommbuyer.dto.ReservationResponse;
+import com.ecomm.ecommbuyer.entity.PendingReservation;
+import com.ecomm.ecommbuyer.repository.PendingReservationRepository;
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps ecommadmin stock reservations in step with the orders that use them.
+ *
+ * A reservation is recorded as pending, in its own transaction, as soon as
+ * ecommadmin grants it. The order transaction claims it by deleting that row
+ * and commits it at ecommadmin before the order is stored, so a stored order
+ * always holds a committed reservation, which ecommadmin never expires. If the
+ * order transaction does not commit, the row is still there and the
+ * reservation is released: right away, or by the periodic retry if ecommadmin
+ * cannot be reached. A release first marks the row in a short transaction of
+ * its own and only then calls ecommadmin; a claim deletes unmarked rows only,
+ * so a reservation is either used by a stored order or released, never both.
+ */
+@Slf4j
+@Component
+public class ReservationSettler {
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    private final AdminClient adminClient;
+    private final PendingReservationRepository pendingRepository;
+    private final OrderMetrics orderMetrics;
+    private final TransactionTemplate ownTransaction;
+    private final long releaseAfter;
+    private final long retryInterval;
+    private final int batchSize;
+
+    public ReservationSettler(AdminClient adminClient,
+            PendingReservationRepository pendingRepository,
+            OrderMetrics orderMetrics,
+            PlatformTransactionManager transactionManager,
+            @Value("${orders.reservations.release-after}") long releaseAfter,
+            @Value("${orders.reservations.retry-interval}") long retryInterval,
+            @Value("${orders.reservations.batch-size}") int batchSize) {
+        this.adminClient = adminClient;
+        this.pendingRepository = pendingRepository;
+        this.orderMetrics = orderMetrics;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.releaseAfter = releaseAfter;
+        this.retryInterval = retryInterval;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reserve stock at ecommadmin and record the reservation as pending. Inside
+     * a transaction, the reservation is released if that transaction does not
+     * commit.
+     *
+     * @param items Products and quantities
+     * @return Reservation id
+     * @throws FeignException if ecommadmin refused the reservation
+     */
+    public String reserve(List<ReservationItem> items) {
+        String reservationId = adminClient.reserve(items).getReservationId();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            ownTransaction.executeWithoutResult(status ->
+                    pendingRepository.insert(reservationId, now, now.plus(Duration.ofMillis(releaseAfter))));
+        } catch (RuntimeException e) {
+            // Not recorded, so give it back now or leave it to ecommadmin's expiry
+            try {
+                adminClient.releaseReservation(reservationId);
+            } catch (FeignException releaseFailure) {
+                log.warn("Could not release unrecorded stock reservation {}: {}", reservationId, releaseFailure.getMessage());
+            }
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseUnlessCommitted(List.of(reservationId));
+        }
+        return reservationId;
+    }
+
+    /**
+     * Make several independent reservations with one call to ecommadmin and
+     * record the granted ones as pending, as {@link #reserve} does for one.
+     *
+     * @param requests Products and quantities of each reservation
+     * @return Outcome of each reservation, in request order
+     * @throws FeignException if ecommadmin could not be asked
+     */
+    public List<ReservationOutcome> reserveEach(List<List<ReservationItem>> requests) {
+        List<ReservationOutcome> outcomes = adminClient.reserveEach(requests);
+        List<String> reservationIds = outcomes.stream()
+                .map(ReservationOutcome::getReservation)
+                .filter(Objects::nonNull)
+                .map(ReservationResponse::getReservationId)
+                .toList();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            ownTransaction.executeWithoutResult(status -> reservationIds.forEach(reservationId ->
+                    pendingRepository.insert(reservationId, now, now.plus(Duration.ofMillis(releaseAfter)))));
+        } catch (RuntimeException e) {
+            for (String reservationId : reservationIds) {
+                try {
+                    adminClient.releaseReservation(reservationId);
+                } catch (FeignException releaseFailure) {
+                    log.warn("Could not release unrecorded stock reservation {}: {}",
+                            reservationId, releaseFailure.getMessage());
+                }
+            }
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !reservationIds.isEmpty()) {
+            releaseUnlessCommitted(reservationIds);
+        }
+        return outcomes;
+    }
+
+    /**
+     * Release the reservations if the current transaction does not commit.
+     * Reservations made inside the transaction are covered already.
+     *
+     * @param reservationIds Reservations returned by {@link #reserve}
+     */
+    public void releaseUnlessCommitted(List<String> reservationIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    reservationIds.forEach(ReservationSettler.this::release);
+                }
+            }
+        });
+    }
+
+    /**
+     * Use the reservations for the orders of the current transaction by
+     * committing them at ecommadmin. Call this once everything else the
+     * transaction writes has been flushed, so only the database commit itself
+     * can still fail, and the reservations are then released again.
+     *
+     * @param reservationIds Reservations returned by {@link #reserve}
+     */
+    public void claim(List<String> reservationIds) {
+        if (reservationIds.isEmpty()) {
+            return;
+        }
+        if (pendingRepository.deleteClaimable(reservationIds) != reservationIds.size()) {
+            throw new RuntimeException("Stock reservation was released before the order was stored");
+        }
+        try {
+            adminClient.commitReservations(reservationIds);
+        } catch (FeignException e) {
+            throw new RuntimeException("Could not commit stock reservation: " + e.getMessage(), e);
+        }
+        orderMetrics.reservationsSettled(OrderMetrics.COMMITTED, reservationIds.size());
+    }
+
+    /**
+     * Release the reservation if it is still pending and no other transaction holds it
+     *
+     * @param reservationId Reservation id
+     */
+    public void release(String reservationId) {
+        List<String> marked;
+        try {
+            marked = ownTransaction.execute(status -> markReleasing(pendingRepository.lockById(reservationId)));
+        } catch (RuntimeException e) {
+            log.warn("Could not release stock reservation {}, it is retried later: {}", reservationId, e.getMessage());
+            return;
+        }
+        marked.forEach(this::releaseMarked);
+    }
+
+    /**
+     * Release reservations whose orders were not stored and that are due for an attempt
+     */
+    @Scheduled(fixedDelayString = "${orders.reservations.retry-interval}")
+    public void releaseAbandoned() {
+        List<String> due;
+        do {
+            due = ownTransaction.execute(status ->
+                    markReleasing(pendingRepository.lockDue(LocalDateTime.now(), batchSize)));
+            due.forEach(this::releaseMarked);
+        } while (due.size() == batchSize);
+    }
+
+    // Runs in the transaction that locked the rows; marked rows are not due again before the next retry
+    private List<String> markReleasing(List<String> reservationIds) {
+        if (!reservationIds.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            pendingRepository.markReleasing(reservationIds, now, now.plus(Duration.ofMillis(retryInterval)));
+        }
+        return reservationIds;
+    }
+
+    // Outside any transaction, so no row lock or connection is held while ecommadmin answers
+    private void releaseMarked(String reservationId) {
+        try {
+            adminClient.releaseReservation(reservationId);
+        } catch (FeignException e) {
+            if (e.status() != HttpStatus.CONFLICT.value()) {
+                recordFailure(reservationId, e);
+                return;
+            }
+            // ecommadmin does not know the reservation, so there is nothing to give back
+            log.warn("Stock reservation {} is unknown to ecommadmin: {}", reservationId, e.contentUTF8());
+        }
+        try {
+            ownTransaction.executeWithoutResult(status -> pendingRepository.deleteById(reservationId));
+        } catch (RuntimeException e) {
+            // Releasing it again on the next attempt changes nothing at ecommadmin
+            log.warn("Released stock reservation {} is still pending: {}", reservationId, e.getMessage());
+            return;
+        }
+        orderMetrics.reservationsSettled(OrderMetrics.RELEASED, 1);
+    }
+
+    private void recordFailure(String reservationId, FeignException e) {
+        orderMetrics.reservationsSettled(OrderMetrics.RELEASE_FAILED, 1);
+        try {
+            int attempts = ownTransaction.execute(status -> {
+                int previous = pendingRepository.findById(reservationId).map(PendingReservation::getAttempts).orElse(0);
+                long backoff = Math.min(retryInterval << Math.min(previous, 20), MAX_BACKOFF.toMillis());
+                pendingRepository.recordFailure(reservationId, LocalDateTime.now().plus(Duration.ofMillis(backoff)),
+                        truncate(e.getMessage()));
+                return previous + 1;
+            });
+            log.warn("Could not release stock reservation {} (attempt {}): {}", reservationId, attempts, e.getMessage());
+        } catch (RuntimeException recordFailure) {
+            // The mark keeps it from being due again before the next retry interval
+            log.warn("Could not release stock reservation {}: {}", reservationId, e.getMessage());
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
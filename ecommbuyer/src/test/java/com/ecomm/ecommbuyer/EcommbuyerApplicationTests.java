@@ -3,7 +3,7 @@ package com.ecomm.ecommbuyer;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "inventory.service-secret=test-secret")
 class EcommbuyerApplicationTests {
 
     @Test
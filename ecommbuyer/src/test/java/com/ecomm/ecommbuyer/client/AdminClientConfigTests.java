@@ -0,0 +1,37 @@
+package com.ecomm.ecommbuyer.client;
+
+import com.ecomm.common.security.ServiceCredentials;
+import feign.RequestTemplate;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdminClientConfigTests {
+
+    private final AdminClientConfig config = new AdminClientConfig();
+
+    @Test
+    void inventoryCallsCarryTheSecret() {
+        RequestTemplate template = new RequestTemplate().uri("/api/admin/inventory/reservations");
+
+        config.inventoryCredentialInterceptor("s3cret").apply(template);
+
+        assertThat(template.headers().get(ServiceCredentials.HEADER)).containsExactly("s3cret");
+    }
+
+    @Test
+    void productCallsDoNotCarryTheSecret() {
+        RequestTemplate template = new RequestTemplate().uri("/api/admin/products/batch");
+
+        config.inventoryCredentialInterceptor("s3cret").apply(template);
+
+        assertThat(template.headers()).doesNotContainKey(ServiceCredentials.HEADER);
+    }
+
+    @Test
+    void refusesToStartWithoutASecret() {
+        assertThatThrownBy(() -> config.inventoryCredentialInterceptor(" "))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,35 @@
+package com.ecomm.ecommbuyer.client;
+
+import com.ecomm.common.rpc.ProductBatchLimits;
+import com.ecomm.ecommbuyer.dto.ProductBatchResponse;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCatalogClientTests {
+
+    @Test
+    void largeLookupsAreSplitIntoBatchesEcommadminAccepts() {
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 2 * ProductBatchLimits.MAX_IDS + 1).boxed().toList());
+        ids.add(1L);
+        List<Integer> batchSizes = new ArrayList<>();
+
+        ProductBatchResponse response = ProductCatalogClient.inBatches(ids, batch -> {
+            batchSizes.add(batch.size());
+            // Odd ids exist, even ids are missing
+            List<ProductResponse> products = batch.stream().filter(id -> id % 2 == 1)
+                    .map(id -> new ProductResponse(id, 1L, "p" + id, null, null, 1)).toList();
+            List<Long> missingIds = batch.stream().filter(id -> id % 2 == 0).toList();
+            return new ProductBatchResponse(products, missingIds);
+        });
+
+        assertThat(batchSizes).containsExactly(ProductBatchLimits.MAX_IDS, ProductBatchLimits.MAX_IDS, 1);
+        assertThat(response.getProducts()).hasSize(ProductBatchLimits.MAX_IDS + 1);
+        assertThat(response.getMissingIds()).hasSize(ProductBatchLimits.MAX_IDS);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecomm.ecommbuyer.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderLineMigrationTests {
+
+    private static final String RECORD_VERSION = "insert into schema_version (version, description, applied_at)"
+            + " values (?, ?, now(6))";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    void newDatabaseIsRecordedAtVersionTwoWithoutMigrating() {
+        database(false, 0);
+
+        migration(false).migrate();
+
+        verify(jdbcTemplate).update(RECORD_VERSION, OrderLineMigration.VERSION, "order lines");
+        verify(jdbcTemplate, never()).execute(startsWith("alter table"));
+    }
+
+    @Test
+    void databaseAlreadyAtVersionTwoIsLeftAlone() {
+        database(false, 1);
+
+        migration(true).migrate();
+
+        verify(jdbcTemplate, never()).update(eq(RECORD_VERSION), anyInt(), anyString());
+        verify(jdbcTemplate, never()).execute(startsWith("create table if not exists orders_v1_backup"));
+    }
+
+    @Test
+    void legacyDatabaseStopsStartupUntilTheMigrationIsEnabled() {
+        database(true, 0);
+
+        assertThatThrownBy(() -> migration(false).migrate())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("migration.order-lines.enabled=true");
+        verify(jdbcTemplate, never()).execute(startsWith("create table if not exists orders_v1_backup"));
+        verify(jdbcTemplate, never()).execute(startsWith("alter table"));
+    }
+
+    @Test
+    void enabledMigrationBacksUpTheRowsBeforeMovingThemAndDroppingTheColumns() {
+        database(true, 0);
+
+        migration(true).migrate();
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(startsWith("create table if not exists orders_v1_backup"));
+        inOrder.verify(jdbcTemplate).update(startsWith("insert into order_lines"));
+        inOrder.verify(jdbcTemplate).execute("alter table orders drop column product_id, drop column quantity");
+        inOrder.verify(jdbcTemplate).update(RECORD_VERSION, OrderLineMigration.VERSION, "order lines");
+    }
+
+    private void database(boolean legacyColumns, int applied) {
+        when(jdbcTemplate.queryForObject(startsWith("select count(*) from schema_version"), eq(Integer.class),
+                eq(OrderLineMigration.VERSION))).thenReturn(applied);
+        when(jdbcTemplate.queryForObject(startsWith("select count(*) from information_schema.columns"),
+                eq(Integer.class))).thenReturn(legacyColumns ? 1 : 0);
+    }
+
+    private OrderLineMigration migration(boolean enabled) {
+        return new OrderLineMigration(jdbcTemplate, mock(EntityManagerFactory.class), enabled);
+    }
+}
@@ -0,0 +1,161 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.ecommbuyer.entity.Cart;
+import com.ecomm.ecommbuyer.repository.CartRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class CartStoreTests {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final BeforeExecutionGenerator idGenerator = mock(BeforeExecutionGenerator.class);
+    private final AtomicLong nextId = new AtomicLong(100);
+
+    // Rows each flush wrote, as [id, buyer, product, quantity] for upserts and [buyer, product] for deletes
+    private final List<List<Long>> upserts = new ArrayList<>();
+    private final List<List<Long>> deletes = new ArrayList<>();
+    private Runnable duringFlush = () -> { };
+
+    private CartStore cartStore;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(sessionFactory.openStatelessSession()).thenAnswer(invocation -> mock(StatelessSession.class,
+                withSettings().extraInterfaces(SharedSessionContractImplementor.class)));
+        SessionFactoryImplementor sessionFactoryImplementor = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+        when(sessionFactoryImplementor.getMappingMetamodel().getEntityDescriptor(Cart.class).getGenerator())
+                .thenReturn(idGenerator);
+        when(idGenerator.generate(any(), any(), any(), any())).thenAnswer(invocation -> nextId.getAndIncrement());
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactoryImplementor);
+
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    String sql = invocation.getArgument(0);
+                    Collection<Object> rows = invocation.getArgument(1);
+                    ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+                    for (Object row : rows) {
+                        Map<Integer, Long> values = new TreeMap<>();
+                        PreparedStatement statement = mock(PreparedStatement.class, call -> {
+                            values.put(call.getArgument(0), ((Number) call.getArgument(1)).longValue());
+                            return null;
+                        });
+                        setter.setValues(statement, row);
+                        (sql.startsWith("insert") ? upserts : deletes).add(List.copyOf(values.values()));
+                    }
+                    if (sql.startsWith("insert")) {
+                        Runnable hook = duringFlush;
+                        duringFlush = () -> { };
+                        hook.run();
+                    }
+                    return new int[0][];
+                });
+
+        cartStore = new CartStore(mock(CartRepository.class), jdbcTemplate, mock(PlatformTransactionManager.class),
+                entityManagerFactory, 1000, 60_000, 50);
+    }
+
+    @Test
+    void concurrentAddsOfOneProductMergeIntoOneLine() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> adds = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                adds.add(executor.submit(() -> cartStore.add(1L, 5L, 1)));
+            }
+            for (Future<?> add : adds) {
+                add.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(cartStore.getCart(1L)).singleElement()
+                .extracting(Cart::getQuantity).isEqualTo(400);
+        cartStore.flush();
+        assertThat(upserts).singleElement().satisfies(row -> assertThat(row.subList(1, 4)).containsExactly(1L, 5L, 400L));
+    }
+
+    @Test
+    void changeMadeDuringAFlushIsWrittenByTheNextOne() {
+        Cart line = cartStore.add(1L, 5L, 2);
+        duringFlush = () -> cartStore.add(1L, 5L, 3);
+
+        cartStore.flush();
+        cartStore.flush();
+
+        assertThat(upserts).containsExactly(
+                List.of(line.getId(), 1L, 5L, 2L),
+                List.of(line.getId(), 1L, 5L, 5L));
+        cartStore.flush();
+        assertThat(upserts).hasSize(2);
+    }
+
+    @Test
+    void lineRemovedAndAddedAgainBeforeAFlushKeepsItsId() {
+        Cart added = cartStore.add(1L, 5L, 2);
+        cartStore.remove(1L, 5L);
+
+        Cart readded = cartStore.add(1L, 5L, 4);
+
+        assertThat(readded.getId()).isEqualTo(added.getId());
+        verify(idGenerator, times(1)).generate(any(), any(), any(), any());
+        cartStore.flush();
+        assertThat(upserts).containsExactly(List.of(added.getId(), 1L, 5L, 4L));
+        assertThat(deletes).isEmpty();
+    }
+
+    @Test
+    void discardWritesAgainALineChangedAfterTheDelete() {
+        Cart unchanged = cartStore.add(1L, 5L, 2);
+        Cart changed = cartStore.add(1L, 6L, 1);
+        cartStore.flush();
+        // Placing the order deletes the rows as they were read, while the buyer keeps adding
+        List<Cart> deleted = cartStore.getCart(1L);
+        cartStore.add(1L, 6L, 2);
+        cartStore.flush();
+        upserts.clear();
+
+        cartStore.discard(1L, deleted);
+
+        assertThat(cartStore.getCart(1L)).extracting(Cart::getProductId).containsExactly(6L);
+        assertThat(cartStore.findLine(1L, unchanged.getId())).isEmpty();
+        cartStore.flush();
+        assertThat(upserts).containsExactly(List.of(changed.getId(), 1L, 6L, 3L));
+    }
+}
@@ -0,0 +1,94 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.ecommbuyer.client.AdminClient;
+import com.ecomm.ecommbuyer.client.JsonProductCatalogClient;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogCacheTests {
+
+    private static final String VERSION = "W/\"v7\"";
+
+    private final AdminClient adminClient = mock(AdminClient.class);
+    private CatalogCache catalogCache;
+
+    @BeforeEach
+    void setUp() {
+        catalogCache = new CatalogCache(new JsonProductCatalogClient(adminClient));
+        when(adminClient.getAllAvailableProducts((String) null))
+                .thenReturn(ResponseEntity.ok().eTag(VERSION).body(List.of(product(1L, 3))));
+        assertThat(catalogCache.getProducts()).extracting(ProductResponse::getId).containsExactly(1L);
+    }
+
+    @Test
+    void notModifiedRevalidationKeepsTheSnapshot() {
+        when(adminClient.getAllAvailableProducts(VERSION))
+                .thenReturn(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(VERSION).build());
+        List<ProductResponse> before = catalogCache.getProducts();
+
+        catalogCache.refresh();
+        catalogCache.refresh();
+
+        verify(adminClient, times(2)).getAllAvailableProducts(VERSION);
+        assertThat(catalogCache.getProducts()).isSameAs(before);
+    }
+
+    @Test
+    void notModifiedRaisedAsAFeignErrorAlsoKeepsTheSnapshot() {
+        when(adminClient.getAllAvailableProducts(VERSION)).thenThrow(feignError(304));
+        List<ProductResponse> before = catalogCache.getProducts();
+
+        catalogCache.refresh();
+
+        assertThat(catalogCache.getProducts()).isSameAs(before);
+    }
+
+    @Test
+    void changedCatalogReplacesTheSnapshotAndItsVersion() {
+        when(adminClient.getAllAvailableProducts(VERSION))
+                .thenReturn(ResponseEntity.ok().eTag("W/\"v8\"").body(List.of(product(1L, 3), product(2L, 5))));
+
+        catalogCache.refresh();
+        catalogCache.refresh();
+
+        assertThat(catalogCache.getProducts()).extracting(ProductResponse::getId).containsExactly(1L, 2L);
+        verify(adminClient).getAllAvailableProducts("W/\"v8\"");
+    }
+
+    @Test
+    void failedRevalidationKeepsServingTheLastSnapshot() {
+        when(adminClient.getAllAvailableProducts(VERSION)).thenThrow(feignError(503));
+
+        catalogCache.refresh();
+
+        assertThat(catalogCache.getProducts()).extracting(ProductResponse::getId).containsExactly(1L);
+        verify(adminClient, times(1)).getAllAvailableProducts((String) null);
+    }
+
+    private static FeignException feignError(int status) {
+        Request request = Request.create(Request.HttpMethod.GET, "/api/admin/products/available", Map.of(),
+                null, StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("AdminClient#getAllAvailableProducts(String)",
+                feign.Response.builder().status(status).request(request).headers(Map.of()).build());
+    }
+
+    private static ProductResponse product(Long id, int quantity) {
+        return new ProductResponse(id, 1L, "Product " + id, null, BigDecimal.TEN, quantity);
+    }
+}
@@ -0,0 +1,86 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.common.security.AuthenticatedUser;
+import com.ecomm.common.security.JwtVerifier;
+import com.ecomm.ecommbuyer.dto.CursorPage;
+import com.ecomm.ecommbuyer.entity.Order;
+import com.ecomm.ecommbuyer.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderHistoryCursorTests {
+
+    private static final String AUTH = "Bearer token";
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final JwtVerifier jwtVerifier = mock(JwtVerifier.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BuyerService buyerService;
+
+    @BeforeEach
+    void setUp() {
+        buyerService = new BuyerService(null, orderRepository, jwtVerifier, null, null, null, null, null, null,
+                new OrderMetrics(meterRegistry));
+        ReflectionTestUtils.setField(buyerService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(buyerService, "maxPageSize", 10);
+        when(jwtVerifier.verify(AUTH)).thenReturn(new AuthenticatedUser(7L, "buyer", "BUYER"));
+    }
+
+    @Test
+    void nextCursorResumesAfterLastOrderOfPage() {
+        LocalDateTime newest = LocalDateTime.of(2026, 10, 1, 12, 0, 0, 123_000_000);
+        List<Order> firstPage = new ArrayList<>(List.of(
+                order(3L, newest), order(2L, newest.minusMinutes(1)), order(1L, newest.minusMinutes(2))));
+        when(orderRepository.findByBuyerIdOrderByOrderDateDescIdDesc(eq(7L), any())).thenReturn(firstPage);
+
+        CursorPage<Order> page = buyerService.getOrderHistoryPage(null, null, AUTH);
+        assertThat(page.getItems()).extracting(Order::getId).containsExactly(3L, 2L);
+
+        when(orderRepository.findByBuyerIdBefore(eq(7L), any(), any(), any()))
+                .thenReturn(new ArrayList<>(List.of(order(1L, newest.minusMinutes(2)))));
+        CursorPage<Order> next = buyerService.getOrderHistoryPage(page.getNextCursor(), null, AUTH);
+
+        verify(orderRepository).findByBuyerIdBefore(eq(7L), eq(newest.minusMinutes(1)), eq(2L), any());
+        assertThat(next.getItems()).extracting(Order::getId).containsExactly(1L);
+        assertThat(next.getNextCursor()).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not base64!", "only-one-part", "yesterday|5", "2026-10-01T12:00|five", "a|b|c"})
+    void malformedCursorIsRejectedAsInvalid(String position) {
+        String cursor = position.equals("not base64!") ? position
+                : Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> buyerService.getOrderHistoryPage(cursor, null, AUTH))
+                .hasMessage("Invalid cursor");
+        assertThat(meterRegistry.get("validation.failures").tag("reason", OrderMetrics.INVALID_CURSOR)
+                .counter().count()).isEqualTo(1);
+        verifyNoInteractions(orderRepository);
+    }
+
+    private static Order order(Long id, LocalDateTime orderDate) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderDate(orderDate);
+        return order;
+    }
+}
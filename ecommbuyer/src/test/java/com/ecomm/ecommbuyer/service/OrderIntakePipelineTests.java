@@ -0,0 +1,207 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.ecommbuyer.client.ProductCatalogClient;
+import com.ecomm.ecommbuyer.dto.ProductBatchResponse;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import com.ecomm.ecommbuyer.dto.ReservationItem;
+import com.ecomm.ecommbuyer.dto.ReservationOutcome;
+import com.ecomm.ecommbuyer.dto.ReservationResponse;
+import com.ecomm.ecommbuyer.entity.OrderIntake;
+import com.ecomm.ecommbuyer.entity.OrderIntake.IntakeStatus;
+import com.ecomm.ecommbuyer.entity.OrderIntakeItem;
+import com.ecomm.ecommbuyer.repository.OrderIntakeRepository;
+import com.ecomm.ecommbuyer.repository.OrderRepository;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderIntakePipelineTests {
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.POST, "/api/admin/inventory/reservations",
+            Map.of(), null, StandardCharsets.UTF_8, null);
+
+    private final OrderIntakeRepository intakeRepository = mock(OrderIntakeRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final ReservationSettler reservationSettler = mock(ReservationSettler.class);
+    private final ProductCatalogClient productCatalogClient = mock(ProductCatalogClient.class);
+    private OrderIntakePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new OrderIntakePipeline(intakeRepository, orderRepository, reservationSettler, productCatalogClient,
+                mock(CartStore.class), new OrderMetrics(new SimpleMeterRegistry()), mock(JdbcTemplate.class),
+                new SynchronizingTransactionManager(), 10, 1, 0, 60000, new MockEnvironment());
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.stop();
+    }
+
+    @Test
+    void intakeLockedByAnotherWorkerIsLeftToIt() {
+        when(intakeRepository.lockQueued(Set.of(1L))).thenReturn(List.of());
+
+        pipeline.submit(1L);
+
+        verify(intakeRepository, timeout(5000)).lockQueued(Set.of(1L));
+        verify(intakeRepository, after(200).never()).updateStatus(anyCollection(), any(), any(), any());
+        verify(reservationSettler, never()).reserveEach(anyList());
+    }
+
+    @Test
+    void claimThatDoesNotMoveEveryLockedIntakeIsAbandoned() {
+        // updateStatus is left unstubbed, so it moves no rows
+        when(intakeRepository.lockQueued(Set.of(1L))).thenReturn(List.of(1L));
+
+        pipeline.submit(1L);
+
+        verify(intakeRepository, timeout(5000)).updateStatus(eq(List.of(1L)), eq(IntakeStatus.QUEUED),
+                eq(IntakeStatus.PROCESSING), any());
+        verify(intakeRepository, after(200).never()).findWithItemsByIdIn(anyCollection());
+        verify(reservationSettler, never()).reserveEach(anyList());
+    }
+
+    @Test
+    void claimedIntakeIsPlacedAndItsReservationCommitted() {
+        OrderIntake intake = claimable();
+        when(intakeRepository.renewClaim(eq(List.of(1L)), any(), any())).thenReturn(1);
+        when(intakeRepository.findAllById(List.of(1L))).thenReturn(List.of(intake));
+
+        pipeline.submit(1L);
+
+        verify(reservationSettler, timeout(5000)).claim(List.of("r1"));
+        assertThat(intake.getStatus()).isEqualTo(IntakeStatus.PLACED);
+    }
+
+    @Test
+    void intakeRequeuedWhileBeingPlacedIsNotPlacedAgain() {
+        OrderIntake intake = claimable();
+        when(intakeRepository.renewClaim(eq(List.of(1L)), any(), any())).thenReturn(0);
+
+        pipeline.submit(1L);
+
+        // Once for the group commit, once before marking it failed
+        verify(intakeRepository, timeout(5000).times(2)).renewClaim(eq(List.of(1L)), any(), any());
+        verify(orderRepository, never()).saveAll(anyList());
+        verify(reservationSettler, never()).claim(anyList());
+        verify(reservationSettler).releaseUnlessCommitted(List.of("r1"));
+        verify(intakeRepository, never()).findById(1L);
+        assertThat(intake.getStatus()).isEqualTo(IntakeStatus.PROCESSING);
+    }
+
+    @Test
+    void refusedStockFailsTheIntake() {
+        OrderIntake intake = claimable();
+        when(reservationSettler.reserveEach(anyList()))
+                .thenReturn(List.of(new ReservationOutcome(null, "Insufficient stock for product: 100")));
+        when(intakeRepository.renewClaim(eq(List.of(1L)), any(), any())).thenReturn(1);
+        when(intakeRepository.findAllById(List.of(1L))).thenReturn(List.of(intake));
+
+        pipeline.submit(1L);
+
+        // Claiming no reservations is the last step of the group commit
+        verify(reservationSettler, timeout(5000)).claim(List.of());
+        assertThat(intake.getStatus()).isEqualTo(IntakeStatus.FAILED);
+        assertThat(intake.getFailureReason()).startsWith("Insufficient quantity");
+    }
+
+    @Test
+    void unavailableInventoryRequeuesTheIntake() {
+        claimable();
+        when(reservationSettler.reserveEach(anyList()))
+                .thenThrow(new FeignException.ServiceUnavailable("Service Unavailable", REQUEST, null, Map.of()));
+
+        pipeline.submit(1L);
+
+        verify(intakeRepository, timeout(5000)).updateStatus(eq(List.of(1L)), eq(IntakeStatus.PROCESSING),
+                eq(IntakeStatus.QUEUED), any());
+        verify(intakeRepository, after(200).never()).renewClaim(anyCollection(), any(), any());
+    }
+
+    @Test
+    void passingDatabaseFailureRequeuesTheIntakeInsteadOfFailingIt() {
+        OrderIntake intake = claimable();
+        when(intakeRepository.renewClaim(eq(List.of(1L)), any(), any())).thenReturn(1);
+        when(orderRepository.saveAll(anyList())).thenThrow(new QueryTimeoutException("Lock wait timeout exceeded"));
+
+        pipeline.submit(1L);
+
+        verify(intakeRepository, timeout(5000)).updateStatus(eq(List.of(1L)), eq(IntakeStatus.PROCESSING),
+                eq(IntakeStatus.QUEUED), any());
+        verify(reservationSettler).releaseUnlessCommitted(List.of("r1"));
+        verify(intakeRepository, never()).findById(1L);
+        assertThat(intake.getStatus()).isEqualTo(IntakeStatus.PROCESSING);
+    }
+
+    // Queued intake 1 with one line, which claims, finds its product and reserves as r1
+    private OrderIntake claimable() {
+        OrderIntake intake = new OrderIntake();
+        intake.setId(1L);
+        intake.setBuyerId(7L);
+        intake.setStatus(IntakeStatus.PROCESSING);
+        intake.setUpdatedAt(LocalDateTime.now());
+        intake.getItems().add(new OrderIntakeItem(100L, 2));
+        when(intakeRepository.lockQueued(Set.of(1L))).thenReturn(List.of(1L));
+        when(intakeRepository.updateStatus(eq(List.of(1L)), eq(IntakeStatus.QUEUED), eq(IntakeStatus.PROCESSING), any()))
+                .thenReturn(1);
+        when(intakeRepository.findWithItemsByIdIn(List.of(1L))).thenReturn(List.of(intake));
+        when(intakeRepository.findById(1L)).thenReturn(Optional.of(intake));
+        when(productCatalogClient.getProductsByIds(List.of(100L))).thenReturn(new ProductBatchResponse(
+                List.of(new ProductResponse(100L, 3L, "Trail shoe", null, BigDecimal.TEN, 5)), List.of()));
+        when(reservationSettler.reserveEach(List.of(List.of(new ReservationItem(100L, 2))))).thenReturn(List.of(
+                new ReservationOutcome(new ReservationResponse("r1", "RESERVED", List.of()), null)));
+        return intake;
+    }
+
+    // Runs callbacks and transaction synchronizations without a database
+    private static class SynchronizingTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
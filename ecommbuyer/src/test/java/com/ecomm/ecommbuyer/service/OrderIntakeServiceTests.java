@@ -0,0 +1,63 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.common.security.JwtVerifier;
+import com.ecomm.ecommbuyer.entity.OrderIntake.IntakeStatus;
+import com.ecomm.ecommbuyer.repository.OrderIntakeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderIntakeServiceTests {
+
+    private final OrderIntakeRepository intakeRepository = mock(OrderIntakeRepository.class);
+    private OrderIntakeService orderIntakeService;
+
+    @BeforeEach
+    void setUp() {
+        orderIntakeService = new OrderIntakeService(intakeRepository, mock(JwtVerifier.class), mock(CartStore.class),
+                mock(OrderIntakePipeline.class), new OrderMetrics(new SimpleMeterRegistry()), false);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void synchronousCheckoutIsRefusedWhileAQueuedOrderHoldsTheCart() {
+        when(intakeRepository.existsByBuyerIdAndStatusIn(7L, List.of(IntakeStatus.QUEUED, IntakeStatus.PROCESSING)))
+                .thenReturn(true);
+
+        assertThatThrownBy(() -> orderIntakeService.guardSynchronousCheckout(7L))
+                .hasMessageContaining("already being processed");
+    }
+
+    @Test
+    void secondSynchronousCheckoutIsRefusedUntilTheFirstCompletes() {
+        orderIntakeService.guardSynchronousCheckout(7L);
+
+        assertThatThrownBy(() -> orderIntakeService.guardSynchronousCheckout(7L))
+                .hasMessageContaining("already being processed");
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThatCode(() -> orderIntakeService.guardSynchronousCheckout(7L)).doesNotThrowAnyException();
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -0,0 +1,92 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.ecommbuyer.client.AdminClient;
+import com.ecomm.ecommbuyer.client.ProductCatalogClient;
+import com.ecomm.ecommbuyer.dto.ProductChangeEvent;
+import com.ecomm.ecommbuyer.dto.ProductChangeFeed;
+import com.ecomm.ecommbuyer.dto.ProductChangeSnapshot;
+import com.ecomm.ecommbuyer.dto.ProductResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductChangeSubscriberTests {
+
+    private final AdminClient adminClient = mock(AdminClient.class);
+    private final ProductCatalogClient productCatalogClient = mock(ProductCatalogClient.class);
+    private CatalogCache catalogCache;
+    private ProductChangeSubscriber subscriber;
+
+    @BeforeEach
+    void setUp() {
+        catalogCache = new CatalogCache(productCatalogClient);
+        subscriber = new ProductChangeSubscriber(adminClient, productCatalogClient, catalogCache, 100, 3_600_000);
+    }
+
+    @Test
+    void stockAdjustmentTheReloadAlreadyContainsIsNotAppliedAgain() {
+        // Change 77 took 3 of 10 units and committed before the catalog was read, but the relay sequenced it
+        // only afterwards, as 6; change 78 took 2 more once the catalog was read
+        when(adminClient.getProductChangeSnapshot()).thenReturn(
+                new ProductChangeSnapshot(5, List.of(77L), List.of(product(1L, 7))));
+        when(adminClient.getProductChanges(eq(5L), anyInt())).thenReturn(new ProductChangeFeed(
+                List.of(stockAdjusted(6, 77, 1L, -3), stockAdjusted(7, 78, 1L, -2)), 7, false));
+
+        subscriber.poll();
+        subscriber.poll();
+
+        assertThat(catalogCache.getProducts()).extracting(ProductResponse::getQuantity).containsExactly(5);
+    }
+
+    @Test
+    void pollContinuesAfterTheLastChangeEvenWhenAllOfThemWereSkipped() {
+        when(adminClient.getProductChangeSnapshot()).thenReturn(
+                new ProductChangeSnapshot(5, List.of(77L), List.of(product(1L, 7))));
+        when(adminClient.getProductChanges(eq(5L), anyInt())).thenReturn(new ProductChangeFeed(
+                List.of(stockAdjusted(6, 77, 1L, -3)), 6, false));
+        when(adminClient.getProductChanges(eq(6L), anyInt())).thenReturn(new ProductChangeFeed(
+                List.of(stockAdjusted(7, 78, 1L, -2)), 7, false));
+
+        subscriber.poll();
+        subscriber.poll();
+        subscriber.poll();
+
+        verify(adminClient, times(1)).getProductChanges(eq(5L), anyInt());
+        verify(adminClient, times(1)).getProductChanges(eq(6L), anyInt());
+        assertThat(catalogCache.getProducts()).extracting(ProductResponse::getQuantity).containsExactly(5);
+    }
+
+    @Test
+    void resyncRequiredReplacesTheCatalogWithANewSnapshot() {
+        when(adminClient.getProductChangeSnapshot()).thenReturn(
+                new ProductChangeSnapshot(5, List.of(), List.of(product(1L, 7))),
+                new ProductChangeSnapshot(40, List.of(), List.of(product(1L, 2), product(2L, 9))));
+        when(adminClient.getProductChanges(eq(5L), anyInt())).thenReturn(new ProductChangeFeed(List.of(), 40, true));
+
+        subscriber.poll();
+        subscriber.poll();
+
+        assertThat(catalogCache.getProducts()).extracting(ProductResponse::getQuantity).containsExactly(2, 9);
+        verify(productCatalogClient, never()).getAvailableCatalog(null);
+    }
+
+    private static ProductResponse product(Long id, int quantity) {
+        return new ProductResponse(id, 1L, "Product " + id, null, BigDecimal.TEN, quantity);
+    }
+
+    private static ProductChangeEvent stockAdjusted(long sequence, long changeId, Long productId, int delta) {
+        return new ProductChangeEvent(sequence, changeId, "STOCK_ADJUSTED", productId, null, delta, LocalDateTime.now());
+    }
+}
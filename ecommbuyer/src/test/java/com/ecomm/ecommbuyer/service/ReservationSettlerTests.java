@@ -0,0 +1,214 @@
+package com.ecomm.ecommbuyer.service;
+
+import com.ecomm.ecommbuyer.client.AdminClient;
+import com.ecomm.ecommbuyer.dto.ReservationItem;
+import com.ecomm.ecommbuyer.dto.ReservationOutcome;
+import com.ecomm.ecommbuyer.dto.ReservationResponse;
+import com.ecomm.ecommbuyer.entity.PendingReservation;
+import com.ecomm.ecommbuyer.repository.PendingReservationRepository;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationSettlerTests {
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.POST, "/api/admin/inventory",
+            Map.of(), null, StandardCharsets.UTF_8, null);
+
+    private final AdminClient adminClient = mock(AdminClient.class);
+    private final PendingReservationRepository pendingRepository = mock(PendingReservationRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReservationSettler settler;
+
+    @BeforeEach
+    void setUp() {
+        settler = new ReservationSettler(adminClient, pendingRepository, new OrderMetrics(meterRegistry),
+                transactionManager, 60000, 1000, 2);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void reservationIsRecordedAsPendingBeforeItIsHandedOut() {
+        when(adminClient.reserve(anyList())).thenReturn(new ReservationResponse("r1", "RESERVED", List.of()));
+
+        String reservationId = settler.reserve(List.of(new ReservationItem(1L, 2)));
+
+        assertThat(reservationId).isEqualTo("r1");
+        verify(pendingRepository).insert(eq("r1"), any(), any());
+    }
+
+    @Test
+    void onlyGrantedReservationsOfABatchAreRecordedAsPending() {
+        List<List<ReservationItem>> requests = List.of(List.of(new ReservationItem(1L, 2)),
+                List.of(new ReservationItem(2L, 3)));
+        when(adminClient.reserveEach(requests)).thenReturn(List.of(
+                new ReservationOutcome(new ReservationResponse("r1", "RESERVED", List.of()), null),
+                new ReservationOutcome(null, "Insufficient stock for product: 2")));
+
+        List<ReservationOutcome> outcomes = settler.reserveEach(requests);
+
+        assertThat(outcomes).hasSize(2);
+        verify(pendingRepository).insert(eq("r1"), any(), any());
+        verify(pendingRepository, never()).insert(eq(null), any(), any());
+    }
+
+    @Test
+    void claimCommitsAtEcommadminOnlyWhenEveryReservationIsStillPending() {
+        when(pendingRepository.deleteClaimable(List.of("r1", "r2"))).thenReturn(2);
+
+        settler.claim(List.of("r1", "r2"));
+
+        verify(adminClient).commitReservations(List.of("r1", "r2"));
+        assertThat(meterRegistry.get("orders.reservations").tag("outcome", "committed").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void claimFailsWithoutCommittingWhenAReservationWasAlreadyReleased() {
+        when(pendingRepository.deleteClaimable(List.of("r1", "r2"))).thenReturn(1);
+
+        assertThatThrownBy(() -> settler.claim(List.of("r1", "r2")))
+                .hasMessageContaining("released before the order was stored");
+        verify(adminClient, never()).commitReservations(anyList());
+    }
+
+    @Test
+    void failedCommitAtEcommadminFailsTheOrderTransaction() {
+        when(pendingRepository.deleteClaimable(List.of("r1"))).thenReturn(1);
+        doThrow(conflict()).when(adminClient).commitReservations(List.of("r1"));
+
+        assertThatThrownBy(() -> settler.claim(List.of("r1")))
+                .hasMessageContaining("Could not commit stock reservation");
+    }
+
+    @Test
+    void rolledBackOrderReleasesItsStillPendingReservation() {
+        when(pendingRepository.lockById("r1")).thenReturn(List.of("r1"));
+        settler.releaseUnlessCommitted(List.of("r1"));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verify(adminClient).releaseReservation("r1");
+        verify(pendingRepository).deleteById("r1");
+    }
+
+    @Test
+    void orderWhoseCommitOutcomeIsUnknownKeepsAReservationItAlreadyClaimed() {
+        // The order transaction deleted the row before the connection was lost, so it was stored
+        when(pendingRepository.lockById("r1")).thenReturn(List.of());
+        settler.releaseUnlessCommitted(List.of("r1"));
+
+        complete(TransactionSynchronization.STATUS_UNKNOWN);
+
+        verify(adminClient, never()).releaseReservation(anyString());
+    }
+
+    @Test
+    void committedOrderReleasesNothing() {
+        settler.releaseUnlessCommitted(List.of("r1"));
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(pendingRepository, never()).lockById(anyString());
+        verify(adminClient, never()).releaseReservation(anyString());
+    }
+
+    @Test
+    void unreachableEcommadminKeepsTheReservationForARetryWithBackoff() {
+        PendingReservation pending = new PendingReservation();
+        pending.setAttempts(3);
+        when(pendingRepository.lockDue(any(), anyInt())).thenReturn(List.of("r1"));
+        when(pendingRepository.findById("r1")).thenReturn(Optional.of(pending));
+        when(adminClient.releaseReservation("r1")).thenThrow(new FeignException.ServiceUnavailable(
+                "Service Unavailable", REQUEST, null, Map.of()));
+        LocalDateTime before = LocalDateTime.now();
+
+        settler.releaseAbandoned();
+
+        verify(pendingRepository, never()).deleteById(anyString());
+        verify(pendingRepository).recordFailure(eq("r1"),
+                argThat(next -> !next.isBefore(before.plusSeconds(8))), anyString());
+    }
+
+    @Test
+    void ecommadminIsCalledOnlyAfterTheDueRowsWereMarkedAndCommitted() {
+        when(pendingRepository.lockDue(any(), anyInt())).thenReturn(List.of("r1"));
+
+        settler.releaseAbandoned();
+
+        InOrder inOrder = inOrder(pendingRepository, transactionManager, adminClient);
+        inOrder.verify(pendingRepository).markReleasing(eq(List.of("r1")), any(), any());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(adminClient).releaseReservation("r1");
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(pendingRepository).deleteById("r1");
+    }
+
+    @Test
+    void reservationUnknownToEcommadminIsDropped() {
+        when(pendingRepository.lockDue(any(), anyInt())).thenReturn(List.of("r1"));
+        when(adminClient.releaseReservation("r1")).thenThrow(conflict());
+
+        settler.releaseAbandoned();
+
+        verify(pendingRepository).deleteById("r1");
+    }
+
+    @Test
+    void abandonedReservationsAreReleasedInBatchesUntilNoneAreDue() {
+        when(pendingRepository.lockDue(any(), eq(2)))
+                .thenReturn(List.of("r1", "r2"))
+                .thenReturn(List.of("r3"));
+
+        settler.releaseAbandoned();
+
+        verify(adminClient).releaseReservation("r1");
+        verify(adminClient).releaseReservation("r2");
+        verify(adminClient).releaseReservation("r3");
+        assertThat(meterRegistry.get("orders.reservations").tag("outcome", "released").counter().count())
+                .isEqualTo(3);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static FeignException conflict() {
+        return new FeignException.Conflict("Conflict", REQUEST, null, Map.of());
+    }
+}